@@ -45,8 +45,8 @@ import com.github.sourguice.appengine.appadmin.annotation.CronTask;
 import com.github.sourguice.appengine.appadmin.internal.AppAdminViewRenderer;
 import com.github.sourguice.appengine.appadmin.internal.TaskParamArgumentFetcher;
 import com.github.sourguice.appengine.upload.annotation.UploadMapping;
-import com.github.sourguice.call.CalltimeArgumentFetcher;
 import com.github.sourguice.call.MvcCaller;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.throwable.controller.MVCHttpServletResponseException;
 import com.github.sourguice.throwable.controller.MVCHttpServletResponseSendErrorException;
 import com.github.sourguice.utils.Annotations;
@@ -271,7 +271,7 @@ public class AppAdminController {
 		else {
 			final List<String> messages = new ArrayList<String>();
 			Object ret = caller.call(task.clazz, task.method, null, false, tpFetcher,
-				new CalltimeArgumentFetcher<TaskMessageSender>() {
+				new StaticCalltimeArgumentFetcher<TaskMessageSender>() {
 					@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 						return GenericTypeReflector.erase(type).equals(TaskMessageSender.class);
 					}
@@ -319,7 +319,7 @@ public class AppAdminController {
 
 		try {
 			Object ret = caller.call(task.clazz, task.method, null, false, tpFetcher,
-				new CalltimeArgumentFetcher<TaskMessageSender>() {
+				new StaticCalltimeArgumentFetcher<TaskMessageSender>() {
 					@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 						return GenericTypeReflector.erase(type).equals(TaskMessageSender.class);
 					}
@@ -465,7 +465,7 @@ public class AppAdminController {
 				else {
 					final TaskMessageSender finalSender = sender;
 					sender.sendMessage("<b>Running " + task.clazz.getName() + "." + task.method.getName() + "</b>");
-					Object ret = caller.call(task.clazz, task.method, null, false, new CalltimeArgumentFetcher<TaskMessageSender>() {
+					Object ret = caller.call(task.clazz, task.method, null, false, new StaticCalltimeArgumentFetcher<TaskMessageSender>() {
 						@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 							return GenericTypeReflector.erase(type).equals(TaskMessageSender.class);
 						}
@@ -509,7 +509,7 @@ public class AppAdminController {
 			return ;
 		for (AaTask task : tasks)
 			if (task.clazz.getName().equals(className) && task.method.toGenericString().equals(methodName)) {
-				caller.call(task.clazz, task.method, null, false, new CalltimeArgumentFetcher<TaskMessageSender>() {
+				caller.call(task.clazz, task.method, null, false, new StaticCalltimeArgumentFetcher<TaskMessageSender>() {
 					@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 						return GenericTypeReflector.erase(type).equals(TaskMessageSender.class);
 					}
@@ -8,12 +8,12 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 
 import com.github.sourguice.appengine.appadmin.annotation.AdminTaskParam;
-import com.github.sourguice.call.CalltimeArgumentFetcher;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.utils.Annotations;
 import com.googlecode.gentyref.GenericTypeReflector;
 
-public final class TaskParamArgumentFetcher implements CalltimeArgumentFetcher<Object> {
+public final class TaskParamArgumentFetcher implements StaticCalltimeArgumentFetcher<Object> {
 
 	private ConversionService _conversion;
 	private HttpServletRequest _req;
@@ -25,8 +25,8 @@ import javax.servlet.http.HttpServletResponse;
 import com.github.sourguice.appengine.upload.UploadResult;
 import com.github.sourguice.appengine.upload.annotation.UploadMapping;
 import com.github.sourguice.appengine.upload.annotation.Uploaded;
-import com.github.sourguice.call.CalltimeArgumentFetcher;
 import com.github.sourguice.call.MvcCaller;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.throwable.invocation.HandledException;
 import com.github.sourguice.utils.Annotations;
 import com.github.sourguice.utils.Reflect;
@@ -169,7 +169,7 @@ public abstract class BaseUploadServlet extends HttpServlet {
 
 			assert injector != null;
 			Object ret = injector.getInstance(MvcCaller.class).call(uploadClass, method, null, false,
-				new CalltimeArgumentFetcher<Object>() {
+				new StaticCalltimeArgumentFetcher<Object>() {
 					@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 						Class<?> clazz = GenericTypeReflector.erase(type);
 						return (clazz.equals(UploadResult.class) || clazz.equals(UploadResult[].class)) && Annotations.fromArray(annos).getAnnotation(Uploaded.class) != null;
@@ -184,7 +184,7 @@ public abstract class BaseUploadServlet extends HttpServlet {
 						return resultsMap.get(infos.value()).toArray(new UploadResult[0]);
 					}
 				},
-				new CalltimeArgumentFetcher<Map<String, List<BlobKey>>>() {
+				new StaticCalltimeArgumentFetcher<Map<String, List<BlobKey>>>() {
 					@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 						Type searchType = new TypeToken<Map<String, List<BlobKey>>>(){}.getType();
 						return searchType.equals(type);
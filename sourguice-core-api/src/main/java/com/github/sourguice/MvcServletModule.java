@@ -3,6 +3,7 @@ package com.github.sourguice;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.lang.annotation.Annotation;
 import java.util.regex.MatchResult;
 
 import javax.annotation.CheckForNull;
@@ -11,6 +12,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.github.sourguice.annotation.request.GuiceRequest;
+import com.github.sourguice.annotation.request.GuiceResponse;
 import com.github.sourguice.annotation.request.RequestMapping;
 import com.github.sourguice.request.ForwardableRequestFactory;
 import com.github.sourguice.utils.RequestScopeContainer;
@@ -61,6 +63,11 @@ public abstract class MvcServletModule extends ServletModule {
 		 * @see MvcServletModule#redirect(String, String...)
 		 */
 		public RedirectBuilder redirect(final String pattern, final String... patterns);
+
+		/**
+		 * @see MvcServletModule#indexAnnotations(Class...)
+		 */
+		public void indexAnnotations(Class<? extends Annotation>[] annotationClasses);
 	}
 
 	/**
@@ -89,22 +96,22 @@ public abstract class MvcServletModule extends ServletModule {
 	/**
 	 * Registers in guice the PrintWriter class to be binded to the request's response writer
 	 * 
-	 * @param res The current HTTP response object
+	 * @param res The response the MVC system writes to
 	 * @return The response writer
 	 * @throws IOException If an input or output exception occurs
 	 */
-	@Provides @RequestScoped public PrintWriter getRequestPrintWriter(HttpServletResponse res) throws IOException {
+	@Provides @RequestScoped public PrintWriter getRequestPrintWriter(@GuiceResponse HttpServletResponse res) throws IOException {
 		return res.getWriter();
 	}
 
 	/**
 	 * Registers in guice the Writer class to be binded to the request's response writer
 	 * 
-	 * @param res The current HTTP response object
+	 * @param res The response the MVC system writes to
 	 * @return The response writer
 	 * @throws IOException If an input or output exception occurs
 	 */
-	@Provides @RequestScoped public Writer getRequestWriter(HttpServletResponse res) throws IOException {
+	@Provides @RequestScoped public Writer getRequestWriter(@GuiceResponse HttpServletResponse res) throws IOException {
 		return res.getWriter();
 	}
 	
@@ -121,6 +128,20 @@ public abstract class MvcServletModule extends ServletModule {
 		return r;
 	}
 
+	/**
+	 * Registers in guice the HttpServletResponse class annotated with @{@link GuiceResponse}
+	 * to be binded to the response the MVC system writes to
+	 * This is not request scoped as the response may be wrapped once the request is being served.
+	 * 
+	 * @param container The request's scoped object container
+	 * @param res The current HTTP response object
+	 * @return The response stored in the container, or the current HTTP response if none were
+	 */
+	@Provides @GuiceResponse public HttpServletResponse getGuiceResponse(RequestScopeContainer container, HttpServletResponse res) {
+		HttpServletResponse r = container.get(HttpServletResponse.class);
+		return r != null ? r : res;
+	}
+
 	/**
 	 * Registers in guice the MatchResult class to be binded to the request's URL parsed path variables
 	 * according to the request's {@link RequestMapping}
@@ -226,6 +247,18 @@ public abstract class MvcServletModule extends ServletModule {
 		return helper.redirect(pattern, patterns);
 	}
 	
+	/**
+	 * Asks for all lookups of the given annotations on the controllers and their methods to be done when the module is configured
+	 * Annotation lookups are memoized anyway when they first happen, this permits to do them before serving the first requests.
+	 * This should be called in {@link #configureControllers()}, and applies to all controllers registered by this module.
+	 * 
+	 * @param annotationClasses The annotation classes to look for
+	 */
+	@SafeVarargs
+	public final void indexAnnotations(Class<? extends Annotation>... annotationClasses) {
+		helper.indexAnnotations(annotationClasses);
+	}
+
 	/**
 	 * Allows implementation proxy class to access the actual binder
 	 * This is needed because the protected permission allows the implementation proxy,
@@ -0,0 +1,24 @@
+package com.github.sourguice.annotation.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the views rendered for GET and HEAD requests must be buffered before being sent.
+ * The buffered view is sent with its Content-Length and a strong ETag computed from its bytes,
+ * and the request is answered with 304 Not Modified if its If-None-Match header matches this ETag.
+ * The view is still rendered, only its transfer is saved (see {@link LastModified} to avoid rendering).
+ * <p>
+ * The view renderer must write to the response that is bound to @{@link com.github.sourguice.annotation.request.GuiceResponse}
+ * (which the default renderers do).
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.PACKAGE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BufferView {
+}
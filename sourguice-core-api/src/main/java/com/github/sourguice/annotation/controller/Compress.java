@@ -0,0 +1,41 @@
+package com.github.sourguice.annotation.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Indicates that the responses of a controller (or of a method) must be compressed when the client accepts it.
+ * The Accept-Encoding header of the request is negotiated (gzip is preferred to deflate)
+ * and the response body is compressed while it is written, whether it is written by @Writes, a view renderer or the method itself.
+ * <p>
+ * Only responses of the given content types, of at least the given size, are compressed.
+ * Responses that already have a Content-Encoding, ranges and responses without body are sent as they are.
+ * Compressible responses get a "Vary: Accept-Encoding" header, and their strong ETag is made weak when they are compressed.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.PACKAGE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Compress {
+	/**
+	 * @return The smallest body size, in bytes, that is compressed
+	 */
+	public @Nonnegative int minSize() default 1024;
+
+	/**
+	 * @return The compressible content types, either full ("application/json") or by type ("text/*")
+	 */
+	public String[] types() default { "text/*", "application/json", "application/javascript", "application/xml" };
+
+	/**
+	 * @return The compression level, from 0 (none) to 9 (best), or -1 for the default level
+	 */
+	public int level() default Deflater.DEFAULT_COMPRESSION;
+}
@@ -0,0 +1,26 @@
+package com.github.sourguice.annotation.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates the method of a controller that gives the last modification time of what the controller sends.
+ * For each GET and HEAD request served by the controller, this method is called before the request's handler.
+ * It must return a long (milliseconds since the epoch) or a {@link java.util.Date}, or a negative number or null if the time is unknown.
+ * The response gets a Last-Modified header and, if the If-Modified-Since header of the request is not older,
+ * the request is answered with 304 Not Modified without calling its handler nor rendering any view.
+ * <p>
+ * The arguments of the method are fetched like those of a @{@link com.github.sourguice.annotation.request.RequestMapping} method,
+ * with the path variables of the request's handler.
+ * A controller should have at most one such method.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LastModified {
+}
@@ -0,0 +1,44 @@
+package com.github.sourguice.annotation.request;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Indicates that the response produced by the annotated method to a GET request may be kept in memory and sent again,
+ * without invoking the method, to the following GET requests on the same path for the given time.
+ * The status, headers and body produced through @{@link Writes}, the view renderer or @{@link com.github.sourguice.annotation.controller.SendsError}
+ * are kept in the {@link com.github.sourguice.cache.ResponseCache}.
+ * Responses that set cookies, redirect, or fail with an error that is not sent by @SendsError are never kept.
+ * A kept response is answered with 304 Not Modified to conditional requests that match its ETag or Last-Modified header,
+ * and requests with a Range header always invoke the method.
+ * <p>
+ * The response must only depend on the request path and on the parameters and headers declared by {@link #varyOn()} and {@link #varyOnHeaders()}.
+ * Views must write to the response that is bound to @{@link GuiceResponse} (which the default renderers do).
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheResponse {
+	/**
+	 * @return Number of seconds during which the response is sent again
+	 */
+	public @Nonnegative int ttl();
+
+	/**
+	 * @return Names of the request parameters the response depends on.
+	 *         When empty, the response depends on the whole query string.
+	 */
+	public String[] varyOn() default {};
+
+	/**
+	 * @return Names of the request headers the response depends on
+	 */
+	public String[] varyOnHeaders() default {};
+}
@@ -0,0 +1,31 @@
+package com.github.sourguice.annotation.request;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.annotation.Nonnull;
+import javax.annotation.meta.TypeQualifier;
+import javax.annotation.meta.TypeQualifierNickname;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.inject.BindingAnnotation;
+
+/**
+ * This is a Guice Binding Annotation that must be used only on HttpServletResponse.
+ * This indicates that the requested response object is the one the MVC system writes to for the current request
+ * (which may be a wrapper of the one provided by the servlet container, for example to keep a copy of the response).
+ * View renderers should write to this response.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+@BindingAnnotation
+@Target({ ElementType.FIELD, ElementType.PARAMETER, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@TypeQualifier(applicableTo = HttpServletResponse.class)
+@TypeQualifierNickname @Nonnull
+public @interface GuiceResponse {
+}
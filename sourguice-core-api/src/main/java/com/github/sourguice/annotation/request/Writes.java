@@ -13,6 +13,9 @@ import javax.annotation.meta.TypeQualifierNickname;
 /**
  * Indicates that the MVC system must writes the return of the annotated method directly to the response
  * rather than interpreting it as the view name.
+ * Binary results (byte[], ByteBuffer, InputStream, ReadableByteChannel and FileChannel) are written as bytes to the response output stream,
+ * files with their Content-Length. Readable results are written as characters, and any other result as its string value.
+ * An {@link com.github.sourguice.resource.HttpResource} is sent with its metadata, and range and conditional requests on it are answered.
  * 
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
@@ -22,7 +25,7 @@ import javax.annotation.meta.TypeQualifierNickname;
 @TypeQualifierNickname @Nonnull
 public @interface Writes {
 	/**
-	 * @return Size of the buffer that will be used to write to the response
+	 * @return Size of the buffer that will be used to write to the response (binary streams are copied with a buffer of at most 64KB)
 	 */
 	public @Nonnegative int bufferSize() default 512;
 }
@@ -0,0 +1,67 @@
+package com.github.sourguice.cache;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Singleton service that keeps the responses of the methods annotated with @{@link com.github.sourguice.annotation.request.CacheResponse}
+ * The cache is bounded by the size of the kept responses: the least recently used ones are evicted when it is full,
+ * and responses are removed when their time to live is over.
+ * Its counters can be read to monitor it.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public interface ResponseCache {
+
+	/**
+	 * @return Number of requests that were answered with a kept response
+	 */
+	public abstract long getHits();
+
+	/**
+	 * @return Number of requests to cacheable methods that could not be answered with a kept response
+	 */
+	public abstract long getMisses();
+
+	/**
+	 * @return Ratio of hits among the requests to cacheable methods, between 0 and 1 (0 if there were no requests)
+	 */
+	public abstract double getHitRatio();
+
+	/**
+	 * @return Number of responses that were removed to make room for others
+	 */
+	public abstract long getEvictions();
+
+	/**
+	 * @return Number of responses that were removed because their time to live was over
+	 */
+	public abstract long getExpirations();
+
+	/**
+	 * @return Number of responses currently kept
+	 */
+	public abstract int getCount();
+
+	/**
+	 * @return Approximate size, in bytes, of the responses currently kept
+	 */
+	public abstract long getSize();
+
+	/**
+	 * @return Maximum size, in bytes, of the responses kept
+	 */
+	public abstract long getMaxSize();
+
+	/**
+	 * Sets the maximum size of the cache, evicting responses if needed
+	 * A single response bigger than an eighth of this size is never kept.
+	 *
+	 * @param maxSize Maximum size, in bytes, of the responses kept
+	 */
+	public abstract void setMaxSize(@Nonnegative long maxSize);
+
+	/**
+	 * Removes all kept responses (counters are not reset)
+	 */
+	public abstract void clear();
+}
@@ -0,0 +1,5 @@
+/**
+ * Cache of the responses of the methods annotated with @CacheResponse
+ */
+@com.github.sourguice.annotation.EverythingIsNonnullAndTaintedByDefault
+package com.github.sourguice.cache;
@@ -0,0 +1,18 @@
+package com.github.sourguice.call;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * A {@link CalltimeArgumentFetcher} whose claims are static:
+ * {@link #canGet(Type, int, Annotation[])} only depends on its arguments, never on the state of the fetcher.
+ * <p>
+ * This allows an invocation to ask each parameter position only once per fetcher class and to remember the answer,
+ * instead of asking every fetcher for every parameter on every call.
+ * Anonymous classes are fine: each anonymous class declaration is one fetcher class.
+ *
+ * @param <T> Which type of argument. This is for type safety only, one CalltimeArgumentFetcher can handle multiple types. 
+ * 
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public interface StaticCalltimeArgumentFetcher<T> extends CalltimeArgumentFetcher<T> {}
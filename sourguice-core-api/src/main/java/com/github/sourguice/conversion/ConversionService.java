@@ -46,7 +46,7 @@ public interface ConversionService {
 	 * Converts a string or an array of string into a value or an array of values
 	 * 
 	 * @param toClazz The class to convert to.
-	 *                If 'from' is an array, then primitive types are not allowed
+	 *                If 'from' is an array of arrays, then primitive types are not allowed
 	 * @param from The String or String[] to convert from (only String or String[])
 	 * @return The value or array of values
 	 * @throws NoConverterException When no converter is found for the specific type (RuntimeException)
@@ -0,0 +1,77 @@
+package com.github.sourguice.conversion;
+
+/**
+ * Interfaces that a {@link Converter} can implement to convert a String directly to a primitive value, without boxing
+ * Arrays of primitives are converted with these when the converter of their component type implements them.
+ * The value returned must be the one the converter would return (unboxed) for the primitive class.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public interface PrimitiveConverter {
+
+	/**
+	 * Converts a String to an int
+	 */
+	public static interface OfInt {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public int getInt(String arg);
+	}
+
+	/**
+	 * Converts a String to a long
+	 */
+	public static interface OfLong {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public long getLong(String arg);
+	}
+
+	/**
+	 * Converts a String to a short
+	 */
+	public static interface OfShort {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public short getShort(String arg);
+	}
+
+	/**
+	 * Converts a String to a double
+	 */
+	public static interface OfDouble {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public double getDouble(String arg);
+	}
+
+	/**
+	 * Converts a String to a float
+	 */
+	public static interface OfFloat {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public float getFloat(String arg);
+	}
+
+	/**
+	 * Converts a String to a boolean
+	 */
+	public static interface OfBoolean {
+		/**
+		 * @param arg The string to convert
+		 * @return The conversion result
+		 */
+		public boolean getBoolean(String arg);
+	}
+}
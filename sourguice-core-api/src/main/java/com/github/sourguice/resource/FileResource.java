@@ -0,0 +1,80 @@
+package com.github.sourguice.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * A file sent as an {@link HttpResource}.
+ * Its entity tag is made of its length and last modification time.
+ * 
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public class FileResource implements HttpResource {
+
+	/**
+	 * The file to send
+	 */
+	private final File file;
+
+	/**
+	 * The content type of the file, or null to keep the content type of the response
+	 */
+	private final @CheckForNull String contentType;
+
+	/**
+	 * @param file The file to send
+	 * @param contentType The content type of the file, or null to keep the content type of the response
+	 */
+	public FileResource(File file, @CheckForNull String contentType) {
+		this.file = file;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * @param file The file to send
+	 */
+	public FileResource(File file) {
+		this(file, null);
+	}
+
+	/**
+	 * @return The file to send
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public long getLength() {
+		return file.length();
+	}
+
+	@Override
+	public long getLastModified() {
+		long lastModified = file.lastModified();
+		return lastModified > 0 ? lastModified : -1;
+	}
+
+	@Override
+	public @CheckForNull String getETag() {
+		long lastModified = getLastModified();
+		if (lastModified < 0)
+			return null;
+		return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(getLength()) + "\"";
+	}
+
+	@Override
+	public @CheckForNull String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public SeekableByteChannel open() throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.sourguice.resource;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+import javax.annotation.CheckForNull;
+
+import com.github.sourguice.annotation.request.Writes;
+
+/**
+ * Content of known length that a @{@link Writes} method can return.
+ * The MVC system sends it with its metadata (Content-Length, Last-Modified and ETag headers)
+ * and answers conditional requests (If-None-Match, If-Modified-Since) and byte range requests (Range, If-Range) itself,
+ * reading only the bytes that are sent.
+ * 
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public interface HttpResource {
+	/**
+	 * @return The length of the content, in bytes
+	 * @throws IOException If the length could not be read
+	 */
+	public long getLength() throws IOException;
+
+	/**
+	 * @return The last modification time of the content, in milliseconds since the epoch, or -1 if it is unknown
+	 */
+	public long getLastModified();
+
+	/**
+	 * @return The strong entity tag of the content, with its quotes, or null if it has none
+	 */
+	public @CheckForNull String getETag();
+
+	/**
+	 * @return The content type of the content, or null to keep the content type of the response
+	 */
+	public @CheckForNull String getContentType();
+
+	/**
+	 * Opens the content to read it.
+	 * The MVC system closes the channel once the response is sent.
+	 * 
+	 * @return A channel positioned at the start of the content
+	 * @throws IOException If the content could not be opened
+	 */
+	public SeekableByteChannel open() throws IOException;
+}
@@ -0,0 +1,5 @@
+/**
+ * Resources that @Writes methods can return to be sent with their metadata (ranges and conditional requests)
+ */
+@com.github.sourguice.annotation.EverythingIsNonnullAndTaintedByDefault
+package com.github.sourguice.resource;
@@ -4,17 +4,113 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.CheckForNull;
 
 /**
  * Annotations related utils
+ * Tree lookups (GetOneTree, GetOneTreeRecursive, GetAllTree and GetAllTreeRecursive) on classes and members are memoized:
+ * each lookup is computed once per element and annotation class and its result is shared by all further calls.
  * 
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 public final class Annotations {
+
+	/**
+	 * Marks a memoized lookup that found nothing
+	 */
+	static private final Object NONE = new Object();
+
+	/**
+	 * Memoized results of a kind of tree lookup
+	 * Results are stored with the class that owns the element (the class itself or the declaring class of a member)
+	 * so that they do not outlive it, then by element and by searched annotation class.
+	 */
+	static private final class Index extends ClassValue<ConcurrentHashMap<AnnotatedElement, ConcurrentHashMap<Class<?>, Object>>> {
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override protected ConcurrentHashMap<AnnotatedElement, ConcurrentHashMap<Class<?>, Object>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<AnnotatedElement, ConcurrentHashMap<Class<?>, Object>>();
+		}
+
+		/**
+		 * @param element The element on which the lookup is done
+		 * @return The memoized results of the element, by searched annotation class, or null if the element cannot be memoized
+		 */
+		@CheckForNull ConcurrentHashMap<Class<?>, Object> of(AnnotatedElement element) {
+			Class<?> owner;
+			if (element instanceof Class)
+				owner = (Class<?>)element;
+			else if (element instanceof Member)
+				owner = ((Member)element).getDeclaringClass();
+			else
+				return null;
+			ConcurrentHashMap<AnnotatedElement, ConcurrentHashMap<Class<?>, Object>> elements = get(owner);
+			ConcurrentHashMap<Class<?>, Object> results = elements.get(element);
+			if (results == null) {
+				results = new ConcurrentHashMap<Class<?>, Object>();
+				ConcurrentHashMap<Class<?>, Object> previous = elements.putIfAbsent(element, results);
+				if (previous != null)
+					results = previous;
+			}
+			return results;
+		}
+	}
+
+	/**
+	 * Memoized results of {@link #GetOneTree(AnnotatedElement, Class)}
+	 */
+	static private final Index oneTree = new Index();
+
+	/**
+	 * Memoized results of {@link #GetOneTreeRecursive(AnnotatedElement, Class)}
+	 */
+	static private final Index oneTreeRecursive = new Index();
+
+	/**
+	 * Memoized results of {@link #GetAllTree(AnnotatedElement, Class)}
+	 */
+	static private final Index allTree = new Index();
+
+	/**
+	 * Memoized results of {@link #GetAllTreeRecursive(AnnotatedElement, Class)}
+	 */
+	static private final Index allTreeRecursive = new Index();
+
+	/**
+	 * Runs all tree lookups of the given annotation classes on a class and on all its public methods
+	 * This is optional as lookups are memoized when they first happen,
+	 * but it permits to do them all at configuration time rather than when serving the first requests.
+	 * 
+	 * @param clazz The class to index
+	 * @param annotationClasses The annotation classes to look for
+	 */
+	public static void Index(Class<?> clazz, List<Class<? extends Annotation>> annotationClasses) {
+		for (Class<? extends Annotation> annotationClass : annotationClasses) {
+			IndexElement(clazz, annotationClass);
+			for (Method method : clazz.getMethods())
+				IndexElement(method, annotationClass);
+		}
+	}
+
+	/**
+	 * Runs all tree lookups of an annotation class on an element
+	 * 
+	 * @param element The element to index
+	 * @param annotationClass The annotation class to look for
+	 */
+	private static void IndexElement(AnnotatedElement element, Class<? extends Annotation> annotationClass) {
+		GetOneTree(element, annotationClass);
+		GetOneTreeRecursive(element, annotationClass);
+		GetAllTree(element, annotationClass);
+		GetAllTreeRecursive(element, annotationClass);
+	}
 	
 	/**
 	 * Encapsulates an array of annotations into an AnnotatedElement
@@ -109,8 +205,29 @@ public final class Annotations {
 	 * @param annotationClass The class of the annotation to find
 	 * @return The annotation if found or null
 	 */
+	@SuppressWarnings("unchecked")
 	public static @CheckForNull <T extends Annotation> T GetOneTree(AnnotatedElement element, Class<T> annotationClass) {
-		
+		ConcurrentHashMap<Class<?>, Object> results = oneTree.of(element);
+		if (results == null)
+			return ComputeOneTree(element, annotationClass);
+		Object find = results.get(annotationClass);
+		if (find == null) {
+			find = ComputeOneTree(element, annotationClass);
+			if (find == null)
+				find = NONE;
+			results.put(annotationClass, find);
+		}
+		return find != NONE ? (T)find : null;
+	}
+
+	/**
+	 * Actually searches for {@link #GetOneTree(AnnotatedElement, Class)}
+	 * 
+	 * @param element The element from which to search the annotation
+	 * @param annotationClass The class of the annotation to find
+	 * @return The annotation if found or null
+	 */
+	private static @CheckForNull <T extends Annotation> T ComputeOneTree(AnnotatedElement element, Class<T> annotationClass) {
 		T find = element.getAnnotation(annotationClass);
 		if (find != null)
 			return find;
@@ -140,7 +257,29 @@ public final class Annotations {
 	 * @param annotationClass The class of the annotation to find
 	 * @return The annotation if found or null
 	 */
+	@SuppressWarnings("unchecked")
 	public static @CheckForNull <T extends Annotation> T GetOneTreeRecursive(AnnotatedElement element, Class<T> annotationClass) {
+		ConcurrentHashMap<Class<?>, Object> results = oneTreeRecursive.of(element);
+		if (results == null)
+			return ComputeOneTreeRecursive(element, annotationClass);
+		Object find = results.get(annotationClass);
+		if (find == null) {
+			find = ComputeOneTreeRecursive(element, annotationClass);
+			if (find == null)
+				find = NONE;
+			results.put(annotationClass, find);
+		}
+		return find != NONE ? (T)find : null;
+	}
+
+	/**
+	 * Actually searches for {@link #GetOneTreeRecursive(AnnotatedElement, Class)}
+	 * 
+	 * @param element The element from which to search the annotation
+	 * @param annotationClass The class of the annotation to find
+	 * @return The annotation if found or null
+	 */
+	private static @CheckForNull <T extends Annotation> T ComputeOneTreeRecursive(AnnotatedElement element, Class<T> annotationClass) {
 		T find = GetOneRecursive(annotationClass, element.getAnnotations());
 		if (find != null)
 			return find;
@@ -223,9 +362,29 @@ public final class Annotations {
 	 * 
 	 * @param element The element from which to search the annotations
 	 * @param annotationClass The class of the annotations to find
-	 * @return The annotation if found or null
+	 * @return The unmodifiable list of found annotations
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T extends Annotation> List<T> GetAllTree(AnnotatedElement element, Class<T> annotationClass) {
+		ConcurrentHashMap<Class<?>, Object> results = allTree.of(element);
+		if (results == null)
+			return ComputeAllTree(element, annotationClass);
+		Object list = results.get(annotationClass);
+		if (list == null) {
+			list = ComputeAllTree(element, annotationClass);
+			results.put(annotationClass, list);
+		}
+		return (List<T>)list;
+	}
+
+	/**
+	 * Actually searches for {@link #GetAllTree(AnnotatedElement, Class)}
+	 * 
+	 * @param element The element from which to search the annotations
+	 * @param annotationClass The class of the annotations to find
+	 * @return The unmodifiable list of found annotations
+	 */
+	private static <T extends Annotation> List<T> ComputeAllTree(AnnotatedElement element, Class<T> annotationClass) {
 		List<T> list = new LinkedList<T>();
 		
 		T find = element.getAnnotation(annotationClass);
@@ -246,7 +405,7 @@ public final class Annotations {
 			list.addAll(GetAllTree(((Class<?>)element).getPackage(), annotationClass));
 		}
 
-		return list;
+		return Collections.unmodifiableList(new ArrayList<T>(list));
 	}
 
 	/**
@@ -255,9 +414,29 @@ public final class Annotations {
 	 * 
 	 * @param element The element from which to search the annotations
 	 * @param annotationClass The class of the annotations to find
-	 * @return The annotation if found or null
+	 * @return The unmodifiable list of found annotations
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T extends Annotation> List<T> GetAllTreeRecursive(AnnotatedElement element, Class<T> annotationClass) {
+		ConcurrentHashMap<Class<?>, Object> results = allTreeRecursive.of(element);
+		if (results == null)
+			return ComputeAllTreeRecursive(element, annotationClass);
+		Object list = results.get(annotationClass);
+		if (list == null) {
+			list = ComputeAllTreeRecursive(element, annotationClass);
+			results.put(annotationClass, list);
+		}
+		return (List<T>)list;
+	}
+
+	/**
+	 * Actually searches for {@link #GetAllTreeRecursive(AnnotatedElement, Class)}
+	 * 
+	 * @param element The element from which to search the annotations
+	 * @param annotationClass The class of the annotations to find
+	 * @return The unmodifiable list of found annotations
+	 */
+	private static <T extends Annotation> List<T> ComputeAllTreeRecursive(AnnotatedElement element, Class<T> annotationClass) {
 		List<T> list = new LinkedList<T>();
 
 		list.addAll(GetAllRecursive(annotationClass, element.getAnnotations()));
@@ -274,6 +453,6 @@ public final class Annotations {
 			list.addAll(GetAllTreeRecursive(((Class<?>)element).getPackage(), annotationClass));
 		}
 
-		return list;
+		return Collections.unmodifiableList(new ArrayList<T>(list));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.github.sourguice.utils;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Registrations (typically a map keyed by class) and a cache of the value resolved from them for each class that is asked.
+ * <p>
+ * Registrations are never modified once published: a registration copies them, modifies the copy and publishes it.
+ * Each published registrations come with their own (empty) cache, so lookups never lock and a registration drops the cache.
+ * Classes for which nothing is resolved are cached too.
+ * <p>
+ * Publishing is not synchronized: concurrent registrations must be serialized by the owner of the registry.
+ *
+ * @param <M> The type of the registrations
+ * @param <V> The type of the resolved values
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public abstract class ClassRegistry<M, V> {
+
+	/**
+	 * Marks a class for which nothing was resolved
+	 */
+	static private final Object NONE = new Object();
+
+	/**
+	 * Published registrations and the cache of the values resolved from them
+	 */
+	private final class Snapshot {
+		/**
+		 * The registrations, which must not be modified
+		 */
+		final M registrations;
+
+		/**
+		 * Value resolved for each class that was asked, or NONE if there is none
+		 */
+		final ClassValue<Object> resolved = new ClassValue<Object>() {
+			@Override protected Object computeValue(Class<?> clazz) {
+				V value = resolve(registrations, clazz);
+				return value != null ? value : NONE;
+			}
+		};
+
+		/**
+		 * @param registrations The registrations, which must not be modified
+		 */
+		Snapshot(M registrations) {
+			this.registrations = registrations;
+		}
+	}
+
+	/**
+	 * The currently published registrations
+	 */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * @param registrations The initial registrations, which must not be modified afterward
+	 */
+	protected ClassRegistry(M registrations) {
+		this.snapshot = new Snapshot(registrations);
+	}
+
+	/**
+	 * Resolves the value of a class from the registrations
+	 * This is called at most once per class for each published registrations
+	 *
+	 * @param registrations The registrations
+	 * @param clazz The class whose value to resolve
+	 * @return The value, or null if there is none
+	 */
+	protected abstract @CheckForNull V resolve(M registrations, Class<?> clazz);
+
+	/**
+	 * @return The currently published registrations, which must not be modified (copy them to register)
+	 */
+	public M getRegistrations() {
+		return snapshot.registrations;
+	}
+
+	/**
+	 * Publishes new registrations, which drops the cache of resolved values
+	 *
+	 * @param registrations The new registrations, which must not be modified afterward
+	 */
+	public void publish(M registrations) {
+		snapshot = new Snapshot(registrations);
+	}
+
+	/**
+	 * @param clazz The class whose value to get
+	 * @return The value resolved for the class from the current registrations, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public @CheckForNull V get(Class<?> clazz) {
+		Object value = snapshot.resolved.get(clazz);
+		if (value == NONE)
+			return null;
+		return (V)value;
+	}
+}
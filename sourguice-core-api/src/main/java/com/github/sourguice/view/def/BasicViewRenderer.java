@@ -13,6 +13,7 @@ import java.util.Map;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletResponse;
 
+import com.github.sourguice.annotation.request.GuiceResponse;
 import com.github.sourguice.view.ViewRenderer;
 import com.google.inject.servlet.RequestScoped;
 
@@ -80,7 +81,7 @@ public abstract class BasicViewRenderer implements ViewRenderer {
 	 * @param res The response on which to write the views
 	 */
 	@Inject
-	public BasicViewRenderer(HttpServletResponse res) {
+	public BasicViewRenderer(@GuiceResponse HttpServletResponse res) {
 		this.res = res;
 
 		// Gets all annotated method and "remembers" them
@@ -10,6 +10,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.github.sourguice.annotation.request.GuiceResponse;
 import com.github.sourguice.request.ForwardableRequestFactory;
 import com.github.sourguice.view.ViewRenderer;
 import com.google.inject.Inject;
@@ -37,7 +38,7 @@ public class JSPViewRenderer implements ViewRenderer {
 	 * @param fact Factory that will be used to make request forwarding
 	 */
 	@Inject
-	public JSPViewRenderer(HttpServletResponse res, ForwardableRequestFactory fact) {
+	public JSPViewRenderer(@GuiceResponse HttpServletResponse res, ForwardableRequestFactory fact) {
 		this.res = res;
 		this.fact = fact;
 	}
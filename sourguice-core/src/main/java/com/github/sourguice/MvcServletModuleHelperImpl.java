@@ -1,7 +1,12 @@
 package com.github.sourguice;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.CheckForNull;
@@ -17,6 +22,8 @@ import com.github.sourguice.MvcServletModule.MvcServletModuleHelperProxy;
 import com.github.sourguice.MvcServletModule.RedirectBuilder;
 import com.github.sourguice.annotation.request.GuiceRequest;
 import com.github.sourguice.annotation.request.PathVariablesMap;
+import com.github.sourguice.cache.ResponseCache;
+import com.github.sourguice.cache.impl.ResponseCacheImpl;
 import com.github.sourguice.call.MvcCaller;
 import com.github.sourguice.call.impl.MvcCallerImpl;
 import com.github.sourguice.call.impl.PathVariablesProvider;
@@ -41,6 +48,7 @@ import com.github.sourguice.request.ForwardableRequestFactory;
 import com.github.sourguice.request.wrapper.GuiceForwardHttpRequest;
 import com.github.sourguice.throwable.controller.MVCHttpServletResponseException;
 import com.github.sourguice.throwable.service.exception.UnreachableExceptionHandlerException;
+import com.github.sourguice.utils.Annotations;
 import com.github.sourguice.utils.RequestScopeContainer;
 import com.github.sourguice.view.Model;
 import com.github.sourguice.view.ViewRenderer;
@@ -64,11 +72,26 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 	 */
 	private @CheckForNull HashMap<String, ControllersServlet> servlets = null;
 
+	/**
+	 * The conversion service, created here because the controller handlers need it when they are registered
+	 */
+	private ConversionService conversionService = new ConversionServiceImpl();
+
 	/**
 	 * Contains all ControllerHandlers
 	 * This is to make sure that there will be one and only one ControllerHandler for each controller class
 	 */
-	private ControllerHandlersRepository repository = new ControllerHandlersRepository();
+	private ControllerHandlersRepository repository = new ControllerHandlersRepository(conversionService);
+
+	/**
+	 * All registered controller classes
+	 */
+	private LinkedHashSet<Class<?>> controllers = new LinkedHashSet<Class<?>>();
+
+	/**
+	 * The annotation classes to look for on all controllers when the module is configured
+	 */
+	private List<Class<? extends Annotation>> indexedAnnotations = new ArrayList<Class<? extends Annotation>>();
 
 	/**
 	 * The actual module that ws subclassed to bind controllers
@@ -101,16 +124,31 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 		// Binds RequestScope container that will contains RequestScope objects that cannot be directly integrated into Guice
 		module.binder().bind(RequestScopeContainer.class);
 		
-		// Creates a conversion service and registers it in guice
-		// We create it because we need to handle it directly in this method
-		ConversionService conversionService = new ConversionServiceImpl();
+		// Registers the conversion service in guice
+		// We create it because we need to handle it directly in this class
 		module.binder().bind(ConversionService.class).toInstance(conversionService);
 
+		// Registers default converters
+		// This is done before controllers are registered so their invocations can resolve their converters
+		conversionService.registerConverter(new BooleanConverter());
+		conversionService.registerConverter(new DoubleConverter());
+		conversionService.registerConverter(new EnumConverter());
+		conversionService.registerConverter(new FloatConverter());
+		conversionService.registerConverter(new IntegerConverter());
+		conversionService.registerConverter(new LongConverter());
+		conversionService.registerConverter(new ShortConverter());
+		conversionService.registerConverter(new StringConverter());
+
 		// Creates an exception service and registers it in guice
 		// We create it because we need to handle it directly in this method
 		ExceptionService exceptionService = new ExceptionServiceImpl();
 		module.binder().bind(ExceptionService.class).toInstance(exceptionService);
 
+		// Registers the response cache in guice, both as its interface for monitoring and as its implementation for the controllers servlets
+		ResponseCacheImpl responseCache = new ResponseCacheImpl();
+		module.binder().bind(ResponseCache.class).toInstance(responseCache);
+		module.binder().bind(ResponseCacheImpl.class).toInstance(responseCache);
+
 		// Binds view related classes
 		module.binder().bind(ViewRenderer.class).to(JSPViewRenderer.class);
 		module.binder().bind(Model.class).in(ServletScopes.REQUEST);
@@ -148,16 +186,6 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 			module._serve(pattern).with(servlet);
 		}
 
-		// Registers default converters
-		conversionService.registerConverter(new BooleanConverter());
-		conversionService.registerConverter(new DoubleConverter());
-		conversionService.registerConverter(new EnumConverter());
-		conversionService.registerConverter(new FloatConverter());
-		conversionService.registerConverter(new IntegerConverter());
-		conversionService.registerConverter(new LongConverter());
-		conversionService.registerConverter(new ShortConverter());
-		conversionService.registerConverter(new StringConverter());
-
 		// Registers default exception handlers
 		try {
 			exceptionService.registerHandler(MVCHttpServletResponseException.class, new MVCHttpServletResponseExceptionHandler());
@@ -166,6 +194,11 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 			throw new RuntimeException(e);
 		}
 
+		// Runs the annotation lookups that were asked by indexAnnotations() on all registered controllers
+		if (!indexedAnnotations.isEmpty())
+			for (Class<?> clazz : controllers)
+				Annotations.Index(clazz, indexedAnnotations);
+
 		// Sets null to the servlets variable so any further call to control().with() will raise a NullPointerException
 		servlets = null;
 	}
@@ -192,6 +225,8 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 			servlets.put(pattern, servlet);
 		}
 		
+		controllers.add(clazz);
+
 		// Registers a controller handler into the controller servlet
 		// The handler is retrived from the repository to avoid creating two handlers for the same controller class
 		servlet.addController(repository.get(clazz));
@@ -214,6 +249,14 @@ public class MvcServletModuleHelperImpl implements MvcServletModuleHelperProxy {
 		};
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void indexAnnotations(Class<? extends Annotation>[] annotationClasses) {
+		indexedAnnotations.addAll(Arrays.asList(annotationClasses));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
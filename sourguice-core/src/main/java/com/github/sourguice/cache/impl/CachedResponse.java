@@ -0,0 +1,158 @@
+package com.github.sourguice.cache.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.sourguice.controller.ResourceWriter;
+
+/**
+ * A response kept by the {@link ResponseCacheImpl}: its status, headers and body
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class CachedResponse {
+
+	/**
+	 * Approximate size of the objects of a response, added to its header and body sizes
+	 */
+	static private final int OVERHEAD = 128;
+
+	/**
+	 * The status of the response
+	 */
+	private final int status;
+
+	/**
+	 * The error message if the response was sent with {@link HttpServletResponse#sendError(int, String)}, empty if it was sent without message
+	 * or null if the response is not an error
+	 */
+	private final @CheckForNull String error;
+
+	/**
+	 * The headers of the response, each as its name and value (String, Integer or Long for dates)
+	 */
+	private final List<Object[]> headers;
+
+	/**
+	 * The content type of the response
+	 */
+	private final @CheckForNull String contentType;
+
+	/**
+	 * The locale of the response, if it was set
+	 */
+	private final @CheckForNull Locale locale;
+
+	/**
+	 * The body of the response
+	 */
+	private final byte[] body;
+
+	/**
+	 * Time at which the response must not be sent anymore
+	 */
+	private final long expires;
+
+	/**
+	 * Approximate size of the response in memory, in bytes
+	 */
+	private final long size;
+
+	/**
+	 * @param status The status of the response
+	 * @param error The error message if the response was sent with sendError, or null
+	 * @param headers The headers of the response
+	 * @param contentType The content type of the response
+	 * @param locale The locale of the response, if it was set
+	 * @param body The body of the response
+	 * @param expires Time at which the response must not be sent anymore
+	 */
+	CachedResponse(int status, @CheckForNull String error, List<Object[]> headers, @CheckForNull String contentType, @CheckForNull Locale locale, byte[] body, long expires) {
+		this.status = status;
+		this.error = error;
+		this.headers = headers;
+		this.contentType = contentType;
+		this.locale = locale;
+		this.body = body;
+		this.expires = expires;
+
+		long size = OVERHEAD + body.length;
+		for (Object[] header : headers)
+			size += 2 * (((String)header[0]).length() + header[1].toString().length());
+		this.size = size;
+	}
+
+	/**
+	 * @return Approximate size of the response in memory, in bytes
+	 */
+	long getSize() {
+		return size;
+	}
+
+	/**
+	 * @param now The current time
+	 * @return Whether the response must not be sent anymore
+	 */
+	boolean isExpired(long now) {
+		return now >= expires;
+	}
+
+	/**
+	 * @param name The name of a header
+	 * @return The last value of the header, or null if the response does not have it
+	 */
+	private @CheckForNull Object getHeader(String name) {
+		Object value = null;
+		for (Object[] header : headers)
+			if (((String)header[0]).equalsIgnoreCase(name))
+				value = header[1];
+		return value;
+	}
+
+	/**
+	 * Sends the response again, or 304 Not Modified if the request is conditional
+	 * and the client already has the response (according to its ETag or Last-Modified header)
+	 *
+	 * @param req The current request
+	 * @param res The response to send to
+	 * @throws IOException If an input or output error occurs
+	 */
+	public void send(HttpServletRequest req, HttpServletResponse res) throws IOException {
+		for (Object[] header : headers) {
+			String name = (String)header[0];
+			if (header[1] instanceof Long)
+				res.addDateHeader(name, ((Long)header[1]).longValue());
+			else if (header[1] instanceof Integer)
+				res.addIntHeader(name, ((Integer)header[1]).intValue());
+			else
+				res.addHeader(name, (String)header[1]);
+		}
+		if (error != null) {
+			if (error.isEmpty())
+				res.sendError(status);
+			else
+				res.sendError(status, error);
+			return ;
+		}
+		if (status == HttpServletResponse.SC_OK) {
+			Object eTag = getHeader("ETag");
+			Object lastModified = getHeader("Last-Modified");
+			if (ResourceWriter.IsNotModified(req, eTag != null ? eTag.toString() : null, lastModified instanceof Long ? ((Long)lastModified).longValue() : -1)) {
+				res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return ;
+			}
+		}
+		res.setStatus(status);
+		if (locale != null)
+			res.setLocale(locale);
+		if (contentType != null)
+			res.setContentType(contentType);
+		res.setContentLength(body.length);
+		res.getOutputStream().write(body);
+	}
+}
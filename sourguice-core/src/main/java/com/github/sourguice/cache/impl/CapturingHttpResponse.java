@@ -0,0 +1,273 @@
+package com.github.sourguice.cache.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that sends everything to the wrapped response and keeps a copy of it
+ * so that it can be sent again by the {@link ResponseCacheImpl}
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class CapturingHttpResponse extends HttpServletResponseWrapper {
+
+	/**
+	 * Maximum size of the body to keep, a bigger response is sent but not kept
+	 */
+	private final int maxBodySize;
+
+	/**
+	 * The status of the response
+	 */
+	private int status = SC_OK;
+
+	/**
+	 * The error message if the response was sent with {@link #sendError(int, String)}, empty if it was sent without message
+	 */
+	private @CheckForNull String error;
+
+	/**
+	 * The headers of the response, each as its name and value (String, Integer or Long for dates)
+	 */
+	private List<Object[]> headers = new ArrayList<Object[]>();
+
+	/**
+	 * The locale of the response, if it was set
+	 */
+	private @CheckForNull Locale locale;
+
+	/**
+	 * Copy of the body, null once it became too big or if the response cannot be kept
+	 */
+	private @CheckForNull ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+	/**
+	 * The output stream, created when first asked
+	 */
+	private @CheckForNull ServletOutputStream out;
+
+	/**
+	 * The writer, created when first asked
+	 */
+	private @CheckForNull PrintWriter writer;
+
+	/**
+	 * Output stream that writes to the wrapped response output stream and to the copy of the body
+	 */
+	private final class CapturingOutputStream extends ServletOutputStream {
+
+		/**
+		 * The wrapped response output stream
+		 */
+		private final ServletOutputStream stream;
+
+		/**
+		 * @param stream The wrapped response output stream
+		 */
+		CapturingOutputStream(ServletOutputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override public void write(int b) throws IOException {
+			stream.write(b);
+			ByteArrayOutputStream copy = body;
+			if (copy != null && reserve(1))
+				copy.write(b);
+		}
+
+		@Override public void write(byte[] b, int off, int len) throws IOException {
+			stream.write(b, off, len);
+			ByteArrayOutputStream copy = body;
+			if (copy != null && reserve(len))
+				copy.write(b, off, len);
+		}
+
+		@Override public void flush() throws IOException {
+			stream.flush();
+		}
+
+		@Override public void close() throws IOException {
+			stream.close();
+		}
+	}
+
+	/**
+	 * @param res The response to wrap
+	 * @param maxBodySize Maximum size of the body to keep
+	 */
+	public CapturingHttpResponse(HttpServletResponse res, int maxBodySize) {
+		super(res);
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * Checks that the copy of the body can grow, and drops it if it cannot
+	 *
+	 * @param len The number of bytes to add
+	 * @return Whether the bytes can be added to the copy
+	 */
+	boolean reserve(int len) {
+		ByteArrayOutputStream copy = body;
+		if (copy == null)
+			return false;
+		if (copy.size() + (long)len > maxBodySize) {
+			body = null;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return The status of the response
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Flushes the writer, if one was asked, to the wrapped response
+	 */
+	public void flushWriter() {
+		if (writer != null)
+			writer.flush();
+	}
+
+	/**
+	 * @param expires Time at which the response must not be sent anymore
+	 * @return The copy of the response, or null if it cannot be kept (too big, redirect or cookies)
+	 */
+	public @CheckForNull CachedResponse toCachedResponse(long expires) {
+		flushWriter();
+		ByteArrayOutputStream copy = body;
+		if (copy == null)
+			return null;
+		return new CachedResponse(status, error, headers, getContentType(), locale, copy.toByteArray(), expires);
+	}
+
+	/**
+	 * Records a header, replacing the previous values of this header if asked
+	 *
+	 * @param name The name of the header
+	 * @param value The value of the header
+	 * @param replace Whether to replace previous values
+	 */
+	private void record(String name, Object value, boolean replace) {
+		if (replace)
+			for (Iterator<Object[]> it = headers.iterator(); it.hasNext(); )
+				if (((String)it.next()[0]).equalsIgnoreCase(name))
+					it.remove();
+		headers.add(new Object[] { name, value });
+	}
+
+	@Override public void setHeader(String name, String value) {
+		super.setHeader(name, value);
+		record(name, value, true);
+	}
+
+	@Override public void addHeader(String name, String value) {
+		super.addHeader(name, value);
+		record(name, value, false);
+	}
+
+	@Override public void setDateHeader(String name, long date) {
+		super.setDateHeader(name, date);
+		record(name, Long.valueOf(date), true);
+	}
+
+	@Override public void addDateHeader(String name, long date) {
+		super.addDateHeader(name, date);
+		record(name, Long.valueOf(date), false);
+	}
+
+	@Override public void setIntHeader(String name, int value) {
+		super.setIntHeader(name, value);
+		record(name, Integer.valueOf(value), true);
+	}
+
+	@Override public void addIntHeader(String name, int value) {
+		super.addIntHeader(name, value);
+		record(name, Integer.valueOf(value), false);
+	}
+
+	@Override public void setLocale(Locale loc) {
+		super.setLocale(loc);
+		locale = loc;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override public void setStatus(int sc, String sm) {
+		super.setStatus(sc, sm);
+		status = sc;
+	}
+
+	@Override public void setStatus(int sc) {
+		super.setStatus(sc);
+		status = sc;
+	}
+
+	@Override public void sendError(int sc, String msg) throws IOException {
+		super.sendError(sc, msg);
+		status = sc;
+		error = msg != null ? msg : "";
+	}
+
+	@Override public void sendError(int sc) throws IOException {
+		super.sendError(sc);
+		status = sc;
+		error = "";
+	}
+
+	@Override public void sendRedirect(String location) throws IOException {
+		super.sendRedirect(location);
+		status = SC_MOVED_TEMPORARILY;
+		body = null;
+	}
+
+	@Override public void addCookie(Cookie cookie) {
+		super.addCookie(cookie);
+		// A response that sets a cookie is specific to its client
+		body = null;
+	}
+
+	@Override public void reset() {
+		super.reset();
+		status = SC_OK;
+		error = null;
+		headers.clear();
+		locale = null;
+		resetBuffer();
+	}
+
+	@Override public void resetBuffer() {
+		super.resetBuffer();
+		ByteArrayOutputStream copy = body;
+		if (copy != null)
+			copy.reset();
+	}
+
+	@Override public ServletOutputStream getOutputStream() throws IOException {
+		if (out == null)
+			out = new CapturingOutputStream(super.getOutputStream());
+		assert out != null;
+		return out;
+	}
+
+	@Override public PrintWriter getWriter() throws IOException {
+		if (writer == null)
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		assert writer != null;
+		return writer;
+	}
+}
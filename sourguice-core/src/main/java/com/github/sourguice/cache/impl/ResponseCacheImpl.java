@@ -0,0 +1,196 @@
+package com.github.sourguice.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.sourguice.cache.ResponseCache;
+
+/**
+ * Response cache implementation
+ * Responses are kept in a map in access order, so that the least recently used ones are evicted first.
+ * Expired responses are removed when they are looked up, or when room is needed.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class ResponseCacheImpl implements ResponseCache {
+
+	/**
+	 * Default maximum size of the cache: 16MB
+	 */
+	static private final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * The kept responses, by key, in access order
+	 */
+	private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+
+	/**
+	 * Size of the kept responses
+	 */
+	private long size = 0;
+
+	/**
+	 * Maximum size of the kept responses
+	 */
+	private volatile long maxSize = DEFAULT_MAX_SIZE;
+
+	@SuppressWarnings("javadoc")
+	private final AtomicLong hits = new AtomicLong();
+
+	@SuppressWarnings("javadoc")
+	private final AtomicLong misses = new AtomicLong();
+
+	@SuppressWarnings("javadoc")
+	private final AtomicLong evictions = new AtomicLong();
+
+	@SuppressWarnings("javadoc")
+	private final AtomicLong expirations = new AtomicLong();
+
+	/**
+	 * Gets a kept response, and counts the hit or miss
+	 *
+	 * @param key The key of the response
+	 * @return The response, or null if there is none or if it expired
+	 */
+	public @CheckForNull CachedResponse get(String key) {
+		CachedResponse response;
+		synchronized (this) {
+			response = responses.get(key);
+			if (response != null && response.isExpired(System.currentTimeMillis())) {
+				remove(key);
+				expirations.incrementAndGet();
+				response = null;
+			}
+		}
+		if (response != null)
+			hits.incrementAndGet();
+		else
+			misses.incrementAndGet();
+		return response;
+	}
+
+	/**
+	 * Keeps a response, if it is not too big, evicting expired responses then the least recently used ones to make room for it
+	 *
+	 * @param key The key of the response
+	 * @param response The response to keep
+	 */
+	public synchronized void put(String key, CachedResponse response) {
+		if (response.getSize() > getMaxResponseSize())
+			return ;
+		remove(key);
+		responses.put(key, response);
+		size += response.getSize();
+		if (size <= maxSize)
+			return ;
+
+		long now = System.currentTimeMillis();
+		for (Iterator<CachedResponse> it = responses.values().iterator(); it.hasNext(); ) {
+			CachedResponse kept = it.next();
+			if (kept.isExpired(now)) {
+				it.remove();
+				size -= kept.getSize();
+				expirations.incrementAndGet();
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Evicts the least recently used responses until the kept responses fit in the maximum size
+	 */
+	private void evict() {
+		for (Iterator<CachedResponse> it = responses.values().iterator(); size > maxSize && it.hasNext(); ) {
+			CachedResponse kept = it.next();
+			it.remove();
+			size -= kept.getSize();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes a response
+	 *
+	 * @param key The key of the response
+	 */
+	private void remove(String key) {
+		CachedResponse removed = responses.remove(key);
+		if (removed != null)
+			size -= removed.getSize();
+	}
+
+	/**
+	 * @return The maximum size of a kept response
+	 */
+	private long getMaxResponseSize() {
+		return maxSize / 8;
+	}
+
+	/**
+	 * Wraps a response to keep a copy of it
+	 *
+	 * @param res The response to wrap
+	 * @return The wrapper to write the response to
+	 */
+	public CapturingHttpResponse capture(HttpServletResponse res) {
+		return new CapturingHttpResponse(res, (int)Math.min(getMaxResponseSize(), Integer.MAX_VALUE));
+	}
+
+	@Override
+	public long getHits() {
+		return hits.get();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public double getHitRatio() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double)h / total;
+	}
+
+	@Override
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public long getExpirations() {
+		return expirations.get();
+	}
+
+	@Override
+	public synchronized int getCount() {
+		return responses.size();
+	}
+
+	@Override
+	public synchronized long getSize() {
+		return size;
+	}
+
+	@Override
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	@Override
+	public synchronized void clear() {
+		responses.clear();
+		size = 0;
+	}
+}
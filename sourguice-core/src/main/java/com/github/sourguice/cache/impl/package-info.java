@@ -0,0 +1,6 @@
+/**
+ * Response cache implementation
+ * Keeps the responses of the methods annotated with @CacheResponse
+ */
+@com.github.sourguice.annotation.EverythingIsNonnullAndTaintedByDefault
+package com.github.sourguice.cache.impl;
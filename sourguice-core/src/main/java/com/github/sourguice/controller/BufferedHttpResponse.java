@@ -0,0 +1,165 @@
+package com.github.sourguice.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.github.sourguice.annotation.controller.BufferView;
+
+/**
+ * Response wrapper that buffers a view rendered for a method annotated with @{@link BufferView}
+ * The buffered view is then sent with its Content-Length and a strong ETag computed from its bytes,
+ * or not sent at all if the client already has it.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+final class BufferedHttpResponse extends HttpServletResponseWrapper {
+
+	/**
+	 * The buffered body
+	 */
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+	/**
+	 * The output stream, which writes to the buffer
+	 */
+	private final ServletOutputStream out = new ServletOutputStream() {
+		@Override public void write(int b) {
+			body.write(b);
+		}
+
+		@Override public void write(byte[] b, int off, int len) {
+			body.write(b, off, len);
+		}
+	};
+
+	/**
+	 * The writer, created when first asked
+	 */
+	private @CheckForNull PrintWriter writer;
+
+	/**
+	 * The status of the response
+	 */
+	private int status = SC_OK;
+
+	/**
+	 * Whether the response was sent directly, with {@link #sendError(int, String)} or {@link #sendRedirect(String)}
+	 */
+	private boolean sent = false;
+
+	/**
+	 * @param res The response to wrap
+	 */
+	BufferedHttpResponse(HttpServletResponse res) {
+		super(res);
+	}
+
+	/**
+	 * Sends the buffered body to the wrapped response, or 304 Not Modified if the If-None-Match header of the request matches its ETag
+	 * Bodies of responses that are not 200 OK are sent as they are.
+	 *
+	 * @param req The current request
+	 * @throws IOException If an input or output error occurs
+	 */
+	void send(HttpServletRequest req) throws IOException {
+		if (writer != null)
+			writer.flush();
+		if (sent)
+			return ;
+
+		HttpServletResponse res = (HttpServletResponse)getResponse();
+		byte[] bytes = body.toByteArray();
+		if (status == SC_OK) {
+			String eTag = ETag(bytes);
+			res.setHeader("ETag", eTag);
+			String ifNoneMatch = req.getHeader("If-None-Match");
+			if (ifNoneMatch != null && ResourceWriter.MatchesETag(ifNoneMatch, eTag)) {
+				res.setStatus(SC_NOT_MODIFIED);
+				return ;
+			}
+		}
+		res.setContentLength(bytes.length);
+		if (!req.getMethod().equals("HEAD"))
+			res.getOutputStream().write(bytes);
+	}
+
+	/**
+	 * @param bytes The bytes of a body
+	 * @return The strong entity tag of the body
+	 */
+	private static String ETag(byte[] bytes) {
+		try {
+			return "\"" + String.format("%032x", new BigInteger(1, MessageDigest.getInstance("MD5").digest(bytes))) + "\"";
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override public void setStatus(int sc, String sm) {
+		super.setStatus(sc, sm);
+		status = sc;
+	}
+
+	@Override public void setStatus(int sc) {
+		super.setStatus(sc);
+		status = sc;
+	}
+
+	@Override public void sendError(int sc, String msg) throws IOException {
+		super.sendError(sc, msg);
+		sent = true;
+	}
+
+	@Override public void sendError(int sc) throws IOException {
+		super.sendError(sc);
+		sent = true;
+	}
+
+	@Override public void sendRedirect(String location) throws IOException {
+		super.sendRedirect(location);
+		sent = true;
+	}
+
+	@Override public void setContentLength(int len) {
+		// The length is the one of the buffered body
+	}
+
+	@Override public void flushBuffer() {
+		// Flushing would commit the response before the ETag is known
+	}
+
+	@Override public void resetBuffer() {
+		super.resetBuffer();
+		body.reset();
+	}
+
+	@Override public void reset() {
+		super.reset();
+		body.reset();
+		status = SC_OK;
+	}
+
+	@Override public ServletOutputStream getOutputStream() {
+		return out;
+	}
+
+	@Override public PrintWriter getWriter() throws IOException {
+		if (writer == null)
+			writer = new PrintWriter(new OutputStreamWriter(out, getCharacterEncoding()));
+		assert writer != null;
+		return writer;
+	}
+}
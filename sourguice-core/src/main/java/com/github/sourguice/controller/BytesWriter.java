@@ -0,0 +1,177 @@
+package com.github.sourguice.controller;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.sourguice.annotation.request.Writes;
+
+/**
+ * Writes the binary result of a @{@link Writes} method to the response output stream, without decoding it to characters.
+ * Handled results are byte[], {@link ByteBuffer}, {@link InputStream}, {@link FileChannel} and {@link ReadableByteChannel}.
+ * When the length of the result is known (arrays, buffers and files), it is sent as the Content-Length of the response.
+ * Files are sent with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, other streams and channels are copied
+ * through a buffer that is kept by each thread and reused by all the requests it serves.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class BytesWriter {
+
+	/**
+	 * Largest buffer that is kept by a thread, whatever the {@link Writes#bufferSize()} of the method
+	 */
+	static private final int MAX_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Copy buffer of each thread
+	 */
+	static private final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>();
+
+	private BytesWriter() {}
+
+	/**
+	 * Whether a @{@link Writes} method result is written as bytes
+	 *
+	 * @param result The result of the method
+	 * @return Whether {@link #Write(Object, HttpServletResponse, int)} handles the result
+	 */
+	public static boolean IsBinary(Object result) {
+		return result instanceof byte[] || result instanceof ByteBuffer || result instanceof InputStream || result instanceof ReadableByteChannel;
+	}
+
+	/**
+	 * Writes the binary result of a @{@link Writes} method to the response
+	 * The result is not closed.
+	 *
+	 * @param result The result of the method, for which {@link #IsBinary(Object)} must be true
+	 * @param res The response to write to
+	 * @param bufferSize The size of the buffer used to copy streams and channels
+	 * @throws IOException If an input or output error occurs
+	 */
+	public static void Write(Object result, HttpServletResponse res, int bufferSize) throws IOException {
+		if (result instanceof byte[]) {
+			byte[] bytes = (byte[])result;
+			res.setContentLength(bytes.length);
+			res.getOutputStream().write(bytes);
+		}
+		else if (result instanceof ByteBuffer)
+			WriteBuffer((ByteBuffer)result, res);
+		else if (result instanceof FileInputStream)
+			WriteFile(((FileInputStream)result).getChannel(), res);
+		else if (result instanceof FileChannel)
+			WriteFile((FileChannel)result, res);
+		else if (result instanceof InputStream)
+			Copy((InputStream)result, res.getOutputStream(), bufferSize);
+		else if (result instanceof ReadableByteChannel)
+			Copy(Channels.newInputStream((ReadableByteChannel)result), res.getOutputStream(), bufferSize);
+		else
+			throw new IllegalArgumentException("Not a binary result: " + result.getClass());
+	}
+
+	/**
+	 * Sets the Content-Length of a response, which may not fit in an int
+	 *
+	 * @param res The response
+	 * @param length The length of the response body
+	 */
+	static void SetContentLength(HttpServletResponse res, long length) {
+		if (length <= Integer.MAX_VALUE)
+			res.setContentLength((int)length);
+		else
+			res.setHeader("Content-Length", Long.toString(length));
+	}
+
+	/**
+	 * Writes the remaining bytes of a buffer
+	 *
+	 * @param buffer The buffer to write
+	 * @param res The response to write to
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void WriteBuffer(ByteBuffer buffer, HttpServletResponse res) throws IOException {
+		res.setContentLength(buffer.remaining());
+		if (buffer.hasArray()) {
+			res.getOutputStream().write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.limit());
+			return ;
+		}
+		WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+		while (buffer.hasRemaining())
+			out.write(buffer);
+	}
+
+	/**
+	 * Writes a file from its current position to its end
+	 *
+	 * @param file The file to write
+	 * @param res The response to write to
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void WriteFile(FileChannel file, HttpServletResponse res) throws IOException {
+		long position = file.position();
+		long count = Math.max(file.size() - position, 0);
+		SetContentLength(res, count);
+		Transfer(file, position, count, res.getOutputStream());
+		file.position(position + count);
+	}
+
+	/**
+	 * Sends a part of a file to an output stream
+	 *
+	 * @param file The file to send
+	 * @param position The position of the first byte to send
+	 * @param count The number of bytes to send
+	 * @param out The stream to send to
+	 * @throws IOException If an input or output error occurs
+	 */
+	static void Transfer(FileChannel file, long position, long count, OutputStream out) throws IOException {
+		WritableByteChannel channel = Channels.newChannel(out);
+		while (count > 0) {
+			long sent = file.transferTo(position, count, channel);
+			if (sent <= 0) {
+				if (position >= file.size())
+					throw new IOException("File truncated while being sent");
+				continue ;
+			}
+			position += sent;
+			count -= sent;
+		}
+	}
+
+	/**
+	 * Copies a stream to another
+	 *
+	 * @param in The stream to read
+	 * @param out The stream to write to
+	 * @param bufferSize The size of the copy buffer
+	 * @throws IOException If an input or output error occurs
+	 */
+	static void Copy(InputStream in, OutputStream out, int bufferSize) throws IOException {
+		byte[] buffer = Buffer(bufferSize);
+		int read;
+		while ((read = in.read(buffer)) >= 0)
+			out.write(buffer, 0, read);
+	}
+
+	/**
+	 * @param bufferSize The size that is needed
+	 * @return The copy buffer of the current thread, of at least the needed size (bounded by {@link #MAX_BUFFER_SIZE})
+	 */
+	static byte[] Buffer(int bufferSize) {
+		int size = Math.max(1, Math.min(bufferSize, MAX_BUFFER_SIZE));
+		byte[] buffer = buffers.get();
+		if (buffer == null || buffer.length < size) {
+			buffer = new byte[size];
+			buffers.set(buffer);
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,527 @@
+package com.github.sourguice.controller;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.github.sourguice.annotation.controller.Compress;
+
+/**
+ * Response wrapper that compresses the body of the response of a method annotated with @{@link Compress} while it is written.
+ * The first bytes of the body are held until either the Content-Length is known or {@link Compress#minSize()} bytes were written,
+ * so that small bodies are sent as they are, with their length.
+ * Deflaters are pooled, as each one holds native memory.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+final class CompressingHttpResponse extends HttpServletResponseWrapper {
+
+	/**
+	 * Maximum number of idle deflaters kept by each pool
+	 */
+	static private final int POOL_SIZE = 32;
+
+	/**
+	 * Idle deflaters producing raw deflate data, used for gzip
+	 */
+	static private final ArrayBlockingQueue<Deflater> rawDeflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+
+	/**
+	 * Idle deflaters producing zlib data, used for deflate
+	 */
+	static private final ArrayBlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+
+	/**
+	 * Header of a gzip stream: magic number, deflate method, no flag, no time, no extra flag, unknown OS
+	 */
+	static private final byte[] GZIP_HEADER = { 0x1f, (byte)0x8b, 8, 0, 0, 0, 0, 0, 0, (byte)0xff };
+
+	/**
+	 * The negotiated encoding ("gzip" or "deflate"), null if the client accepts neither
+	 */
+	private final @CheckForNull String encoding;
+
+	/**
+	 * The compression configuration of the method
+	 */
+	private final Compress compress;
+
+	/**
+	 * The Content-Length set by the method, -1 if none was
+	 */
+	private long contentLength = -1;
+
+	/**
+	 * The ETag set by the method, sent once it is known whether the body is compressed
+	 */
+	private @CheckForNull String eTag;
+
+	/**
+	 * Whether the method already set a Vary header on Accept-Encoding
+	 */
+	private boolean varies = false;
+
+	/**
+	 * Whether the method already encoded the body itself
+	 */
+	private boolean encoded = false;
+
+	/**
+	 * Whether the response is a range of the body, or advertises ranges
+	 */
+	private boolean ranged = false;
+
+	/**
+	 * The status of the response
+	 */
+	private int status = SC_OK;
+
+	/**
+	 * Whether the end of the body is being sent, when the flush of the writer must not be taken as a flush of the body
+	 */
+	private boolean finishing = false;
+
+	/**
+	 * The output stream, created when first asked
+	 */
+	private @CheckForNull CompressingOutputStream out;
+
+	/**
+	 * The writer, created when first asked
+	 */
+	private @CheckForNull PrintWriter writer;
+
+	/**
+	 * Output stream that holds the first bytes of the body, then compresses the body or sends it as it is
+	 */
+	private final class CompressingOutputStream extends ServletOutputStream {
+
+		/**
+		 * The wrapped response output stream
+		 */
+		private final ServletOutputStream stream;
+
+		/**
+		 * The first bytes of the body, written until it is decided whether to compress
+		 */
+		private final byte[] held = new byte[Math.max(compress.minSize(), 1)];
+
+		/**
+		 * Number of held bytes
+		 */
+		private int heldCount = 0;
+
+		/**
+		 * Whether it was decided if the body is compressed
+		 */
+		private boolean decided = false;
+
+		/**
+		 * The deflater, if the body is compressed
+		 */
+		private @CheckForNull Deflater deflater;
+
+		/**
+		 * The checksum of the body, if it is gzipped
+		 */
+		private @CheckForNull CRC32 crc;
+
+		/**
+		 * Buffer of the deflater output
+		 */
+		private @CheckForNull byte[] buffer;
+
+		/**
+		 * Whether the body was entirely written
+		 */
+		private boolean finished = false;
+
+		/**
+		 * @param stream The wrapped response output stream
+		 */
+		CompressingOutputStream(ServletOutputStream stream) {
+			this.stream = stream;
+		}
+
+		/**
+		 * Decides whether to compress and sends the headers accordingly
+		 *
+		 * @param size The size of the body if it is known, -1 otherwise
+		 * @throws IOException If an input or output error occurs
+		 */
+		private void decide(long size) throws IOException {
+			decided = true;
+			if (!start(size))
+				return ;
+			Deflater def = Take(!"deflate".equals(encoding));
+			def.setLevel(compress.level());
+			deflater = def;
+			buffer = new byte[8192];
+			if ("gzip".equals(encoding)) {
+				crc = new CRC32();
+				stream.write(GZIP_HEADER);
+			}
+		}
+
+		@Override public void write(int b) throws IOException {
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override public void write(byte[] b, int off, int len) throws IOException {
+			if (finished)
+				throw new IOException("Response body already written");
+			if (!decided) {
+				if (contentLength >= 0)
+					decide(contentLength);
+				else if (heldCount + len <= held.length) {
+					System.arraycopy(b, off, held, heldCount, len);
+					heldCount += len;
+					return ;
+				}
+				else
+					decide(-1);
+				if (heldCount > 0) {
+					send(held, 0, heldCount);
+					heldCount = 0;
+				}
+			}
+			send(b, off, len);
+		}
+
+		/**
+		 * Sends bytes of the body, compressed or not
+		 *
+		 * @param b The bytes
+		 * @param off The offset of the first byte to send
+		 * @param len The number of bytes to send
+		 * @throws IOException If an input or output error occurs
+		 */
+		private void send(byte[] b, int off, int len) throws IOException {
+			Deflater def = deflater;
+			if (def == null) {
+				stream.write(b, off, len);
+				return ;
+			}
+			if (crc != null)
+				crc.update(b, off, len);
+			def.setInput(b, off, len);
+			while (!def.needsInput())
+				drain(def, Deflater.NO_FLUSH);
+		}
+
+		/**
+		 * Sends what the deflater produced
+		 *
+		 * @param def The deflater
+		 * @param flush The flush mode of the deflater
+		 * @return Whether the deflater filled the buffer (and may have more to produce)
+		 * @throws IOException If an input or output error occurs
+		 */
+		private boolean drain(Deflater def, int flush) throws IOException {
+			byte[] buf = buffer;
+			assert buf != null;
+			int count = def.deflate(buf, 0, buf.length, flush);
+			if (count > 0)
+				stream.write(buf, 0, count);
+			return count == buf.length;
+		}
+
+		@Override public void flush() throws IOException {
+			if (finished || finishing)
+				return ;
+			// A flush means the client expects what was written: the body is streamed
+			if (!decided && heldCount > 0) {
+				decide(contentLength);
+				send(held, 0, heldCount);
+				heldCount = 0;
+			}
+			Deflater def = deflater;
+			if (def != null)
+				while (drain(def, Deflater.SYNC_FLUSH)) {}
+			stream.flush();
+		}
+
+		/**
+		 * Sends the end of the body, and gives the deflater back to its pool
+		 *
+		 * @throws IOException If an input or output error occurs
+		 */
+		void finish() throws IOException {
+			if (finished)
+				return ;
+			finished = true;
+			if (!decided) {
+				// The whole body is held: its size is known
+				if (contentLength < 0)
+					contentLength = heldCount;
+				decide(contentLength);
+				if (heldCount > 0)
+					send(held, 0, heldCount);
+			}
+			Deflater def = deflater;
+			if (def == null)
+				return ;
+			try {
+				def.finish();
+				while (!def.finished())
+					drain(def, Deflater.NO_FLUSH);
+				CRC32 sum = crc;
+				if (sum != null) {
+					WriteIntLE(stream, (int)sum.getValue());
+					WriteIntLE(stream, def.getTotalIn());
+				}
+			}
+			finally {
+				deflater = null;
+				Release(def, crc != null);
+			}
+		}
+
+		@Override public void close() throws IOException {
+			finish();
+			stream.close();
+		}
+	}
+
+	/**
+	 * @param res The response to wrap
+	 * @param acceptEncoding The Accept-Encoding header of the request
+	 * @param compress The compression configuration of the method
+	 */
+	CompressingHttpResponse(HttpServletResponse res, @CheckForNull String acceptEncoding, Compress compress) {
+		super(res);
+		this.encoding = Negotiate(acceptEncoding);
+		this.compress = compress;
+	}
+
+	/**
+	 * Chooses the encoding of the response from the Accept-Encoding header of a request
+	 *
+	 * @param acceptEncoding The Accept-Encoding header of the request
+	 * @return "gzip" (preferred) or "deflate", or null if the client accepts neither
+	 */
+	static @CheckForNull String Negotiate(@CheckForNull String acceptEncoding) {
+		if (acceptEncoding == null)
+			return null;
+		boolean gzip = false;
+		boolean deflate = false;
+		boolean any = false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			boolean accepted = true;
+			for (int i = 1; i < parts.length; ++i) {
+				String param = parts[i].trim();
+				if (param.startsWith("q="))
+					try {
+						accepted = Double.parseDouble(param.substring(2)) > 0;
+					}
+					catch (NumberFormatException e) {
+						accepted = false;
+					}
+			}
+			if (name.equals("gzip") || name.equals("x-gzip"))
+				gzip = accepted;
+			else if (name.equals("deflate"))
+				deflate = accepted;
+			else if (name.equals("*"))
+				any = accepted;
+		}
+		if (gzip || (any && !acceptEncoding.contains("gzip")))
+			return "gzip";
+		if (deflate)
+			return "deflate";
+		return null;
+	}
+
+	/**
+	 * @param contentType The content type of the response
+	 * @param types The compressible content types
+	 * @return Whether the content type is compressible
+	 */
+	static boolean IsCompressible(@CheckForNull String contentType, String[] types) {
+		if (contentType == null)
+			return false;
+		int semicolon = contentType.indexOf(';');
+		String mime = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase();
+		for (String type : types) {
+			if (type.endsWith("/*") ? mime.startsWith(type.substring(0, type.length() - 1)) : mime.equals(type))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Decides whether to compress the body, and sends the headers that depend on it
+	 *
+	 * @param size The size of the body if it is known, -1 otherwise
+	 * @return Whether the body is compressed
+	 */
+	boolean start(long size) {
+		boolean compressible = !encoded && !ranged
+				&& status != SC_NO_CONTENT && status != SC_NOT_MODIFIED && status != SC_PARTIAL_CONTENT
+				&& IsCompressible(getContentType(), compress.types());
+		if (compressible && !varies)
+			super.addHeader("Vary", "Accept-Encoding");
+		boolean compressed = compressible && encoding != null && (size < 0 || size >= compress.minSize());
+
+		if (compressed) {
+			super.setHeader("Content-Encoding", encoding);
+			if (eTag != null)
+				// The compressed body is not the same bytes
+				super.setHeader("ETag", eTag.startsWith("W/") ? eTag : "W/" + eTag);
+		}
+		else {
+			if (eTag != null)
+				super.setHeader("ETag", eTag);
+			if (contentLength >= 0)
+				BytesWriter.SetContentLength((HttpServletResponse)getResponse(), contentLength);
+		}
+		return compressed;
+	}
+
+	/**
+	 * Sends the end of the body, if it was written
+	 *
+	 * @throws IOException If an input or output error occurs
+	 */
+	void finish() throws IOException {
+		finishing = true;
+		if (writer != null)
+			writer.flush();
+		if (out != null)
+			out.finish();
+		else if (eTag != null || contentLength >= 0)
+			// No body was written, the headers that were held are sent
+			start(0);
+	}
+
+	/**
+	 * @param gzip Whether the deflater produces raw deflate data (for gzip) or zlib data
+	 * @return A deflater from the pool, or a new one if the pool is empty
+	 */
+	static Deflater Take(boolean gzip) {
+		Deflater deflater = (gzip ? rawDeflaters : zlibDeflaters).poll();
+		if (deflater == null)
+			deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+		return deflater;
+	}
+
+	/**
+	 * Gives a deflater back to its pool, or frees it if the pool is full
+	 *
+	 * @param deflater The deflater
+	 * @param gzip Whether the deflater produces raw deflate data (for gzip) or zlib data
+	 */
+	static void Release(Deflater deflater, boolean gzip) {
+		deflater.reset();
+		if (!(gzip ? rawDeflaters : zlibDeflaters).offer(deflater))
+			deflater.end();
+	}
+
+	/**
+	 * Writes an int in little endian, as the gzip trailer needs
+	 *
+	 * @param out The stream to write to
+	 * @param value The value to write
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void WriteIntLE(ServletOutputStream out, int value) throws IOException {
+		out.write(new byte[] { (byte)value, (byte)(value >> 8), (byte)(value >> 16), (byte)(value >> 24) });
+	}
+
+	/**
+	 * Handles the headers that depend on whether the body is compressed
+	 *
+	 * @param name The name of the header
+	 * @param value The value of the header
+	 * @return Whether the header is held, and must not be sent yet
+	 */
+	private boolean hold(String name, String value) {
+		if (name.equalsIgnoreCase("Content-Length")) {
+			try {
+				contentLength = Long.parseLong(value.trim());
+			}
+			catch (NumberFormatException e) {
+				return false;
+			}
+			return true;
+		}
+		if (name.equalsIgnoreCase("ETag")) {
+			eTag = value;
+			return true;
+		}
+		if (name.equalsIgnoreCase("Vary") && value.toLowerCase().contains("accept-encoding"))
+			varies = true;
+		else if (name.equalsIgnoreCase("Content-Encoding"))
+			encoded = true;
+		else if (name.equalsIgnoreCase("Content-Range") || name.equalsIgnoreCase("Accept-Ranges"))
+			ranged = true;
+		return false;
+	}
+
+	@Override public void setHeader(String name, String value) {
+		if (!hold(name, value))
+			super.setHeader(name, value);
+	}
+
+	@Override public void addHeader(String name, String value) {
+		if (!hold(name, value))
+			super.addHeader(name, value);
+	}
+
+	@Override public void setIntHeader(String name, int value) {
+		if (!hold(name, String.valueOf(value)))
+			super.setIntHeader(name, value);
+	}
+
+	@Override public void addIntHeader(String name, int value) {
+		if (!hold(name, String.valueOf(value)))
+			super.addIntHeader(name, value);
+	}
+
+	@Override public void setContentLength(int len) {
+		contentLength = len;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override public void setStatus(int sc, String sm) {
+		super.setStatus(sc, sm);
+		status = sc;
+	}
+
+	@Override public void setStatus(int sc) {
+		super.setStatus(sc);
+		status = sc;
+	}
+
+	@Override public void flushBuffer() throws IOException {
+		if (writer != null)
+			writer.flush();
+		if (out != null)
+			out.flush();
+		super.flushBuffer();
+	}
+
+	@Override public ServletOutputStream getOutputStream() throws IOException {
+		if (out == null)
+			out = new CompressingOutputStream(super.getOutputStream());
+		assert out != null;
+		return out;
+	}
+
+	@Override public PrintWriter getWriter() throws IOException {
+		if (writer == null)
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		assert writer != null;
+		return writer;
+	}
+}
@@ -5,14 +5,14 @@ import java.util.ArrayList;
 import java.util.regex.MatchResult;
 
 import javax.annotation.CheckForNull;
-import javax.servlet.http.HttpServletRequest;
 
 import com.github.sourguice.MvcServletModule;
 import com.github.sourguice.annotation.controller.Callable;
-import com.github.sourguice.annotation.controller.RenderWith;
+import com.github.sourguice.annotation.controller.LastModified;
 import com.github.sourguice.annotation.controller.ViewDirectory;
 import com.github.sourguice.annotation.request.RequestMapping;
 import com.github.sourguice.annotation.request.View;
+import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.utils.Annotations;
 import com.github.sourguice.view.ViewRenderer;
 
@@ -36,6 +36,11 @@ public final class ControllerHandler<T> {
 	 * List of available invocations for this controller
 	 */
 	private ArrayList<MvcInvocation> invocations = new ArrayList<MvcInvocation>();
+
+	/**
+	 * The invocation of the method annotated with @{@link LastModified}, if the controller has one
+	 */
+	private @CheckForNull MvcInvocation lastModified = null;
 	
 	/**
 	 * Information of a specific invocation
@@ -72,84 +77,46 @@ public final class ControllerHandler<T> {
 		 * The view renderer, declared directly on the controller using {@link ViewRenderer}
 		 */
 		public @CheckForNull Class<? extends ViewRenderer> viewRenderer = null;
-		
-		/**
-		 * @param invocation The invocation on which calculates informations
-		 */
-		public InvocationInfos(MvcInvocation invocation) {
-			this.invocation = invocation;
-		}
 
 		/**
-		 * Compare a given InvocationInfos to this
-		 * 
-		 * @param infos The InvocationInfos to compare to this
-		 * @return Wheter this invocation is better than the one given
+		 * The invocation of the controller's method annotated with @{@link LastModified}, if it has one
 		 */
-		public boolean isBetterThan(@CheckForNull InvocationInfos infos) {
-			if (infos == null)
-				return true;
-			if (this.urlMatch != null && infos.urlMatch != null) {
-				if (this.urlMatch.groupCount() < infos.urlMatch.groupCount())
-					return true;
-				else if (this.urlMatch.groupCount() > infos.urlMatch.groupCount())
-					return false;
-			}
-			
-			return this.confidence > infos.confidence;
-		}
+		public @CheckForNull MvcInvocation lastModified = null;
 		
 		/**
-		 * Calculates the best invocation between two given invocations
-		 * 
-		 * @param left The first invocation to compare
-		 * @param right The second invocation to compare
-		 * @return The best invocation between both given (nulls are accepted)
+		 * @param invocation The invocation on which calculates informations
 		 */
-		static public @CheckForNull InvocationInfos GetBest(@CheckForNull InvocationInfos left, @CheckForNull InvocationInfos right) {
-			if (left == null)
-				return right;
-			return left.isBetterThan(right) ? left : right;
+		public InvocationInfos(MvcInvocation invocation) {
+			this.invocation = invocation;
 		}
 	}
 	
 	/**
 	 * @param clazz The controller class to handle
+	 * @param conversionService The conversion service used by the invocations to convert request strings
 	 */
-	public ControllerHandler(Class<T> clazz) {
+	public ControllerHandler(Class<T> clazz, ConversionService conversionService) {
 		this.clazz = clazz;
 		
 		for (Method method : clazz.getMethods())
 			if (Annotations.GetOneTreeRecursive(method, Callable.class) != null)
-				invocations.add(new MvcInvocation(Annotations.GetOneRecursive(RequestMapping.class, method.getAnnotations()), clazz, method));
+				invocations.add(new MvcInvocation(Annotations.GetOneRecursive(RequestMapping.class, method.getAnnotations()), clazz, method, conversionService));
+			else if (method.isAnnotationPresent(LastModified.class))
+				lastModified = new MvcInvocation(null, clazz, method, conversionService);
 	}
 	
 	/**
-	 * Gets the best invocation of all the invocable methods of this controller for this request
+	 * Gathers the informations of an invocation of this controller from its descriptor
 	 * 
-	 * @param req The request to get invocation for
-	 * @return All infos opf the best invocation
+	 * @param infos The infos of the invocation to complete
+	 * @return The given infos
 	 */
-	public @CheckForNull InvocationInfos getBestInvocation(HttpServletRequest req) {
-		// Get the best invocation for the given request
-		InvocationInfos infos = null;
-		for (MvcInvocation invocation : invocations)
-			infos = InvocationInfos.GetBest(infos, invocation.canServe(req));
-
-		// If found (not null) gather invocation informations from annotations
-		if (infos != null) {
-			ViewDirectory vdAnno = Annotations.GetOneTreeRecursive(clazz, ViewDirectory.class);
-			if (vdAnno != null)
-				infos.viewDirectory = vdAnno.value();
-
-			RenderWith rwAnno = Annotations.GetOneTreeRecursive(infos.invocation.getMethod(), RenderWith.class);
-			if (rwAnno != null)
-				infos.viewRenderer = rwAnno.value();
-
-			View vAnno = Annotations.GetOneTreeRecursive(infos.invocation.getMethod(), View.class);
-			if (vAnno != null)
-				infos.defaultView = vAnno.value();
-		}
+	InvocationInfos gatherInfos(InvocationInfos infos) {
+		InvocationDescriptor descriptor = infos.invocation.getDescriptor();
+		infos.viewDirectory = descriptor.getViewDirectory();
+		infos.viewRenderer = descriptor.getViewRenderer();
+		infos.defaultView = descriptor.getDefaultView();
+		infos.lastModified = lastModified;
 		return infos;
 	}
 
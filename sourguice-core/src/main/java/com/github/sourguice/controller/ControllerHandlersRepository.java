@@ -5,6 +5,8 @@ import java.util.Map;
 
 import javax.inject.Singleton;
 
+import com.github.sourguice.conversion.ConversionService;
+
 /**
  * Class that holds all {@link ControllerHandler} existing in this server instance
  * This is to ensure that each controller class has one and only one handler
@@ -18,6 +20,18 @@ public final class ControllerHandlersRepository {
 	 */
 	private Map<Class<?>, ControllerHandler<?>> map = new HashMap<Class<?>, ControllerHandler<?>>();
 
+	/**
+	 * The conversion service given to each created {@link ControllerHandler}
+	 */
+	private ConversionService conversionService;
+
+	/**
+	 * @param conversionService The conversion service given to each created {@link ControllerHandler}
+	 */
+	public ControllerHandlersRepository(ConversionService conversionService) {
+		this.conversionService = conversionService;
+	}
+
 	/**
 	 * Gets the {@link ControllerHandler} for a given class and creates one if none is yet registered for this class
 	 * 
@@ -28,7 +42,7 @@ public final class ControllerHandlersRepository {
 	public <T> ControllerHandler<T> get(Class<T> clazz) {
 		if (map.containsKey(clazz))
 			return (ControllerHandler<T>)map.get(clazz);
-		ControllerHandler<T> c = new ControllerHandler<T>(clazz);
+		ControllerHandler<T> c = new ControllerHandler<T>(clazz, conversionService);
 		map.put(clazz, c);
 		return c;
 	}
@@ -2,7 +2,10 @@ package com.github.sourguice.controller;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.CheckForNull;
 
@@ -13,16 +16,19 @@ import com.github.sourguice.annotation.controller.InterceptWith;
 import com.github.sourguice.utils.Annotations;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 
 /**
  * This interceptor will get all @{@link InterceptWith} annotations on the given method.
- * It will then construct a recursive MethodInvocation tree.
- * Each node defers its execution to the interceptor given in the annotation.
+ * It will then construct a chain of interceptors that is run in order.
+ * Each interceptor defers its execution to the next one when it calls {@link MethodInvocation#proceed()}.
  * That way, if an interceptor chooses to stop the invocation and *not* call {@link MethodInvocation#proceed()},
- * the contained interceptors will not be called.
- * The tree is constructed with {@link Annotations#GetAllTreeRecursive(java.lang.reflect.AnnotatedElement, Class)}
+ * the following interceptors will not be called.
+ * The chain is constructed with {@link Annotations#GetAllTreeRecursive(java.lang.reflect.AnnotatedElement, Class)}
  * which means that the "closest" annotation will be used first.
+ * The chain of each method is constructed once and cached, singleton interceptors being retrieved only once.
  * 
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
@@ -35,31 +41,84 @@ public class ControllerInterceptor implements MethodInterceptor {
 	@Inject @CheckForNull Injector injector;
 
 	/**
-	 * Wrapper around {@link MethodInvocation} to allow the invocation to be intercepted
-	 * by a guice registered MethodInterceptor
+	 * Chain of each intercepted method
+	 */
+	private final ConcurrentHashMap<Method, Chain> chains = new ConcurrentHashMap<Method, Chain>();
+
+	/**
+	 * The interceptors of a method, in the order in which they are run
+	 * 
+	 * @author Salomon BRYS <salomon.brys@gmail.com>
+	 */
+	static private final class Chain {
+
+		/**
+		 * The singleton instance of each interceptor, null for interceptors that are not singletons
+		 */
+		final @CheckForNull MethodInterceptor[] instances;
+
+		/**
+		 * The provider of each interceptor, used for the interceptors that are not singletons
+		 */
+		final Provider<? extends MethodInterceptor>[] providers;
+
+		/**
+		 * @param injector The injector from which to get the interceptors
+		 * @param classes The classes of the interceptors, in the order in which they are run
+		 */
+		@SuppressWarnings("unchecked")
+		Chain(Injector injector, List<Class<? extends MethodInterceptor>> classes) {
+			this.instances = new MethodInterceptor[classes.size()];
+			this.providers = new Provider[classes.size()];
+			for (int i = 0; i < classes.size(); ++i) {
+				Class<? extends MethodInterceptor> interceptorClass = classes.get(i);
+				this.providers[i] = injector.getProvider(interceptorClass);
+				if (Scopes.isSingleton(injector.getBinding(interceptorClass)))
+					this.instances[i] = this.providers[i].get();
+			}
+		}
+
+		/**
+		 * @param index The position of the interceptor in the chain
+		 * @return The interceptor to run
+		 */
+		MethodInterceptor get(int index) {
+			MethodInterceptor interceptor = instances[index];
+			if (interceptor != null)
+				return interceptor;
+			return providers[index].get();
+		}
+	}
+
+	/**
+	 * Wrapper around {@link MethodInvocation} that runs each interceptor of a chain before the original invocation
 	 * 
 	 * @author Salomon BRYS <salomon.brys@gmail.com>
 	 */
-	private class InterceptorInvocation implements MethodInvocation {
+	static private final class ChainInvocation implements MethodInvocation {
 
 		/**
 		 * The original MethodInvocation
 		 */
-		MethodInvocation invocation;
-		
+		final MethodInvocation invocation;
+
+		/**
+		 * The chain of interceptors to run
+		 */
+		final Chain chain;
+
 		/**
-		 * The class of the interceptor. An instance will be asked to guice when proceeding
+		 * The position of the next interceptor to run in the chain
 		 */
-		Class<? extends MethodInterceptor> interceptorClass;
-		
+		int index = 0;
+
 		/**
 		 * @param invocation The original MethodInvocation
-		 * @param interceptor The class of the interceptor. An instance will be asked to guice when proceeding
+		 * @param chain The chain of interceptors to run
 		 */
-		InterceptorInvocation(MethodInvocation invocation, Class<? extends MethodInterceptor> interceptor) {
-			super();
+		ChainInvocation(MethodInvocation invocation, Chain chain) {
 			this.invocation = invocation;
-			this.interceptorClass = interceptor;
+			this.chain = chain;
 		}
 
 		/**
@@ -83,28 +142,57 @@ public class ControllerInterceptor implements MethodInterceptor {
 		@Override public Method getMethod() { return invocation.getMethod(); }
 
 		/**
-		 * Will delay the actual invocation to the guice fetched MethodInterceptor
+		 * Runs the next interceptor of the chain, or the original invocation if all interceptors have been run
+		 * The position in the chain is restored afterwards, so an interceptor can proceed more than once.
 		 */
 		@Override
 		public Object proceed() throws Throwable {
-			assert injector != null;
-			return injector.getInstance(interceptorClass).invoke(invocation);
+			if (index == chain.providers.length)
+				return invocation.proceed();
+			MethodInterceptor interceptor = chain.get(index);
+			++index;
+			try {
+				return interceptor.invoke(this);
+			}
+			finally {
+				--index;
+			}
 		}
-		
 	}
-	
+
 	/**
-	 * Constructs the {@link MethodInvocation} tree and launches the execution of the found interceptors.
+	 * Gets the chain of interceptors of a method, constructing it on first call
+	 * 
+	 * @param method The intercepted method
+	 * @return The chain of interceptors of the method
 	 */
-	@Override
-	public Object invoke(MethodInvocation invocation) throws Throwable {
-		
-		List<InterceptWith> interceptWithAnnos = Annotations.GetAllTreeRecursive(invocation.getMethod(), InterceptWith.class);
+	private Chain getChain(Method method) {
+		Chain chain = chains.get(method);
+		if (chain != null)
+			return chain;
+
+		List<InterceptWith> interceptWithAnnos = Annotations.GetAllTreeRecursive(method, InterceptWith.class);
 
+		// The last interceptor found wraps all the others and is therefore the first to run
+		LinkedList<Class<? extends MethodInterceptor>> classes = new LinkedList<Class<? extends MethodInterceptor>>();
 		for (InterceptWith interceptWith : interceptWithAnnos)
 			for (Class<? extends MethodInterceptor> interceptor : interceptWith.value())
-				invocation = new InterceptorInvocation(invocation, interceptor);
-		
-		return invocation.proceed();
+				classes.addFirst(interceptor);
+
+		assert injector != null;
+		chain = new Chain(injector, new ArrayList<Class<? extends MethodInterceptor>>(classes));
+		Chain previous = chains.putIfAbsent(method, chain);
+		return previous != null ? previous : chain;
+	}
+
+	/**
+	 * Launches the execution of the interceptors of the method.
+	 */
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Chain chain = getChain(invocation.getMethod());
+		if (chain.providers.length == 0)
+			return invocation.proceed();
+		return new ChainInvocation(invocation, chain).proceed();
 	}
 }
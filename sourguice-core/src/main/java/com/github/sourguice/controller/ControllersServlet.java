@@ -2,32 +2,44 @@ package com.github.sourguice.controller;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
 import java.nio.CharBuffer;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.regex.MatchResult;
 
 import javax.annotation.CheckForNull;
 import javax.inject.Inject;
 import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.github.sourguice.annotation.controller.Compress;
+import com.github.sourguice.annotation.controller.LastModified;
 import com.github.sourguice.annotation.controller.Redirects;
 import com.github.sourguice.annotation.controller.SendsError;
+import com.github.sourguice.annotation.request.CacheResponse;
 import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.cache.impl.CachedResponse;
+import com.github.sourguice.cache.impl.CapturingHttpResponse;
+import com.github.sourguice.cache.impl.ResponseCacheImpl;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.call.impl.MvcCallerImpl;
 import com.github.sourguice.controller.ControllerHandler.InvocationInfos;
 import com.github.sourguice.request.wrapper.NoJsessionidHttpRequest;
+import com.github.sourguice.resource.HttpResource;
 import com.github.sourguice.throwable.invocation.HandledException;
 import com.github.sourguice.throwable.invocation.NoSuchRequestParameterException;
-import com.github.sourguice.utils.Annotations;
 import com.github.sourguice.utils.RequestScopeContainer;
 import com.github.sourguice.view.Model;
 import com.github.sourguice.view.ViewRenderer;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
 
 /**
  * Servlet that will handle a request and transmit it to the relevant controller's invocation
@@ -45,11 +57,66 @@ public final class ControllersServlet extends HttpServlet {
 	 */
 	LinkedList<ControllerHandler<?>> handlers = new LinkedList<ControllerHandler<?>>();
 
+	/**
+	 * Index of the invocations of all handlers, used to find the best one for a request
+	 */
+	private InvocationIndex index = new InvocationIndex();
+
 	/**
 	 * The guice injector that will be used to get different SourGuice implementations
 	 */
 	@CheckForNull private Injector injector;
 	
+	/**
+	 * Provider of the request scoped container, resolved once when the injector is set
+	 */
+	@CheckForNull private Provider<RequestScopeContainer> containerProvider;
+
+	/**
+	 * Provider of the request scoped caller, resolved once when the injector is set
+	 */
+	@CheckForNull private Provider<MvcCallerImpl> callerProvider;
+
+	/**
+	 * Provider of the request scoped model, resolved once when the injector is set
+	 */
+	@CheckForNull private Provider<Model> modelProvider;
+
+	/**
+	 * The cache of the responses of the invocations annotated with @{@link CacheResponse}, resolved once when the injector is set
+	 */
+	@CheckForNull private ResponseCacheImpl responseCache;
+
+	/**
+	 * Providers of each view renderer used by the invocations of this servlet, resolved once when the injector is set
+	 */
+	private HashMap<Key<? extends ViewRenderer>, Provider<? extends ViewRenderer>> viewRenderers = new HashMap<Key<? extends ViewRenderer>, Provider<? extends ViewRenderer>>();
+	
+	/**
+	 * Call-time fetcher that gives the wrapping response (compressing or capturing) to the response arguments of an invocation
+	 */
+	private static final class ResponseArgumentFetcher implements StaticCalltimeArgumentFetcher<HttpServletResponse> {
+		/**
+		 * The wrapping response
+		 */
+		private final HttpServletResponse res;
+
+		/**
+		 * @param res The wrapping response
+		 */
+		ResponseArgumentFetcher(HttpServletResponse res) {
+			this.res = res;
+		}
+
+		@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
+			return type == HttpServletResponse.class || type == ServletResponse.class;
+		}
+
+		@Override public HttpServletResponse get(Type type, int pos, Annotation[] annos) {
+			return res;
+		}
+	}
+
 	/**
 	 * Method for injecting the injector
 	 * 
@@ -58,6 +125,26 @@ public final class ControllersServlet extends HttpServlet {
 	@Inject
 	public void setInjector(Injector injector) {
 		this.injector = injector;
+		this.containerProvider = injector.getProvider(RequestScopeContainer.class);
+		this.callerProvider = injector.getProvider(MvcCallerImpl.class);
+		this.modelProvider = injector.getProvider(Model.class);
+		this.responseCache = injector.getInstance(ResponseCacheImpl.class);
+		for (ControllerHandler<?> handler : handlers)
+			resolveViewRenderers(handler);
+	}
+
+	/**
+	 * Resolves the providers of the view renderers used by the invocations of a controller
+	 * 
+	 * @param handler The handler of the controller
+	 */
+	private void resolveViewRenderers(ControllerHandler<?> handler) {
+		assert injector != null;
+		for (MvcInvocation invocation : handler.getInvocations()) {
+			Key<? extends ViewRenderer> key = invocation.getDescriptor().getViewRendererKey();
+			if (!viewRenderers.containsKey(key))
+				viewRenderers.put(key, injector.getProvider(key));
+		}
 	}
 
 	/**
@@ -75,11 +162,14 @@ public final class ControllersServlet extends HttpServlet {
 	 */
 	public <T> void addController(ControllerHandler<T> c) {
 		handlers.add(c);
+		index.add(c);
+		if (injector != null)
+			resolveViewRenderers(c);
 	}
 
 	/**
 	 * Serves a request
-	 * This will ask all its controllers for the best invocation and will select the best of them all
+	 * This will look in the index of its controllers invocations for the best one
 	 * It will than invoke the invocation and render the corresponding view if necessary
 	 * 
 	 * @param req The HTTP Request
@@ -92,18 +182,21 @@ public final class ControllersServlet extends HttpServlet {
 		assert req != null;
 		assert res != null;
 		assert injector != null;
+		assert containerProvider != null;
+		assert callerProvider != null;
+		assert modelProvider != null;
+		assert responseCache != null;
 		
 		// Removes JSESSIONID from the request path if it is there
 		if (req.getPathInfo() != null)
 			req = new NoJsessionidHttpRequest(req);
 		
 		// Stores the request into the RequestScoped Container so it can be later retrieved using @GuiceRequest
-		injector.getInstance(RequestScopeContainer.class).store(HttpServletRequest.class, req);
+		RequestScopeContainer container = containerProvider.get();
+		container.store(HttpServletRequest.class, req);
 		
 		// Gets the best invocation of all controller handlers
-		InvocationInfos infos = null;
-		for (ControllerHandler<?> handler : this.handlers)
-			infos = InvocationInfos.GetBest(infos, handler.getBestInvocation(req));
+		InvocationInfos infos = index.getBest(req);
 		
 		// If no invocation were found
 		if (infos == null) {
@@ -114,92 +207,62 @@ public final class ControllersServlet extends HttpServlet {
 
 		assert infos.urlMatch != null;
 		// Stores the MatchResult into the RequestScoped Container so it can be later retrieved with guice injection
-		injector.getInstance(RequestScopeContainer.class).store(MatchResult.class, infos.urlMatch);
-		
+		container.store(MatchResult.class, infos.urlMatch);
+
+		InvocationDescriptor descriptor = infos.invocation.getDescriptor();
+
+		// If the response of the invocation may be cached, the kept response is sent or a copy of the response to come is kept
+		CacheResponse cacheResponse = descriptor.getCacheResponse();
+		String cacheKey = null;
+		CapturingHttpResponse capture = null;
+		CompressingHttpResponse compress = null;
+		HttpServletResponse original = res;
+
 		try {
-			// Invoke the invocation using the MethodCaller registered in Guice
-			Object ret = injector.getInstance(MvcCallerImpl.class).call(infos.invocation, infos.urlMatch, true);
+			// If the controller tells when what it sends was last modified, answers 304 if the client already has it
+			if (infos.lastModified != null && (req.getMethod().equals("GET") || req.getMethod().equals("HEAD")) && isNotModified(infos, req, res))
+				return ;
 
-			// Sets the view to the default default view
-			String view = infos.defaultView;
-			
-			if (view == null) {
-				SendsError sendsError = infos.invocation.getMethod().getAnnotation(SendsError.class);
-				if (sendsError != null) {
-					int code = sendsError.value();
-					String message = sendsError.message();
-					if (ret != null && !(ret instanceof Void)) {
-						if (ret instanceof Integer)
-							code = ((Integer)ret).intValue();
-						else
-							message = ret.toString();
-					}
-					if (message.isEmpty())
-						res.sendError(code);
-					else
-						res.sendError(code, message);
-					return ;
-				}
+			// If the response may be compressed, it is compressed while written (a cached response too)
+			Compress compression = descriptor.getCompress();
+			if (compression != null) {
+				compress = new CompressingHttpResponse(res, req.getHeader("Accept-Encoding"), compression);
+				res = compress;
+			}
 
-				Redirects redirectsTo = infos.invocation.getMethod().getAnnotation(Redirects.class);
-				if (redirectsTo != null) {
-					String to = redirectsTo.value();
-					if (ret != null && !(ret instanceof Void)) {
-						if (to.isEmpty())
-							to = ret.toString();
-						else if (to.contains("{}"))
-							to = to.replace("{}", ret.toString());
-					}
-					if (!to.isEmpty()) {
-						res.sendRedirect(to);
-						return ;
-					}
-				}
-				
-				Writes writes = Annotations.GetOneTreeRecursive(infos.invocation.getMethod(), Writes.class);
-				if (writes != null) {
-					if (ret == null)
-						throw new RuntimeException("@Writes annotated method must NOT return null");
-					if (ret instanceof Void)
-						throw new RuntimeException("@Writes annotated method must NOT return void");
-					if (ret instanceof InputStream)
-						ret = new InputStreamReader((InputStream)ret);
-					if (ret instanceof Readable) {
-						Readable r = (Readable)ret;
-						CharBuffer cb = CharBuffer.allocate(writes.bufferSize());
-						while (r.read(cb) >= 0) {
-							cb.flip();
-							res.getWriter().append(cb);
-							cb.clear();
-						}
-					}
-					else
-						res.getWriter().write(ret.toString());
-					if (ret instanceof Closeable)
-						((Closeable)ret).close();
+			// Range requests are not cached: the method answers them (with the bytes of the resource it writes)
+			if (cacheResponse != null && req.getMethod().equals("GET") && req.getHeader("Range") == null) {
+				cacheKey = cacheKey(descriptor, cacheResponse, req);
+				CachedResponse cached = responseCache.get(cacheKey);
+				if (cached != null) {
+					cached.send(req, res);
 					return ;
 				}
+				capture = responseCache.capture(res);
+				res = capture;
 			}
-			
-			// If the method returned a view, sets the view to it
-			if (ret != null && !(ret instanceof Void))
-				view = ret.toString();
-			
-			// If there is a view to display
-			if (view != null) {
-				// If a view directory were set, prefixes the view with it
-				if (infos.viewDirectory != null && !view.startsWith("/"))
-					view = infos.viewDirectory + "/" + view;
-
-				// Gets the view renderer either from the controller class or from Guice
-				ViewRenderer viewRenderer = null;
-				if (infos.viewRenderer != null)
-					viewRenderer = this.injector.getInstance(infos.viewRenderer);
-				else
-					viewRenderer = this.injector.getInstance(ViewRenderer.class);
-				
-				// Renders the view
-				viewRenderer.render(view, this.injector.getInstance(Model.class).asMap());
+
+			// Views, exception handlers and arguments get the wrapping response
+			if (res != original) {
+				container.store(HttpServletResponse.class, res);
+				callerProvider.get().setRes(res);
+			}
+
+			// Invoke the invocation using the MethodCaller registered in Guice
+			Object ret;
+			if (res != original)
+				ret = callerProvider.get().call(infos.invocation, infos.urlMatch, true, new ResponseArgumentFetcher(res));
+			else
+				ret = callerProvider.get().call(infos.invocation, infos.urlMatch, true);
+
+			handle(infos, ret, req, res);
+
+			// Keeps the response if it succeeded or if it is the error sent by @SendsError
+			if (capture != null && (capture.getStatus() == HttpServletResponse.SC_OK || descriptor.getSendsError() != null)) {
+				assert cacheKey != null && cacheResponse != null;
+				CachedResponse cached = capture.toCachedResponse(System.currentTimeMillis() + cacheResponse.ttl() * 1000L);
+				if (cached != null)
+					responseCache.put(cacheKey, cached);
 			}
 		}
 		catch (NoSuchRequestParameterException e) {
@@ -213,6 +276,191 @@ public final class ControllersServlet extends HttpServlet {
 			// When any other exception is thrown, encapsulates it into a ServletException
 			throw new ServletException(thrown);
 		}
+		finally {
+			if (capture != null)
+				capture.flushWriter();
+			if (compress != null)
+				compress.finish();
+		}
+	}
+
+	/**
+	 * Handles what an invocation returned: sends an error, redirects, writes it or renders the view
+	 * 
+	 * @param infos The invocation and its view informations
+	 * @param ret What the invocation returned
+	 * @param req The HTTP Request
+	 * @param res The HTTP Response
+	 * @throws Throwable Any exception thrown while writing the response or rendering the view
+	 */
+	private void handle(InvocationInfos infos, @CheckForNull Object ret, HttpServletRequest req, HttpServletResponse res) throws Throwable {
+		assert injector != null;
+		assert modelProvider != null;
+
+		InvocationDescriptor descriptor = infos.invocation.getDescriptor();
+
+		// Sets the view to the default default view
+		String view = infos.defaultView;
+		
+		if (view == null) {
+			SendsError sendsError = descriptor.getSendsError();
+			if (sendsError != null) {
+				int code = sendsError.value();
+				String message = sendsError.message();
+				if (ret != null && !(ret instanceof Void)) {
+					if (ret instanceof Integer)
+						code = ((Integer)ret).intValue();
+					else
+						message = ret.toString();
+				}
+				if (message.isEmpty())
+					res.sendError(code);
+				else
+					res.sendError(code, message);
+				return ;
+			}
+
+			Redirects redirectsTo = descriptor.getRedirects();
+			if (redirectsTo != null) {
+				String to = redirectsTo.value();
+				if (ret != null && !(ret instanceof Void)) {
+					if (to.isEmpty())
+						to = ret.toString();
+					else if (to.contains("{}"))
+						to = to.replace("{}", ret.toString());
+				}
+				if (!to.isEmpty()) {
+					res.sendRedirect(to);
+					return ;
+				}
+			}
+			
+			Writes writes = descriptor.getWrites();
+			if (writes != null) {
+				if (ret == null)
+					throw new RuntimeException("@Writes annotated method must NOT return null");
+				if (ret instanceof Void)
+					throw new RuntimeException("@Writes annotated method must NOT return void");
+				if (ret instanceof HttpResource)
+					ResourceWriter.Write((HttpResource)ret, req, res, writes.bufferSize());
+				else if (BytesWriter.IsBinary(ret))
+					// Binary results are written as they are, without going through a charset
+					BytesWriter.Write(ret, res, writes.bufferSize());
+				else if (ret instanceof Readable) {
+					Readable r = (Readable)ret;
+					CharBuffer cb = CharBuffer.allocate(writes.bufferSize());
+					while (r.read(cb) >= 0) {
+						cb.flip();
+						res.getWriter().append(cb);
+						cb.clear();
+					}
+				}
+				else
+					res.getWriter().write(ret.toString());
+				if (ret instanceof Closeable)
+					((Closeable)ret).close();
+				return ;
+			}
+		}
+		
+		// If the method returned a view, sets the view to it
+		if (ret != null && !(ret instanceof Void))
+			view = ret.toString();
+		
+		// If there is a view to display
+		if (view != null) {
+			// If a view directory were set, prefixes the view with it
+			if (infos.viewDirectory != null && !view.startsWith("/"))
+				view = infos.viewDirectory + "/" + view;
+
+			// Gets the view renderer either from the controller class or from Guice
+			Provider<? extends ViewRenderer> viewRenderer = viewRenderers.get(descriptor.getViewRendererKey());
+			if (viewRenderer == null)
+				viewRenderer = this.injector.getProvider(descriptor.getViewRendererKey());
+			
+			// Renders the view, into a buffer if asked so that it is sent with an ETag
+			if (descriptor.isBufferView() && (req.getMethod().equals("GET") || req.getMethod().equals("HEAD"))) {
+				assert containerProvider != null;
+				RequestScopeContainer container = containerProvider.get();
+				BufferedHttpResponse buffer = new BufferedHttpResponse(res);
+				container.store(HttpServletResponse.class, buffer);
+				try {
+					viewRenderer.get().render(view, modelProvider.get().asMap());
+				}
+				finally {
+					container.store(HttpServletResponse.class, res);
+				}
+				buffer.send(req);
+			}
+			else
+				viewRenderer.get().render(view, modelProvider.get().asMap());
+		}
+	}
+
+	/**
+	 * Calls the @{@link LastModified} method of the controller of an invocation
+	 * and answers 304 Not Modified if the If-Modified-Since header of the request is not older than what it returned
+	 * 
+	 * @param infos The invocation and the controller's @LastModified method
+	 * @param req The HTTP Request
+	 * @param res The HTTP Response
+	 * @return Whether the request was answered
+	 * @throws Throwable Any exception thrown by the @LastModified method
+	 */
+	private boolean isNotModified(InvocationInfos infos, HttpServletRequest req, HttpServletResponse res) throws Throwable {
+		assert callerProvider != null;
+		assert infos.lastModified != null;
+		assert infos.urlMatch != null;
+
+		Object ret = callerProvider.get().call(infos.lastModified, infos.invocation.getPathVariables(infos.urlMatch), true);
+		long lastModified = -1;
+		if (ret instanceof Date)
+			lastModified = ((Date)ret).getTime();
+		else if (ret instanceof Number)
+			lastModified = ((Number)ret).longValue();
+		if (lastModified < 0)
+			return false;
+
+		res.setDateHeader("Last-Modified", lastModified);
+		if (!ResourceWriter.IsNotModified(req, null, lastModified))
+			return false;
+		res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		return true;
+	}
+
+	/**
+	 * Builds the key of the cached response of a request
+	 * The key is made of the invocation, the request URI and the parameters and headers that the response depends on
+	 * 
+	 * @param descriptor The descriptor of the invocation
+	 * @param cacheResponse The {@link CacheResponse} annotation of the invocation
+	 * @param req The HTTP Request
+	 * @return The key of the cached response
+	 */
+	private static String cacheKey(InvocationDescriptor descriptor, CacheResponse cacheResponse, HttpServletRequest req) {
+		StringBuilder key = new StringBuilder(descriptor.getCacheKeyPrefix()).append('\n').append(req.getRequestURI()).append('\n');
+		if (cacheResponse.varyOn().length == 0) {
+			if (req.getQueryString() != null)
+				key.append(req.getQueryString());
+		}
+		else
+			for (String name : cacheResponse.varyOn()) {
+				key.append(name).append('=');
+				String[] values = req.getParameterValues(name);
+				if (values != null)
+					for (String value : values)
+						key.append(value).append('\0');
+				key.append('&');
+			}
+		key.append('\n');
+		for (String name : cacheResponse.varyOnHeaders()) {
+			key.append(name).append(':');
+			String value = req.getHeader(name);
+			if (value != null)
+				key.append(value);
+			key.append('\0');
+		}
+		return key.toString();
 	}
 	
 	@Override protected void doGet(HttpServletRequest req, HttpServletResponse res) throws ServletException, IOException {
@@ -0,0 +1,185 @@
+package com.github.sourguice.controller;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.CheckForNull;
+
+import com.github.sourguice.annotation.controller.BufferView;
+import com.github.sourguice.annotation.controller.Compress;
+import com.github.sourguice.annotation.controller.Redirects;
+import com.github.sourguice.annotation.controller.RenderWith;
+import com.github.sourguice.annotation.controller.SendsError;
+import com.github.sourguice.annotation.controller.ViewDirectory;
+import com.github.sourguice.annotation.request.CacheResponse;
+import com.github.sourguice.annotation.request.View;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.utils.Annotations;
+import com.github.sourguice.view.ViewRenderer;
+import com.google.inject.Key;
+
+/**
+ * Everything {@link ControllersServlet} needs to know about an invocation to handle what it returned
+ * This is read from the annotations of the invocation's method and class once, when the invocation is created,
+ * so that serving a request does not need to look for annotations again.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class InvocationDescriptor {
+
+	/**
+	 * The view directory, declared directly on the controller using {@link ViewDirectory}
+	 */
+	private final @CheckForNull String viewDirectory;
+
+	/**
+	 * The default view declared on the method using {@link View}
+	 */
+	private final @CheckForNull String defaultView;
+
+	/**
+	 * The view renderer, declared on the method or the controller using {@link RenderWith}
+	 */
+	private final @CheckForNull Class<? extends ViewRenderer> viewRenderer;
+
+	/**
+	 * The Guice key of the view renderer to use: the declared one or the one bound to {@link ViewRenderer}
+	 */
+	private final Key<? extends ViewRenderer> viewRendererKey;
+
+	/**
+	 * Whether the views are buffered, declared on the method or the controller using {@link BufferView}
+	 */
+	private final boolean bufferView;
+
+	/**
+	 * The {@link Compress} annotation, declared on the method or the controller
+	 */
+	private final @CheckForNull Compress compress;
+
+	/**
+	 * The {@link SendsError} annotation of the method
+	 */
+	private final @CheckForNull SendsError sendsError;
+
+	/**
+	 * The {@link Redirects} annotation of the method
+	 */
+	private final @CheckForNull Redirects redirects;
+
+	/**
+	 * The {@link Writes} annotation of the method, its class or its package
+	 */
+	private final @CheckForNull Writes writes;
+
+	/**
+	 * The {@link CacheResponse} annotation of the method
+	 */
+	private final @CheckForNull CacheResponse cacheResponse;
+
+	/**
+	 * Prefix of the keys of the cached responses of the invocation, null if its responses are not cached
+	 */
+	private final @CheckForNull String cacheKeyPrefix;
+
+	/**
+	 * @param clazz The class of the controller
+	 * @param method The method of the invocation
+	 */
+	public InvocationDescriptor(Class<?> clazz, Method method) {
+		ViewDirectory vdAnno = Annotations.GetOneTreeRecursive(clazz, ViewDirectory.class);
+		this.viewDirectory = vdAnno != null ? vdAnno.value() : null;
+
+		RenderWith rwAnno = Annotations.GetOneTreeRecursive(method, RenderWith.class);
+		this.viewRenderer = rwAnno != null ? rwAnno.value() : null;
+		this.viewRendererKey = this.viewRenderer != null ? Key.get(this.viewRenderer) : Key.get(ViewRenderer.class);
+
+		View vAnno = Annotations.GetOneTreeRecursive(method, View.class);
+		this.defaultView = vAnno != null ? vAnno.value() : null;
+
+		this.bufferView = Annotations.GetOneTreeRecursive(method, BufferView.class) != null;
+		this.compress = Annotations.GetOneTreeRecursive(method, Compress.class);
+
+		this.sendsError = method.getAnnotation(SendsError.class);
+		this.redirects = method.getAnnotation(Redirects.class);
+		this.writes = Annotations.GetOneTreeRecursive(method, Writes.class);
+		this.cacheResponse = method.getAnnotation(CacheResponse.class);
+		this.cacheKeyPrefix = this.cacheResponse != null ? clazz.getName() + " " + method.toGenericString() : null;
+	}
+
+	/**
+	 * @return The view directory, declared directly on the controller using {@link ViewDirectory}
+	 */
+	public @CheckForNull String getViewDirectory() {
+		return viewDirectory;
+	}
+
+	/**
+	 * @return The default view declared on the method using {@link View}
+	 */
+	public @CheckForNull String getDefaultView() {
+		return defaultView;
+	}
+
+	/**
+	 * @return The view renderer, declared on the method or the controller using {@link RenderWith}
+	 */
+	public @CheckForNull Class<? extends ViewRenderer> getViewRenderer() {
+		return viewRenderer;
+	}
+
+	/**
+	 * @return The Guice key of the view renderer to use: the declared one or the one bound to {@link ViewRenderer}
+	 */
+	public Key<? extends ViewRenderer> getViewRendererKey() {
+		return viewRendererKey;
+	}
+
+	/**
+	 * @return Whether the views are buffered, declared on the method or the controller using {@link BufferView}
+	 */
+	public boolean isBufferView() {
+		return bufferView;
+	}
+
+	/**
+	 * @return The {@link Compress} annotation, declared on the method or the controller
+	 */
+	public @CheckForNull Compress getCompress() {
+		return compress;
+	}
+
+	/**
+	 * @return The {@link SendsError} annotation of the method
+	 */
+	public @CheckForNull SendsError getSendsError() {
+		return sendsError;
+	}
+
+	/**
+	 * @return The {@link Redirects} annotation of the method
+	 */
+	public @CheckForNull Redirects getRedirects() {
+		return redirects;
+	}
+
+	/**
+	 * @return The {@link Writes} annotation of the method, its class or its package
+	 */
+	public @CheckForNull Writes getWrites() {
+		return writes;
+	}
+
+	/**
+	 * @return The {@link CacheResponse} annotation of the method
+	 */
+	public @CheckForNull CacheResponse getCacheResponse() {
+		return cacheResponse;
+	}
+
+	/**
+	 * @return Prefix of the keys of the cached responses of the invocation, null if its responses are not cached
+	 */
+	public @CheckForNull String getCacheKeyPrefix() {
+		return cacheKeyPrefix;
+	}
+}
@@ -0,0 +1,413 @@
+package com.github.sourguice.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.controller.ControllerHandler.InvocationInfos;
+
+/**
+ * Compiled index of all invocations that a {@link ControllersServlet} can serve
+ * Each @{@link RequestMapping} URL is split on '/' and stored in a segment trie whose nodes are either
+ * literal segments (foo), variable segments ({bar}) or segments mixing both (foo-{bar}).
+ * Finding the best invocation for a request therefore walks the request path once instead of running
+ * every compiled pattern against it, and does not allocate anything when no invocation matches.
+ * URLs that contain regular expression syntax cannot be safely split: they are kept aside and matched with their pattern.
+ *
+ * The best invocation is the one with the less path variables, then with the higher confidence
+ * (see {@link MvcInvocation#getConfidence(HttpServletRequest)}), then the last registered.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class InvocationIndex {
+
+	/**
+	 * Characters that make a URL a regular expression rather than a simple path
+	 */
+	static private final String regexChars = "\\.[]{}()*+?^$|";
+
+	/**
+	 * An invocation registered on one of its URL patterns
+	 */
+	static private final class Entry {
+		/**
+		 * The handler that declared the invocation
+		 */
+		final ControllerHandler<?> handler;
+
+		/**
+		 * The invocation to serve
+		 */
+		final MvcInvocation invocation;
+
+		/**
+		 * The pattern of the URL on which the invocation is registered
+		 */
+		final Pattern pattern;
+
+		/**
+		 * The number of groups of the pattern (which is the urlMatch groupCount when this entry is selected)
+		 */
+		final int groups;
+
+		/**
+		 * Registration order, used to select the last registered invocation when two are equally good
+		 */
+		final int id;
+
+		/**
+		 * Patterns declared before this one on the same invocation.
+		 * An invocation is always served with the first of its patterns that matches.
+		 */
+		final @CheckForNull Pattern[] previous;
+
+		/**
+		 * @param handler The handler that declared the invocation
+		 * @param invocation The invocation to serve
+		 * @param pattern The pattern of the URL on which the invocation is registered
+		 * @param id Registration order
+		 * @param previous Patterns declared before this one on the same invocation
+		 */
+		Entry(ControllerHandler<?> handler, MvcInvocation invocation, Pattern pattern, int id, @CheckForNull Pattern[] previous) {
+			this.handler = handler;
+			this.invocation = invocation;
+			this.pattern = pattern;
+			this.groups = Math.min(pattern.matcher("").groupCount(), 0x7FFF);
+			this.id = id;
+			this.previous = previous;
+		}
+	}
+
+	/**
+	 * A segment that mixes literal text and variables, like foo-{bar}
+	 * Each variable matches at least one character.
+	 */
+	static private final class Template {
+		/**
+		 * The literal parts of the segment, around the variables
+		 */
+		final String[] parts;
+
+		/**
+		 * @param normalized The segment where each variable has been replaced by {}
+		 */
+		Template(String normalized) {
+			this.parts = normalized.split("\\{\\}", -1);
+		}
+
+		/**
+		 * @param path The request path
+		 * @param start Start of the segment in the path
+		 * @param end End of the segment in the path
+		 * @return Whether the segment matches this template
+		 */
+		boolean matches(String path, int start, int end) {
+			String first = parts[0];
+			String last = parts[parts.length - 1];
+			if (!path.regionMatches(start, first, 0, first.length()))
+				return false;
+			int pos = start + first.length();
+			for (int i = 1; i < parts.length - 1; ++i) {
+				String part = parts[i];
+				int found = path.indexOf(part, pos + 1);
+				if (found < 0 || found + part.length() > end)
+					return false;
+				pos = found + part.length();
+			}
+			int suffix = end - last.length();
+			return suffix > pos && path.regionMatches(suffix, last, 0, last.length());
+		}
+	}
+
+	/**
+	 * A node of the trie, which corresponds to one segment of a URL
+	 */
+	static private final class Node {
+		/**
+		 * Sorted literal segments that can follow this node
+		 */
+		String[] literals = new String[0];
+
+		/**
+		 * Nodes of each literal segment, in the same order
+		 */
+		Node[] literalNodes = new Node[0];
+
+		/**
+		 * Mixed segments that can follow this node
+		 */
+		Template[] templates = new Template[0];
+
+		/**
+		 * Normalized form of each mixed segment, in the same order
+		 */
+		String[] templateKeys = new String[0];
+
+		/**
+		 * Nodes of each mixed segment, in the same order
+		 */
+		Node[] templateNodes = new Node[0];
+
+		/**
+		 * Node of a segment that is only a variable
+		 */
+		@CheckForNull Node variable = null;
+
+		/**
+		 * Invocations whose URL ends on this node
+		 */
+		Entry[] entries = new Entry[0];
+
+		/**
+		 * Gets or creates the node that follows this one for the given URL segment
+		 *
+		 * @param segment The URL segment
+		 * @return The child node
+		 */
+		Node child(String segment) {
+			if (MvcInvocation.search.matcher(segment).matches()) {
+				if (variable == null)
+					variable = new Node();
+				return variable;
+			}
+
+			Matcher matcher = MvcInvocation.search.matcher(segment);
+			if (matcher.find()) {
+				String key = matcher.replaceAll("{}");
+				for (int i = 0; i < templateKeys.length; ++i)
+					if (templateKeys[i].equals(key))
+						return templateNodes[i];
+				Node node = new Node();
+				templateKeys = Append(templateKeys, key);
+				templates = Append(templates, new Template(key));
+				templateNodes = Append(templateNodes, node);
+				return node;
+			}
+
+			int pos = Arrays.binarySearch(literals, segment);
+			if (pos >= 0)
+				return literalNodes[pos];
+			pos = -pos - 1;
+			Node node = new Node();
+			literals = Insert(literals, pos, segment);
+			literalNodes = Insert(literalNodes, pos, node);
+			return node;
+		}
+
+		/**
+		 * Finds the literal child that corresponds to a segment of the request path
+		 *
+		 * @param path The request path
+		 * @param start Start of the segment in the path
+		 * @param end End of the segment in the path
+		 * @return The child node or null if there is none
+		 */
+		@CheckForNull Node literal(String path, int start, int end) {
+			int low = 0;
+			int high = literals.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = Compare(literals[mid], path, start, end);
+				if (cmp < 0)
+					low = mid + 1;
+				else if (cmp > 0)
+					high = mid - 1;
+				else
+					return literalNodes[mid];
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Root of the trie
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * Entries whose URL is a regular expression and can only be matched with their pattern
+	 */
+	private Entry[] regexEntries = new Entry[0];
+
+	/**
+	 * All entries, by id
+	 */
+	private ArrayList<Entry> entries = new ArrayList<Entry>();
+
+	/**
+	 * Adds all invocations of a controller to the index
+	 * Invocations added later win over the ones added before when they are equally good for a request.
+	 *
+	 * @param handler The handler of the controller to add
+	 */
+	public void add(ControllerHandler<?> handler) {
+		for (MvcInvocation invocation : handler.getInvocations()) {
+			RequestMapping mapping = invocation.getMapping();
+			if (mapping == null)
+				continue ;
+			String[] locations = mapping.value();
+			List<Pattern> patterns = invocation.getPatterns();
+			for (int i = 0; i < locations.length; ++i) {
+				Pattern[] previous = i > 0 ? patterns.subList(0, i).toArray(new Pattern[i]) : null;
+				Entry entry = new Entry(handler, invocation, patterns.get(i), entries.size(), previous);
+				entries.add(entry);
+
+				if (!IsPlain(locations[i])) {
+					regexEntries = Append(regexEntries, entry);
+					continue ;
+				}
+
+				Node node = root;
+				for (String segment : locations[i].split("/", -1))
+					node = node.child(segment);
+				node.entries = Append(node.entries, entry);
+			}
+		}
+	}
+
+	/**
+	 * Gets the best invocation for this request
+	 *
+	 * @param req The request to get invocation for
+	 * @return All infos of the best invocation or null if no invocation can serve this request
+	 */
+	public @CheckForNull InvocationInfos getBest(HttpServletRequest req) {
+		String path = req.getPathInfo();
+		if (path == null)
+			path = "/";
+
+		long best = find(root, path, 0, req, -1);
+		for (Entry entry : regexEntries)
+			if (entry.pattern.matcher(path).matches())
+				best = Math.max(best, score(entry, path, req));
+
+		if (best < 0)
+			return null;
+
+		Entry entry = entries.get((int)(best & 0xFFFFFFFFL));
+		Matcher matcher = entry.pattern.matcher(path);
+		matcher.matches();
+
+		InvocationInfos infos = new InvocationInfos(entry.invocation);
+		infos.urlMatch = matcher.toMatchResult();
+		infos.confidence = (int)((best >>> 32) & 0xFFFF);
+		return entry.handler.gatherInfos(infos);
+	}
+
+	/**
+	 * Walks the trie for the rest of the request path and returns the best score found
+	 *
+	 * @param node The current node
+	 * @param path The request path
+	 * @param start Start of the next segment in the path, past its end when the whole path has been consumed
+	 * @param req The request
+	 * @param best The best score found so far
+	 * @return The best score between the given one and the ones found under this node
+	 */
+	private long find(Node node, String path, int start, HttpServletRequest req, long best) {
+		if (start > path.length()) {
+			for (Entry entry : node.entries)
+				best = Math.max(best, score(entry, path, req));
+			return best;
+		}
+
+		int end = path.indexOf('/', start);
+		if (end < 0)
+			end = path.length();
+
+		Node literal = node.literal(path, start, end);
+		if (literal != null)
+			best = find(literal, path, end + 1, req, best);
+
+		for (int i = 0; i < node.templates.length; ++i)
+			if (node.templates[i].matches(path, start, end))
+				best = find(node.templateNodes[i], path, end + 1, req, best);
+
+		if (node.variable != null && end > start)
+			best = find(node.variable, path, end + 1, req, best);
+
+		return best;
+	}
+
+	/**
+	 * Scores an entry whose URL matches the request path
+	 * The score orders entries by less path variables, then higher confidence, registration order breaking ties.
+	 *
+	 * @param entry The entry to score
+	 * @param path The request path
+	 * @param req The request
+	 * @return The score, or -1 if the entry cannot serve the request
+	 */
+	static private long score(Entry entry, String path, HttpServletRequest req) {
+		if (entry.previous != null)
+			for (Pattern pattern : entry.previous)
+				if (pattern.matcher(path).matches())
+					return -1;
+
+		int confidence = entry.invocation.getConfidence(req);
+		if (confidence < 0)
+			return -1;
+
+		return ((long)(0x7FFF - entry.groups) << 48) | ((long)Math.min(confidence, 0xFFFF) << 32) | entry.id;
+	}
+
+	/**
+	 * @param location A @{@link RequestMapping} URL
+	 * @return Whether the URL is only made of literal text and variables
+	 */
+	static private boolean IsPlain(String location) {
+		String literal = MvcInvocation.search.matcher(location).replaceAll("");
+		for (int i = 0; i < literal.length(); ++i)
+			if (regexChars.indexOf(literal.charAt(i)) >= 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Compares a string to a segment of the request path without extracting it, like {@link String#compareTo(String)} would
+	 *
+	 * @param key The string to compare
+	 * @param path The request path
+	 * @param start Start of the segment in the path
+	 * @param end End of the segment in the path
+	 * @return A negative integer, zero, or a positive integer as the key is less than, equal to, or greater than the segment
+	 */
+	static private int Compare(String key, String path, int start, int end) {
+		int length = Math.min(key.length(), end - start);
+		for (int i = 0; i < length; ++i) {
+			char k = key.charAt(i);
+			char p = path.charAt(start + i);
+			if (k != p)
+				return k - p;
+		}
+		return key.length() - (end - start);
+	}
+
+	/**
+	 * @param array The array to copy
+	 * @param value The value to add at the end of the copy
+	 * @return A copy of the array with the value added at its end
+	 */
+	static private <T> T[] Append(T[] array, T value) {
+		return Insert(array, array.length, value);
+	}
+
+	/**
+	 * @param array The array to copy
+	 * @param pos The position at which to insert the value
+	 * @param value The value to insert
+	 * @return A copy of the array with the value inserted at the given position
+	 */
+	static private <T> T[] Insert(T[] array, int pos, T value) {
+		T[] ret = Arrays.copyOf(array, array.length + 1);
+		System.arraycopy(array, pos, ret, pos + 1, array.length - pos);
+		ret[pos] = value;
+		return ret;
+	}
+}
@@ -0,0 +1,119 @@
+package com.github.sourguice.controller;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javax.annotation.CheckForNull;
+
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+
+/**
+ * Calls a controller's method through a {@link MethodHandle} that is bound once, when the invocation is created
+ * This avoids the access checks, the wrapping of exceptions into InvocationTargetException and the return type lookups
+ * of {@link Method#invoke(Object, Object...)} on each call.
+ *
+ * The controller instance is still retrieved from Guice so that Guice AOP (and therefore {@link ControllerInterceptor}) applies.
+ * When the controller is a singleton, the instance is retrieved only once per injector.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class MethodInvoker {
+
+	/**
+	 * The controller instance of an injector, remembered once the controller is known to be a singleton
+	 */
+	static private final class Bound {
+		/**
+		 * The injector that created the instance
+		 */
+		final Injector injector;
+
+		/**
+		 * The singleton instance, null if the controller is not a singleton
+		 */
+		final @CheckForNull Object instance;
+
+		/**
+		 * @param injector The injector that created the instance
+		 * @param instance The singleton instance, null if the controller is not a singleton
+		 */
+		Bound(Injector injector, @CheckForNull Object instance) {
+			this.injector = injector;
+			this.instance = instance;
+		}
+	}
+
+	/**
+	 * The class of the controller
+	 */
+	private final Class<?> clazz;
+
+	/**
+	 * Handle of the method, with type (Object, Object[])Object
+	 */
+	private final MethodHandle handle;
+
+	/**
+	 * Whether the method returns void
+	 */
+	private final boolean returnsVoid;
+
+	/**
+	 * The controller instance, once it has been retrieved from the injector
+	 */
+	private volatile @CheckForNull Bound bound = null;
+
+	/**
+	 * @param clazz The class of the controller
+	 * @param method The method to call
+	 */
+	public MethodInvoker(Class<?> clazz, Method method) {
+		this.clazz = clazz;
+		this.returnsVoid = method.getReturnType().equals(void.class);
+
+		MethodHandle handle;
+		try {
+			method.setAccessible(true);
+			handle = MethodHandles.lookup().unreflect(method);
+		}
+		catch (IllegalAccessException e) {
+			throw new RuntimeException("Cannot access method " + method, e);
+		}
+		if (Modifier.isStatic(method.getModifiers()))
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		this.handle = handle.asType(handle.type().generic()).asSpreader(Object[].class, method.getParameterTypes().length);
+	}
+
+	/**
+	 * Calls the method on the controller instance
+	 *
+	 * @param injector The injector from which to get the controller instance
+	 * @param params The arguments of the method
+	 * @return What the method returned, null if it returned void
+	 * @throws Throwable Anything the method has thrown
+	 */
+	public @CheckForNull Object invoke(Injector injector, Object[] params) throws Throwable {
+		Object ret = handle.invokeExact(getInstance(injector), params);
+		return returnsVoid ? null : ret;
+	}
+
+	/**
+	 * @param injector The injector from which to get the controller instance
+	 * @return The controller instance
+	 */
+	private Object getInstance(Injector injector) {
+		Bound bound = this.bound;
+		if (bound != null && bound.injector == injector) {
+			if (bound.instance != null)
+				return bound.instance;
+			return injector.getInstance(clazz);
+		}
+
+		Object instance = injector.getInstance(clazz);
+		this.bound = new Bound(injector, Scopes.isSingleton(injector.getBinding(clazz)) ? instance : null);
+		return instance;
+	}
+}
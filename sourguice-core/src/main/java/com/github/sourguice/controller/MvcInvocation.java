@@ -2,12 +2,13 @@ package com.github.sourguice.controller;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -24,8 +25,8 @@ import com.github.sourguice.annotation.request.RequestMapping;
 import com.github.sourguice.annotation.request.RequestParam;
 import com.github.sourguice.annotation.request.SessionAttribute;
 import com.github.sourguice.call.CalltimeArgumentFetcher;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.call.impl.PathVariablesProvider;
-import com.github.sourguice.controller.ControllerHandler.InvocationInfos;
 import com.github.sourguice.controller.fetchers.ArgumentFetcher;
 import com.github.sourguice.controller.fetchers.InjectorArgumentFetcher;
 import com.github.sourguice.controller.fetchers.NullArgumentFetcher;
@@ -34,6 +35,7 @@ import com.github.sourguice.controller.fetchers.RequestAttributeArgumentFetcher;
 import com.github.sourguice.controller.fetchers.RequestHeaderArgumentFetcher;
 import com.github.sourguice.controller.fetchers.RequestParamArgumentFetcher;
 import com.github.sourguice.controller.fetchers.SessionAttributeArgumentFetcher;
+import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.throwable.invocation.NoSuchRequestParameterException;
 import com.github.sourguice.utils.Annotations;
 import com.github.sourguice.utils.Arrays;
@@ -53,7 +55,7 @@ public final class MvcInvocation {
 	/**
 	 * Pattern to detect a variable in a url string
 	 */
-	static private final Pattern search = Pattern.compile("\\{([a-zA-Z0-9\\-_]+)\\}");
+	static final Pattern search = Pattern.compile("\\{([a-zA-Z0-9\\-_]+)\\}");
 
 	/**
 	 * Regular expressions to be applied to a URL to see if it matches
@@ -76,27 +78,40 @@ public final class MvcInvocation {
 	 */
 	private Method method;
 
-	/**
-	 * The class of this Invocation
-	 */
-	private Class<?> clazz;
-	
 	/**
 	 * The reference of each path variable name and their position in the url regex
 	 */
 	HashMap<String, Integer> matchRef = new HashMap<String, Integer>();
 
+	/**
+	 * What is needed to handle the result of this invocation, read once from annotations
+	 */
+	private InvocationDescriptor descriptor;
+
+	/**
+	 * The invoker that calls the method
+	 */
+	private MethodInvoker invoker;
+
+	/**
+	 * For each {@link StaticCalltimeArgumentFetcher} class that was given to this invocation,
+	 * which parameter positions it can get
+	 */
+	private ConcurrentHashMap<Class<?>, boolean[]> claims = new ConcurrentHashMap<Class<?>, boolean[]>();
+
 	/**
 	 * @param mapping The annotation that must be present on each invocation method
 	 * @param clazz The class on witch to call the method
 	 * @param method The method to call
+	 * @param conversionService The conversion service used by the fetchers that need to convert request strings
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	public MvcInvocation(@CheckForNull RequestMapping mapping, Class<?> clazz, Method method) {
+	public MvcInvocation(@CheckForNull RequestMapping mapping, Class<?> clazz, Method method, ConversionService conversionService) {
 		// Set properties
 		this.mapping = mapping;
 		this.method = method;
-		this.clazz = clazz;
+		this.descriptor = new InvocationDescriptor(clazz, method);
+		this.invoker = new MethodInvoker(clazz, method);
 		
 		// Transform URL like "/foo-{bar}" into /foo-[^/]+ and registers "bar" as match 1
 		if (this.mapping != null)
@@ -122,13 +137,13 @@ public final class MvcInvocation {
 
 			RequestParam requestParam = annos.getAnnotation(RequestParam.class);
 			if (requestParam != null) {
-				fetchers[n] = new RequestParamArgumentFetcher(parameterTypes[n], n, annotations[n], requestParam);
+				fetchers[n] = new RequestParamArgumentFetcher(parameterTypes[n], n, annotations[n], requestParam, conversionService);
 				continue ;
 			}
 			
 			PathVariable pathVariable = annos.getAnnotation(PathVariable.class);
 			if (pathVariable != null) {
-				fetchers[n] = new PathVariableArgumentFetcher(parameterTypes[n], n, annotations[n], pathVariable, matchRef, this.mapping != null && this.mapping.value().length > 0);
+				fetchers[n] = new PathVariableArgumentFetcher(parameterTypes[n], n, annotations[n], pathVariable, matchRef, this.mapping != null && this.mapping.value().length > 0, conversionService);
 				continue ;
 			}
 			
@@ -146,7 +161,7 @@ public final class MvcInvocation {
 			
 			RequestHeader requestHeader = annos.getAnnotation(RequestHeader.class);
 			if (requestHeader != null) {
-				fetchers[n] = new RequestHeaderArgumentFetcher(parameterTypes[n], n, annotations[n], requestHeader);
+				fetchers[n] = new RequestHeaderArgumentFetcher(parameterTypes[n], n, annotations[n], requestHeader, conversionService);
 				continue ;
 			}
 			
@@ -161,76 +176,63 @@ public final class MvcInvocation {
 	}
 	
 	/**
-	 * This will determine if this invocation can serve for this request and how confident it is to serve it
-	 * The more confident it is, the more specialised it is for this request.
+	 * Checks all filters of the @{@link RequestMapping} except the URL, which must already have been matched
+	 * Each filter that is declared and satisfied adds one to the confidence.
+	 * 
 	 * @param req The request
-	 * @return InvocationInfos with all infos (including confidence) if it can, null if it can't
+	 * @return The confidence of this invocation to serve the request, -1 if it can't
 	 */
-	public @CheckForNull InvocationInfos canServe(HttpServletRequest req) {
-		if (this.mapping == null)
-			return null;
-		
-		InvocationInfos ret = new InvocationInfos(this);
-		
-		// Checks if the URL declared in @RequestMapping matches. This is mandatory
-		for (Pattern pattern : patterns) {
-			String p = req.getPathInfo();
-			if (p == null)
-				p = "/";
-			Matcher matcher = pattern.matcher(p);
-			if (matcher.matches()) {
-				ret.urlMatch = matcher.toMatchResult();
-				break ;
-			}
-		}
-		if (ret.urlMatch == null)
-			return null;
+	int getConfidence(HttpServletRequest req) {
+		RequestMapping mapping = this.mapping;
+		assert mapping != null;
+
+		int confidence = 0;
 
 		// Checks the HTTP Method
-		if (this.mapping.method().length > 0) {
+		if (mapping.method().length > 0) {
 			RequestMethod requestMethod = RequestMethod.valueOf(req.getMethod());
 			if (Arrays.Contains(mapping.method(), requestMethod))
-				++ret.confidence;
+				++confidence;
 			else
-				return null;
+				return -1;
 		}
 		
 		// Checks request parametes
 		if (mapping.params().length > 0)
 			for (String param : mapping.params())
 				if (req.getParameter(param) != null)
-					++ret.confidence;
+					++confidence;
 				else
-					return null;
+					return -1;
 
 		// Checks HTTP headers
 		if (mapping.headers().length > 0)
 			for (String header : mapping.headers())
 				if (req.getHeader(header) != null)
-					++ret.confidence;
+					++confidence;
 				else
-					return null;
+					return -1;
 		
 		// Checks HTTP header Content-Type
 		if (mapping.consumes().length > 0) {
 			if (Arrays.Contains(mapping.consumes(), req.getContentType()))
-				++ret.confidence;
+				++confidence;
 			else
-				return null;
+				return -1;
 		}
 		
 		// Checks HTTP header Accept
 		if (mapping.produces().length > 0) {
 			if (req.getHeader("Accept") == null)
-				return null;
+				return -1;
 
 			if (HttpStrings.AcceptContains(req.getHeader("Accept"), mapping.produces()))
-				++ret.confidence;
+				++confidence;
 			else
-				return null;
+				return -1;
 		}
 		
-		return ret;
+		return confidence;
 	}
 
 	/**
@@ -259,23 +261,34 @@ public final class MvcInvocation {
 
 		try {
 			// Fetches all arguments
+			// Each argument is fetched by the first call-time fetcher that can get it or, if there is none, by its own fetcher
 			Object[] params = new Object[this.fetchers.length];
-			Object invocRet = null;
-			for (int n = 0; n < this.fetchers.length; ++n)
-				params[n] = this.fetchers[n].get(req, pathVariables, injector, additionalFetchers);
+			if (additionalFetchers.length == 0)
+				for (int n = 0; n < this.fetchers.length; ++n)
+					params[n] = this.fetchers[n].get(req, pathVariables, injector);
+			else {
+				boolean[][] fetchersClaims = new boolean[additionalFetchers.length][];
+				for (int i = 0; i < additionalFetchers.length; ++i)
+					if (additionalFetchers[i] instanceof StaticCalltimeArgumentFetcher)
+						fetchersClaims[i] = getClaims(additionalFetchers[i]);
 
-			try {
-				// Calls the method
-				Object ret = method.invoke(injector.getInstance(this.clazz), params);
-				
-				// If method did not returned void, gets what it returned
-				if (!method.getReturnType().equals(Void.TYPE) && !method.getReturnType().equals(void.class))
-					invocRet = ret;
-			}
-			// Catches anything that might be thrown by the method call
-			catch (InvocationTargetException thrown) {
-				throw thrown.getCause();
+				for (int n = 0; n < this.fetchers.length; ++n) {
+					ArgumentFetcher<?> fetcher = this.fetchers[n];
+					CalltimeArgumentFetcher<?> calltime = null;
+					for (int i = 0; i < additionalFetchers.length && calltime == null; ++i) {
+						boolean[] fetcherClaims = fetchersClaims[i];
+						if (fetcherClaims != null ? fetcherClaims[n] : additionalFetchers[i].canGet(fetcher.getType(), n, fetcher.getAnnotations()))
+							calltime = additionalFetchers[i];
+					}
+					if (calltime != null)
+						params[n] = calltime.get(fetcher.getType(), n, fetcher.getAnnotations());
+					else
+						params[n] = fetcher.get(req, pathVariables, injector);
+				}
 			}
+
+			// Calls the method, anything it throws goes through
+			Object invocRet = invoker.invoke(injector, params);
 			
 			// Returns whatever the method call returned
 			return invocRet;
@@ -286,6 +299,23 @@ public final class MvcInvocation {
 		}
 	}
 	
+	/**
+	 * Gets which parameter positions a static call-time fetcher can get, asking it only the first time its class is given
+	 * 
+	 * @param fetcher The call-time fetcher
+	 * @return For each parameter position, whether the fetcher can get it
+	 */
+	private boolean[] getClaims(CalltimeArgumentFetcher<?> fetcher) {
+		boolean[] fetcherClaims = claims.get(fetcher.getClass());
+		if (fetcherClaims == null) {
+			fetcherClaims = new boolean[this.fetchers.length];
+			for (int n = 0; n < this.fetchers.length; ++n)
+				fetcherClaims[n] = fetcher.canGet(this.fetchers[n].getType(), n, this.fetchers[n].getAnnotations());
+			claims.putIfAbsent(fetcher.getClass(), fetcherClaims);
+		}
+		return fetcherClaims;
+	}
+
 	/**
 	 * Invoke proxy for internal use
 	 */
@@ -299,10 +329,39 @@ public final class MvcInvocation {
 		return Invoke(req, PathVariablesProvider.fromMatch(urlMatch, matchRef), injector, additionalFetchers);
 	}
 
+	/**
+	 * @param urlMatch The match result of the request URL on one of the invocation's patterns
+	 * @return The path variables of the request
+	 */
+	public @PathVariablesMap Map<String, String> getPathVariables(MatchResult urlMatch) {
+		return PathVariablesProvider.fromMatch(urlMatch, matchRef);
+	}
+
 	/**
 	 * @return The invocation's method
 	 */
 	public Method getMethod() {
 		return method;
 	}
+
+	/**
+	 * @return What is needed to handle the result of this invocation
+	 */
+	public InvocationDescriptor getDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * @return The annotation of the invocation's method, null if the method is not request mapped
+	 */
+	public @CheckForNull RequestMapping getMapping() {
+		return mapping;
+	}
+
+	/**
+	 * @return The compiled patterns of each URL of the mapping, in the order of their declaration
+	 */
+	List<Pattern> getPatterns() {
+		return patterns;
+	}
 }
@@ -0,0 +1,313 @@
+package com.github.sourguice.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.sourguice.resource.HttpResource;
+
+/**
+ * Sends an {@link HttpResource} returned by a @Writes method.
+ * Conditional requests (If-None-Match, If-Modified-Since) are answered with 304 Not Modified,
+ * and byte range requests (Range, If-Range) with 206 Partial Content, as a single range or as multipart/byteranges.
+ * Only the requested bytes are read from the resource.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class ResourceWriter {
+
+	/**
+	 * Maximum number of ranges of a request that are answered, a request with more ranges is answered with the whole resource
+	 */
+	static private final int MAX_RANGES = 16;
+
+	private ResourceWriter() {}
+
+	/**
+	 * Sends a resource to the response
+	 *
+	 * @param resource The resource to send
+	 * @param req The current request
+	 * @param res The response to write to
+	 * @param bufferSize The size of the buffer used to copy resources that are not files
+	 * @throws IOException If an input or output error occurs
+	 */
+	public static void Write(HttpResource resource, HttpServletRequest req, HttpServletResponse res, int bufferSize) throws IOException {
+		long length = resource.getLength();
+		long lastModified = resource.getLastModified();
+		String eTag = resource.getETag();
+		boolean body = !req.getMethod().equals("HEAD");
+		boolean get = !body || req.getMethod().equals("GET");
+
+		res.setHeader("Accept-Ranges", "bytes");
+		if (lastModified >= 0)
+			res.setDateHeader("Last-Modified", lastModified);
+		if (eTag != null)
+			res.setHeader("ETag", eTag);
+		String contentType = resource.getContentType();
+		if (contentType != null)
+			res.setContentType(contentType);
+
+		if (get && IsNotModified(req, eTag, lastModified)) {
+			res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return ;
+		}
+
+		String range = req.getHeader("Range");
+		if (range != null && get && IfRangeMatches(req, eTag, lastModified)) {
+			List<long[]> ranges = ParseRanges(range, length);
+			if (ranges != null && ranges.isEmpty()) {
+				// sendError would drop the Content-Range header
+				res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				res.setHeader("Content-Range", "bytes */" + length);
+				res.setContentLength(0);
+				return ;
+			}
+			if (ranges != null) {
+				res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				if (ranges.size() == 1)
+					WriteRange(resource, res, ranges.get(0), length, body, bufferSize);
+				else
+					WriteRanges(resource, res, ranges, length, contentType, body, bufferSize);
+				return ;
+			}
+		}
+
+		BytesWriter.SetContentLength(res, length);
+		if (!body)
+			return ;
+		try (SeekableByteChannel channel = resource.open()) {
+			Send(channel, 0, length, res.getOutputStream(), bufferSize);
+		}
+	}
+
+	/**
+	 * Whether a GET request is conditional and the client already has the resource
+	 *
+	 * @param req The current request
+	 * @param eTag The entity tag of the resource, or null if it has none
+	 * @param lastModified The last modification time of the resource, or -1 if it is unknown
+	 * @return Whether the request can be answered with 304 Not Modified
+	 */
+	public static boolean IsNotModified(HttpServletRequest req, @CheckForNull String eTag, long lastModified) {
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		// If-Modified-Since is ignored when If-None-Match is present
+		if (ifNoneMatch != null)
+			return eTag != null && MatchesETag(ifNoneMatch, eTag);
+		if (lastModified < 0)
+			return false;
+		long ifModifiedSince = GetDate(req, "If-Modified-Since");
+		// HTTP dates have a precision of one second
+		return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/**
+	 * Whether a range request applies to the current version of the resource
+	 *
+	 * @param req The current request
+	 * @param eTag The entity tag of the resource, or null if it has none
+	 * @param lastModified The last modification time of the resource, or -1 if it is unknown
+	 * @return Whether the ranges can be sent, rather than the whole resource
+	 */
+	private static boolean IfRangeMatches(HttpServletRequest req, @CheckForNull String eTag, long lastModified) {
+		String ifRange = req.getHeader("If-Range");
+		if (ifRange == null)
+			return true;
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+			// If-Range uses the strong comparison
+			return eTag != null && ifRange.equals(eTag);
+		if (lastModified < 0)
+			return false;
+		long date = GetDate(req, "If-Range");
+		return date >= 0 && lastModified / 1000 == date / 1000;
+	}
+
+	/**
+	 * Whether an If-None-Match header matches an entity tag (with the weak comparison)
+	 *
+	 * @param ifNoneMatch The If-None-Match header of the request
+	 * @param eTag The entity tag of the resource
+	 * @return Whether the client already has the resource
+	 */
+	static boolean MatchesETag(String ifNoneMatch, String eTag) {
+		if (eTag.startsWith("W/"))
+			eTag = eTag.substring(2);
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if (tag.equals("*") || tag.equals(eTag))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param req The current request
+	 * @param name The name of the header
+	 * @return The date of the header, or -1 if it is absent or malformed
+	 */
+	private static long GetDate(HttpServletRequest req, String name) {
+		try {
+			return req.getDateHeader(name);
+		}
+		catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Parses a Range header
+	 *
+	 * @param range The Range header of the request
+	 * @param length The length of the resource
+	 * @return The first and last positions of each satisfiable range (empty if none is),
+	 *         or null if the header is malformed or has too many ranges and is to be ignored
+	 */
+	static @CheckForNull List<long[]> ParseRanges(String range, long length) {
+		range = range.trim();
+		if (!range.startsWith("bytes="))
+			return null;
+		String[] specs = range.substring(6).split(",");
+		if (specs.length > MAX_RANGES)
+			return null;
+		List<long[]> ranges = new ArrayList<long[]>(specs.length);
+		for (String spec : specs) {
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0)
+				return null;
+			long first;
+			long last;
+			try {
+				if (dash == 0) {
+					// Suffix range: the last N bytes
+					long suffix = Long.parseLong(spec.substring(1));
+					if (suffix < 0)
+						return null;
+					if (suffix == 0)
+						continue ;
+					first = Math.max(length - suffix, 0);
+					last = length - 1;
+				}
+				else {
+					first = Long.parseLong(spec.substring(0, dash));
+					last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+					if (first < 0 || last < first)
+						return null;
+					last = Math.min(last, length - 1);
+				}
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+			if (first < length)
+				ranges.add(new long[] { first, last });
+		}
+		return ranges;
+	}
+
+	/**
+	 * Sends a single range of a resource
+	 *
+	 * @param resource The resource to send
+	 * @param res The response to write to
+	 * @param range The first and last positions of the range
+	 * @param length The length of the resource
+	 * @param body Whether to write the bytes (false for HEAD requests)
+	 * @param bufferSize The size of the copy buffer
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void WriteRange(HttpResource resource, HttpServletResponse res, long[] range, long length, boolean body, int bufferSize) throws IOException {
+		long count = range[1] - range[0] + 1;
+		res.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+		BytesWriter.SetContentLength(res, count);
+		if (!body)
+			return ;
+		try (SeekableByteChannel channel = resource.open()) {
+			Send(channel, range[0], count, res.getOutputStream(), bufferSize);
+		}
+	}
+
+	/**
+	 * Sends multiple ranges of a resource as multipart/byteranges
+	 *
+	 * @param resource The resource to send
+	 * @param res The response to write to
+	 * @param ranges The first and last positions of each range
+	 * @param length The length of the resource
+	 * @param contentType The content type of the resource, or null to use the content type of the response
+	 * @param body Whether to write the bytes (false for HEAD requests)
+	 * @param bufferSize The size of the copy buffer
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void WriteRanges(HttpResource resource, HttpServletResponse res, List<long[]> ranges, long length, @CheckForNull String contentType, boolean body, int bufferSize) throws IOException {
+		if (contentType == null)
+			contentType = res.getContentType();
+		String boundary = UUID.randomUUID().toString();
+
+		String[] headers = new String[ranges.size()];
+		long total = ("\r\n--" + boundary + "--\r\n").length();
+		for (int i = 0; i < headers.length; ++i) {
+			long[] range = ranges.get(i);
+			headers[i] = "\r\n--" + boundary + "\r\n"
+					+ (contentType != null ? "Content-Type: " + contentType + "\r\n" : "")
+					+ "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n";
+			total += headers[i].length() + range[1] - range[0] + 1;
+		}
+
+		res.setContentType("multipart/byteranges; boundary=" + boundary);
+		BytesWriter.SetContentLength(res, total);
+		if (!body)
+			return ;
+		OutputStream out = res.getOutputStream();
+		try (SeekableByteChannel channel = resource.open()) {
+			for (int i = 0; i < headers.length; ++i) {
+				long[] range = ranges.get(i);
+				out.write(headers[i].getBytes("ISO-8859-1"));
+				Send(channel, range[0], range[1] - range[0] + 1, out, bufferSize);
+			}
+		}
+		out.write(("\r\n--" + boundary + "--\r\n").getBytes("ISO-8859-1"));
+	}
+
+	/**
+	 * Sends a part of a channel, with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} for files
+	 *
+	 * @param channel The channel to read
+	 * @param position The position of the first byte to send
+	 * @param count The number of bytes to send
+	 * @param out The stream to send to
+	 * @param bufferSize The size of the copy buffer
+	 * @throws IOException If an input or output error occurs
+	 */
+	private static void Send(SeekableByteChannel channel, long position, long count, OutputStream out, int bufferSize) throws IOException {
+		if (channel instanceof FileChannel) {
+			BytesWriter.Transfer((FileChannel)channel, position, count, out);
+			return ;
+		}
+		channel.position(position);
+		byte[] buffer = BytesWriter.Buffer(bufferSize);
+		ByteBuffer bb = ByteBuffer.wrap(buffer);
+		while (count > 0) {
+			bb.clear();
+			if (count < bb.capacity())
+				bb.limit((int)count);
+			int read = channel.read(bb);
+			if (read < 0)
+				throw new IOException("Resource truncated while being sent");
+			out.write(buffer, 0, read);
+			count -= read;
+		}
+	}
+}
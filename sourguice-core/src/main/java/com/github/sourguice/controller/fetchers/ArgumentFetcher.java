@@ -76,6 +76,21 @@ public abstract class ArgumentFetcher<T> {
 		return getPrepared(req, pathVariables, injector);
 	}
 
+	/**
+	 * Fetches the argument without asking any "Call-time" Argument Fetcher
+	 * This is used by invocations that already know that no call-time fetcher can get this argument
+	 * 
+	 * @param req The current HTTP request
+	 * @param pathVariables Variables that were parsed from request URL
+	 * @param injector Guice injector
+	 * @return The argument to be passed to the MVC invocation
+	 * @throws NoSuchRequestParameterException In case of a parameter asked from request argument or path variable that does not exists
+	 * @throws Throwable Any exception that would be thrown by a fetcher
+	 */
+	public @CheckForNull T get(HttpServletRequest req, @PathVariablesMap Map<String, String> pathVariables, Injector injector) throws Throwable {
+		return getPrepared(req, pathVariables, injector);
+	}
+
 	/**
 	 * This is where subclass fetch the argument
 	 * 
@@ -94,4 +109,18 @@ public abstract class ArgumentFetcher<T> {
 	public Type getType() {
 		return type;
 	}
+
+	/**
+	 * @return The position of the method's argument to fetch
+	 */
+	public int getPos() {
+		return pos;
+	}
+
+	/**
+	 * @return Annotations that were found on the method's argument
+	 */
+	public Annotation[] getAnnotations() {
+		return annotations;
+	}
 }
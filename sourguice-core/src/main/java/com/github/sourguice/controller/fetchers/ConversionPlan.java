@@ -0,0 +1,177 @@
+package com.github.sourguice.controller.fetchers;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+
+import javax.annotation.CheckForNull;
+
+import com.github.sourguice.conversion.ConversionService;
+import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.def.PrimitiveArrayConverter;
+import com.github.sourguice.throwable.service.converter.NoConverterException;
+import com.github.sourguice.value.ValueConstants;
+import com.googlecode.gentyref.GenericTypeReflector;
+
+/**
+ * Conversion of request strings into a given type, prepared when the invocation is created
+ * The type is erased and the default value is converted once, so fetching an argument only needs to get the converter and call it.
+ * <p>
+ * The converter is asked to the conversion service for each conversion (which caches its resolution until the next registration),
+ * so that a converter registered after the plan is created is used, even for a type that already had a (less specific) converter.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public final class ConversionPlan {
+
+	/**
+	 * The erased type to convert to
+	 */
+	private final Class<?> clazz;
+
+	/**
+	 * The conversion service from which the converter is retrieved
+	 */
+	private final ConversionService conversionService;
+
+	/**
+	 * The plan of the component type if the type is an array, null otherwise
+	 */
+	private final @CheckForNull ConversionPlan component;
+
+	/**
+	 * The default value, as declared
+	 */
+	private final String defaultValue;
+
+	/**
+	 * The default value, converted when the plan is created if possible
+	 */
+	private final @CheckForNull Object convertedDefault;
+
+	/**
+	 * The converter that converted the default value when the plan was created, null if it was not converted
+	 */
+	private final @CheckForNull Converter<?> defaultConverter;
+
+	/**
+	 * @param type The type to convert to
+	 * @param conversionService The conversion service from which the converter is retrieved
+	 * @param defaultValue The default value, or {@link ValueConstants#DEFAULT_NONE} if there is none
+	 */
+	public ConversionPlan(Type type, ConversionService conversionService, String defaultValue) {
+		this.clazz = GenericTypeReflector.erase(type);
+		this.conversionService = conversionService;
+		this.component = this.clazz.isArray() ? new ConversionPlan(this.clazz.getComponentType(), conversionService, ValueConstants.DEFAULT_NONE) : null;
+		this.defaultValue = defaultValue;
+
+		Object convertedDefault = null;
+		Converter<?> defaultConverter = null;
+		Converter<?> conv = conversionService.getConverter(this.clazz);
+		if (hasDefault() && conv != null) {
+			try {
+				convertedDefault = convert(conv, defaultValue);
+				defaultConverter = conv;
+			}
+			catch (RuntimeException e) {
+				// The default value will be converted (and fail) when it is needed
+			}
+		}
+		this.convertedDefault = convertedDefault;
+		this.defaultConverter = defaultConverter;
+	}
+
+	/**
+	 * @param type The type to convert to
+	 * @param conversionService The conversion service from which the converter is retrieved
+	 */
+	public ConversionPlan(Type type, ConversionService conversionService) {
+		this(type, conversionService, ValueConstants.DEFAULT_NONE);
+	}
+
+	/**
+	 * @return The erased type to convert to
+	 */
+	public Class<?> getType() {
+		return clazz;
+	}
+
+	/**
+	 * @return Whether a default value was declared
+	 */
+	public boolean hasDefault() {
+		return !defaultValue.equals(ValueConstants.DEFAULT_NONE);
+	}
+
+	/**
+	 * @return The converted default value (a new copy if it is an array)
+	 * @throws NoConverterException When no converter is found for the type (RuntimeException)
+	 */
+	public @CheckForNull Object getDefault() throws NoConverterException {
+		Converter<?> conv = getConverter();
+		// The default value is converted again if the converter changed since the plan was created
+		if (defaultConverter != conv)
+			return convert(conv, defaultValue);
+		Object ret = convertedDefault;
+		if (ret != null && ret.getClass().isArray()) {
+			int length = Array.getLength(ret);
+			Object copy = Array.newInstance(ret.getClass().getComponentType(), length);
+			System.arraycopy(ret, 0, copy, 0, length);
+			return copy;
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts a string
+	 *
+	 * @param from The string to convert
+	 * @return The converted value
+	 * @throws NoConverterException When no converter is found for the type (RuntimeException)
+	 */
+	public @CheckForNull Object convert(String from) throws NoConverterException {
+		return convert(getConverter(), from);
+	}
+
+	/**
+	 * Converts a string with a given converter
+	 *
+	 * @param conv The converter to use
+	 * @param from The string to convert
+	 * @return The converted value
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private @CheckForNull Object convert(Converter conv, String from) {
+		return conv.get(this.clazz, from);
+	}
+
+	/**
+	 * @return The converter currently registered for the type
+	 * @throws NoConverterException When no converter is found for the type (RuntimeException)
+	 */
+	private Converter<?> getConverter() throws NoConverterException {
+		Converter<?> conv = conversionService.getConverter(this.clazz);
+		if (conv == null)
+			throw new NoConverterException(this.clazz);
+		return conv;
+	}
+
+	/**
+	 * Converts an array of strings into an array of the type, each string being converted with the component plan
+	 * Arrays of primitives are filled directly, without boxing, when the component converter permits it
+	 *
+	 * @param from The strings to convert
+	 * @return The array of converted values
+	 * @throws NoConverterException When no converter is found for the component type (RuntimeException)
+	 */
+	public Object convertAll(String[] from) throws NoConverterException {
+		ConversionPlan component = this.component;
+		if (component == null)
+			throw new RuntimeException("Cannot convert an array of string into a non-array type");
+		if (component.clazz.isPrimitive())
+			return PrimitiveArrayConverter.Convert(component.getConverter(), component.clazz, from);
+		Object[] ret = (Object[])Array.newInstance(component.clazz, from.length);
+		for (int i = 0; i < from.length; ++i)
+			ret[i] = component.convert(from[i]);
+		return ret;
+	}
+}
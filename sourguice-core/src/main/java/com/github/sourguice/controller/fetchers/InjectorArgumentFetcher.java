@@ -29,6 +29,11 @@ public class InjectorArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * A Guice {@link BindingAnnotation}, if there is one
 	 */
 	@CheckForNull Annotation bindingAnnotation;
+
+	/**
+	 * The Guice key of the argument
+	 */
+	private Key<?> key;
 	
 	/**
 	 * @see ArgumentFetcher#ArgumentFetcher(Type, int, Annotation[])
@@ -39,6 +44,11 @@ public class InjectorArgumentFetcher<T> extends ArgumentFetcher<T> {
 		bindingAnnotation = Annotations.GetOneAnnotated(BindingAnnotation.class, annotations);
 		if (bindingAnnotation == null)
 			bindingAnnotation = Annotations.fromArray(annotations).getAnnotation(Named.class);
+
+		if (bindingAnnotation != null)
+			key = Key.get(GenericTypeReflector.erase(this.type), bindingAnnotation);
+		else
+			key = Key.get(GenericTypeReflector.erase(this.type));
 	}
 
 	/**
@@ -47,8 +57,6 @@ public class InjectorArgumentFetcher<T> extends ArgumentFetcher<T> {
 	@SuppressWarnings("unchecked")
 	@Override
 	protected @CheckForNull T getPrepared(HttpServletRequest req, @PathVariablesMap Map<String, String> pathVariables, Injector injector) {
-		if (bindingAnnotation != null)
-			return (T)injector.getInstance(Key.get(GenericTypeReflector.erase(this.type), bindingAnnotation));
-		return (T)injector.getInstance(Key.get(GenericTypeReflector.erase(this.type)));
+		return (T)injector.getInstance(key);
 	}
 }
@@ -13,9 +13,7 @@ import com.github.sourguice.annotation.request.PathVariablesMap;
 import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.throwable.invocation.NoSuchPathVariableException;
 import com.github.sourguice.throwable.invocation.NoSuchRequestParameterException;
-import com.github.sourguice.value.ValueConstants;
 import com.google.inject.Injector;
-import com.googlecode.gentyref.GenericTypeReflector;
 
 /**
  * Fetcher that handles @{@link PathVariable} annotated arguments
@@ -30,6 +28,11 @@ public class PathVariableArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * The annotations containing needed informations to fetch the argument
 	 */
 	private PathVariable infos;
+
+	/**
+	 * Conversion of the path variable into the argument type
+	 */
+	private ConversionPlan plan;
 	
 	/**
 	 * @see ArgumentFetcher#ArgumentFetcher(Type, int, Annotation[])
@@ -39,10 +42,12 @@ public class PathVariableArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * @param infos The annotations containing needed informations to fetch the argument
 	 * @param ref The reference map that links path variable name to their index when a url matches
 	 * @param check Whether or not to check that ref contains the reference to the path variable
+	 * @param conversionService The conversion service that provides the converters
 	 */
-	public PathVariableArgumentFetcher(Type type, int pos, Annotation[] annotations, PathVariable infos, HashMap<String, Integer> ref, boolean check) {
+	public PathVariableArgumentFetcher(Type type, int pos, Annotation[] annotations, PathVariable infos, HashMap<String, Integer> ref, boolean check, ConversionService conversionService) {
 		super(type, pos, annotations);
 		this.infos = infos;
+		this.plan = new ConversionPlan(type, conversionService, infos.defaultValue());
 		if (check && !ref.containsKey(infos.value()))
 			throw new NoSuchPathVariableException(infos.value());
 	}
@@ -53,11 +58,12 @@ public class PathVariableArgumentFetcher<T> extends ArgumentFetcher<T> {
 	@Override
 	@SuppressWarnings("unchecked")
 	protected @CheckForNull T getPrepared(HttpServletRequest req, @PathVariablesMap Map<String, String> pathVariables, Injector injector) throws NoSuchRequestParameterException {
-		if (pathVariables == null || pathVariables.get(infos.value()) == null) {
-			if (!this.infos.defaultValue().equals(ValueConstants.DEFAULT_NONE)) 
-				return (T) injector.getInstance(ConversionService.class).convert(GenericTypeReflector.erase(this.type), this.infos.defaultValue());
+		String value = pathVariables != null ? pathVariables.get(infos.value()) : null;
+		if (value == null) {
+			if (this.plan.hasDefault()) 
+				return (T) this.plan.getDefault();
 			throw new NoSuchRequestParameterException(this.infos.value(), "path variables");
 		}
-		return (T) injector.getInstance(ConversionService.class).convert(GenericTypeReflector.erase(this.type), pathVariables.get(infos.value()));
+		return (T) this.plan.convert(value);
 	}
 }
@@ -12,9 +12,7 @@ import com.github.sourguice.annotation.request.PathVariablesMap;
 import com.github.sourguice.annotation.request.RequestHeader;
 import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.throwable.invocation.NoSuchRequestParameterException;
-import com.github.sourguice.value.ValueConstants;
 import com.google.inject.Injector;
-import com.googlecode.gentyref.GenericTypeReflector;
 
 /**
  * Fetcher that handles @{@link PathVariable} annotated arguments
@@ -29,6 +27,11 @@ public class RequestHeaderArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * The annotations containing needed informations to fetch the argument
 	 */
 	private RequestHeader infos;
+
+	/**
+	 * Conversion of the header into the argument type
+	 */
+	private ConversionPlan plan;
 	
 	/**
 	 * @see ArgumentFetcher#ArgumentFetcher(Type, int, Annotation[])
@@ -36,10 +39,12 @@ public class RequestHeaderArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * @param pos The position of the method's argument to fetch
 	 * @param annotations Annotations that were found on the method's argument
 	 * @param infos The annotations containing needed informations to fetch the argument
+	 * @param conversionService The conversion service that provides the converters
 	 */
-	public RequestHeaderArgumentFetcher(Type type, int pos, Annotation[] annotations, RequestHeader infos) {
+	public RequestHeaderArgumentFetcher(Type type, int pos, Annotation[] annotations, RequestHeader infos, ConversionService conversionService) {
 		super(type, pos, annotations);
 		this.infos = infos;
+		this.plan = new ConversionPlan(type, conversionService, infos.defaultValue());
 	}
 	
 	/**
@@ -48,11 +53,12 @@ public class RequestHeaderArgumentFetcher<T> extends ArgumentFetcher<T> {
 	@Override
 	@SuppressWarnings("unchecked")
 	protected @CheckForNull T getPrepared(HttpServletRequest req, @PathVariablesMap Map<String, String> pathVariables, Injector injector) throws NoSuchRequestParameterException {
-		if (req.getHeader(infos.value()) == null) {
-			if (!this.infos.defaultValue().equals(ValueConstants.DEFAULT_NONE)) 
-				return (T) injector.getInstance(ConversionService.class).convert(GenericTypeReflector.erase(this.type), this.infos.defaultValue());
+		String value = req.getHeader(infos.value());
+		if (value == null) {
+			if (this.plan.hasDefault()) 
+				return (T) this.plan.getDefault();
 			throw new NoSuchRequestParameterException(this.infos.value(), "path variables");
 		}
-		return (T) injector.getInstance(ConversionService.class).convert(GenericTypeReflector.erase(this.type), req.getHeader(infos.value()));
+		return (T) this.plan.convert(value);
 	}
 }
@@ -1,6 +1,7 @@
 package com.github.sourguice.controller.fetchers;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -34,6 +35,26 @@ public class RequestParamArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * The annotations containing needed informations to fetch the argument
 	 */
 	private RequestParam infos;
+
+	/**
+	 * Conversion of the request parameter(s) into the argument type, null if the argument is a List or a Map
+	 */
+	private @CheckForNull ConversionPlan valuePlan = null;
+
+	/**
+	 * Conversion of each request parameter into the List component type, null if the argument is not a List
+	 */
+	private @CheckForNull ConversionPlan listPlan = null;
+
+	/**
+	 * Conversion of each request parameter name into the Map key type, null if the argument is not a Map
+	 */
+	private @CheckForNull ConversionPlan mapKeyPlan = null;
+
+	/**
+	 * Conversion of each request parameter into the Map value type, null if the argument is not a Map
+	 */
+	private @CheckForNull ConversionPlan mapValuePlan = null;
 	
 	/**
 	 * @see ArgumentFetcher#ArgumentFetcher(Type, int, Annotation[])
@@ -41,10 +62,25 @@ public class RequestParamArgumentFetcher<T> extends ArgumentFetcher<T> {
 	 * @param pos The position of the method's argument to fetch
 	 * @param annotations Annotations that were found on the method's argument
 	 * @param infos The annotations containing needed informations to fetch the argument
+	 * @param conversionService The conversion service that provides the converters
 	 */
-	public RequestParamArgumentFetcher(Type type, int pos, Annotation[] annotations, RequestParam infos) {
+	public RequestParamArgumentFetcher(Type type, int pos, Annotation[] annotations, RequestParam infos, ConversionService conversionService) {
 		super(type, pos, annotations);
 		this.infos = infos;
+
+		// TODO: Handle Sets & concrete collection types
+		Class<?> erased = GenericTypeReflector.erase(type);
+		if (erased.equals(List.class)) {
+			Type[] args = ((ParameterizedType)GenericTypeReflector.getExactSuperType(type, List.class)).getActualTypeArguments();
+			this.listPlan = new ConversionPlan(args[0], conversionService);
+		}
+		else if (erased.equals(Map.class)) {
+			Type[] args = ((ParameterizedType)GenericTypeReflector.getExactSuperType(type, Map.class)).getActualTypeArguments();
+			this.mapKeyPlan = new ConversionPlan(args[0], conversionService);
+			this.mapValuePlan = new ConversionPlan(args[1], conversionService);
+		}
+		else
+			this.valuePlan = new ConversionPlan(type, conversionService, infos.defaultValue());
 	}
 	
 	/**
@@ -53,48 +89,52 @@ public class RequestParamArgumentFetcher<T> extends ArgumentFetcher<T> {
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected @CheckForNull T getPrepared(HttpServletRequest req, @PathVariablesMap Map<String, String> pathVariables, Injector injector) throws NoSuchRequestParameterException {
-		ConversionService conversionService = injector.getInstance(ConversionService.class);
-		// TODO: Handle Sets & concrete collection types
 		// If a List is requested, gets an array and converts it to list
-		if (GenericTypeReflector.erase(this.type).equals(List.class)) {
-			if (req.getParameterValues(this.infos.value()) == null || req.getParameterValues(this.infos.value()).length == 0) {
+		if (this.listPlan != null) {
+			String[] values = req.getParameterValues(this.infos.value());
+			if (values == null || values.length == 0) {
 				// If there are no value and not default value, throws the exception
 				if (this.infos.defaultValue() == ValueConstants.DEFAULT_NONE)
 					throw new NoSuchRequestParameterException(this.infos.value(), "request parameters");
 				return (T)new ArrayList();
 			}
 			// Gets converted array and returns it as list
-			Object[] objs = conversionService.convertArray((Class<?>)((ParameterizedType)GenericTypeReflector.getExactSuperType(type, List.class)).getActualTypeArguments()[0], req.getParameterValues(this.infos.value()));
+			Object[] objs = (Object[])Array.newInstance(this.listPlan.getType(), values.length);
+			for (int i = 0; i < values.length; ++i)
+				objs[i] = this.listPlan.convert(values[i]);
 			return (T)Arrays.asList(objs);
 		}
 		// If a Map is requested, gets all name[key] or name:key request parameter and fills the map with converted values
-		if (GenericTypeReflector.erase(this.type).equals(Map.class)) {
+		if (this.mapKeyPlan != null && this.mapValuePlan != null) {
 			Map<Object, Object> ret = new HashMap<Object, Object>();
+			String prefix = infos.value();
 			Enumeration<String> names = req.getParameterNames();
 			while (names.hasMoreElements()) {
 				String name = names.nextElement();
-				if (name.startsWith(infos.value() + ":"))
-					ret.put(
-							conversionService.convert((Class<?>)((ParameterizedType)GenericTypeReflector.getExactSuperType(type, Map.class)).getActualTypeArguments()[0], name.substring(infos.value().length() + 1)),
-							conversionService.convert((Class<?>)((ParameterizedType)GenericTypeReflector.getExactSuperType(type, Map.class)).getActualTypeArguments()[1], req.getParameter(name)));
-				else if (name.startsWith(infos.value() + "[") && name.endsWith("]"))
-					ret.put(
-							conversionService.convert((Class<?>)((ParameterizedType)GenericTypeReflector.getExactSuperType(type, Map.class)).getActualTypeArguments()[0], name.substring(infos.value().length() + 1, name.length() - 1)),
-							conversionService.convert((Class<?>)((ParameterizedType)GenericTypeReflector.getExactSuperType(type, Map.class)).getActualTypeArguments()[1], req.getParameter(name)));
+				if (!name.startsWith(prefix) || name.length() == prefix.length())
+					continue ;
+				char separator = name.charAt(prefix.length());
+				if (separator == ':')
+					ret.put(this.mapKeyPlan.convert(name.substring(prefix.length() + 1)), this.mapValuePlan.convert(req.getParameter(name)));
+				else if (separator == '[' && name.endsWith("]"))
+					ret.put(this.mapKeyPlan.convert(name.substring(prefix.length() + 1, name.length() - 1)), this.mapValuePlan.convert(req.getParameter(name)));
 			}
 			if (ret.size() == 0 && this.infos.defaultValue() == ValueConstants.DEFAULT_NONE)
 				throw new NoSuchRequestParameterException(this.infos.value(), "request parameters");
 			return (T)ret;
 		}
+		ConversionPlan plan = this.valuePlan;
+		assert plan != null;
 		// If the parameter does not exists, returns the default value or, if there are none, throw an exception
-		if (req.getParameter(this.infos.value()) == null) {
-			if (!this.infos.defaultValue().equals(ValueConstants.DEFAULT_NONE))
-				return (T) conversionService.convert(GenericTypeReflector.erase(this.type), this.infos.defaultValue());
+		String[] values = req.getParameterValues(this.infos.value());
+		if (values == null || values.length == 0) {
+			if (plan.hasDefault())
+				return (T) plan.getDefault();
 			throw new NoSuchRequestParameterException(this.infos.value(), "request parameters");
 		}
 		// Returns the converted parameter value
-		if (req.getParameterValues(this.infos.value()).length == 1)
-			return (T) conversionService.convert(GenericTypeReflector.erase(this.type), req.getParameter(this.infos.value()));
-		return (T) conversionService.convert(GenericTypeReflector.erase(this.type), req.getParameterValues(this.infos.value()));
+		if (values.length == 1)
+			return (T) plan.convert(values[0]);
+		return (T) plan.convertAll(values);
 	}
 }
@@ -6,6 +6,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Boolean and boolean
@@ -14,7 +15,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Boolean[].class, boolean[].class})
-public class BooleanConverter implements Converter<Boolean> {
+public class BooleanConverter implements Converter<Boolean>, PrimitiveConverter.OfBoolean {
 
 	/**
 	 * Pattern of a floating point number
@@ -31,8 +32,14 @@ public class BooleanConverter implements Converter<Boolean> {
 	 */
 	@Override
 	public @CheckForNull Boolean get(Class<? extends Boolean> clazz, String arg) {
-		if (arg.equalsIgnoreCase("true") || arg.equalsIgnoreCase("on") || arg.equalsIgnoreCase("Y") || arg.equalsIgnoreCase("yes") || (number.matcher(arg).matches() && !zero.matcher(arg).matches()))
-			return new Boolean(true);
-		return new Boolean(false);
+		return new Boolean(getBoolean(arg));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean getBoolean(String arg) {
+		return arg.equalsIgnoreCase("true") || arg.equalsIgnoreCase("on") || arg.equalsIgnoreCase("Y") || arg.equalsIgnoreCase("yes") || (number.matcher(arg).matches() && !zero.matcher(arg).matches());
 	}
 }
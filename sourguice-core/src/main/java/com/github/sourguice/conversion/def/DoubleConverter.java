@@ -4,6 +4,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Double and double
@@ -11,7 +12,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Double[].class, double[].class})
-public class DoubleConverter implements Converter<Double> {
+public class DoubleConverter implements Converter<Double>, PrimitiveConverter.OfDouble {
 
 	/**
 	 * {@inheritDoc}
@@ -27,4 +28,17 @@ public class DoubleConverter implements Converter<Double> {
 			return null;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getDouble(String arg) {
+		try {
+			return Double.parseDouble(arg);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 }
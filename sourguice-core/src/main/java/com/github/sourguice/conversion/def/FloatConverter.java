@@ -4,6 +4,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Float and float
@@ -11,7 +12,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Float[].class, float[].class})
-public class FloatConverter implements Converter<Float> {
+public class FloatConverter implements Converter<Float>, PrimitiveConverter.OfFloat {
 
 	/**
 	 * {@inheritDoc}
@@ -27,4 +28,17 @@ public class FloatConverter implements Converter<Float> {
 			return null;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getFloat(String arg) {
+		try {
+			return Float.parseFloat(arg);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 }
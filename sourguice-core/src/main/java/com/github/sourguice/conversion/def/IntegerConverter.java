@@ -7,6 +7,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Integer and int
@@ -14,7 +15,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Integer[].class, int[].class})
-public class IntegerConverter implements Converter<Integer> {
+public class IntegerConverter implements Converter<Integer>, PrimitiveConverter.OfInt {
 
 	/**
 	 * {@inheritDoc}
@@ -30,4 +31,17 @@ public class IntegerConverter implements Converter<Integer> {
 			return null;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInt(String arg) {
+		try {
+			return Integer.parseInt(arg);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 }
@@ -4,6 +4,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Long and long
@@ -11,7 +12,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Long[].class, long[].class})
-public class LongConverter implements Converter<Long> {
+public class LongConverter implements Converter<Long>, PrimitiveConverter.OfLong {
 
 	/**
 	 * {@inheritDoc}
@@ -27,4 +28,17 @@ public class LongConverter implements Converter<Long> {
 			return null;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLong(String arg) {
+		try {
+			return Long.parseLong(arg);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 }
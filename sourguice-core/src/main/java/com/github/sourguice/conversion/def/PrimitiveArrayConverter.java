@@ -0,0 +1,111 @@
+package com.github.sourguice.conversion.def;
+
+import java.lang.reflect.Array;
+import java.util.regex.Pattern;
+
+import javax.annotation.CheckForNull;
+
+import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
+
+/**
+ * Converts a coma separated array of string into an array of primitive values (int[], long[], etc.)
+ * When the converter of the component type implements the corresponding {@link PrimitiveConverter} interface,
+ * values are parsed directly into the array without being boxed.
+ *
+ * @author Salomon BRYS <salomon.brys@gmail.com>
+ */
+public class PrimitiveArrayConverter implements Converter<Object> {
+
+	/**
+	 * The separator pattern that will separate the different values
+	 * For example, it will recognise 21,42 as two different values separated by ','
+	 */
+	private static final Pattern separator = Pattern.compile(", *");
+
+	/**
+	 * The converter that converts a string to the component type
+	 */
+	Converter<?> converter;
+
+	/**
+	 * @param converter A converter that converts a String into the component type
+	 */
+	public PrimitiveArrayConverter(Converter<?> converter) {
+		this.converter = converter;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public @CheckForNull Object get(Class<? extends Object> clazz, String arg) {
+		String[] args = arg.isEmpty() ? new String[0] : separator.split(arg);
+		return Convert(converter, clazz.getComponentType(), args);
+	}
+
+	/**
+	 * Converts an array of string into an array of primitives
+	 *
+	 * @param converter The converter of the component type
+	 * @param componentType The primitive component type of the array
+	 * @param from The strings to convert
+	 * @return The primitive array
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static Object Convert(Converter<?> converter, Class<?> componentType, String[] from) {
+		int length = from.length;
+
+		if (componentType.equals(int.class) && converter instanceof PrimitiveConverter.OfInt) {
+			PrimitiveConverter.OfInt conv = (PrimitiveConverter.OfInt)converter;
+			int[] ret = new int[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getInt(from[i]);
+			return ret;
+		}
+		if (componentType.equals(long.class) && converter instanceof PrimitiveConverter.OfLong) {
+			PrimitiveConverter.OfLong conv = (PrimitiveConverter.OfLong)converter;
+			long[] ret = new long[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getLong(from[i]);
+			return ret;
+		}
+		if (componentType.equals(short.class) && converter instanceof PrimitiveConverter.OfShort) {
+			PrimitiveConverter.OfShort conv = (PrimitiveConverter.OfShort)converter;
+			short[] ret = new short[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getShort(from[i]);
+			return ret;
+		}
+		if (componentType.equals(double.class) && converter instanceof PrimitiveConverter.OfDouble) {
+			PrimitiveConverter.OfDouble conv = (PrimitiveConverter.OfDouble)converter;
+			double[] ret = new double[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getDouble(from[i]);
+			return ret;
+		}
+		if (componentType.equals(float.class) && converter instanceof PrimitiveConverter.OfFloat) {
+			PrimitiveConverter.OfFloat conv = (PrimitiveConverter.OfFloat)converter;
+			float[] ret = new float[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getFloat(from[i]);
+			return ret;
+		}
+		if (componentType.equals(boolean.class) && converter instanceof PrimitiveConverter.OfBoolean) {
+			PrimitiveConverter.OfBoolean conv = (PrimitiveConverter.OfBoolean)converter;
+			boolean[] ret = new boolean[length];
+			for (int i = 0; i < length; ++i)
+				ret[i] = conv.getBoolean(from[i]);
+			return ret;
+		}
+
+		// The converter does not know this primitive type: values are boxed then unboxed into the array
+		Object ret = Array.newInstance(componentType, length);
+		for (int i = 0; i < length; ++i) {
+			Object value = ((Converter)converter).get(componentType, from[i]);
+			if (value != null)
+				Array.set(ret, i, value);
+		}
+		return ret;
+	}
+}
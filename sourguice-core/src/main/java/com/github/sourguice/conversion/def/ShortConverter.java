@@ -4,6 +4,7 @@ import javax.annotation.CheckForNull;
 
 import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.PrimitiveConverter;
 
 /**
  * Converts a String to Short and short
@@ -11,7 +12,7 @@ import com.github.sourguice.conversion.Converter;
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
 @ConvertsTo({Short[].class, short[].class})
-public class ShortConverter implements Converter<Short> {
+public class ShortConverter implements Converter<Short>, PrimitiveConverter.OfShort {
 
 	/**
 	 * {@inheritDoc}
@@ -27,4 +28,17 @@ public class ShortConverter implements Converter<Short> {
 			return null;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public short getShort(String arg) {
+		try {
+			return Short.parseShort(arg);
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 }
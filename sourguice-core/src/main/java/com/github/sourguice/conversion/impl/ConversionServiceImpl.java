@@ -10,12 +10,15 @@ import com.github.sourguice.annotation.ConvertsTo;
 import com.github.sourguice.conversion.ConversionService;
 import com.github.sourguice.conversion.Converter;
 import com.github.sourguice.conversion.def.ArrayConverter;
+import com.github.sourguice.conversion.def.PrimitiveArrayConverter;
 import com.github.sourguice.throwable.service.converter.NoConverterException;
 import com.github.sourguice.throwable.service.converter.NoConvertsToAnnotationException;
+import com.github.sourguice.utils.ClassRegistry;
 
 /**
  * Holds all registered converters
  * Permits to the MVC system to convert string from the HTTP request to any type needed
+ * Converters may be registered while requests are being converted
  * 
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
@@ -24,23 +27,32 @@ import com.github.sourguice.throwable.service.converter.NoConvertsToAnnotationEx
 public class ConversionServiceImpl implements ConversionService {
 	
 	/**
-	 * Map of registered convertable classes and their associated converter
+	 * Registered converters, and the converter resolved from them for each class that was asked
+	 * Resolving a class walks all registered types to find the closest supertype, so it is done once per class;
+	 * a registration drops the resolved converters, so a converter registered later is found even for a class that
+	 * already resolved to the converter of a supertype (a specific enum after {@link com.github.sourguice.conversion.def.EnumConverter}).
 	 */
-	private HashMap<Class<?>, Converter<?>> converters = new HashMap<Class<?>, Converter<?>>();
+	private final ClassRegistry<HashMap<Class<?>, Converter<?>>, Converter<?>> registry = new ClassRegistry<HashMap<Class<?>, Converter<?>>, Converter<?>>(new HashMap<Class<?>, Converter<?>>()) {
+		@Override protected @CheckForNull Converter<?> resolve(HashMap<Class<?>, Converter<?>> converters, Class<?> clazz) {
+			return Resolve(converters, clazz);
+		}
+	};
 	
 	/**
 	 * Register a converter to be associated with the given type
 	 * If the type is of type array, than it will register the converter for the array type AND its subtype
+	 * Arrays of primitives are converted by a {@link PrimitiveArrayConverter} that does not box values
+	 * @param converters The map in which to register the converter
 	 * @param conv The converter to use when converting from String to the given type
 	 * @param type The type to associate the converter with
 	 * @return The converter associated with the class
 	 */
 	@SuppressWarnings("rawtypes")
-	private Converter<?> registerConverter(Converter<?> conv, Class<?> type) {
+	static private Converter<?> RegisterConverter(HashMap<Class<?>, Converter<?>> converters, Converter<?> conv, Class<?> type) {
 		if (type.isArray()) {
 			Class<?> componentType = type.getComponentType();
-			Converter<?> componentConverter = registerConverter(conv, componentType);
-			Converter<?> arrayConverter = new ArrayConverter(componentConverter);
+			Converter<?> componentConverter = RegisterConverter(converters, conv, componentType);
+			Converter<?> arrayConverter = componentType.isPrimitive() ? new PrimitiveArrayConverter(componentConverter) : new ArrayConverter(componentConverter);
 			converters.put(type, arrayConverter);
 			return arrayConverter;
 		}
@@ -55,12 +67,14 @@ public class ConversionServiceImpl implements ConversionService {
 	 * @param conv The converter to register
 	 */
 	@Override
-	public void registerConverter(Converter<?> conv) {
+	public synchronized void registerConverter(Converter<?> conv) {
 		ConvertsTo to = conv.getClass().getAnnotation(ConvertsTo.class);
 		if (to == null)
 			throw new NoConvertsToAnnotationException(conv.getClass());
+		HashMap<Class<?>, Converter<?>> converters = new HashMap<Class<?>, Converter<?>>(registry.getRegistrations());
 		for (Class<?> type : to.value())
-			registerConverter(conv, type);
+			RegisterConverter(converters, conv, type);
+		registry.publish(converters);
 	}
 	
 	/**
@@ -93,18 +107,18 @@ public class ConversionServiceImpl implements ConversionService {
 	}
 	
 	/**
-	 * Gets the better converter for the given class
+	 * Finds the better converter for the given class in the given registered converters
 	 * If a converter is registered for the given class, returns it
 	 * If not, tries to find the converter that can convert to a subclass of this class (and gets the closest).
 	 * If none is found, returns null
 	 * 
+	 * @param converters Map of registered convertable classes and their associated converter
 	 * @param clazz the class to convert to
 	 * @return the converter to use or null if none were found
 	 */
-	@Override
-	public @CheckForNull <T> Converter<T> getConverter(Class<T> clazz) {
+	static private @CheckForNull Converter<?> Resolve(HashMap<Class<?>, Converter<?>> converters, Class<?> clazz) {
 		if (converters.containsKey(clazz))
-			return (Converter<T>)converters.get(clazz);
+			return converters.get(clazz);
 		
 		int closestDistance = Integer.MAX_VALUE;
 		Class<?> closestType = null;
@@ -119,10 +133,25 @@ public class ConversionServiceImpl implements ConversionService {
 		}
 		
 		if (closestType != null)
-			return (Converter<T>)converters.get(closestType);
+			return converters.get(closestType);
 
 		return null;
 	}
+
+	/**
+	 * Gets the better converter for the given class
+	 * If a converter is registered for the given class, returns it
+	 * If not, tries to find the converter that can convert to a subclass of this class (and gets the closest).
+	 * If none is found, returns null
+	 * The result, found or not, is cached until the next registration
+	 * 
+	 * @param clazz the class to convert to
+	 * @return the converter to use or null if none were found
+	 */
+	@Override
+	public @CheckForNull <T> Converter<T> getConverter(Class<T> clazz) {
+		return (Converter<T>)registry.get(clazz);
+	}
 	
 	/**
 	 * Converts an array of string into an array of value
@@ -147,7 +176,7 @@ public class ConversionServiceImpl implements ConversionService {
 	 * Converts a string or an array of string into a value or an array of values
 	 * 
 	 * @param toClazz The class to convert to.
-	 *                If 'from' is an array, then primitive types are not allowed
+	 *                If 'from' is an array of arrays, then primitive types are not allowed
 	 * @param from The String or String[] to convert from (only String or String[])
 	 * @return The value or array of values
 	 * @throws NoConverterException When no converter is found for the specific type (RuntimeException)
@@ -164,6 +193,13 @@ public class ConversionServiceImpl implements ConversionService {
 		else if (from.getClass().isArray()) {
 			if (!toClazz.isArray())
 				throw new RuntimeException("Cannot convert an array of string into a non-array type");
+			Class<?> componentType = toClazz.getComponentType();
+			if (componentType.isPrimitive() && from instanceof String[]) {
+				Converter conv = this.getConverter(componentType);
+				if (conv == null)
+					throw new NoConverterException(componentType);
+				return PrimitiveArrayConverter.Convert(conv, componentType, (String[])from);
+			}
 			return this.convertArray(toClazz.getComponentType(), (Object[])from);
 		}
 		throw new RuntimeException("Only String, array of String, array of array of string, etc. are allowed");
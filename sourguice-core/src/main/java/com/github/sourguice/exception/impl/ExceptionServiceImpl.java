@@ -8,6 +8,7 @@ import javax.inject.Singleton;
 import com.github.sourguice.exception.ExceptionHandler;
 import com.github.sourguice.exception.ExceptionService;
 import com.github.sourguice.throwable.service.exception.UnreachableExceptionHandlerException;
+import com.github.sourguice.utils.ClassRegistry;
 
 /**
  * Exception service on which to register exception handlers
@@ -21,9 +22,20 @@ import com.github.sourguice.throwable.service.exception.UnreachableExceptionHand
 public class ExceptionServiceImpl implements ExceptionService {
 	
 	/**
-	 * Map of Exception classes and their corresponding ExceptionHandlers
+	 * Registered handlers in registration order, and the handler resolved from them for each exception class that was handled
+	 * Like catch clauses, the first registered handler of a superclass wins, so each exception class is resolved once
+	 * instead of walking the handlers each time it is thrown; a registration drops the resolved handlers.
 	 */
-	private LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>> map = new LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>>();
+	private final ClassRegistry<LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>>, ExceptionHandler<?>> registry =
+			new ClassRegistry<LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>>, ExceptionHandler<?>>(new LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>>()) {
+				@Override protected @CheckForNull ExceptionHandler<?> resolve(LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>> map, Class<?> clazz) {
+					for (Class<? extends Exception> c : map.keySet()) {
+						if (c.isAssignableFrom(clazz))
+							return map.get(c);
+					}
+					return null;
+				}
+			};
 
 	/**
 	 * Registers an exception class and its corresponding exception handler
@@ -34,26 +46,25 @@ public class ExceptionServiceImpl implements ExceptionService {
 	 *                                              has been registered that already handles this class of exception
 	 */
 	@Override
-	public <T extends Exception> void registerHandler(Class<T> clazz, ExceptionHandler<? super T> handler) throws UnreachableExceptionHandlerException {
-		for (Class<? extends Exception> sup : map.keySet()) {
+	public synchronized <T extends Exception> void registerHandler(Class<T> clazz, ExceptionHandler<? super T> handler) throws UnreachableExceptionHandlerException {
+		for (Class<? extends Exception> sup : registry.getRegistrations().keySet()) {
 			if (sup.isAssignableFrom(clazz))
 				throw new UnreachableExceptionHandlerException(clazz, sup);
 		}
+		LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>> map = new LinkedHashMap<Class<? extends Exception>, ExceptionHandler<?>>(registry.getRegistrations());
 		map.put(clazz, handler);
+		registry.publish(map);
 	}
 	
 	/**
 	 * Get the first handler that can handle a given exception class
+	 * The result, found or not, is cached until the next registration
 	 * @param clazz The class of the exception to be handled
 	 * @return The handler or null
 	 */
 	@Override
 	@SuppressWarnings("unchecked")
 	public @CheckForNull <T extends Exception> ExceptionHandler<? super T> getHandler(Class<T> clazz) {
-		for (Class<? extends Exception> c : map.keySet()) {
-			if (c.isAssignableFrom(clazz))
-				return (ExceptionHandler<? super T>) map.get(c);	
-		}
-		return null;
+		return (ExceptionHandler<? super T>) registry.get(clazz);
 	}
 }
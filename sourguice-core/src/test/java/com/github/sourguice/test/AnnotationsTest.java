@@ -0,0 +1,207 @@
+package com.github.sourguice.test;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.annotation.EverythingIsNonnullAndTaintedByDefault;
+import com.github.sourguice.conversion.def.EnumConverter;
+import com.github.sourguice.utils.Annotations;
+
+@SuppressWarnings("javadoc")
+public class AnnotationsTest {
+
+	// ===================== ANNOTATIONS =====================
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+	public static @interface Mark {
+		String value();
+	}
+
+	@Mark("meta")
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ ElementType.TYPE, ElementType.METHOD })
+	public static @interface Meta {
+	}
+
+	// ===================== CLASSES =====================
+
+	@Mark("super")
+	public static class Base {
+		public void inherited() {}
+	}
+
+	@Meta
+	public static class Child extends Base {
+		@Mark("method")
+		public void marked() {}
+
+		public void plain() {}
+	}
+
+	@Mark("indexed")
+	public static class Indexed {
+		@Meta
+		public void method() {}
+	}
+
+	// ===================== REFERENCE =====================
+
+	// Uncached tree walk: element, declaring class, superclasses, then package
+	static List<AnnotatedElement> Tree(AnnotatedElement element) {
+		List<AnnotatedElement> tree = new ArrayList<>();
+		tree.add(element);
+		Class<?> clazz = null;
+		if (element instanceof Member)
+			clazz = ((Member)element).getDeclaringClass();
+		else if (element instanceof Class)
+			clazz = ((Class<?>)element).getSuperclass();
+		while (clazz != null) {
+			tree.add(clazz);
+			clazz = clazz.getSuperclass();
+		}
+		Class<?> owner = element instanceof Member ? ((Member)element).getDeclaringClass() : (Class<?>)element;
+		if (owner.getPackage() != null)
+			tree.add(owner.getPackage());
+		return tree;
+	}
+
+	static <T extends Annotation> List<T> UncachedAllTree(AnnotatedElement element, Class<T> annotationClass) {
+		List<T> list = new ArrayList<>();
+		for (AnnotatedElement e : Tree(element)) {
+			T find = e.getAnnotation(annotationClass);
+			if (find != null)
+				list.add(find);
+		}
+		return list;
+	}
+
+	static <T extends Annotation> List<T> UncachedAllTreeRecursive(AnnotatedElement element, Class<T> annotationClass) {
+		List<T> list = new ArrayList<>();
+		for (AnnotatedElement e : Tree(element))
+			list.addAll(Annotations.GetAllRecursive(annotationClass, e.getAnnotations()));
+		return list;
+	}
+
+	static <T> T FirstOrNull(List<T> list) {
+		return list.isEmpty() ? null : list.get(0);
+	}
+
+	// ===================== DATA PROVIDERS =====================
+
+	@DataProvider(name = "lookups")
+	public Object[][] lookups() throws Exception {
+		AnnotatedElement[] elements = {
+			Child.class, Base.class,
+			Child.class.getMethod("marked"), Child.class.getMethod("plain"), Child.class.getMethod("inherited"),
+			EnumConverter.class, EnumConverter.class.getMethod("get", Class.class, String.class)
+		};
+		Class<?>[] annotationClasses = { Mark.class, Meta.class, EverythingIsNonnullAndTaintedByDefault.class, Nonnull.class };
+		Object[][] lookups = new Object[elements.length * annotationClasses.length][];
+		int i = 0;
+		for (AnnotatedElement element : elements)
+			for (Class<?> annotationClass : annotationClasses)
+				lookups[i++] = new Object[] { element, annotationClass };
+		return lookups;
+	}
+
+	// ===================== TESTS =====================
+
+	@Test(dataProvider = "lookups")
+	public void cachedMatchesUncached(AnnotatedElement element, Class<? extends Annotation> annotationClass) {
+		// Twice: the first call computes and memoizes, the second one reads the memoized result
+		for (int i = 0; i < 2; ++i) {
+			assert Annotations.GetAllTree(element, annotationClass).equals(UncachedAllTree(element, annotationClass));
+			assert Annotations.GetAllTreeRecursive(element, annotationClass).equals(UncachedAllTreeRecursive(element, annotationClass));
+			assert Annotations.GetOneTree(element, annotationClass) == FirstOrNull(UncachedAllTree(element, annotationClass));
+			assert Annotations.GetOneTreeRecursive(element, annotationClass) == FirstOrNull(UncachedAllTreeRecursive(element, annotationClass));
+		}
+	}
+
+	@Test
+	public void tree() throws Exception {
+		Method marked = Child.class.getMethod("marked");
+		Method plain = Child.class.getMethod("plain");
+
+		assert Annotations.GetOneTree(marked, Mark.class).value().equals("method");
+		assert Annotations.GetOneTree(plain, Mark.class).value().equals("super");
+		assert Annotations.GetOneTreeRecursive(plain, Mark.class).value().equals("meta");
+
+		List<String> values = new ArrayList<>();
+		for (Mark mark : Annotations.GetAllTreeRecursive(marked, Mark.class))
+			values.add(mark.value());
+		assert values.equals(java.util.Arrays.asList("method", "meta", "super"));
+
+		// Package annotation, and its meta-annotation
+		assert Annotations.GetOneTree(EnumConverter.class, EverythingIsNonnullAndTaintedByDefault.class) == EnumConverter.class.getPackage().getAnnotation(EverythingIsNonnullAndTaintedByDefault.class);
+		assert Annotations.GetOneTreeRecursive(EnumConverter.class, Nonnull.class) != null;
+	}
+
+	@Test
+	public void memoized() throws Exception {
+		Method marked = Child.class.getMethod("marked");
+		assert Annotations.GetAllTree(marked, Mark.class) == Annotations.GetAllTree(marked, Mark.class);
+		assert Annotations.GetAllTreeRecursive(marked, Mark.class) == Annotations.GetAllTreeRecursive(marked, Mark.class);
+		assert Annotations.GetOneTree(marked, Mark.class) == Annotations.GetOneTree(marked, Mark.class);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void allTreeUnmodifiable() throws Exception {
+		Annotations.GetAllTree(Child.class.getMethod("marked"), Mark.class).clear();
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void allTreeRecursiveUnmodifiable() throws Exception {
+		Annotations.GetAllTreeRecursive(Child.class.getMethod("marked"), Mark.class).add(null);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void emptyAllTreeUnmodifiable() throws Exception {
+		Annotations.GetAllTree(Child.class, Nonnull.class).add(null);
+	}
+
+	static boolean IsMemoized(String index, AnnotatedElement element, Class<?> owner, Class<?> annotationClass) throws Exception {
+		Field field = Annotations.class.getDeclaredField(index);
+		field.setAccessible(true);
+		Map<?, ?> elements = (Map<?, ?>)((ClassValue<?>)field.get(null)).get(owner);
+		Map<?, ?> results = (Map<?, ?>)elements.get(element);
+		return results != null && results.containsKey(annotationClass);
+	}
+
+	@Test
+	public void indexPrepopulates() throws Exception {
+		Method method = Indexed.class.getMethod("method");
+		String[] indexes = { "oneTree", "oneTreeRecursive", "allTree", "allTreeRecursive" };
+
+		for (String index : indexes) {
+			assert !IsMemoized(index, Indexed.class, Indexed.class, Mark.class);
+			assert !IsMemoized(index, method, Indexed.class, Mark.class);
+		}
+
+		List<Class<? extends Annotation>> annotationClasses = Collections.<Class<? extends Annotation>>singletonList(Mark.class);
+		Annotations.Index(Indexed.class, annotationClasses);
+
+		for (String index : indexes) {
+			assert IsMemoized(index, Indexed.class, Indexed.class, Mark.class);
+			assert IsMemoized(index, method, Indexed.class, Mark.class);
+			assert !IsMemoized(index, method, Indexed.class, Meta.class);
+		}
+		assert Annotations.GetOneTreeRecursive(method, Mark.class).value().equals("meta");
+	}
+}
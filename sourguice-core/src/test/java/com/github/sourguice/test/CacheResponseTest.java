@@ -0,0 +1,296 @@
+package com.github.sourguice.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.inject.Inject;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.controller.RenderWith;
+import com.github.sourguice.annotation.controller.SendsError;
+import com.github.sourguice.annotation.request.CacheResponse;
+import com.github.sourguice.annotation.request.GuiceResponse;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.cache.ResponseCache;
+import com.github.sourguice.resource.FileResource;
+import com.github.sourguice.resource.HttpResource;
+import com.github.sourguice.view.Model;
+import com.github.sourguice.view.def.BasicViewRenderer;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class CacheResponseTest extends TestBase {
+
+	static final String DATA = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+	static final long LAST_MODIFIED = 1300000000000L;
+
+	static File file;
+
+	static String HttpDate(long date) {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.format(new Date(date));
+	}
+
+	// ===================== VIEW RENDERER =====================
+
+	public static class CountRenderer extends BasicViewRenderer {
+		@Inject
+		public CountRenderer(@GuiceResponse HttpServletResponse res) {
+			super(res);
+		}
+
+		@RenderFor("count")
+		public void count(PrintWriter out, Map<String, Object> model) {
+			out.print("view:" + model.get("count"));
+		}
+	}
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		int count = 0;
+
+		@Inject
+		ResponseCache cache;
+
+		@RequestMapping("/writes")
+		@CacheResponse(ttl = 60)
+		@Writes
+		public String writes(HttpServletResponse res) {
+			res.setHeader("X-Count", String.valueOf(++count));
+			return "writes:" + count;
+		}
+
+		@RequestMapping("/vary")
+		@CacheResponse(ttl = 60, varyOn = "q", varyOnHeaders = "X-Lang")
+		@Writes
+		public String vary() {
+			return "vary:" + (++count);
+		}
+
+		@RequestMapping("/view")
+		@CacheResponse(ttl = 60)
+		@RenderWith(CountRenderer.class)
+		public String view(Model model) {
+			model.put("count", Integer.valueOf(++count));
+			return "count";
+		}
+
+		@RequestMapping("/error")
+		@CacheResponse(ttl = 60)
+		@SendsError(404)
+		public String error() {
+			return "Nothing " + (++count);
+		}
+
+		@RequestMapping("/expired")
+		@CacheResponse(ttl = 0)
+		@Writes
+		public String expired() {
+			return "expired:" + (++count);
+		}
+
+		@RequestMapping("/cookie")
+		@CacheResponse(ttl = 60)
+		@Writes
+		public String cookie(HttpServletResponse res) {
+			res.addCookie(new Cookie("id", String.valueOf(++count)));
+			return "cookie:" + count;
+		}
+
+		@RequestMapping("/conditional")
+		@CacheResponse(ttl = 60)
+		@Writes
+		public String conditional(HttpServletResponse res) {
+			++count;
+			res.setHeader("ETag", "\"conditional-" + count + "\"");
+			res.setDateHeader("Last-Modified", LAST_MODIFIED);
+			return "conditional:" + count;
+		}
+
+		@RequestMapping("/resource")
+		@CacheResponse(ttl = 60)
+		@Writes
+		public HttpResource resource() {
+			return new FileResource(file, "text/plain");
+		}
+
+		@RequestMapping("/stats")
+		@Writes
+		public String stats() {
+			return cache.getHits() + "/" + cache.getMisses() + "/" + cache.getExpirations() + "/" + cache.getCount();
+		}
+
+		@RequestMapping("/clear")
+		@Writes
+		public String clear() {
+			cache.clear();
+			return "cleared";
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class CacheResponseControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new CacheResponseControllerModule();
+	}
+
+	@BeforeClass
+	public void createFile() throws IOException {
+		file = File.createTempFile("sourguice-cache", ".txt");
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(DATA.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	@AfterClass
+	public void deleteFile() {
+		file.delete();
+	}
+
+	HttpTester get(String uri, String... headers) throws Exception {
+		HttpTester request = makeRequest("GET", uri);
+		for (int i = 0; i < headers.length; i += 2)
+			request.setHeader(headers[i], headers[i + 1]);
+		return getResponse(request);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void cacheWrites() throws Exception {
+		HttpTester first = get("/writes");
+		assert first.getStatus() == 200;
+		assert first.getContent().startsWith("writes:");
+
+		HttpTester second = get("/writes");
+		assert second.getStatus() == 200;
+		assert second.getContent().equals(first.getContent());
+		assert second.getHeader("X-Count").equals(first.getHeader("X-Count"));
+
+		HttpTester other = get("/writes?a=b");
+		assert !other.getContent().equals(first.getContent());
+
+		HttpTester post = getResponse(makeRequest("POST", "/writes"));
+		assert !post.getContent().equals(first.getContent());
+	}
+
+	@Test
+	public void cacheVary() throws Exception {
+		String content = get("/vary?q=1&r=1").getContent();
+		assert get("/vary?q=1&r=2").getContent().equals(content);
+		assert !get("/vary?q=2").getContent().equals(content);
+		assert !get("/vary?q=1", "X-Lang", "fr").getContent().equals(content);
+	}
+
+	@Test
+	public void cacheView() throws Exception {
+		HttpTester first = get("/view");
+		assert first.getStatus() == 200;
+		assert first.getContent().startsWith("view:");
+		assert get("/view").getContent().equals(first.getContent());
+	}
+
+	@Test
+	public void cacheSendsError() throws Exception {
+		HttpTester first = get("/error");
+		assert first.getStatus() == 404;
+		HttpTester second = get("/error");
+		assert second.getStatus() == 404;
+		assert second.getReason().equals(first.getReason());
+	}
+
+	@Test
+	public void noCache() throws Exception {
+		assert !get("/expired").getContent().equals(get("/expired").getContent());
+		assert !get("/cookie").getContent().equals(get("/cookie").getContent());
+	}
+
+	@Test
+	public void cacheConditional() throws Exception {
+		HttpTester first = get("/conditional");
+		assert first.getStatus() == 200;
+		String eTag = first.getHeader("ETag");
+
+		// Answered from the cache, with the ETag of the kept response
+		HttpTester notModified = get("/conditional", "If-None-Match", eTag);
+		assert notModified.getStatus() == 304;
+		assert notModified.getHeader("ETag").equals(eTag);
+		assert notModified.getContent() == null || notModified.getContent().isEmpty();
+
+		assert get("/conditional", "If-None-Match", "\"other\"").getContent().equals(first.getContent());
+		assert get("/conditional", "If-Modified-Since", first.getHeader("Last-Modified")).getStatus() == 304;
+		assert get("/conditional", "If-Modified-Since", HttpDate(LAST_MODIFIED - 3600000)).getContent().equals(first.getContent());
+		// If-Modified-Since is ignored when If-None-Match is present
+		assert get("/conditional", "If-None-Match", "\"other\"", "If-Modified-Since", first.getHeader("Last-Modified")).getStatus() == 200;
+		assert get("/conditional").getContent().equals(first.getContent());
+	}
+
+	@Test
+	public void cacheRange() throws Exception {
+		HttpTester first = get("/resource");
+		assert first.getStatus() == 200;
+		assert first.getContent().equals(DATA);
+
+		// The kept response is the whole resource: the method answers the range
+		HttpTester range = get("/resource", "Range", "bytes=10-19");
+		assert range.getStatus() == 206;
+		assert range.getHeader("Content-Range").equals("bytes 10-19/" + DATA.length());
+		assert range.getContent().equals(DATA.substring(10, 20));
+
+		assert get("/resource", "If-None-Match", first.getHeader("ETag")).getStatus() == 304;
+		assert get("/resource").getContent().equals(DATA);
+	}
+
+	long[] stats() throws Exception {
+		String[] stats = get("/stats").getContent().split("/");
+		long[] values = new long[stats.length];
+		for (int i = 0; i < stats.length; ++i)
+			values[i] = Long.parseLong(stats[i]);
+		return values;
+	}
+
+	@Test
+	public void counters() throws Exception {
+		long[] before = stats();
+		get("/vary?q=counters");
+		get("/vary?q=counters");
+		get("/expired");
+		get("/expired");
+		long[] after = stats();
+		assert after[0] - before[0] == 1;
+		assert after[1] - before[1] == 3;
+		assert after[2] - before[2] == 1;
+		assert after[3] > 0;
+
+		get("/clear");
+		assert stats()[3] == 0;
+	}
+}
@@ -0,0 +1,220 @@
+package com.github.sourguice.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.inject.Inject;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.controller.Compress;
+import com.github.sourguice.annotation.controller.RenderWith;
+import com.github.sourguice.annotation.request.GuiceResponse;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.view.def.BasicViewRenderer;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class CompressTest extends TestBase {
+
+	static final String BIG;
+	static {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 200; ++i)
+			builder.append("line ").append(i).append(" of a compressible body\n");
+		BIG = builder.toString();
+	}
+
+	// ===================== VIEW RENDERER =====================
+
+	public static class BigRenderer extends BasicViewRenderer {
+		@Inject
+		public BigRenderer(@GuiceResponse HttpServletResponse res) {
+			super(res);
+		}
+
+		@RenderFor("big")
+		public void big(PrintWriter out, Map<String, Object> model) {
+			out.print(BIG);
+		}
+	}
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	@Compress(minSize = 64)
+	@RenderWith(BigRenderer.class)
+	public static class Controller {
+		@RequestMapping("/big")
+		@Writes
+		public String big(HttpServletResponse res) {
+			res.setContentType("text/plain");
+			return BIG;
+		}
+
+		@RequestMapping("/small")
+		@Writes
+		public String small(HttpServletResponse res) {
+			res.setContentType("text/plain");
+			return "small";
+		}
+
+		@RequestMapping("/image")
+		public void image(HttpServletResponse res) throws IOException {
+			res.setContentType("image/png");
+			res.getOutputStream().write(BIG.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@RequestMapping("/streamed")
+		public void streamed(HttpServletResponse res) throws IOException {
+			res.setContentType("application/json");
+			ServletOutputStream out = res.getOutputStream();
+			out.write("[\"first\"".getBytes(StandardCharsets.UTF_8));
+			res.flushBuffer();
+			out.write((",\"" + BIG.replace('\n', ' ') + "\"]").getBytes(StandardCharsets.UTF_8));
+		}
+
+		@RequestMapping("/view")
+		public String view(HttpServletResponse res) {
+			res.setContentType("text/html");
+			return "big";
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class CompressControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new CompressControllerModule();
+	}
+
+	// ===================== RESPONSE =====================
+
+	// HttpTester reads bodies as text, so compressed responses are parsed here
+	static class Response {
+		Map<String, String> headers = new HashMap<>();
+		byte[] body;
+
+		String header(String name) {
+			return headers.get(name.toLowerCase());
+		}
+
+		String content() throws IOException {
+			String encoding = header("Content-Encoding");
+			InputStream in = new ByteArrayInputStream(body);
+			if ("gzip".equals(encoding))
+				in = new GZIPInputStream(in);
+			else if ("deflate".equals(encoding))
+				in = new InflaterInputStream(in);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[1024];
+			int len;
+			while ((len = in.read(buf)) > 0)
+				out.write(buf, 0, len);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	Response get(String uri, String acceptEncoding) throws Exception {
+		// HTTP/1.0 so that the body is not chunked
+		String request = "GET " + uri + " HTTP/1.0\r\nHost: tester\r\n";
+		if (acceptEncoding != null)
+			request += "Accept-Encoding: " + acceptEncoding + "\r\n";
+		byte[] raw = tester.getResponses(new ByteArrayBuffer((request + "\r\n").getBytes(StandardCharsets.ISO_8859_1))).asArray();
+
+		int end = 0;
+		while (!(raw[end] == '\r' && raw[end + 1] == '\n' && raw[end + 2] == '\r' && raw[end + 3] == '\n'))
+			++end;
+		Response response = new Response();
+		String[] lines = new String(raw, 0, end, StandardCharsets.ISO_8859_1).split("\r\n");
+		assert lines[0].contains(" 200 ");
+		for (int i = 1; i < lines.length; ++i) {
+			int colon = lines[i].indexOf(':');
+			String name = lines[i].substring(0, colon).trim().toLowerCase();
+			String value = lines[i].substring(colon + 1).trim();
+			response.headers.put(name, response.headers.containsKey(name) ? response.headers.get(name) + ", " + value : value);
+		}
+		response.body = new byte[raw.length - end - 4];
+		System.arraycopy(raw, end + 4, response.body, 0, response.body.length);
+		return response;
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void gzip() throws Exception {
+		Response res = get("/big", "gzip, deflate");
+		assert "gzip".equals(res.header("Content-Encoding"));
+		assert res.header("Vary").contains("Accept-Encoding");
+		assert res.body.length < BIG.length();
+		assert res.content().equals(BIG);
+	}
+
+	@Test
+	public void deflate() throws Exception {
+		Response res = get("/big", "gzip;q=0, deflate");
+		assert "deflate".equals(res.header("Content-Encoding"));
+		assert res.content().equals(BIG);
+	}
+
+	@Test
+	public void notAccepted() throws Exception {
+		Response res = get("/big", null);
+		assert res.header("Content-Encoding") == null;
+		assert res.header("Vary").contains("Accept-Encoding");
+		assert res.content().equals(BIG);
+
+		assert get("/big", "identity, gzip;q=0").header("Content-Encoding") == null;
+	}
+
+	@Test
+	public void tooSmall() throws Exception {
+		Response res = get("/small", "gzip");
+		assert res.header("Content-Encoding") == null;
+		assert res.header("Vary").contains("Accept-Encoding");
+		assert res.header("Content-Length").equals("5");
+		assert res.content().equals("small");
+	}
+
+	@Test
+	public void notCompressibleType() throws Exception {
+		Response res = get("/image", "gzip");
+		assert res.header("Content-Encoding") == null;
+		assert res.header("Vary") == null;
+		assert res.content().equals(BIG);
+	}
+
+	@Test
+	public void streamed() throws Exception {
+		Response res = get("/streamed", "gzip");
+		assert "gzip".equals(res.header("Content-Encoding"));
+		assert res.content().equals("[\"first\",\"" + BIG.replace('\n', ' ') + "\"]");
+	}
+
+	@Test
+	public void view() throws Exception {
+		Response res = get("/view", "deflate");
+		assert "deflate".equals(res.header("Content-Encoding"));
+		assert res.content().equals(BIG);
+	}
+}
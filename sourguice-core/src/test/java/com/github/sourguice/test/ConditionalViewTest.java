@@ -0,0 +1,143 @@
+package com.github.sourguice.test;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.controller.BufferView;
+import com.github.sourguice.annotation.controller.LastModified;
+import com.github.sourguice.annotation.controller.RenderWith;
+import com.github.sourguice.annotation.request.GuiceResponse;
+import com.github.sourguice.annotation.request.PathVariable;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.view.Model;
+import com.github.sourguice.view.def.BasicViewRenderer;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class ConditionalViewTest extends TestBase {
+
+	static final long MODIFIED = 1300000000000L;
+
+	// ===================== VIEW RENDERER =====================
+
+	public static class PageRenderer extends BasicViewRenderer {
+		@Inject
+		public PageRenderer(@GuiceResponse HttpServletResponse res) {
+			super(res);
+		}
+
+		@RenderFor("page")
+		public void page(PrintWriter out, Map<String, Object> model) {
+			out.print("page:" + model.get("name"));
+		}
+	}
+
+	// ===================== CONTROLLERS =====================
+
+	@Singleton
+	@BufferView
+	@RenderWith(PageRenderer.class)
+	public static class BufferedController {
+		@RequestMapping("/buffered/{name}")
+		public String page(@PathVariable("name") String name, Model model) {
+			model.put("name", name);
+			return "page";
+		}
+	}
+
+	@Singleton
+	@RenderWith(PageRenderer.class)
+	public static class ModifiedController {
+		int called = 0;
+
+		@LastModified
+		public long lastModified(@PathVariable("name") String name) {
+			return name.equals("unknown") ? -1 : MODIFIED;
+		}
+
+		@RequestMapping("/modified/{name}")
+		public String page(@PathVariable("name") String name, Model model) {
+			++called;
+			model.put("name", name + ":" + called);
+			return "page";
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class ConditionalViewControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(BufferedController.class);
+			control("/*").with(ModifiedController.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new ConditionalViewControllerModule();
+	}
+
+	HttpTester get(String uri, String... headers) throws Exception {
+		HttpTester request = makeRequest("GET", uri);
+		for (int i = 0; i < headers.length; i += 2)
+			request.setHeader(headers[i], headers[i + 1]);
+		return getResponse(request);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void bufferedViewETag() throws Exception {
+		HttpTester first = get("/buffered/foo");
+		assert first.getStatus() == 200;
+		assert first.getContent().equals("page:foo");
+		assert first.getHeader("Content-Length").equals("8");
+		String eTag = first.getHeader("ETag");
+		assert eTag != null && eTag.startsWith("\"");
+
+		assert get("/buffered/foo").getHeader("ETag").equals(eTag);
+		assert !get("/buffered/bar").getHeader("ETag").equals(eTag);
+
+		HttpTester notModified = get("/buffered/foo", "If-None-Match", eTag);
+		assert notModified.getStatus() == 304;
+		assert notModified.getContent() == null || notModified.getContent().isEmpty();
+
+		assert get("/buffered/foo", "If-None-Match", "\"other\"").getStatus() == 200;
+	}
+
+	@Test
+	public void lastModified() throws Exception {
+		HttpTester first = get("/modified/foo");
+		assert first.getStatus() == 200;
+		assert first.getDateHeader("Last-Modified") == MODIFIED;
+		String content = first.getContent();
+
+		HttpTester notModified = get("/modified/foo", "If-Modified-Since", first.getHeader("Last-Modified"));
+		assert notModified.getStatus() == 304;
+
+		HttpTester modified = get("/modified/foo", "If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT");
+		assert modified.getStatus() == 200;
+		assert !modified.getContent().equals(content);
+
+		HttpTester unknown = get("/modified/unknown", "If-Modified-Since", first.getHeader("Last-Modified"));
+		assert unknown.getStatus() == 200;
+		assert unknown.getHeader("Last-Modified") == null;
+	}
+
+	@Test
+	public void lastModifiedSkipsHandler() throws Exception {
+		String before = get("/modified/skip").getContent();
+		get("/modified/skip", "If-Modified-Since", "Sun, 13 Mar 2011 07:06:40 GMT");
+		String after = get("/modified/skip").getContent();
+		int calls = Integer.parseInt(after.substring(after.lastIndexOf(':') + 1)) - Integer.parseInt(before.substring(before.lastIndexOf(':') + 1));
+		assert calls == 1;
+	}
+}
@@ -0,0 +1,189 @@
+package com.github.sourguice.test;
+
+import java.util.Arrays;
+
+import javax.inject.Inject;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.ConvertsTo;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.RequestParam;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.conversion.ConversionService;
+import com.github.sourguice.conversion.Converter;
+import com.github.sourguice.conversion.def.EnumConverter;
+import com.github.sourguice.conversion.impl.ConversionServiceImpl;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class ConversionTest extends TestBase {
+
+	public static enum Color { RED, GREEN }
+
+	// ===================== CONVERTER =====================
+
+	@ConvertsTo(Color.class)
+	public static class CaseInsensitiveColorConverter implements Converter<Color> {
+		@Override
+		public Color get(Class<? extends Color> clazz, String arg) {
+			return Color.valueOf(arg.toUpperCase());
+		}
+	}
+
+	@ConvertsTo(CharSequence.class)
+	public static class CharSequenceConverter implements Converter<CharSequence> {
+		@Override
+		public CharSequence get(Class<? extends CharSequence> clazz, String arg) {
+			return new StringBuilder(arg);
+		}
+	}
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		@Inject
+		ConversionService conversionService;
+
+		@RequestMapping("/color")
+		@Writes
+		public String color(@RequestParam(value = "c", defaultValue = "green") Color color) {
+			return ":" + color;
+		}
+
+		@RequestMapping("/register-color")
+		@Writes
+		public String registerColor() {
+			conversionService.registerConverter(new CaseInsensitiveColorConverter());
+			return "registered";
+		}
+
+		@RequestMapping("/longs")
+		@Writes
+		public String longs(@RequestParam("ids") long[] ids) {
+			return ":" + Arrays.toString(ids);
+		}
+
+		@RequestMapping("/booleans")
+		@Writes
+		public String booleans(@RequestParam("flags") boolean[] flags) {
+			return ":" + Arrays.toString(flags);
+		}
+
+		@RequestMapping("/doubles")
+		@Writes
+		public String doubles(@RequestParam(value = "values", defaultValue = "1.5,2") double[] values) {
+			return ":" + Arrays.toString(values);
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class ConversionControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new ConversionControllerModule();
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void primitiveArrayFromList() throws Exception {
+		HttpTester request = makeRequest("GET", "/longs?ids=1,2,%2042");
+
+		HttpTester response = getResponse(request);
+
+		assert response.getStatus() == 200;
+		assert response.getContent().equals(":[1, 2, 42]");
+	}
+
+	@Test
+	public void primitiveArrayFromValues() throws Exception {
+		HttpTester request = makeRequest("GET", "/booleans?flags=yes&flags=0&flags=on");
+
+		HttpTester response = getResponse(request);
+
+		assert response.getStatus() == 200;
+		assert response.getContent().equals(":[true, false, true]");
+	}
+
+	@Test
+	public void primitiveArrayDefault() throws Exception {
+		HttpTester request = makeRequest("GET", "/doubles");
+
+		HttpTester response = getResponse(request);
+
+		assert response.getStatus() == 200;
+		assert response.getContent().equals(":[1.5, 2.0]");
+	}
+
+	@Test
+	public void converterRegisteredAfterInvocation() throws Exception {
+		// The invocation is created with the EnumConverter, which is case sensitive
+		assert getResponse(makeRequest("GET", "/color?c=RED")).getContent().equals(":RED");
+		assert getResponse(makeRequest("GET", "/color?c=red")).getContent().equals(":null");
+		assert getResponse(makeRequest("GET", "/color")).getContent().equals(":null");
+
+		assert getResponse(makeRequest("GET", "/register-color")).getContent().equals("registered");
+
+		// The more specific converter is used by the existing invocation, for values and for the default value
+		assert getResponse(makeRequest("GET", "/color?c=red")).getContent().equals(":RED");
+		assert getResponse(makeRequest("GET", "/color")).getContent().equals(":GREEN");
+	}
+
+	@Test
+	public void resolutionInvalidatedByRegistration() {
+		ConversionServiceImpl service = new ConversionServiceImpl();
+		service.registerConverter(new EnumConverter());
+
+		// Resolved to the supertype converter, then cached
+		assert (Object)service.getConverter(Color.class) instanceof EnumConverter;
+		assert service.getConverter(Color.class) == service.getConverter(Color.class);
+
+		service.registerConverter(new CaseInsensitiveColorConverter());
+		assert (Object)service.getConverter(Color.class) instanceof CaseInsensitiveColorConverter;
+		assert (Object)service.getConverter(Thread.State.class) instanceof EnumConverter;
+	}
+
+	@Test
+	public void missingConverterInvalidatedByRegistration() {
+		ConversionServiceImpl service = new ConversionServiceImpl();
+
+		// No converter is found, and this is cached too
+		assert service.getConverter(StringBuilder.class) == null;
+		assert service.getConverter(StringBuilder.class) == null;
+
+		service.registerConverter(new CharSequenceConverter());
+		assert (Object)service.getConverter(StringBuilder.class) instanceof CharSequenceConverter;
+		assert service.getConverter(Integer.class) == null;
+	}
+
+	@Test(groups = "benchmark")
+	public void resolutionBenchmark() {
+		ConversionServiceImpl service = new ConversionServiceImpl();
+		service.registerConverter(new EnumConverter());
+		service.registerConverter(new CharSequenceConverter());
+
+		// Times cached lookups of a type resolved to a supertype converter (only reported to the TestNG reporter, never asserted)
+		int iterations = 1000000;
+		for (int i = 0; i < iterations; ++i)
+			service.getConverter(Color.class);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; ++i)
+			service.getConverter(Color.class);
+		long elapsed = System.nanoTime() - start;
+		Reporter.log(String.format("getConverter(enum) %8.1f ns/lookup", (double)elapsed / iterations));
+
+		assert (Object)service.getConverter(Color.class) instanceof EnumConverter;
+	}
+}
@@ -0,0 +1,119 @@
+package com.github.sourguice.test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.exception.ExceptionHandler;
+import com.github.sourguice.exception.ExceptionService;
+import com.github.sourguice.exception.impl.ExceptionServiceImpl;
+import com.github.sourguice.throwable.service.exception.UnreachableExceptionHandlerException;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class ExceptionTest extends TestBase {
+
+	// ===================== HANDLERS =====================
+
+	public static class WritingHandler implements ExceptionHandler<Exception> {
+		@Override
+		public boolean handle(Exception exception, HttpServletRequest req, HttpServletResponse res) throws IOException {
+			res.getWriter().write("handled:" + exception.getClass().getSimpleName());
+			return true;
+		}
+	}
+
+	public static class OtherHandler implements ExceptionHandler<IOException> {
+		@Override
+		public boolean handle(IOException exception, HttpServletRequest req, HttpServletResponse res) {
+			return true;
+		}
+	}
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		@Inject
+		ExceptionService exceptionService;
+
+		@RequestMapping("/fail")
+		@Writes
+		public String fail() {
+			throw new IllegalStateException("fail");
+		}
+
+		@RequestMapping("/register")
+		@Writes
+		public String register() throws UnreachableExceptionHandlerException {
+			exceptionService.registerHandler(IllegalStateException.class, new WritingHandler());
+			return "registered";
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class ExceptionControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new ExceptionControllerModule();
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void handlerRegisteredAfterException() throws Exception {
+		// The exception class is resolved to no handler
+		assert getResponse(makeRequest("GET", "/fail")).getStatus() == 500;
+		assert getResponse(makeRequest("GET", "/fail")).getStatus() == 500;
+
+		assert getResponse(makeRequest("GET", "/register")).getContent().equals("registered");
+
+		HttpTester response = getResponse(makeRequest("GET", "/fail"));
+		assert response.getStatus() == 200;
+		assert response.getContent().equals("handled:IllegalStateException");
+	}
+
+	@Test
+	public void resolution() throws Exception {
+		ExceptionServiceImpl service = new ExceptionServiceImpl();
+
+		// No handler, which is cached too
+		assert service.getHandler(IllegalStateException.class) == null;
+		assert service.getHandler(IllegalStateException.class) == null;
+
+		WritingHandler runtime = new WritingHandler();
+		service.registerHandler(RuntimeException.class, runtime);
+		assert service.getHandler(IllegalStateException.class) == runtime;
+		assert service.getHandler(RuntimeException.class) == runtime;
+		assert service.getHandler(IOException.class) == null;
+
+		OtherHandler io = new OtherHandler();
+		service.registerHandler(IOException.class, io);
+		assert service.getHandler(FileNotFoundException.class) == io;
+		assert service.getHandler(IllegalStateException.class) == runtime;
+	}
+
+	@Test(expectedExceptions = UnreachableExceptionHandlerException.class)
+	public void unreachable() throws Exception {
+		ExceptionServiceImpl service = new ExceptionServiceImpl();
+		service.registerHandler(RuntimeException.class, new WritingHandler());
+		service.getHandler(IllegalArgumentException.class);
+		service.registerHandler(IllegalArgumentException.class, new WritingHandler());
+	}
+}
@@ -0,0 +1,98 @@
+package com.github.sourguice.test;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.controller.InterceptWith;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.Writes;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class InterceptionTest extends TestBase {
+
+	// ===================== INTERCEPTORS =====================
+
+	@Singleton
+	public static class AInterceptor implements MethodInterceptor {
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			return invocation.proceed() + "A";
+		}
+	}
+
+	public static class BInterceptor implements MethodInterceptor {
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			return invocation.proceed() + "B";
+		}
+	}
+
+	public static class TwiceInterceptor implements MethodInterceptor {
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			return invocation.proceed() + "-" + invocation.proceed();
+		}
+	}
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		@RequestMapping("/chain")
+		@Writes
+		@InterceptWith({AInterceptor.class, BInterceptor.class})
+		public String chain() {
+			return ":x";
+		}
+
+		@RequestMapping("/twice")
+		@Writes
+		@InterceptWith({AInterceptor.class, TwiceInterceptor.class})
+		public String twice() {
+			return ":y";
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class InterceptionControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+			indexAnnotations(InterceptWith.class, Writes.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new InterceptionControllerModule();
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void chain() throws Exception {
+		for (int i = 0; i < 2; ++i) {
+			HttpTester request = makeRequest("GET", "/chain");
+
+			HttpTester response = getResponse(request);
+
+			assert response.getStatus() == 200;
+			assert response.getContent().equals(":xAB");
+		}
+	}
+
+	@Test
+	public void proceedTwice() throws Exception {
+		HttpTester request = makeRequest("GET", "/twice");
+
+		HttpTester response = getResponse(request);
+
+		assert response.getStatus() == 200;
+		assert response.getContent().equals(":yA-:yA");
+	}
+}
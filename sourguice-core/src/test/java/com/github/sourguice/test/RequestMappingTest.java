@@ -5,6 +5,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.request.PathVariable;
 import com.github.sourguice.annotation.request.RequestMapping;
 import com.github.sourguice.annotation.request.RequestParam;
 import com.github.sourguice.annotation.request.Writes;
@@ -41,6 +42,24 @@ public class RequestMappingTest extends TestBase {
 		public String testMethodPost() {
 			return "Post";
 		}
+
+		@RequestMapping("/user/{name}")
+		@Writes
+		public String user(@PathVariable("name") String name) {
+			return "User " + name;
+		}
+
+		@RequestMapping("/user/me")
+		@Writes
+		public String me() {
+			return "Me";
+		}
+
+		@RequestMapping("/file-{name}/{ext}")
+		@Writes
+		public String file(@PathVariable("name") String name, @PathVariable("ext") String ext) {
+			return name + "." + ext;
+		}
 	}
 
 	// ===================== MODULE =====================
@@ -132,4 +151,31 @@ public class RequestMappingTest extends TestBase {
 		assert response.getStatus() == (shouldFind ? 200 : 404);
 	}
 
+	@Test
+	public void pathVariables() throws Exception {
+		HttpTester request = makeRequest("GET", "/file-readme/txt");
+
+		HttpTester response = getResponse(request);
+
+		assert response.getStatus() == 200;
+		assert response.getContent().equals("readme.txt");
+	}
+
+	@Test
+	public void literalOverVariable() throws Exception {
+		HttpTester request = makeRequest("GET", "/user/me");
+		HttpTester response = getResponse(request);
+		assert response.getStatus() == 200;
+		assert response.getContent().equals("Me");
+
+		request = makeRequest("GET", "/user/salomon");
+		response = getResponse(request);
+		assert response.getStatus() == 200;
+		assert response.getContent().equals("User salomon");
+
+		request = makeRequest("GET", "/user/");
+		response = getResponse(request);
+		assert response.getStatus() == 404;
+	}
+
 }
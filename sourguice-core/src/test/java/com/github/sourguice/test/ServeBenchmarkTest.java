@@ -0,0 +1,102 @@
+package com.github.sourguice.test;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.request.PathVariable;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.RequestParam;
+import com.github.sourguice.annotation.request.Writes;
+import com.google.inject.Singleton;
+
+/*
+ * Times requests served by ControllersServlet.serve through the whole pipeline (Jetty local connector, GuiceFilter, request scope).
+ * Each route is warmed up, then the mean time per request is logged to the TestNG reporter.
+ * The times are only reported, never asserted, so that the suite does not depend on the machine running it.
+ * Like every test of the "benchmark" group, it only runs with the benchmark profile (mvn test -Pbenchmark).
+ */
+@SuppressWarnings("javadoc")
+public class ServeBenchmarkTest extends TestBase {
+
+	static final int WARMUP = 2000;
+
+	static final int ITERATIONS = 2000;
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		@RequestMapping("/static")
+		@Writes
+		public String staticPath() {
+			return "static";
+		}
+
+		@RequestMapping("/user/{name}/item-{id}")
+		@Writes
+		public String variables(@PathVariable("name") String name, @PathVariable("id") int id) {
+			return name + id;
+		}
+
+		@RequestMapping("/params")
+		@Writes
+		public String params(@RequestParam("a") int a, @RequestParam("b") long[] b) {
+			return String.valueOf(a + b.length);
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class ServeBenchmarkControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new ServeBenchmarkControllerModule();
+	}
+
+	// ===================== DATA PROVIDERS =====================
+
+	@DataProvider(name = "routes")
+	public Object[][] routes() {
+		return new Object[][] {
+			{ "/static", "static" },
+			{ "/user/salomon/item-42", "salomon42" },
+			{ "/params?a=1&b=2&b=3&b=4", "4" },
+			{ "/missing", null }
+		};
+	}
+
+	// ===================== TESTS =====================
+
+	@Test(dataProvider = "routes", groups = "benchmark")
+	public void serve(String uri, String expected) throws Exception {
+		String request = makeRequest("GET", uri).generate();
+
+		for (int i = 0; i < WARMUP; ++i)
+			tester.getResponses(request);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; ++i)
+			tester.getResponses(request);
+		long elapsed = System.nanoTime() - start;
+
+		Reporter.log(String.format("serve %-28s %8.1f us/request", uri, elapsed / 1000.0 / ITERATIONS));
+
+		HttpTester response = new HttpTester();
+		response.parse(tester.getResponses(request));
+		if (expected == null)
+			assert response.getStatus() == 404;
+		else {
+			assert response.getStatus() == 200;
+			assert response.getContent().equals(expected);
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package com.github.sourguice.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.request.RequestMapping;
+import com.github.sourguice.annotation.request.Writes;
+import com.github.sourguice.resource.FileResource;
+import com.github.sourguice.resource.HttpResource;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class WritesTest extends TestBase {
+
+	static final byte[] DATA = new byte[100000];
+	static {
+		for (int i = 0; i < DATA.length; ++i)
+			DATA[i] = (byte)(i * 31 + i / 256);
+	}
+
+	static File file;
+
+	// ===================== CONTROLLER =====================
+
+	@Singleton
+	public static class Controller {
+		@RequestMapping("/bytes")
+		@Writes
+		public byte[] bytes() {
+			return DATA;
+		}
+
+		@RequestMapping("/buffer")
+		@Writes
+		public ByteBuffer buffer() {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(DATA.length);
+			buffer.put(DATA).flip();
+			return buffer;
+		}
+
+		@RequestMapping("/stream")
+		@Writes(bufferSize = 1000)
+		public InputStream stream() {
+			return new ByteArrayInputStream(DATA);
+		}
+
+		@RequestMapping("/channel")
+		@Writes
+		public ReadableByteChannel channel() {
+			return Channels.newChannel(new ByteArrayInputStream(DATA));
+		}
+
+		@RequestMapping("/file")
+		@Writes
+		public FileChannel file() throws IOException {
+			FileChannel channel = new FileInputStream(file).getChannel();
+			channel.position(10);
+			return channel;
+		}
+
+		@RequestMapping("/file-stream")
+		@Writes
+		public InputStream fileStream() throws IOException {
+			return new FileInputStream(file);
+		}
+
+		@RequestMapping("/resource")
+		@Writes
+		public HttpResource resource() {
+			return new FileResource(file, "application/octet-stream");
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class WritesControllerModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/*").with(Controller.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new WritesControllerModule();
+	}
+
+	@BeforeClass
+	public void createFile() throws IOException {
+		file = File.createTempFile("sourguice-writes", ".bin");
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(DATA);
+		}
+	}
+
+	@AfterClass
+	public void deleteFile() {
+		file.delete();
+	}
+
+	// ===================== UTILS =====================
+
+	/**
+	 * Makes a HTTP/1.0 GET request (so that the response is not chunked) and returns the raw response
+	 */
+	byte[] get(String uri, String... headers) throws Exception {
+		String request = "GET " + uri + " HTTP/1.0\r\nHost: tester\r\n";
+		for (String header : headers)
+			request += header + "\r\n";
+		request += "\r\n";
+		return tester.getResponses(new ByteArrayBuffer(request.getBytes("ISO-8859-1"))).asArray();
+	}
+
+	static int bodyStart(byte[] response) {
+		for (int i = 0; i + 3 < response.length; ++i)
+			if (response[i] == '\r' && response[i + 1] == '\n' && response[i + 2] == '\r' && response[i + 3] == '\n')
+				return i + 4;
+		throw new AssertionError("No body");
+	}
+
+	static String head(byte[] response) throws Exception {
+		return new String(response, 0, bodyStart(response), "ISO-8859-1");
+	}
+
+	static byte[] body(byte[] response) {
+		return Arrays.copyOfRange(response, bodyStart(response), response.length);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void writeBytes() throws Exception {
+		byte[] response = get("/bytes");
+		assert head(response).startsWith("HTTP/1.1 200");
+		assert head(response).contains("Content-Length: " + DATA.length);
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void writeDirectBuffer() throws Exception {
+		byte[] response = get("/buffer");
+		assert head(response).contains("Content-Length: " + DATA.length);
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void writeStream() throws Exception {
+		byte[] response = get("/stream");
+		assert head(response).startsWith("HTTP/1.1 200");
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void writeChannel() throws Exception {
+		byte[] response = get("/channel");
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void writeFileFromPosition() throws Exception {
+		byte[] response = get("/file");
+		assert head(response).contains("Content-Length: " + (DATA.length - 10));
+		assert Arrays.equals(body(response), Arrays.copyOfRange(DATA, 10, DATA.length));
+	}
+
+	@Test
+	public void writeFileStream() throws Exception {
+		byte[] response = get("/file-stream");
+		assert head(response).contains("Content-Length: " + DATA.length);
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	static String header(byte[] response, String name) throws Exception {
+		for (String line : head(response).split("\r\n"))
+			if (line.startsWith(name + ": "))
+				return line.substring(name.length() + 2);
+		return null;
+	}
+
+	@Test
+	public void writeResource() throws Exception {
+		byte[] response = get("/resource");
+		assert head(response).startsWith("HTTP/1.1 200");
+		assert header(response, "Content-Length").equals(String.valueOf(DATA.length));
+		assert header(response, "Accept-Ranges").equals("bytes");
+		assert header(response, "Content-Type").startsWith("application/octet-stream");
+		assert header(response, "ETag") != null;
+		assert header(response, "Last-Modified") != null;
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void resourceNotModified() throws Exception {
+		byte[] full = get("/resource");
+
+		byte[] response = get("/resource", "If-None-Match: \"other\", " + header(full, "ETag"));
+		assert head(response).startsWith("HTTP/1.1 304");
+		assert body(response).length == 0;
+
+		response = get("/resource", "If-None-Match: \"other\"");
+		assert head(response).startsWith("HTTP/1.1 200");
+
+		response = get("/resource", "If-Modified-Since: " + header(full, "Last-Modified"));
+		assert head(response).startsWith("HTTP/1.1 304");
+
+		response = get("/resource", "If-Modified-Since: Thu, 01 Jan 1970 00:00:00 GMT");
+		assert head(response).startsWith("HTTP/1.1 200");
+	}
+
+	@Test
+	public void resourceSingleRange() throws Exception {
+		byte[] response = get("/resource", "Range: bytes=100-199");
+		assert head(response).startsWith("HTTP/1.1 206");
+		assert header(response, "Content-Range").equals("bytes 100-199/" + DATA.length);
+		assert Arrays.equals(body(response), Arrays.copyOfRange(DATA, 100, 200));
+
+		response = get("/resource", "Range: bytes=-50");
+		assert header(response, "Content-Range").equals("bytes " + (DATA.length - 50) + "-" + (DATA.length - 1) + "/" + DATA.length);
+		assert Arrays.equals(body(response), Arrays.copyOfRange(DATA, DATA.length - 50, DATA.length));
+
+		response = get("/resource", "Range: bytes=99990-");
+		assert Arrays.equals(body(response), Arrays.copyOfRange(DATA, 99990, DATA.length));
+	}
+
+	@Test
+	public void resourceMultipleRanges() throws Exception {
+		byte[] response = get("/resource", "Range: bytes=0-9, 50-59");
+		assert head(response).startsWith("HTTP/1.1 206");
+		String contentType = header(response, "Content-Type");
+		assert contentType.startsWith("multipart/byteranges; boundary=");
+		String boundary = contentType.substring(contentType.indexOf('=') + 1);
+		byte[] body = body(response);
+		assert header(response, "Content-Length").equals(String.valueOf(body.length));
+		String text = new String(body, "ISO-8859-1");
+		assert text.contains("--" + boundary + "\r\nContent-Type: application/octet-stream\r\nContent-Range: bytes 0-9/" + DATA.length + "\r\n\r\n" + new String(DATA, 0, 10, "ISO-8859-1"));
+		assert text.contains("Content-Range: bytes 50-59/" + DATA.length + "\r\n\r\n" + new String(DATA, 50, 10, "ISO-8859-1"));
+		assert text.endsWith("\r\n--" + boundary + "--\r\n");
+	}
+
+	@Test
+	public void resourceRangeErrors() throws Exception {
+		byte[] response = get("/resource", "Range: bytes=200000-");
+		assert head(response).startsWith("HTTP/1.1 416");
+		assert header(response, "Content-Range").equals("bytes */" + DATA.length);
+
+		response = get("/resource", "Range: lines=1-2");
+		assert head(response).startsWith("HTTP/1.1 200");
+		assert Arrays.equals(body(response), DATA);
+	}
+
+	@Test
+	public void resourceIfRange() throws Exception {
+		byte[] full = get("/resource");
+
+		byte[] response = get("/resource", "Range: bytes=0-9", "If-Range: " + header(full, "ETag"));
+		assert head(response).startsWith("HTTP/1.1 206");
+
+		response = get("/resource", "Range: bytes=0-9", "If-Range: " + header(full, "Last-Modified"));
+		assert head(response).startsWith("HTTP/1.1 206");
+
+		response = get("/resource", "Range: bytes=0-9", "If-Range: \"other\"");
+		assert head(response).startsWith("HTTP/1.1 200");
+		assert Arrays.equals(body(response), DATA);
+	}
+}
@@ -1,8 +1,11 @@
 package com.github.sourguice.ws;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
@@ -10,32 +13,63 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
+import com.github.sourguice.annotation.controller.Compress;
 import com.github.sourguice.annotation.request.GuiceRequest;
+import com.github.sourguice.annotation.request.GuiceResponse;
 import com.github.sourguice.annotation.request.PathVariable;
 import com.github.sourguice.annotation.request.RequestMapping;
-import com.github.sourguice.call.CalltimeArgumentFetcher;
 import com.github.sourguice.call.MvcCaller;
+import com.github.sourguice.call.StaticCalltimeArgumentFetcher;
 import com.github.sourguice.throwable.controller.MVCHttpServletResponseSendErrorException;
 import com.github.sourguice.utils.Annotations;
+import com.github.sourguice.utils.RequestScopeContainer;
 import com.github.sourguice.value.RequestMethod;
 import com.github.sourguice.ws.WSDescription.WSDClass;
 import com.github.sourguice.ws.WSDescription.WSDEnum;
@@ -52,7 +86,10 @@ import com.github.sourguice.ws.annotation.WSUntil;
 import com.github.sourguice.ws.exception.UnknownClientTypeException;
 import com.github.sourguice.ws.exception.WSRuntimeException;
 import com.github.sourguice.ws.jsontrans.ArrayContentHandler;
+import com.github.sourguice.ws.jsontrans.JsonReader;
+import com.github.sourguice.ws.jsontrans.JsonWriter;
 import com.github.sourguice.ws.jsontrans.SourJsonTransformer;
+import com.github.sourguice.ws.jsontrans.WireFormat;
 import com.github.sourguice.ws.jsontrans.ArrayContentHandler.ArrayItemListener;
 import com.github.sourguice.ws.jsontrans.SourJsonTransformer.JsonTransformException;
 import com.github.sourguice.ws.translat.WSRuntimeTranslater;
@@ -61,11 +98,14 @@ import com.github.sourguice.ws.translat.def.ClassTranslater.ClassTranslaterFacto
 import com.github.sourguice.ws.translat.def.DateTranslater.DateTranslaterFactory;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Singleton;
+import com.google.inject.servlet.ServletScopes;
 import com.googlecode.gentyref.GenericTypeReflector;
 
 /**
  * This is the base class you have to subclass to create a web service class
+ * Responses are compressed when the client accepts it, see {@link Compress}
  * 
  * @author Salomon BRYS <salomon.brys@gmail.com>
  */
@@ -75,6 +115,7 @@ import com.googlecode.gentyref.GenericTypeReflector;
 			ClassTranslaterFactory.class
 		}
 	)
+@Compress(types = { "application/json", "application/cbor", "application/msgpack", "application/x-msgpack", "text/*" })
 @Singleton
 public abstract class JsonWSController {
 
@@ -94,14 +135,57 @@ public abstract class JsonWSController {
 	private Map<Class<? extends Exception>, WSRuntimeTranslater<?>> runtimeExceptionTranslaters = new HashMap<>();
 	
 	/**
-	 * Cache for the {@link #findMethod(String, double)} function
+	 * The methods of each WS function for each version, used by {@link #findMethod(String, double)}.
+	 * It is built when the controller is created and never modified.
 	 */
-	private Map<String, Method> methodCache = new HashMap<>();
+	private final Map<String, MethodVersions> methodTable;
+
+	/**
+	 * Query parameter with which an RPC request asks for its results as soon as each call completes
+	 */
+	public static final String UNORDERED_PARAMETER = "__unordered";
+
+	/**
+	 * Header with which an RPC request asks for its results as soon as each call completes
+	 */
+	public static final String UNORDERED_HEADER = "X-RPC-Unordered";
+
+	/**
+	 * Whether all the calls of an RPC batch may run in parallel
+	 */
+	private boolean parallel = false;
+
+	/**
+	 * Maximum number of calls of a same RPC batch that run at the same time
+	 */
+	private int parallelCalls = 8;
+
+	/**
+	 * Cache of whether each method may be called in parallel in an RPC batch
+	 */
+	private Map<Method, Boolean> parallelCache = new ConcurrentHashMap<>();
+
+	/**
+	 * Executor on which the parallel calls of RPC batches run, created when first needed
+	 */
+	private @CheckForNull ExecutorService rpcExecutor = null;
 	
 	/**
 	 * JSON Util that is responsible for transforming Json to Objects and vice versa
 	 */
 	protected SourJsonTransformer jsonTransformer;
+
+	/**
+	 * Whether the subclass overrides {@link #handleREST(HttpServletResponse, HttpServletRequest, String, double, JSONObject)},
+	 * in which case /rest reads the whole body and goes through it rather than streaming
+	 */
+	private final boolean treeREST;
+
+	/**
+	 * Whether the subclass overrides {@link #handleRPCCall(JSONObject, double)},
+	 * in which case /rpc goes through it rather than streaming the results of the calls
+	 */
+	private final boolean treeRPC;
 	
 	/**
 	 * @param injector Guice injector
@@ -119,9 +203,34 @@ public abstract class JsonWSController {
 				WSRuntimeTranslater<?> tr = injector.getInstance(trClass);
 				runtimeExceptionTranslaters.put(tr.getExceptionClass(), tr);
 			}
+			parallel = infos.parallel();
+			parallelCalls = infos.parallelCalls();
 		}
 		
 		this.jsonTransformer = new SourJsonTransformer(description.translaters.values(), description.knownClasses);
+
+		this.methodTable = buildMethodTable();
+
+		this.treeREST = IsOverridden(this.getUnmodifiedClass(), "handleREST", HttpServletResponse.class, HttpServletRequest.class, String.class, double.class, JSONObject.class);
+		this.treeRPC = IsOverridden(this.getUnmodifiedClass(), "handleRPCCall", JSONObject.class, double.class);
+	}
+
+	/**
+	 * @param cls The class to check
+	 * @param name The name of the method
+	 * @param types The parameter types of the method
+	 * @return Whether the class, or one of its super classes, overrides the method of JsonWSController
+	 */
+	private static boolean IsOverridden(Class<?> cls, String name, Class<?>... types) {
+		for (; cls != JsonWSController.class; cls = cls.getSuperclass())
+			try {
+				cls.getDeclaredMethod(name, types);
+				return true;
+			}
+			catch (NoSuchMethodException e) {
+				// Not declared by this class
+			}
+		return false;
 	}
 
 	/**
@@ -204,14 +313,103 @@ public abstract class JsonWSController {
 	}
 
 	/**
-	 * Uncached {@link #findMethod(String, double)}
+	 * Get the next element from a request body written in a binary format
 	 * 
-	 * @param function The name of the method to find
-	 * @param version The version of the WS to use
-	 * @return The method found
-	 * @throws NoSuchMethodException If no method was found
+	 * @param req The request to read
+	 * @param format The binary format of the request body
+	 * @param cls The class of the element that should be read
+	 * @return The decoded element, as the JSON element it represents
+	 * @throws ParseException If a decoding error occurs
+	 * @throws IOException If an input or output error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected @CheckForNull <T> T getWireElement(final HttpServletRequest req, final WireFormat format, final Class<T> cls) throws ParseException, IOException {
+		Object ret = format.read(req.getInputStream());
+		if (ret == null)
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_EXCEPTION);
+		if (!ret.getClass().equals(cls))
+			throw new IOException("Not a " + cls.getSimpleName());
+		return (T)ret;
+	}
+
+	/**
+	 * The methods of a WS function, resolved for each version.
+	 * The versions at which a method becomes or stops being available (its @WSSince and @WSUntil values) split the versions in ranges:
+	 * each of those values is a range of its own, as are the versions between two of them, before the first and after the last.
+	 * Each range is resolved once to the first method (in declaration order) that is available in it,
+	 * so finding the method of a version is a binary search over the range bounds.
+	 */
+	private static final class MethodVersions {
+		/**
+		 * The sorted, distinct @WSSince and @WSUntil values of the methods
+		 */
+		private final double[] bounds;
+
+		/**
+		 * The method of each range, or null if no method is available in it.
+		 * Range 2i+1 is bounds[i] exactly, range 2i is the versions between bounds[i-1] and bounds[i].
+		 */
+		private final @CheckForNull Method[] methods;
+
+		/**
+		 * @param candidates The methods of the function, in declaration order
+		 * @param since The version from which each method is available, or -Infinity
+		 * @param until The version until which each method is available, or +Infinity
+		 */
+		MethodVersions(List<Method> candidates, List<Double> since, List<Double> until) {
+			TreeSet<Double> values = new TreeSet<>();
+			for (Double value : since)
+				if (!value.isInfinite())
+					values.add(value);
+			for (Double value : until)
+				if (!value.isInfinite())
+					values.add(value);
+
+			bounds = new double[values.size()];
+			int i = 0;
+			for (Double value : values)
+				bounds[i++] = value.doubleValue();
+
+			methods = new Method[bounds.length * 2 + 1];
+			for (int range = 0; range < methods.length; ++range) {
+				// Any version of a range has the same available methods, so the range is resolved with one of its versions
+				double version;
+				if (range % 2 == 1)
+					version = bounds[range / 2];
+				else if (range == 0)
+					version = Double.NEGATIVE_INFINITY;
+				else if (range == methods.length - 1)
+					version = Double.POSITIVE_INFINITY;
+				else
+					version = bounds[range / 2 - 1] / 2 + bounds[range / 2] / 2;
+				for (int c = 0; c < candidates.size(); ++c)
+					if (since.get(c).doubleValue() <= version && version <= until.get(c).doubleValue()) {
+						methods[range] = candidates.get(c);
+						break ;
+					}
+			}
+		}
+
+		/**
+		 * @param version The version of the WS to use
+		 * @return The method available at this version, or null if there is none
+		 */
+		@CheckForNull Method get(double version) {
+			int pos = Arrays.binarySearch(bounds, version);
+			return methods[pos >= 0 ? pos * 2 + 1 : -(pos + 1) * 2];
+		}
+	}
+
+	/**
+	 * Builds the table of the WS functions of this controller and of their methods for each version
+	 * 
+	 * @return The methods of each function, by function name
 	 */
-	private Method _findMethod(String function, double version) throws NoSuchMethodException {
+	private Map<String, MethodVersions> buildMethodTable() {
+		Map<String, List<Method>> candidates = new HashMap<>();
+		Map<String, List<Double>> sinces = new HashMap<>();
+		Map<String, List<Double>> untils = new HashMap<>();
+
 		Class<?> uc = this.getUnmodifiedClass();
 		for (Method method : this.getClass().getMethods()) {
 			Method um = method;
@@ -226,24 +424,29 @@ public abstract class JsonWSController {
 			String name = wsMethod.name();
 			if (name.isEmpty())
 				name = method.getName();
-			if (name.equals(function)) {
-				WSSince since = um.getAnnotation(WSSince.class);
-				if (since != null && since.value() >= 0 && since.value() > version)
-					continue ;
-				WSUntil until = um.getAnnotation(WSUntil.class);
-				if (until != null && until.value() >= 0 && until.value() < version)
-					continue ;
 
-				return method;
+			if (!candidates.containsKey(name)) {
+				candidates.put(name, new ArrayList<Method>());
+				sinces.put(name, new ArrayList<Double>());
+				untils.put(name, new ArrayList<Double>());
 			}
+			WSSince since = um.getAnnotation(WSSince.class);
+			WSUntil until = um.getAnnotation(WSUntil.class);
+			candidates.get(name).add(method);
+			sinces.get(name).add(Double.valueOf(since != null && since.value() >= 0 ? since.value() : Double.NEGATIVE_INFINITY));
+			untils.get(name).add(Double.valueOf(until != null && until.value() >= 0 ? until.value() : Double.POSITIVE_INFINITY));
 		}
-		throw new NoSuchMethodException();
+
+		Map<String, MethodVersions> table = new HashMap<>();
+		for (Map.Entry<String, List<Method>> entry : candidates.entrySet())
+			table.put(entry.getKey(), new MethodVersions(entry.getValue(), sinces.get(entry.getKey()), untils.get(entry.getKey())));
+		return table;
 	}
 	
 	/**
 	 * Finds a method with the given name (will match the method's annotation if given, or else it's name)
 	 * according to the given version
-	 * This use an internal cache to only look for each method only once
+	 * This uses a table that is built once when the controller is created
 	 * 
 	 * @param function The name of the method to find
 	 * @param version The version of the WS to use
@@ -251,10 +454,11 @@ public abstract class JsonWSController {
 	 * @throws NoSuchMethodException If no method was found
 	 */
 	protected Method findMethod(String function, double version) throws NoSuchMethodException {
-		String cacheStr = function + " - " + version;
-		if (!methodCache.containsKey(cacheStr))
-			methodCache.put(cacheStr, _findMethod(function, version));
-		return methodCache.get(cacheStr);
+		MethodVersions versions = methodTable.get(function);
+		Method method = versions != null ? versions.get(version) : null;
+		if (method == null)
+			throw new NoSuchMethodException();
+		return method;
 	}
 	
 	/**
@@ -277,13 +481,67 @@ public abstract class JsonWSController {
 		CallResultStatus status = CallResultStatus.OK;
 		
 		/**
-		 * If the status is OK, this is the return value of the call.
+		 * If the status is OK, this is the return value of the call (a {@link StreamedResult} if it is to be streamed).
 		 * If the status is CALL_ERROR, this is null.
 		 * Else, this is the thrown exception.
 		 */
 		@CheckForNull Object result;
 	}
 	
+	/**
+	 * The return value of a call that has not been transformed to JSON yet because it will be written directly to the response
+	 */
+	private static final class StreamedResult {
+		/**
+		 * The value returned by the call
+		 */
+		final Object value;
+
+		/**
+		 * The type with which to transform the value
+		 */
+		final Type type;
+
+		/**
+		 * The annotations of the called method
+		 */
+		final AnnotatedElement anno;
+
+		/**
+		 * @param value The value returned by the call
+		 * @param type The type with which to transform the value
+		 * @param anno The annotations of the called method
+		 */
+		StreamedResult(Object value, Type type, AnnotatedElement anno) {
+			this.value = value;
+			this.type = type;
+			this.anno = anno;
+		}
+	}
+
+	/**
+	 * The @WSParam parameters of a call, read directly from the request body before the call
+	 */
+	private static final class ReadParams {
+		/**
+		 * For each parameter position, the value that was read, or null if there was none
+		 */
+		final Object[] values;
+
+		/**
+		 * For each parameter position, the exception that was thrown while reading its value, if any
+		 */
+		final Exception[] errors;
+
+		/**
+		 * @param count The number of parameters of the called method
+		 */
+		ReadParams(int count) {
+			values = new Object[count];
+			errors = new Exception[count];
+		}
+	}
+
 	/**
 	 * Exception thrown when a parameter is missing in a call
 	 */
@@ -308,11 +566,13 @@ public abstract class JsonWSController {
 	 * @param function The name of the method to call
 	 * @param version The version of the WS to use
 	 * @param jsonObject The JSON object representing the parameters to the call
+	 * @param params The parameters to the call if they were already read, in which case jsonObject is not used
+	 * @param stream Whether the return value is to be written directly to the response rather than transformed to a JSON tree
 	 * @return The result of the WS call
 	 * @throws Throwable If anything went wrong ;)
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private CallResult call(final String function, final double version, final JSONObject jsonObject) throws Throwable {
+	private CallResult call(final String function, final double version, final @CheckForNull JSONObject jsonObject, final @CheckForNull ReadParams params, boolean stream) throws Throwable {
 		// Get the method corresponding to the WS call
 		Method method = findMethod(function, version);
 		// An empty CallResult that will be filled
@@ -320,11 +580,11 @@ public abstract class JsonWSController {
 		try {
 			// Make the actual call
 			// The given CalltimeArgumentFetcher handles the @WSParam annotated parameters
-			Object ret = injector.getInstance(MvcCaller.class).call(this.getClass(), method, null, true, new CalltimeArgumentFetcher<Object>() {
+			Object ret = injector.getInstance(MvcCaller.class).call(this.getClass(), method, null, true, new StaticCalltimeArgumentFetcher<Object>() {
 				@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 					return Annotations.fromArray(annos).isAnnotationPresent(WSParam.class);
 				}
-				@Override public @CheckForNull Object get(Type type, int pos, Annotation[] annos) throws NoSuchWSParamException {
+				@Override public @CheckForNull Object get(Type type, int pos, Annotation[] annos) throws Exception {
 					Class<?> clazz = GenericTypeReflector.erase(type);
 					AnnotatedElement annoEl = Annotations.fromArray(annos);
 					WSParam wsParam = annoEl.getAnnotation(WSParam.class);
@@ -332,6 +592,21 @@ public abstract class JsonWSController {
 
 					boolean nullable = annoEl.isAnnotationPresent(WSCheckForNull.class);
 
+					// The parameter was already read from the request body
+					if (params != null) {
+						Exception error = params.errors[pos];
+						if (error instanceof JsonTransformException) {
+							Logger.getLogger("SourGuice-WS-RPC").log(Level.FINE, "Could not read parameter " + wsParam.value(), error);
+							throw new NoSuchWSParamException(wsParam.value(), clazz, !nullable);
+						}
+						if (error != null)
+							throw error;
+						Object obj = params.values[pos];
+						if (obj == null && !nullable)
+							throw new NoSuchWSParamException(wsParam.value(), clazz, !nullable);
+						return obj;
+					}
+
 					// Throw an exception if the JSON parameter is null and it's not allowed to be
 					if (jsonObject == null) {
 						if (nullable)
@@ -365,8 +640,11 @@ public abstract class JsonWSController {
 				if (Map.class.isAssignableFrom(retClass) || Collection.class.isAssignableFrom(retClass) || Annotations.GetOneTree(method, WSStrict.class) != null)
 					retType = GenericTypeReflector.getExactReturnType(method, this.getClass());
 	
-				// Transform the result from java bean to JSON
-				result.result = jsonTransformer.toJSON(ret, retType, version, method, true, null);
+				// Transform the result from java bean to JSON, or keep it to be written later
+				if (stream)
+					result.result = new StreamedResult(ret, retType, method);
+				else
+					result.result = jsonTransformer.toJSON(ret, retType, version, method, true, null);
 			}
 		}
 		// Thrown when a parameter is missing
@@ -427,9 +705,62 @@ public abstract class JsonWSController {
 //		return res.getWriter();
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Makes the call of a REST request whose parameters were read as a whole, and creates its response body.
+	 * When a subclass overrides this method, /rest reads the whole body of each request and goes through it,
+	 * instead of going through {@link #handleREST(HttpServletResponse, HttpServletRequest, String, double, WireFormat, boolean)}.
+	 * 
+	 * @param res The current response object
+	 * @param req The current request object
+	 * @param function The name of the method to call
+	 * @param version The version of the WS to use
+	 * @param jsonObject The JSON object of the request body
+	 * @return The JSON body of the response
+	 * @throws Throwable If anything went wrong
+	 */
 	protected JSONObject handleREST(HttpServletResponse res, HttpServletRequest req, String function, double version, JSONObject jsonObject) throws Throwable {
-		CallResult result = call(function, version, jsonObject);
+		return restResponse(res, req, call(function, version, jsonObject, null, false));
+	}
+
+	/**
+	 * Makes the call of a REST request, reading its parameters from the request body, and creates its response body.
+	 * This is what /rest goes through, unless a subclass overrides {@link #handleREST(HttpServletResponse, HttpServletRequest, String, double, JSONObject)}.
+	 * 
+	 * @param res The current response object
+	 * @param req The current request object
+	 * @param function The name of the method to call
+	 * @param version The version of the WS to use
+	 * @param inFormat The binary format of the request body, or null if it is JSON, in which case parameters are read directly from the body
+	 * @param stream Whether the return value may be left to be written directly to the response rather than transformed to a JSON tree
+	 * @return The JSON body of the response
+	 * @throws Throwable If anything went wrong
+	 */
+	protected JSONObject handleREST(HttpServletResponse res, HttpServletRequest req, String function, double version, @CheckForNull WireFormat inFormat, boolean stream) throws Throwable {
+		if (inFormat != null)
+			return restResponse(res, req, call(function, version, getWireElement(req, inFormat, JSONObject.class), null, stream));
+
+		Method method;
+		try {
+			method = findMethod(function, version);
+		}
+		catch (NoSuchMethodException e) {
+			// A malformed body is reported before a missing method
+			getJsonElement(req, JSONObject.class);
+			throw e;
+		}
+		return restResponse(res, req, call(function, version, null, readParams(req, method, version), stream));
+	}
+
+	/**
+	 * Sets the status of a REST response and creates its JSON body
+	 * 
+	 * @param res The current response object
+	 * @param req The current request object
+	 * @param result The result of the call
+	 * @return The JSON body of the response
+	 */
+	@SuppressWarnings("unchecked")
+	private JSONObject restResponse(HttpServletResponse res, HttpServletRequest req, CallResult result) {
 		JSONObject obj = new JSONObject();
 		int status = 200;
 		switch (result.status) {
@@ -467,14 +798,30 @@ public abstract class JsonWSController {
 			@PathVariable("version") double version,
 			@PathVariable("function") String function
 			) throws Throwable {
+		WireFormat inFormat = WireFormat.Of(req.getContentType());
+		WireFormat outFormat = WireFormat.Negotiate(req.getContentType(), req.getHeader("Accept"));
 		try {
-			JSONObject jsonObject = getJsonElement(req, JSONObject.class);
-			assert jsonObject != null;
-			
-			JSONObject obj = handleREST(res, req, function, version, jsonObject);
+			JSONObject obj;
+			if (treeREST) {
+				JSONObject jsonObject = inFormat != null ? getWireElement(req, inFormat, JSONObject.class) : getJsonElement(req, JSONObject.class);
+				assert jsonObject != null;
+				obj = handleREST(res, req, function, version, jsonObject);
+			}
+			else
+				obj = handleREST(res, req, function, version, inFormat, outFormat == null);
+
+			if (outFormat != null) {
+				res.setContentType(outFormat.getContentType());
+				res.setHeader("Access-Control-Allow-Origin", "*");
+				try (OutputStream out = new BufferedOutputStream(res.getOutputStream())) {
+					outFormat.write(obj, out);
+				}
+				return ;
+			}
 			try (Writer out = responseWriter(res, req, true)) {
-				out.write(obj.toString());
-				out.flush();
+				JsonWriter writer = new JsonWriter(out);
+				writeResponse(writer, obj, version);
+				writer.flush();
 			}
 		}
 		catch (NoSuchMethodException e) {
@@ -486,8 +833,116 @@ public abstract class JsonWSController {
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Reads the @WSParam parameters of a method directly from the JSON object of the request body, without building its JSON tree.
+	 * An exception thrown while transforming a parameter is kept to be thrown when the parameter is fetched for the call.
+	 * 
+	 * @param req The request to read
+	 * @param method The method that will be called
+	 * @param version The version of the WS to use
+	 * @return The parameters read
+	 * @throws ParseException If a parsing error occurs
+	 * @throws IOException If an input or output error occurs
+	 * @throws NoSuchMethodException If the method does not exist in the unmodified class
+	 */
+	private ReadParams readParams(HttpServletRequest req, Method method, double version) throws ParseException, IOException, NoSuchMethodException {
+		Class<?> uc = this.getUnmodifiedClass();
+		Method um = uc.getMethod(method.getName(), method.getParameterTypes());
+		Type[] types = GenericTypeReflector.getExactParameterTypes(um, uc);
+		Annotation[][] annotations = um.getParameterAnnotations();
+
+		ReadParams params = new ReadParams(types.length);
+
+		AnnotatedElement[] annoEls = new AnnotatedElement[types.length];
+		Map<String, List<Integer>> positions = new HashMap<>();
+		for (int n = 0; n < types.length; ++n) {
+			annoEls[n] = Annotations.fromArray(annotations[n]);
+			WSParam wsParam = annoEls[n].getAnnotation(WSParam.class);
+			if (wsParam == null)
+				continue ;
+			if (!positions.containsKey(wsParam.value()))
+				positions.put(wsParam.value(), new ArrayList<Integer>(1));
+			positions.get(wsParam.value()).add(Integer.valueOf(n));
+		}
+
+		CharsetDecoder utf8Decoder = Charset.forName("UTF-8").newDecoder();
+		utf8Decoder.onMalformedInput(CodingErrorAction.IGNORE);
+		utf8Decoder.onUnmappableCharacter(CodingErrorAction.IGNORE);
+		JsonReader in = new JsonReader(new InputStreamReader(req.getInputStream(), utf8Decoder));
+
+		if (in.peek() == JsonReader.NULL)
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_EXCEPTION);
+		if (in.peek() != JsonReader.BEGIN_OBJECT)
+			throw new IOException("Not a JSONObject");
+
+		in.beginObject();
+		int depth = in.getDepth();
+		while (in.hasNext()) {
+			List<Integer> names = positions.get(in.nextName());
+			if (names == null) {
+				in.skipValue();
+				continue ;
+			}
+			// A parameter given twice takes its last value, as it would in a JSON tree
+			for (Integer n : names) {
+				params.values[n.intValue()] = null;
+				params.errors[n.intValue()] = null;
+			}
+			if (names.size() == 1) {
+				int n = names.get(0).intValue();
+				try {
+					params.values[n] = jsonTransformer.readJSON(in, types[n], version, annoEls[n], null);
+				}
+				catch (JsonTransformException | RuntimeException e) {
+					params.errors[n] = e;
+					in.skipTo(depth);
+				}
+			}
+			else {
+				Object json = in.nextTree();
+				for (Integer n : names)
+					try {
+						params.values[n.intValue()] = jsonTransformer.fromJSON(json, types[n.intValue()], version, annoEls[n.intValue()], null);
+					}
+					catch (JsonTransformException | RuntimeException e) {
+						params.errors[n.intValue()] = e;
+					}
+			}
+		}
+		in.endObject();
+
+		if (in.peek() != JsonReader.END_DOCUMENT)
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+
+		return params;
+	}
+
+	/**
+	 * Makes the call of a RPC request, transforming its result to a JSON tree.
+	 * When a subclass overrides this method, /rpc goes through it for each call,
+	 * instead of going through {@link #handleRPCCall(JSONObject, double, boolean)}.
+	 * 
+	 * @param obj The JSON object of the call
+	 * @param version The version of the WS to use
+	 * @return The JSON object of the call's response, or null if the call is not valid
+	 * @throws Throwable If anything went wrong
+	 */
 	protected @CheckForNull JSONObject handleRPCCall(JSONObject obj, double version) throws Throwable {
+		return handleRPCCall(obj, version, false);
+	}
+
+	/**
+	 * Makes the call of a RPC request.
+	 * This is what /rpc goes through for each call, unless a subclass overrides {@link #handleRPCCall(JSONObject, double)}.
+	 * 
+	 * @param obj The JSON object of the call
+	 * @param version The version of the WS to use
+	 * @param stream Whether the return value may be left to be written directly to the response rather than transformed to a JSON tree
+	 * @return The JSON object of the call's response, or null if the call is not valid
+	 * @throws Throwable If anything went wrong
+	 */
+	@SuppressWarnings("unchecked")
+	protected @CheckForNull JSONObject handleRPCCall(JSONObject obj, double version, boolean stream) throws Throwable {
 		if (!obj.containsKey("id") || !obj.containsKey("method"))
 			return null;
 		
@@ -497,7 +952,7 @@ public abstract class JsonWSController {
 
 		JSONObject jsonResult = new JSONObject();
 		try {
-			CallResult result = call((String)obj.get("method"), version, jsonObject);
+			CallResult result = call((String)obj.get("method"), version, jsonObject, null, stream);
 			jsonResult.put("status", result.status.toString());
 			jsonResult.put("result", result.result);
 		}
@@ -509,42 +964,453 @@ public abstract class JsonWSController {
 		return jsonResult;
 	}
 
+	/**
+	 * Makes the call of a RPC request through the hook that a subclass may override
+	 * 
+	 * @param obj The JSON object of the call
+	 * @param version The version of the WS to use
+	 * @param stream Whether the return value may be left to be written directly to the response
+	 * @return The JSON object of the call's response, or null if the call is not valid
+	 * @throws Throwable If anything went wrong
+	 */
+	private @CheckForNull JSONObject rpcCall(JSONObject obj, double version, boolean stream) throws Throwable {
+		if (treeRPC)
+			return handleRPCCall(obj, version);
+		return handleRPCCall(obj, version, stream);
+	}
+
+	/**
+	 * Writes the JSON body of a response, transforming the streamed result of the call while it is written
+	 * 
+	 * @param writer The writer of the response
+	 * @param obj The JSON body of the response
+	 * @param version The version of the WS to use
+	 * @throws JsonTransformException If the result could not be transformed
+	 * @throws IOException If an input or output error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeResponse(JsonWriter writer, JSONObject obj, double version) throws JsonTransformException, IOException {
+		writer.beginObject();
+		for (Map.Entry<Object, Object> entry : (Set<Map.Entry<Object, Object>>)obj.entrySet()) {
+			writer.name(String.valueOf(entry.getKey()));
+			if (entry.getValue() instanceof StreamedResult) {
+				StreamedResult result = (StreamedResult)entry.getValue();
+				if (!jsonTransformer.writeJSON(writer, result.value, result.type, version, result.anno, true, null))
+					writer.value(null);
+			}
+			else
+				writer.value(entry.getValue());
+		}
+		writer.end();
+	}
+
 	@SuppressWarnings("serial")
 	public class EncapsulatedException extends RuntimeException {
 		public EncapsulatedException(Throwable t) {
 			super(t);
 		}
 	}
+
+	/**
+	 * Creates the executor on which the parallel calls of RPC batches run.
+	 * Override this to provide another executor (on platforms that restrict thread creation, for example).
+	 * When the executor rejects a call, it is made on the request thread.
+	 * 
+	 * @return The executor of parallel RPC calls
+	 */
+	protected ExecutorService createRPCExecutor() {
+		final AtomicInteger count = new AtomicInteger();
+		int threads = parallelCalls * Runtime.getRuntime().availableProcessors();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "SourGuice-WS-RPC-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * @return The executor of parallel RPC calls, which is created the first time
+	 */
+	private synchronized ExecutorService getRPCExecutor() {
+		if (rpcExecutor == null)
+			rpcExecutor = createRPCExecutor();
+		return rpcExecutor;
+	}
+
+	/**
+	 * Whether a call of an RPC batch may run in parallel with the other calls of the batch.
+	 * This is the case if the controller or the called method are annotated to allow it.
+	 * 
+	 * @param obj The JSON object of the call
+	 * @param version The version of the WS to use
+	 * @return Whether the call may run in parallel
+	 */
+	private boolean isParallel(JSONObject obj, double version) {
+		if (parallelCalls < 2 || !obj.containsKey("id") || !(obj.get("method") instanceof String))
+			return false;
+		Method method;
+		try {
+			method = findMethod((String)obj.get("method"), version);
+		}
+		catch (NoSuchMethodException e) {
+			return false;
+		}
+		Boolean ret = parallelCache.get(method);
+		if (ret == null) {
+			Method um = method;
+			try {
+				um = this.getUnmodifiedClass().getMethod(method.getName(), method.getParameterTypes());
+			}
+			catch (NoSuchMethodException e) {}
+			WSMethod wsMethod = Annotations.GetOneRecursive(WSMethod.class, um.getAnnotations());
+			ret = Boolean.valueOf(parallel || (wsMethod != null && wsMethod.parallel()));
+			parallelCache.put(method, ret);
+		}
+		return ret.booleanValue();
+	}
+
+	/**
+	 * The calls of an RPC request, whose results are written in the order of the calls, or in the order in which they complete.
+	 * Calls that may run in parallel are given to the RPC executor, at most {@link WSInfos#parallelCalls()} at a time,
+	 * while the request is still being read.
+	 * Any other call waits for all previous calls to be written, and is then made on the request thread.
+	 * When the response is in a binary format, results are collected in an array rather than written.
+	 */
+	private final class RPCBatch implements ArrayItemListener {
+		/**
+		 * The writer of the response, or null if results are collected
+		 */
+		private final @CheckForNull Writer out;
+
+		/**
+		 * The JSON writer of the response, or null if results are collected
+		 */
+		private final @CheckForNull JsonWriter writer;
+
+		/**
+		 * The collected results, or null if results are written
+		 */
+		private final @CheckForNull JSONArray results;
+
+		/**
+		 * The version of the WS to use
+		 */
+		private final double version;
+
+		/**
+		 * Whether results are written as soon as their call completes, to be correlated by the client with their id
+		 */
+		private final boolean unordered;
+
+		/**
+		 * Whether a result has already been written, and the next one must be preceded by a coma
+		 */
+		private boolean coma = false;
+
+		/**
+		 * The results of the calls that were given to the executor and are not written yet, in the order of the calls
+		 */
+		private final Deque<Future<JSONObject>> pending = new ArrayDeque<>();
+
+		/**
+		 * In unordered mode, the results of the calls that were given to the executor, in the order in which they complete
+		 */
+		private final BlockingQueue<Future<JSONObject>> completed = new LinkedBlockingQueue<>();
+
+		/**
+		 * The number of calls that can still be given to the executor
+		 */
+		private final Semaphore running = new Semaphore(parallelCalls);
+
+		/**
+		 * The request scoped objects of the request that the calls given to the executor continue
+		 */
+		private final Map<Key<?>, Object> seed = new HashMap<>();
+
+		/**
+		 * A call given to the executor, which is queued as completed when it is done in unordered mode
+		 */
+		private final class Task extends FutureTask<JSONObject> {
+			/**
+			 * @param call The call
+			 */
+			Task(Callable<JSONObject> call) {
+				super(call);
+			}
+
+			@Override
+			protected void done() {
+				if (unordered)
+					completed.add(this);
+			}
+		}
+
+		/**
+		 * @param out The writer of the response
+		 * @param version The version of the WS to use
+		 * @param unordered Whether results are written as soon as their call completes
+		 */
+		RPCBatch(Writer out, double version, boolean unordered) {
+			this(out, null, version, unordered);
+		}
+
+		/**
+		 * @param results The array in which results are collected
+		 * @param version The version of the WS to use
+		 * @param unordered Whether results are collected as soon as their call completes
+		 */
+		RPCBatch(JSONArray results, double version, boolean unordered) {
+			this(null, results, version, unordered);
+		}
+
+		private RPCBatch(@CheckForNull Writer out, @CheckForNull JSONArray results, double version, boolean unordered) {
+			this.out = out;
+			this.writer = out != null ? new JsonWriter(out) : null;
+			this.results = results;
+			this.version = version;
+			this.unordered = unordered;
+
+			MvcCaller caller = injector.getInstance(MvcCaller.class);
+			seed.put(Key.get(MvcCaller.class), caller);
+			seed.put(Key.get(RequestScopeContainer.class), injector.getInstance(RequestScopeContainer.class));
+			// The continued request has no response: calls given to the executor get the one of the batch
+			seed.put(Key.get(HttpServletResponse.class), caller.getRes());
+			seed.put(Key.get(HttpServletResponse.class, GuiceResponse.class), caller.getRes());
+		}
+
+		@Override
+		public void onItem(Object item) {
+			final JSONObject json = (JSONObject)item;
+			try {
+				flush(false);
+
+				if (!isParallel(json, version)) {
+					flush(true);
+					write(rpcCall(json, version, results == null));
+					return ;
+				}
+
+				if (unordered)
+					while (!running.tryAcquire())
+						write(completed.take());
+				else
+					running.acquire();
+
+				Callable<JSONObject> call = new Callable<JSONObject>() {
+					@Override public JSONObject call() throws Exception {
+						try {
+							return rpcCall(json, version, results == null);
+						}
+						catch (Exception | Error e) {
+							throw e;
+						}
+						catch (Throwable e) {
+							throw new EncapsulatedException(e);
+						}
+						finally {
+							running.release();
+						}
+					}
+				};
+				Task task = new Task(ServletScopes.continueRequest(call, seed));
+				pending.add(task);
+				try {
+					getRPCExecutor().execute(task);
+				}
+				catch (RejectedExecutionException e) {
+					pending.removeLast();
+					task = new Task(call);
+					pending.add(task);
+					task.run();
+				}
+			}
+			catch (Throwable e) {
+				throw new EncapsulatedException(e);
+			}
+		}
+
+		/**
+		 * Writes the results of the pending calls, in order or, in unordered mode, as they complete
+		 * 
+		 * @param all Whether to wait for all pending calls, or to only write the results that are already available
+		 * @throws Throwable Anything a call has thrown
+		 */
+		void flush(boolean all) throws Throwable {
+			if (unordered) {
+				while (!pending.isEmpty()) {
+					Future<JSONObject> future = all ? completed.take() : completed.poll();
+					if (future == null)
+						return ;
+					write(future);
+				}
+				return ;
+			}
+			while (!pending.isEmpty() && (all || pending.peek().isDone()))
+				write(pending.peek());
+		}
+
+		/**
+		 * Writes the result of a pending call, waiting for it to complete
+		 * 
+		 * @param future The pending call
+		 * @throws Throwable Anything the call has thrown
+		 */
+		private void write(Future<JSONObject> future) throws Throwable {
+			pending.remove(future);
+			JSONObject result;
+			try {
+				result = future.get();
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof EncapsulatedException)
+					cause = cause.getCause();
+				throw cause;
+			}
+			write(result);
+		}
+
+		/**
+		 * Writes the result of a call, and sends it right away in unordered mode
+		 * 
+		 * @param result The JSON object of the call's response, or null if the call is not valid
+		 * @throws JsonTransformException If the result could not be transformed
+		 * @throws IOException If an input or output error occurs
+		 */
+		@SuppressWarnings("unchecked")
+		private void write(@CheckForNull JSONObject result) throws JsonTransformException, IOException {
+			if (result == null)
+				return ;
+			if (results != null) {
+				results.add(result);
+				return ;
+			}
+			assert out != null && writer != null;
+			if (coma)
+				out.write(',');
+			coma = true;
+			writeResponse(writer, result, version);
+			if (unordered)
+				out.flush();
+		}
+
+		/**
+		 * Cancels the calls that are still pending, when the request cannot be completed
+		 */
+		void cancel() {
+			for (Future<JSONObject> future : pending)
+				future.cancel(true);
+		}
+	}
 	
+	/**
+	 * @param value The value of the unordered header or query parameter
+	 * @return Whether the value turns the unordered mode on: no value, "true" or "1"
+	 */
+	private static boolean IsUnorderedValue(String value) {
+		value = value.trim();
+		return value.isEmpty() || value.equalsIgnoreCase("true") || value.equals("1");
+	}
+
+	/**
+	 * Whether an RPC request asks for results to be written as soon as their call completes rather than in the order of the calls.
+	 * This is asked with the {@value #UNORDERED_PARAMETER} query parameter or with the {@value #UNORDERED_HEADER} header,
+	 * given without a value or with "true" or "1" (any other value, like "false", leaves the results ordered).
+	 * The query string is used rather than the request parameters so that the body, which contains the calls, is not read.
+	 * 
+	 * @param req The RPC request
+	 * @return Whether the results of the request are unordered
+	 */
+	protected boolean isUnordered(HttpServletRequest req) {
+		String header = req.getHeader(UNORDERED_HEADER);
+		if (header != null)
+			return IsUnorderedValue(header);
+		String query = req.getQueryString();
+		if (query == null)
+			return false;
+		for (String param : query.split("&")) {
+			if (param.equals(UNORDERED_PARAMETER))
+				return true;
+			if (param.startsWith(UNORDERED_PARAMETER + "="))
+				return IsUnorderedValue(param.substring(UNORDERED_PARAMETER.length() + 1));
+		}
+		return false;
+	}
+
+	/**
+	 * Handles an RPC request whose body or response is in a binary format.
+	 * The calls are read as a whole, and their results are collected before being written.
+	 * 
+	 * @param req The RPC request
+	 * @param res The RPC response
+	 * @param version The version of the WS to use
+	 * @param inFormat The binary format of the request body, or null if it is JSON
+	 * @param outFormat The binary format of the response, or null if it is JSON
+	 * @throws Throwable If anything went wrong
+	 */
+	private void rpcTree(HttpServletRequest req, HttpServletResponse res, double version, @CheckForNull WireFormat inFormat, @CheckForNull WireFormat outFormat) throws Throwable {
+		JSONArray calls;
+		if (inFormat != null)
+			calls = getWireElement(req, inFormat, JSONArray.class);
+		else
+			calls = getJsonElement(req, JSONArray.class);
+		assert calls != null;
+
+		JSONArray results = new JSONArray();
+		RPCBatch batch = new RPCBatch(results, version, isUnordered(req));
+		try {
+			for (Object call : calls)
+				if (call instanceof JSONObject)
+					batch.onItem(call);
+			batch.flush(true);
+		}
+		catch (EncapsulatedException e) {
+			throw e.getCause();
+		}
+		finally {
+			batch.cancel();
+		}
+
+		if (outFormat == null) {
+			try (Writer out = responseWriter(res, req, false)) {
+				results.writeJSONString(out);
+			}
+			return ;
+		}
+		res.setContentType(outFormat.getContentType());
+		res.setHeader("Access-Control-Allow-Origin", "*");
+		try (OutputStream out = new BufferedOutputStream(res.getOutputStream())) {
+			outFormat.write(results, out);
+		}
+	}
+
 	@RequestMapping(value = "/rpc/{version}", method = RequestMethod.POST)
 	@OverridingMethodsMustInvokeSuper
 	public void rpc(@GuiceRequest HttpServletRequest req, HttpServletResponse res,
 			@PathVariable("version") final double version)
 					throws Throwable {
+		WireFormat inFormat = WireFormat.Of(req.getContentType());
+		WireFormat outFormat = WireFormat.Negotiate(req.getContentType(), req.getHeader("Accept"));
 		try {
+			if (inFormat != null || outFormat != null) {
+				rpcTree(req, res, version, inFormat, outFormat);
+				return ;
+			}
 			try (final Writer out = responseWriter(res, req, false)) {
 				out.write('[');
 
-				ArrayContentHandler handler = new ArrayContentHandler(new ArrayItemListener() {
-					boolean coma = false;
-					@Override public void onItem(Object item) {
-						JSONObject json = (JSONObject)item;
-						try {
-							JSONObject result = handleRPCCall(json, version);
-							if (result != null) {
-								if (coma)
-									out.write(',');
-								coma = true;
-								result.writeJSONString(out);
-							}
-						}
-						catch (Throwable e) {
-							throw new EncapsulatedException(e);
-						}
-					}
-				});
-
-				new JSONParser().parse(new InputStreamReader(req.getInputStream(), "UTF-8"), handler);
+				RPCBatch batch = new RPCBatch(out, version, isUnordered(req));
+				try {
+					new JSONParser().parse(new InputStreamReader(req.getInputStream(), "UTF-8"), new ArrayContentHandler(batch));
+					batch.flush(true);
+				}
+				finally {
+					batch.cancel();
+				}
 
 				out.write(']');
 				out.flush();
@@ -560,21 +1426,195 @@ public abstract class JsonWSController {
 
 	}
 	
+	/**
+	 * The description of the WS encoded for a base URL, as JSON and as gzipped JSON
+	 */
+	private static final class EncodedDescription {
+		/**
+		 * The UTF-8 JSON of the description
+		 */
+		final byte[] json;
+
+		/**
+		 * The gzipped JSON of the description, created when first requested
+		 */
+		@CheckForNull byte[] gzip = null;
+
+		/**
+		 * The strong entity tag of the JSON description
+		 */
+		final String eTag;
+
+		/**
+		 * The strong entity tag of the gzipped description
+		 */
+		final String gzipETag;
+
+		/**
+		 * @param json The UTF-8 JSON of the description
+		 */
+		EncodedDescription(byte[] json) {
+			this.json = json;
+			String hash;
+			try {
+				hash = String.format("%032x", new BigInteger(1, MessageDigest.getInstance("MD5").digest(json)));
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+			this.eTag = "\"" + hash + "\"";
+			this.gzipETag = "\"" + hash + "-gzip\"";
+		}
+
+		/**
+		 * @return The gzipped JSON of the description
+		 * @throws IOException If an input or output error occurs
+		 */
+		synchronized byte[] getGzip() throws IOException {
+			if (gzip == null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+				try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+					out.write(json);
+				}
+				gzip = bytes.toByteArray();
+			}
+			return gzip;
+		}
+	}
+
+	/**
+	 * Maximum number of encoded descriptions that are kept, one for each base URL through which the WS is requested
+	 */
+	private static final int DESCRIPTION_CACHE_SIZE = 16;
+
+	/**
+	 * The encoded descriptions, by base URL, the least recently used being dropped first
+	 */
+	@SuppressWarnings("serial")
+	private final Map<String, EncodedDescription> descriptionCache = new LinkedHashMap<String, EncodedDescription>(DESCRIPTION_CACHE_SIZE, 0.75f, true) {
+		@Override protected boolean removeEldestEntry(Map.Entry<String, EncodedDescription> eldest) {
+			return size() > DESCRIPTION_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Gets the description encoded for a base URL, serializing it the first time
+	 * 
+	 * @param baseUrl The base URL of the WS, which is written in the description
+	 * @return The encoded description
+	 * @throws JsonTransformException If the description could not be transformed
+	 */
+	@SuppressWarnings("unchecked")
+	private EncodedDescription getEncodedDescription(String baseUrl) throws JsonTransformException {
+		synchronized (descriptionCache) {
+			EncodedDescription encoded = descriptionCache.get(baseUrl);
+			if (encoded != null)
+				return encoded;
+		}
+
+		SourJsonTransformer json = new SourJsonTransformer(new ArrayList<WSTranslaterFactory<?,?>>(0), null);
+		Object ret = json.toJSON(description, WSDescription.class, 1.0f);
+		// The shared description is not modified, the base URL is only set in its JSON
+		if (ret instanceof JSONObject)
+			((JSONObject)ret).put("baseUrl", baseUrl);
+		EncodedDescription encoded = new EncodedDescription((ret != null ? ret.toString() : "").getBytes(StandardCharsets.UTF_8));
+
+		synchronized (descriptionCache) {
+			descriptionCache.put(baseUrl, encoded);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Whether an Accept-Encoding header accepts gzip
+	 * 
+	 * @param acceptEncoding The Accept-Encoding header of the request
+	 * @return Whether the response can be gzipped
+	 */
+	private static boolean AcceptsGzip(@CheckForNull String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] params = coding.split(";");
+			String name = params[0].trim();
+			if (!name.equalsIgnoreCase("gzip") && !name.equalsIgnoreCase("x-gzip"))
+				continue ;
+			for (int i = 1; i < params.length; ++i) {
+				String param = params[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						return Double.parseDouble(param.substring(2)) > 0;
+					}
+					catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Whether an If-None-Match header matches an entity tag
+	 * 
+	 * @param ifNoneMatch The If-None-Match header of the request
+	 * @param eTag The entity tag of the response
+	 * @return Whether the client already has the response
+	 */
+	private static boolean MatchesETag(@CheckForNull String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null)
+			return false;
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if (tag.equals("*") || tag.equals(eTag))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the description of the WS.
+	 * The description is serialized once for each base URL it is requested through, and is sent gzipped to clients that accept it.
+	 * It is sent with a strong entity tag, and a request whose If-None-Match header matches it is answered with 304 Not Modified.
+	 * 
+	 * @param req The current request
+	 * @param res The current response
+	 * @throws IOException If an input or output error occurs
+	 * @throws JsonTransformException If the description could not be transformed
+	 */
 	@RequestMapping("/description")
 	public final void description(HttpServletRequest req, HttpServletResponse res) throws IOException, JsonTransformException {
 		res.setCharacterEncoding("UTF-8");
 		res.setContentType("application/json");
 		res.setContentType("text/plain; charset=utf-8");
 		res.setHeader("Access-Control-Allow-Origin", "*");
+		res.setHeader("Vary", "Accept-Encoding");
 
-		if (description.baseUrl == null) {
-			description.baseUrl = req.getRequestURL().toString();
-			description.baseUrl = description.baseUrl.substring(0, description.baseUrl.lastIndexOf('/'));
+		String baseUrl = description.baseUrl;
+		if (baseUrl == null) {
+			baseUrl = req.getRequestURL().toString();
+			baseUrl = baseUrl.substring(0, baseUrl.lastIndexOf('/'));
 		}
-		SourJsonTransformer json = new SourJsonTransformer(new ArrayList<WSTranslaterFactory<?,?>>(0), null);
-		Object ret = json.toJSON(description, WSDescription.class, 1.0f);
-		if (ret != null)
-			res.getWriter().write(ret.toString());
+		EncodedDescription encoded = getEncodedDescription(baseUrl);
+
+		boolean gzip = AcceptsGzip(req.getHeader("Accept-Encoding"));
+		String eTag = gzip ? encoded.gzipETag : encoded.eTag;
+		res.setHeader("ETag", eTag);
+		if (MatchesETag(req.getHeader("If-None-Match"), eTag)) {
+			res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return ;
+		}
+
+		byte[] body = encoded.json;
+		if (gzip) {
+			body = encoded.getGzip();
+			res.setHeader("Content-Encoding", "gzip");
+		}
+		res.setContentLength(body.length);
+		res.getOutputStream().write(body);
 	}
 
 	@RequestMapping("/explorer")
@@ -603,7 +1643,7 @@ public abstract class JsonWSController {
 			throw new RuntimeException(e);
 		}
 		try {
-			return injector.getInstance(MvcCaller.class).call(this.getClass(), method, null, true, new CalltimeArgumentFetcher<Object>() {
+			return injector.getInstance(MvcCaller.class).call(this.getClass(), method, null, true, new StaticCalltimeArgumentFetcher<Object>() {
 				@Override public boolean canGet(Type type, int pos, Annotation[] annos) {
 					return Annotations.fromArray(annos).isAnnotationPresent(WSParam.class);
 				}
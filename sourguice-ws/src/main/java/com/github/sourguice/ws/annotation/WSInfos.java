@@ -26,4 +26,11 @@ public @interface WSInfos {
 	Class<?>[] additionalClasses() default {};
 	
 	Class<? extends WSRuntimeTranslater<?>>[] runtimeExceptionTranslaters() default {};
+
+	// Whether the calls of an RPC batch may all run in parallel (see WSMethod.parallel to allow it method by method)
+	// See WSMethod.parallel for what a parallel call may inject.
+	boolean parallel() default false;
+
+	// Maximum number of calls of a same RPC batch that run at the same time
+	@Nonnegative int parallelCalls() default 8;
 }
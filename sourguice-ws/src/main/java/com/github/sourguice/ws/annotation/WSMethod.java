@@ -14,4 +14,12 @@ import com.github.sourguice.annotation.controller.Callable;
 @Callable
 public @interface WSMethod {
 	String name() default "";
+
+	// Whether the calls to this method in an RPC batch may run in parallel with the other calls of the batch
+	// A parallel call runs in another thread, in a continuation of the request (see ServletScopes.continueRequest), where these are safe to inject:
+	//  - HttpServletRequest and @GuiceRequest HttpServletRequest (the request attributes set by the call stay local to it, the session cannot be accessed)
+	//  - HttpServletResponse and @GuiceResponse HttpServletResponse, which are the response of the batch (its body is the batch results: do not write to it)
+	//  - MvcCaller and RequestScopeContainer, which are the ones of the batch request
+	// Other request scoped objects are not shared with the batch request: they are created again for each parallel call.
+	boolean parallel() default false;
 }
@@ -0,0 +1,236 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import com.github.sourguice.utils.Annotations;
+import com.github.sourguice.ws.annotation.WSCheckForNull;
+import com.github.sourguice.ws.annotation.WSFieldName;
+import com.github.sourguice.ws.annotation.WSSince;
+import com.github.sourguice.ws.annotation.WSStrict;
+import com.github.sourguice.ws.annotation.WSUntil;
+import com.github.sourguice.ws.jsontrans.SourJsonTransformer.JsonTransformException;
+import com.googlecode.gentyref.GenericTypeReflector;
+
+/**
+ * Everything SourJsonTransformer needs to know about the fields of a bean type, read once by type.
+ * Fields are listed in the order they are transformed: declared fields of the type, then of its parents.
+ */
+final class BeanPlan {
+
+	/**
+	 * Marks a class that has no usable no-argument constructor
+	 */
+	private static final Object NONE = new Object();
+
+	/**
+	 * The no-argument constructor of each class, as a MethodHandle of type ()Object, or NONE if it has none
+	 */
+	private static final ClassValue<Object> constructors = new ClassValue<Object>() {
+		@Override protected Object computeValue(Class<?> cls) {
+			try {
+				Constructor<?> constructor = cls.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+			}
+			catch (ReflectiveOperationException | RuntimeException e) {
+				return NONE;
+			}
+		}
+	};
+
+	/**
+	 * Creates an instance of a class with its no-argument constructor, even if it is not public
+	 *
+	 * @param cls The class to instantiate
+	 * @return The new instance
+	 * @throws JsonTransformException If the class has no no-argument constructor, or if the constructor failed
+	 */
+	static Object Construct(Class<?> cls) throws JsonTransformException {
+		Object constructor = constructors.get(cls);
+		if (constructor == NONE)
+			throw new JsonTransformException("Cannot construct " + cls);
+		try {
+			return ((MethodHandle)constructor).invokeExact();
+		}
+		catch (Throwable e) {
+			throw new JsonTransformException("Cannot construct " + cls);
+		}
+	}
+
+	/**
+	 * Everything needed to transform a field of a bean: its JSON name, its exact type, its annotations and its accessors
+	 */
+	static final class FieldPlan {
+		/**
+		 * The field
+		 */
+		final Field field;
+
+		/**
+		 * The name of the field in JSON: its @{@link WSFieldName} or its java name
+		 */
+		final String name;
+
+		/**
+		 * The type of the field, with the type variables of the bean type resolved
+		 */
+		final Type exactType;
+
+		/**
+		 * Whether the field (or its class, or its package) is annotated with @{@link WSStrict}
+		 */
+		final boolean strict;
+
+		/**
+		 * Whether the field is annotated with @{@link WSCheckForNull}
+		 */
+		final boolean checkForNull;
+
+		/**
+		 * The @{@link WSUntil} version of the field, negative infinity if it has none
+		 * The field is excluded from the versions lower than this one.
+		 */
+		final double until;
+
+		/**
+		 * The @{@link WSSince} version of the field, positive infinity if it has none
+		 * The field is excluded from the versions greater than this one.
+		 */
+		final double since;
+
+		/**
+		 * The getter of the field, of type (Object)Object
+		 */
+		private final MethodHandle getter;
+
+		/**
+		 * The setter of the field, of type (Object, Object)void
+		 * Null when the field cannot be written through a MethodHandle (final fields of some classes), in which case it is set by reflection
+		 */
+		private final @CheckForNull MethodHandle setter;
+
+		/**
+		 * @param field The field
+		 * @param ownerType The bean type, used to resolve the type of the field
+		 */
+		FieldPlan(Field field, Type ownerType) {
+			this.field = field;
+
+			WSFieldName wsFieldName = field.getAnnotation(WSFieldName.class);
+			this.name = wsFieldName != null ? wsFieldName.value() : field.getName();
+
+			this.exactType = GenericTypeReflector.getExactFieldType(field, ownerType);
+			this.strict = Annotations.GetOneTree(field, WSStrict.class) != null;
+			this.checkForNull = field.isAnnotationPresent(WSCheckForNull.class);
+
+			WSUntil until = field.getAnnotation(WSUntil.class);
+			this.until = until != null ? until.value() : Double.NEGATIVE_INFINITY;
+			WSSince since = field.getAnnotation(WSSince.class);
+			this.since = since != null ? since.value() : Double.POSITIVE_INFINITY;
+
+			try {
+				field.setAccessible(true);
+				MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+				this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+			}
+			catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+
+			MethodHandle setter;
+			try {
+				setter = MethodHandles.lookup().unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+			}
+			catch (IllegalAccessException e) {
+				setter = null;
+			}
+			this.setter = setter;
+		}
+
+		/**
+		 * @param version The version of the transformation
+		 * @return Whether the field is excluded from this version by its @{@link WSUntil} or @{@link WSSince}
+		 */
+		boolean isExcluded(double version) {
+			return until > version || since < version;
+		}
+
+		/**
+		 * @param obj The bean
+		 * @return The value of the field in the bean
+		 */
+		Object get(Object obj) {
+			try {
+				return getter.invokeExact(obj);
+			}
+			catch (RuntimeException | Error e) {
+				throw e;
+			}
+			catch (Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		/**
+		 * @param obj The bean
+		 * @param value The value to set to the field of the bean
+		 */
+		void set(Object obj, @CheckForNull Object value) {
+			try {
+				if (setter != null)
+					setter.invokeExact(obj, value);
+				else
+					field.set(obj, value);
+			}
+			catch (RuntimeException | Error e) {
+				throw e;
+			}
+			catch (Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * The fields to transform, in the order they are transformed
+	 */
+	final FieldPlan[] fields;
+
+	/**
+	 * The name of the bean type, as written in "!type"
+	 */
+	final String typeName;
+
+	/**
+	 * The indexes in {@link #fields} of the fields that are read from each JSON name
+	 * A name may be shared by several fields (a field and the field of a parent with the same @{@link WSFieldName}).
+	 */
+	final Map<String, int[]> indexes = new HashMap<>();
+
+	/**
+	 * @param type The bean type
+	 * @param fields The fields to transform, in the order they are transformed
+	 */
+	BeanPlan(Type type, List<FieldPlan> fields) {
+		this.fields = fields.toArray(new FieldPlan[fields.size()]);
+		this.typeName = GenericTypeReflector.getTypeName(type);
+
+		for (int i = 0; i < this.fields.length; ++i) {
+			int[] previous = indexes.get(this.fields[i].name);
+			int[] current = previous != null ? Arrays.copyOf(previous, previous.length + 1) : new int[1];
+			current[current.length - 1] = i;
+			indexes.put(this.fields[i].name, current);
+		}
+	}
+}
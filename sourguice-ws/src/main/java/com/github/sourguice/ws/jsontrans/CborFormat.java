@@ -0,0 +1,223 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * CBOR (RFC 7049) encoding of JSON trees.
+ * Tags are ignored when reading, byte strings are not supported.
+ */
+final class CborFormat extends WireFormat {
+
+	private static final int UNSIGNED = 0;
+	private static final int NEGATIVE = 1;
+	private static final int BYTES = 2;
+	private static final int TEXT = 3;
+	private static final int ARRAY = 4;
+	private static final int MAP = 5;
+	private static final int TAG = 6;
+	private static final int SIMPLE = 7;
+
+	private static final int INDEFINITE = 31;
+	private static final int BREAK = 0xff;
+
+	CborFormat() {
+		super("application/cbor");
+	}
+
+	// Writes a major type with its argument, which is unsigned
+	private static void writeHead(DataOutputStream out, int major, long value) throws IOException {
+		int type = major << 5;
+		if (value >= 0 && value < 24)
+			out.writeByte(type | (int)value);
+		else if (value >= 0 && value <= 0xffL) {
+			out.writeByte(type | 24);
+			out.writeByte((int)value);
+		}
+		else if (value >= 0 && value <= 0xffffL) {
+			out.writeByte(type | 25);
+			out.writeShort((int)value);
+		}
+		else if (value >= 0 && value <= 0xffffffffL) {
+			out.writeByte(type | 26);
+			out.writeInt((int)value);
+		}
+		else {
+			out.writeByte(type | 27);
+			out.writeLong(value);
+		}
+	}
+
+	@Override
+	void writeNull(DataOutputStream out) throws IOException {
+		out.writeByte(0xf6);
+	}
+
+	@Override
+	void writeBoolean(DataOutputStream out, boolean value) throws IOException {
+		out.writeByte(value ? 0xf5 : 0xf4);
+	}
+
+	@Override
+	void writeLong(DataOutputStream out, long value) throws IOException {
+		if (value >= 0)
+			writeHead(out, UNSIGNED, value);
+		else
+			writeHead(out, NEGATIVE, -1 - value);
+	}
+
+	@Override
+	void writeDouble(DataOutputStream out, double value) throws IOException {
+		if ((double)(float)value == value || Double.isNaN(value)) {
+			out.writeByte(0xfa);
+			out.writeFloat((float)value);
+		}
+		else {
+			out.writeByte(0xfb);
+			out.writeDouble(value);
+		}
+	}
+
+	@Override
+	void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = UTF8(value);
+		writeHead(out, TEXT, bytes.length);
+		out.write(bytes);
+	}
+
+	@Override
+	void writeArrayHeader(DataOutputStream out, int size) throws IOException {
+		writeHead(out, ARRAY, size);
+	}
+
+	@Override
+	void writeMapHeader(DataOutputStream out, int size) throws IOException {
+		writeHead(out, MAP, size);
+	}
+
+	// Reads the argument of a head, as an unsigned value (which is negative if it does not fit in a long)
+	private static long readArgument(DataInputStream in, int info) throws IOException, ParseException {
+		if (info < 24)
+			return info;
+		switch (info) {
+		case 24:
+			return in.readUnsignedByte();
+		case 25:
+			return in.readUnsignedShort();
+		case 26:
+			return in.readInt() & 0xffffffffL;
+		case 27:
+			return in.readLong();
+		default:
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(info));
+		}
+	}
+
+	private static Number Unsigned(long value) {
+		if (value >= 0)
+			return Long.valueOf(value);
+		return Double.valueOf((double)(value >>> 1) * 2.0 + (value & 1));
+	}
+
+	private static double HalfFloat(int half) {
+		int exponent = (half >> 10) & 0x1f;
+		int mantissa = half & 0x3ff;
+		double value;
+		if (exponent == 0)
+			value = mantissa * Math.pow(2, -24);
+		else if (exponent != 31)
+			value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+		else
+			value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+		return (half & 0x8000) != 0 ? -value : value;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@CheckForNull Object readValue(DataInputStream in, int initial, int depth) throws IOException, ParseException {
+		int major = initial >>> 5;
+		int info = initial & 0x1f;
+
+		switch (major) {
+		case UNSIGNED:
+			return Unsigned(readArgument(in, info));
+
+		case NEGATIVE: {
+			long value = readArgument(in, info);
+			if (value >= 0)
+				return Long.valueOf(-1 - value);
+			return Double.valueOf(-1.0 - Unsigned(value).doubleValue());
+		}
+
+		case TEXT: {
+			if (info != INDEFINITE)
+				return ReadUTF8(in, readArgument(in, info));
+			StringBuilder builder = new StringBuilder();
+			for (int chunk = in.readUnsignedByte(); chunk != BREAK; chunk = in.readUnsignedByte()) {
+				if (chunk >>> 5 != TEXT || (chunk & 0x1f) == INDEFINITE)
+					throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(chunk));
+				builder.append(ReadUTF8(in, readArgument(in, chunk & 0x1f)));
+			}
+			return builder.toString();
+		}
+
+		case ARRAY: {
+			int nested = Nested(depth);
+			JSONArray array = new JSONArray();
+			if (info == INDEFINITE)
+				for (int item = in.readUnsignedByte(); item != BREAK; item = in.readUnsignedByte())
+					array.add(readValue(in, item, nested));
+			else
+				for (long size = readArgument(in, info); size != 0; --size)
+					array.add(readValue(in, in.readUnsignedByte(), nested));
+			return array;
+		}
+
+		case MAP: {
+			int nested = Nested(depth);
+			JSONObject object = new JSONObject();
+			if (info == INDEFINITE)
+				for (int key = in.readUnsignedByte(); key != BREAK; key = in.readUnsignedByte())
+					object.put(String.valueOf(readValue(in, key, nested)), readValue(in, in.readUnsignedByte(), nested));
+			else
+				for (long size = readArgument(in, info); size != 0; --size)
+					object.put(String.valueOf(readValue(in, in.readUnsignedByte(), nested)), readValue(in, in.readUnsignedByte(), nested));
+			return object;
+		}
+
+		case TAG:
+			readArgument(in, info);
+			return readValue(in, in.readUnsignedByte(), Nested(depth));
+
+		case SIMPLE:
+			switch (info) {
+			case 20:
+				return Boolean.FALSE;
+			case 21:
+				return Boolean.TRUE;
+			case 22:
+			case 23:
+				return null;
+			case 25:
+				return Double.valueOf(HalfFloat(in.readUnsignedShort()));
+			case 26:
+				return Double.valueOf(in.readFloat());
+			case 27:
+				return Double.valueOf(in.readDouble());
+			default:
+				throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(initial));
+			}
+
+		case BYTES:
+		default:
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(initial));
+		}
+	}
+}
@@ -0,0 +1,576 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Reads JSON from a Reader token after token, without building the whole document.
+ * Values read as trees (nextTree) are the same json-simple objects JSONParser would have created.
+ */
+public class JsonReader {
+
+	/**
+	 * Tokens returned by {@link #peek()}
+	 */
+	public static final int BEGIN_OBJECT = 1;
+	public static final int END_OBJECT = 2;
+	public static final int BEGIN_ARRAY = 3;
+	public static final int END_ARRAY = 4;
+	public static final int NAME = 5;
+	public static final int STRING = 6;
+	public static final int NUMBER = 7;
+	public static final int TRUE = 8;
+	public static final int FALSE = 9;
+	public static final int NULL = 10;
+	public static final int END_DOCUMENT = 11;
+
+	/**
+	 * No token is peeked
+	 */
+	private static final int NONE = 0;
+
+	/**
+	 * Contexts of the nesting stack: what was read last in each enclosing document, object or array
+	 */
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int DANGLING_NAME = 3;
+	private static final int NONEMPTY_OBJECT = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	/**
+	 * The reader to read JSON from
+	 */
+	private final Reader in;
+
+	/**
+	 * Characters read from the reader, from {@link #pos} to {@link #limit}
+	 */
+	private final char[] buffer = new char[2048];
+	private int pos = 0;
+	private int limit = 0;
+
+	/**
+	 * Number of characters consumed, for error messages
+	 */
+	private int position = 0;
+
+	/**
+	 * Maximum number of nested objects and arrays, so that deeply nested input fails with a ParseException
+	 * rather than overflowing the stack of the recursive readers (nextTree, SourJsonTransformer.readJSON)
+	 */
+	public static final int MAX_DEPTH = 512;
+
+	/**
+	 * The context of each nesting level, the document being the first
+	 */
+	private int[] stack = new int[32];
+	private int depth = 1;
+
+	/**
+	 * The peeked token, or NONE, and its text if it is a name, a string or a number
+	 */
+	private int peeked = NONE;
+	private @CheckForNull String peekedText = null;
+
+	/**
+	 * Builder of the strings and numbers being read
+	 */
+	private final StringBuilder builder = new StringBuilder();
+
+	/**
+	 * @param in The reader to read JSON from
+	 */
+	public JsonReader(Reader in) {
+		this.in = in;
+		stack[0] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Reads the next token without consuming it
+	 *
+	 * @return The next token: one of the token constants of this class
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	public int peek() throws IOException, ParseException {
+		if (peeked != NONE)
+			return peeked;
+
+		int context = stack[depth - 1];
+		int c;
+		switch (context) {
+		case EMPTY_ARRAY:
+			stack[depth - 1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (c == ']')
+				return peeked = END_ARRAY;
+			break ;
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']')
+				return peeked = END_ARRAY;
+			if (c != ',')
+				throw unexpected(c);
+			c = nextNonWhitespace();
+			break ;
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			c = nextNonWhitespace();
+			if (c == '}')
+				return peeked = END_OBJECT;
+			if (context == NONEMPTY_OBJECT) {
+				if (c != ',')
+					throw unexpected(c);
+				c = nextNonWhitespace();
+			}
+			if (c != '"')
+				throw unexpected(c);
+			stack[depth - 1] = DANGLING_NAME;
+			peekedText = readString();
+			return peeked = NAME;
+		case DANGLING_NAME:
+			c = nextNonWhitespace();
+			if (c != ':')
+				throw unexpected(c);
+			stack[depth - 1] = NONEMPTY_OBJECT;
+			c = nextNonWhitespace();
+			break ;
+		case EMPTY_DOCUMENT:
+			stack[depth - 1] = NONEMPTY_DOCUMENT;
+			c = nextNonWhitespace();
+			break ;
+		default:
+			c = nextNonWhitespace();
+			if (c == -1)
+				return peeked = END_DOCUMENT;
+			throw unexpected(c);
+		}
+
+		switch (c) {
+		case '{':
+			return peeked = BEGIN_OBJECT;
+		case '[':
+			return peeked = BEGIN_ARRAY;
+		case '"':
+			peekedText = readString();
+			return peeked = STRING;
+		case 't':
+			readKeyword("rue");
+			return peeked = TRUE;
+		case 'f':
+			readKeyword("alse");
+			return peeked = FALSE;
+		case 'n':
+			readKeyword("ull");
+			return peeked = NULL;
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				peekedText = readNumber((char)c);
+				return peeked = NUMBER;
+			}
+			throw unexpected(c);
+		}
+	}
+
+	/**
+	 * @return Whether the current object or array has another member
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	public boolean hasNext() throws IOException, ParseException {
+		int p = peek();
+		return p != END_OBJECT && p != END_ARRAY && p != END_DOCUMENT;
+	}
+
+	/**
+	 * @return The current nesting level: 1 in the document, plus one in each object or array being read
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Consumes the beginning of an object
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not the beginning of an object
+	 */
+	public void beginObject() throws IOException, ParseException {
+		consume(BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	/**
+	 * Consumes the end of the current object
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not the end of an object
+	 */
+	public void endObject() throws IOException, ParseException {
+		consume(END_OBJECT);
+		--depth;
+	}
+
+	/**
+	 * Consumes the beginning of an array
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not the beginning of an array
+	 */
+	public void beginArray() throws IOException, ParseException {
+		consume(BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	/**
+	 * Consumes the end of the current array
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not the end of an array
+	 */
+	public void endArray() throws IOException, ParseException {
+		consume(END_ARRAY);
+		--depth;
+	}
+
+	/**
+	 * @return The name of the next member of the current object
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not a name
+	 */
+	public String nextName() throws IOException, ParseException {
+		consume(NAME);
+		assert peekedText != null;
+		return peekedText;
+	}
+
+	/**
+	 * @return The next string value, unescaped
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not a string
+	 */
+	public String nextString() throws IOException, ParseException {
+		consume(STRING);
+		assert peekedText != null;
+		return peekedText;
+	}
+
+	/**
+	 * @return The text of the next number, as written in the JSON (see {@link #ParseNumber(String)})
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not a number
+	 */
+	public String nextNumber() throws IOException, ParseException {
+		consume(NUMBER);
+		assert peekedText != null;
+		return peekedText;
+	}
+
+	/**
+	 * @return The next boolean value
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not true or false
+	 */
+	public boolean nextBoolean() throws IOException, ParseException {
+		int p = peek();
+		if (p != TRUE && p != FALSE)
+			throw unexpectedToken();
+		peeked = NONE;
+		return p == TRUE;
+	}
+
+	/**
+	 * Consumes a null value
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the next token is not null
+	 */
+	public void nextNull() throws IOException, ParseException {
+		consume(NULL);
+	}
+
+	/**
+	 * Skips the next value, with everything it contains if it is an object or an array
+	 *
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	public void skipValue() throws IOException, ParseException {
+		int target = depth;
+		do {
+			next();
+		}
+		while (depth > target);
+	}
+
+	/**
+	 * Skips everything until the reader is back at the given depth, after the value that was being read there
+	 *
+	 * @param target The depth to go back to (see {@link #getDepth()})
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	public void skipTo(int target) throws IOException, ParseException {
+		while (depth > target)
+			next();
+		if (peeked == NONE ? stack[depth - 1] == DANGLING_NAME : peeked != NAME && peeked != END_OBJECT && peeked != END_ARRAY && peeked != END_DOCUMENT)
+			skipValue();
+	}
+
+	/**
+	 * Reads the next value the way JSONParser would have
+	 *
+	 * @return The value: a JSONObject, a JSONArray, a String, a Long, a Double, a Boolean or null
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	@SuppressWarnings("unchecked")
+	public @CheckForNull Object nextTree() throws IOException, ParseException {
+		switch (peek()) {
+		case BEGIN_OBJECT: {
+			JSONObject obj = new JSONObject();
+			beginObject();
+			while (hasNext()) {
+				String name = nextName();
+				obj.put(name, nextTree());
+			}
+			endObject();
+			return obj;
+		}
+		case BEGIN_ARRAY: {
+			JSONArray array = new JSONArray();
+			beginArray();
+			while (hasNext())
+				array.add(nextTree());
+			endArray();
+			return array;
+		}
+		case STRING:
+			return nextString();
+		case NUMBER:
+			return ParseNumber(nextNumber());
+		case TRUE:
+		case FALSE:
+			return Boolean.valueOf(nextBoolean());
+		case NULL:
+			nextNull();
+			return null;
+		default:
+			throw unexpectedToken();
+		}
+	}
+
+	/**
+	 * Converts the text of a number the way JSONParser does
+	 *
+	 * @param text The text of the number, as returned by {@link #nextNumber()}
+	 * @return A Double if the number has a fraction or an exponent, a Long otherwise
+	 */
+	public static Number ParseNumber(String text) {
+		if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0)
+			return Double.valueOf(text);
+		return Long.valueOf(text);
+	}
+
+	private void next() throws IOException, ParseException {
+		switch (peek()) {
+		case BEGIN_OBJECT:
+			beginObject();
+			break ;
+		case END_OBJECT:
+			endObject();
+			break ;
+		case BEGIN_ARRAY:
+			beginArray();
+			break ;
+		case END_ARRAY:
+			endArray();
+			break ;
+		case END_DOCUMENT:
+			throw unexpectedToken();
+		default:
+			peeked = NONE;
+		}
+	}
+
+	private void consume(int token) throws IOException, ParseException {
+		if (peek() != token)
+			throw unexpectedToken();
+		peeked = NONE;
+	}
+
+	private void push(int context) throws ParseException {
+		if (depth > MAX_DEPTH)
+			throw new ParseException(position, ParseException.ERROR_UNEXPECTED_EXCEPTION, "Nesting deeper than " + MAX_DEPTH);
+		if (depth == stack.length)
+			stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = context;
+	}
+
+	private int read() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		++position;
+		return buffer[pos++];
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		}
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+		return c;
+	}
+
+	private void readKeyword(String rest) throws IOException, ParseException {
+		for (int i = 0; i < rest.length(); ++i) {
+			int c = read();
+			if (c != rest.charAt(i))
+				throw unexpected(c);
+		}
+	}
+
+	private String readString() throws IOException, ParseException {
+		builder.setLength(0);
+		while (true) {
+			int c = read();
+			if (c == -1)
+				throw unexpected(c);
+			if (c == '"')
+				return builder.toString();
+			if (c != '\\') {
+				builder.append((char)c);
+				continue ;
+			}
+			c = read();
+			switch (c) {
+			case '"': case '\\': case '/':
+				builder.append((char)c);
+				break ;
+			case 'b':
+				builder.append('\b');
+				break ;
+			case 'f':
+				builder.append('\f');
+				break ;
+			case 'n':
+				builder.append('\n');
+				break ;
+			case 'r':
+				builder.append('\r');
+				break ;
+			case 't':
+				builder.append('\t');
+				break ;
+			case 'u': {
+				int value = 0;
+				for (int i = 0; i < 4; ++i) {
+					c = read();
+					int digit = Character.digit(c, 16);
+					if (c == -1 || digit < 0)
+						throw unexpected(c);
+					value = (value << 4) | digit;
+				}
+				builder.append((char)value);
+				break ;
+			}
+			default:
+				throw unexpected(c);
+			}
+		}
+	}
+
+	/**
+	 * Reads a number: -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+	 *
+	 * @param first The first character of the number, already consumed
+	 * @return The text of the number
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the number is malformed
+	 */
+	private String readNumber(char first) throws IOException, ParseException {
+		builder.setLength(0);
+		builder.append(first);
+		int c = first;
+		if (c == '-') {
+			c = peekChar();
+			if (c < '0' || c > '9')
+				throw unexpected(c);
+			builder.append((char)read());
+		}
+		if (c == '0')
+			c = peekChar();
+		else
+			c = appendDigits(0);
+		if (c == '.') {
+			builder.append((char)read());
+			c = appendDigits(1);
+		}
+		if (c == 'e' || c == 'E') {
+			builder.append((char)read());
+			c = peekChar();
+			if (c == '+' || c == '-')
+				builder.append((char)read());
+			c = appendDigits(1);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the following digits to the builder
+	 *
+	 * @param min The minimum number of digits
+	 * @return The first character that is not a digit, which is not consumed
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If there are less digits than the minimum
+	 */
+	private int appendDigits(int min) throws IOException, ParseException {
+		int count = 0;
+		int c = peekChar();
+		while (c >= '0' && c <= '9') {
+			builder.append((char)read());
+			++count;
+			c = peekChar();
+		}
+		if (count < min)
+			throw unexpected(c);
+		return c;
+	}
+
+	private int peekChar() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[pos];
+	}
+
+	private ParseException unexpected(int c) {
+		return new ParseException(position, ParseException.ERROR_UNEXPECTED_CHAR, c == -1 ? "END OF INPUT" : Character.valueOf((char)c));
+	}
+
+	private ParseException unexpectedToken() {
+		return new ParseException(position, ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(peeked));
+	}
+}
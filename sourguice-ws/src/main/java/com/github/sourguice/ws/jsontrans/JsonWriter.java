@@ -0,0 +1,261 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.CheckForNull;
+
+import org.json.simple.JSONValue;
+
+/**
+ * Writes JSON directly to a Writer, value after value, in the same format json-simple uses.
+ * An object or an array can be deferred: nothing of it (not even its name in the enclosing object) is written
+ * until its first member is, so that it can be dropped if it ends up empty.
+ */
+public class JsonWriter {
+
+	/**
+	 * An object or an array being written
+	 */
+	private static final class Frame {
+		/**
+		 * The enclosing object or array, null at the top level
+		 */
+		final @CheckForNull Frame parent;
+
+		/**
+		 * Whether the opening is written with the first member rather than right away
+		 */
+		final boolean deferred;
+
+		/**
+		 * The closing character
+		 */
+		final char close;
+
+		/**
+		 * What is written to open it: separator, name, opening character and "!type" header
+		 */
+		final String opening;
+
+		/**
+		 * Whether the opening was written
+		 */
+		boolean opened = false;
+
+		/**
+		 * Number of members written, the "!type" header included
+		 */
+		int count = 0;
+
+		/**
+		 * @param parent The enclosing object or array, null at the top level
+		 * @param deferred Whether the opening is written with the first member rather than right away
+		 * @param close The closing character
+		 * @param opening What is written to open it
+		 */
+		Frame(@CheckForNull Frame parent, boolean deferred, char close, String opening) {
+			this.parent = parent;
+			this.deferred = deferred;
+			this.close = close;
+			this.opening = opening;
+		}
+	}
+
+	/**
+	 * The writer to write JSON to
+	 */
+	private final Writer out;
+
+	/**
+	 * The objects and arrays being written, innermost first
+	 */
+	private final Deque<Frame> frames = new ArrayDeque<>();
+
+	/**
+	 * The name of the next member of the current object, null if none was given
+	 */
+	private @CheckForNull String name = null;
+
+	/**
+	 * @param out The writer to write JSON to
+	 */
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Sets the name of the next member of the current object
+	 *
+	 * @param name The name of the next value, object or array
+	 */
+	public void name(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Forgets the name given by {@link #name(String)}, when its value ends up not being written
+	 */
+	public void dropName() {
+		this.name = null;
+	}
+
+	/**
+	 * Begins an object, written right away
+	 *
+	 * @throws IOException If the writer fails
+	 */
+	public void beginObject() throws IOException {
+		begin('{', '}', false, null);
+	}
+
+	/**
+	 * Begins an object
+	 *
+	 * @param deferred Whether the object is only written with its first member, so that it is dropped if it ends up empty
+	 * @param header A type name that is written as the first "!type" member of the object, or null
+	 * @throws IOException If the writer fails
+	 */
+	public void beginObject(boolean deferred, @CheckForNull String header) throws IOException {
+		begin('{', '}', deferred, header);
+	}
+
+	/**
+	 * Begins an array, written right away
+	 *
+	 * @throws IOException If the writer fails
+	 */
+	public void beginArray() throws IOException {
+		begin('[', ']', false, null);
+	}
+
+	/**
+	 * Begins an array
+	 *
+	 * @param deferred Whether the array is only written with its first element, so that it is dropped if it ends up empty
+	 * @throws IOException If the writer fails
+	 */
+	public void beginArray(boolean deferred) throws IOException {
+		begin('[', ']', deferred, null);
+	}
+
+	/**
+	 * Begins an object or an array
+	 *
+	 * @param open The opening character
+	 * @param close The closing character
+	 * @param deferred Whether it is only written with its first member
+	 * @param header A type name written as the first "!type" member, or null
+	 * @throws IOException If the writer fails
+	 */
+	private void begin(char open, char close, boolean deferred, @CheckForNull String header) throws IOException {
+		Frame parent = frames.peek();
+		StringBuilder opening = new StringBuilder();
+		if (parent != null && parent.count > 0)
+			opening.append(',');
+		appendName(opening);
+		opening.append(open);
+		if (header != null) {
+			opening.append("\"!type\":");
+			AppendString(opening, header);
+		}
+		Frame frame = new Frame(parent, deferred, close, opening.toString());
+		if (header != null)
+			frame.count = 1;
+		frames.push(frame);
+		if (!deferred)
+			open(frame);
+	}
+
+	/**
+	 * Ends the current object or array
+	 *
+	 * @return Whether the object or array was written, which is false only for an empty deferred one
+	 * @throws IOException If the writer fails
+	 */
+	public boolean end() throws IOException {
+		Frame frame = frames.pop();
+		if (!frame.opened) {
+			if (frame.deferred)
+				return false;
+			open(frame);
+		}
+		out.write(frame.close);
+		return true;
+	}
+
+	/**
+	 * Writes a value, as json-simple would
+	 *
+	 * @param value The value: a String, a Number, a Boolean, null or any value JSONValue can write
+	 * @throws IOException If the writer fails
+	 */
+	public void value(@CheckForNull Object value) throws IOException {
+		Frame frame = frames.peek();
+		if (frame != null) {
+			open(frame);
+			if (frame.count > 0)
+				out.write(',');
+			++frame.count;
+		}
+		if (name != null) {
+			out.write('"');
+			out.write(JSONValue.escape(name));
+			out.write("\":");
+			name = null;
+		}
+		JSONValue.writeJSONString(value, out);
+	}
+
+	/**
+	 * Flushes the writer
+	 *
+	 * @throws IOException If the writer fails
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Writes the opening of an object or an array if it was not, and the ones of its enclosing deferred objects and arrays
+	 *
+	 * @param frame The object or array to open
+	 * @throws IOException If the writer fails
+	 */
+	private void open(Frame frame) throws IOException {
+		if (frame.opened)
+			return ;
+		Frame parent = frame.parent;
+		if (parent != null) {
+			open(parent);
+			++parent.count;
+		}
+		out.write(frame.opening);
+		frame.opened = true;
+	}
+
+	/**
+	 * Appends the name of the next member, if one was given, and forgets it
+	 *
+	 * @param builder The builder to append to
+	 */
+	private void appendName(StringBuilder builder) {
+		if (name != null) {
+			AppendString(builder, name);
+			builder.append(':');
+			name = null;
+		}
+	}
+
+	/**
+	 * Appends a JSON string
+	 *
+	 * @param builder The builder to append to
+	 * @param str The string to escape and quote
+	 */
+	private static void AppendString(StringBuilder builder, String str) {
+		builder.append('"').append(JSONValue.escape(str)).append('"');
+	}
+}
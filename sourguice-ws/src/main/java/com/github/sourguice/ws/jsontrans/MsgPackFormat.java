@@ -0,0 +1,217 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * MessagePack encoding of JSON trees.
+ * Binary and extension types are not supported.
+ */
+final class MsgPackFormat extends WireFormat {
+
+	MsgPackFormat() {
+		super("application/msgpack", "application/x-msgpack");
+	}
+
+	@Override
+	void writeNull(DataOutputStream out) throws IOException {
+		out.writeByte(0xc0);
+	}
+
+	@Override
+	void writeBoolean(DataOutputStream out, boolean value) throws IOException {
+		out.writeByte(value ? 0xc3 : 0xc2);
+	}
+
+	@Override
+	void writeLong(DataOutputStream out, long value) throws IOException {
+		if (value >= 0) {
+			if (value <= 0x7f)
+				out.writeByte((int)value);
+			else if (value <= 0xffL) {
+				out.writeByte(0xcc);
+				out.writeByte((int)value);
+			}
+			else if (value <= 0xffffL) {
+				out.writeByte(0xcd);
+				out.writeShort((int)value);
+			}
+			else if (value <= 0xffffffffL) {
+				out.writeByte(0xce);
+				out.writeInt((int)value);
+			}
+			else {
+				out.writeByte(0xcf);
+				out.writeLong(value);
+			}
+		}
+		else {
+			if (value >= -32)
+				out.writeByte((int)value);
+			else if (value >= Byte.MIN_VALUE) {
+				out.writeByte(0xd0);
+				out.writeByte((int)value);
+			}
+			else if (value >= Short.MIN_VALUE) {
+				out.writeByte(0xd1);
+				out.writeShort((int)value);
+			}
+			else if (value >= Integer.MIN_VALUE) {
+				out.writeByte(0xd2);
+				out.writeInt((int)value);
+			}
+			else {
+				out.writeByte(0xd3);
+				out.writeLong(value);
+			}
+		}
+	}
+
+	@Override
+	void writeDouble(DataOutputStream out, double value) throws IOException {
+		if ((double)(float)value == value || Double.isNaN(value)) {
+			out.writeByte(0xca);
+			out.writeFloat((float)value);
+		}
+		else {
+			out.writeByte(0xcb);
+			out.writeDouble(value);
+		}
+	}
+
+	@Override
+	void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = UTF8(value);
+		if (bytes.length < 32)
+			out.writeByte(0xa0 | bytes.length);
+		else if (bytes.length <= 0xff) {
+			out.writeByte(0xd9);
+			out.writeByte(bytes.length);
+		}
+		else if (bytes.length <= 0xffff) {
+			out.writeByte(0xda);
+			out.writeShort(bytes.length);
+		}
+		else {
+			out.writeByte(0xdb);
+			out.writeInt(bytes.length);
+		}
+		out.write(bytes);
+	}
+
+	@Override
+	void writeArrayHeader(DataOutputStream out, int size) throws IOException {
+		if (size < 16)
+			out.writeByte(0x90 | size);
+		else if (size <= 0xffff) {
+			out.writeByte(0xdc);
+			out.writeShort(size);
+		}
+		else {
+			out.writeByte(0xdd);
+			out.writeInt(size);
+		}
+	}
+
+	@Override
+	void writeMapHeader(DataOutputStream out, int size) throws IOException {
+		if (size < 16)
+			out.writeByte(0x80 | size);
+		else if (size <= 0xffff) {
+			out.writeByte(0xde);
+			out.writeShort(size);
+		}
+		else {
+			out.writeByte(0xdf);
+			out.writeInt(size);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONArray readArray(DataInputStream in, long size, int depth) throws IOException, ParseException {
+		int nested = Nested(depth);
+		JSONArray array = new JSONArray();
+		for (; size != 0; --size)
+			array.add(readValue(in, in.readUnsignedByte(), nested));
+		return array;
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject readMap(DataInputStream in, long size, int depth) throws IOException, ParseException {
+		int nested = Nested(depth);
+		JSONObject object = new JSONObject();
+		for (; size != 0; --size)
+			object.put(String.valueOf(readValue(in, in.readUnsignedByte(), nested)), readValue(in, in.readUnsignedByte(), nested));
+		return object;
+	}
+
+	@Override
+	@CheckForNull Object readValue(DataInputStream in, int initial, int depth) throws IOException, ParseException {
+		if (initial <= 0x7f)
+			return Long.valueOf(initial);
+		if (initial >= 0xe0)
+			return Long.valueOf((byte)initial);
+		if (initial <= 0x8f)
+			return readMap(in, initial & 0x0f, depth);
+		if (initial <= 0x9f)
+			return readArray(in, initial & 0x0f, depth);
+		if (initial <= 0xbf)
+			return ReadUTF8(in, initial & 0x1f);
+
+		switch (initial) {
+		case 0xc0:
+			return null;
+		case 0xc2:
+			return Boolean.FALSE;
+		case 0xc3:
+			return Boolean.TRUE;
+		case 0xca:
+			return Double.valueOf(in.readFloat());
+		case 0xcb:
+			return Double.valueOf(in.readDouble());
+		case 0xcc:
+			return Long.valueOf(in.readUnsignedByte());
+		case 0xcd:
+			return Long.valueOf(in.readUnsignedShort());
+		case 0xce:
+			return Long.valueOf(in.readInt() & 0xffffffffL);
+		case 0xcf: {
+			long value = in.readLong();
+			if (value >= 0)
+				return Long.valueOf(value);
+			return Double.valueOf((double)(value >>> 1) * 2.0 + (value & 1));
+		}
+		case 0xd0:
+			return Long.valueOf(in.readByte());
+		case 0xd1:
+			return Long.valueOf(in.readShort());
+		case 0xd2:
+			return Long.valueOf(in.readInt());
+		case 0xd3:
+			return Long.valueOf(in.readLong());
+		case 0xd9:
+			return ReadUTF8(in, in.readUnsignedByte());
+		case 0xda:
+			return ReadUTF8(in, in.readUnsignedShort());
+		case 0xdb:
+			return ReadUTF8(in, in.readInt() & 0xffffffffL);
+		case 0xdc:
+			return readArray(in, in.readUnsignedShort(), depth);
+		case 0xdd:
+			return readArray(in, in.readInt() & 0xffffffffL, depth);
+		case 0xde:
+			return readMap(in, in.readUnsignedShort(), depth);
+		case 0xdf:
+			return readMap(in, in.readInt() & 0xffffffffL, depth);
+		default:
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, Integer.valueOf(initial));
+		}
+	}
+}
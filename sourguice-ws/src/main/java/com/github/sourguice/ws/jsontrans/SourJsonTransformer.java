@@ -1,9 +1,9 @@
 package com.github.sourguice.ws.jsontrans;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.CheckForNull;
 
@@ -24,16 +25,13 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONAware;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
+import org.json.simple.parser.ParseException;
 
 import com.github.sourguice.utils.Annotations;
-import com.github.sourguice.ws.annotation.WSCheckForNull;
 import com.github.sourguice.ws.annotation.WSDisregardParent;
 import com.github.sourguice.ws.annotation.WSDisregardedParent;
 import com.github.sourguice.ws.annotation.WSExclude;
-import com.github.sourguice.ws.annotation.WSFieldName;
-import com.github.sourguice.ws.annotation.WSSince;
 import com.github.sourguice.ws.annotation.WSStrict;
-import com.github.sourguice.ws.annotation.WSUntil;
 import com.github.sourguice.ws.exception.UnknownClientTypeException;
 import com.github.sourguice.ws.translat.StrictValue;
 import com.github.sourguice.ws.translat.WSTranslaterFactory;
@@ -70,13 +68,59 @@ public class SourJsonTransformer {
 		}
 	};
 
-	private Collection<WSTranslaterFactory<?, ?>> translaters;
-	
+	private final WSTranslaterFactory<?, ?>[] translaters;
+
+	private static final Object NO_TRANSLATER = new Object();
+
+	// The first translater whose server class is assignable from each class, or NO_TRANSLATER.
+	private final ClassValue<Object> dispatch = new ClassValue<Object>() {
+		@Override protected Object computeValue(Class<?> cls) {
+			for (WSTranslaterFactory<?, ?> fact : translaters)
+				if (fact.getServerClass().isAssignableFrom(cls))
+					return fact;
+			return NO_TRANSLATER;
+		}
+	};
+
+	// Name to class map of the known classes, or null if any class may be loaded
+	private final @CheckForNull Map<String, Class<?>> knownTypes;
+
+	// The translaters are copied and the known classes are mapped by name: both collections must be complete when the transformer is created
 	public SourJsonTransformer(Collection<WSTranslaterFactory<?, ?>> translaters, @CheckForNull Collection<Class<?>> knownClasses) {
-		this.translaters = translaters;
+		this.translaters = translaters.toArray(new WSTranslaterFactory<?, ?>[translaters.size()]);
 		this.knownClasses = knownClasses;
+		if (knownClasses != null) {
+			Map<String, Class<?>> types = new HashMap<>();
+			for (Class<?> cls : knownClasses)
+				types.put(cls.getName(), cls);
+			this.knownTypes = types;
+		}
+		else
+			this.knownTypes = null;
 	}
 	
+	private ConcurrentHashMap<Type, BeanPlan> plans = new ConcurrentHashMap<>();
+
+	private BeanPlan getPlan(Type type) {
+		BeanPlan plan = plans.get(type);
+		if (plan != null)
+			return plan;
+
+		List<BeanPlan.FieldPlan> fields = new ArrayList<>();
+		Type fieldsType = type;
+		while (fieldsType != null) {
+			Class<?> fieldsClass = GenericTypeReflector.erase(fieldsType);
+			for (Field field : fieldsClass.getDeclaredFields())
+				if (IsJSONPrintable(field))
+					fields.add(new BeanPlan.FieldPlan(field, fieldsType));
+			fieldsType = getParent(fieldsClass);
+		}
+
+		plan = new BeanPlan(type, fields);
+		BeanPlan previous = plans.putIfAbsent(type, plan);
+		return previous != null ? previous : plan;
+	}
+
 	private boolean isSystem(Class<?> cls) {
 		Package objectPackage = cls.getPackage();
 		String objectPackageName = objectPackage != null ? objectPackage.getName() : "";
@@ -91,33 +135,34 @@ public class SourJsonTransformer {
 		;
 	}
 	
-	private String getFieldName(Field field) {
-		WSFieldName wsFieldName = field.getAnnotation(WSFieldName.class);
-		if (wsFieldName != null)
-			return wsFieldName.value();
-		return field.getName();
+	private @CheckForNull WSTranslaterFactory<?, ?> getTranslater(Type type) {
+		Object fact = dispatch.get(GenericTypeReflector.erase(type));
+		return fact != NO_TRANSLATER ? (WSTranslaterFactory<?, ?>)fact : null;
 	}
-	
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private @CheckForNull StrictValue transformToWS(Object obj, Type type, AnnotatedElement el, @CheckForNull Object enclosing) {
-		for (WSTranslaterFactory fact : translaters)
-			if (fact.getServerClass().isAssignableFrom(GenericTypeReflector.erase(type))) {
-				Object ret = fact.getTranslater().toWS(obj, type, el, enclosing);
-				if (ret == null)
-					return null;
-				if (ret instanceof StrictValue)
-					return (StrictValue)ret;
-				return new StrictValue(ret.getClass(), ret);
-			}
-		return new StrictValue(type, obj);
+		WSTranslaterFactory fact = getTranslater(type);
+		if (fact == null)
+			return new StrictValue(type, obj);
+		Object ret = fact.getTranslater().toWS(obj, type, el, enclosing);
+		if (ret == null)
+			return null;
+		if (ret instanceof StrictValue)
+			return (StrictValue)ret;
+		return new StrictValue(ret.getClass(), ret);
 	}
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private @CheckForNull Object transformFromWS(Object obj, Type typeOnServer, AnnotatedElement el, @CheckForNull Object enclosing) {
-		for (WSTranslaterFactory fact : translaters)
-			if (fact.getServerClass().isAssignableFrom(GenericTypeReflector.erase(typeOnServer)))
-				return fact.getTranslater().fromWS(obj, typeOnServer, el, enclosing);
-		return obj;
+		WSTranslaterFactory fact = getTranslater(typeOnServer);
+		if (fact == null)
+			return obj;
+		return fact.getTranslater().fromWS(obj, typeOnServer, el, enclosing);
+	}
+
+	private boolean isTranslated(Type typeOnServer) {
+		return getTranslater(typeOnServer) != null;
 	}
 
 	private @CheckForNull Type getParent(Class<?> cls) {
@@ -222,59 +267,156 @@ public class SourJsonTransformer {
 
 		JSONObject object = new JSONObject();
 
-		Type typeOnServer = fromType;
+		BeanPlan plan = getPlan(fromType);
 
-		// TODO: Should be Cached
-		while (fromType != null) {
-			fromClass = GenericTypeReflector.erase(fromType);
-
-			for (Field field : fromClass.getDeclaredFields()) {
-				if (!IsJSONPrintable(field))
-					continue ;
-
-				WSUntil until = field.getAnnotation(WSUntil.class);
-				if (until != null && until.value() > version)
-					continue ;
-
-				WSSince since = field.getAnnotation(WSSince.class);
-				if (since != null && since.value() < version)
-					continue ;
+		for (BeanPlan.FieldPlan field : plan.fields) {
+			if (field.isExcluded(version))
+				continue ;
 
-				field.setAccessible(true);
-				try {
-					Object fieldValue = field.get(from);
-					if (fieldValue == null)
-						continue ;
+			Object fieldValue = field.get(from);
+			if (fieldValue == null)
+				continue ;
 
-					Type fieldType = fieldValue.getClass();
-					Class<?> fieldClass = GenericTypeReflector.erase(fieldType);
-					if (Map.class.isAssignableFrom(fieldClass) || Collection.class.isAssignableFrom(fieldClass) || Annotations.GetOneTree(field, WSStrict.class) != null)
-						fieldType = GenericTypeReflector.getExactFieldType(field, fromType);
+			Type fieldType = fieldValue.getClass();
+			Class<?> fieldClass = GenericTypeReflector.erase(fieldType);
+			if (Map.class.isAssignableFrom(fieldClass) || Collection.class.isAssignableFrom(fieldClass) || field.strict)
+				fieldType = field.exactType;
 
-					Object json = toJSON(fieldValue, fieldType, version, field, false, from);
-					if (json != null)
-						object.put(getFieldName(field), json);
-				}
-				catch (IllegalAccessException e) {
-					throw new RuntimeException(e);
-				}
-				finally {
-					field.setAccessible(false);
-				}
-			}
-			
-			fromType = getParent(fromClass);
+			Object json = toJSON(fieldValue, fieldType, version, field.field, false, from);
+			if (json != null)
+				object.put(field.name, json);
 		}
 
 		if (!allowEmpty && object.isEmpty())
 			return null;
 		
 		if (!(from instanceof NoJsonType))
-			object.put("!type", GenericTypeReflector.getTypeName(typeOnServer));
+			object.put("!type", plan.typeName);
 		
 		return object;
 	}
 	
+	/**
+	 * Streaming version of {@link #toJSON(Object, Type, double, AnnotatedElement, boolean, Object)}: writes the value instead of building it
+	 * Objects are written with their "!type" first, then their members in declaration order.
+	 * What is written is the JSON of the tree toJSON would have built.
+	 *
+	 * @param out The writer to write the value to (the name of the value, if it is a member, must already be given)
+	 * @param from The value to write
+	 * @param fromType The type of the value
+	 * @param version The version of the transformation, which excludes fields (see {@link com.github.sourguice.ws.annotation.WSSince})
+	 * @param fromAnno The annotations of the value (of its field or parameter)
+	 * @param allowEmpty Whether an empty object or array is written or dropped
+	 * @param enclosing The object that contains the value, if any, given to translaters
+	 * @return Whether something was written (false if the value was dropped)
+	 * @throws JsonTransformException If the value cannot be transformed
+	 * @throws IOException If the writer fails
+	 */
+	public boolean writeJSON(JsonWriter out, @CheckForNull Object from, Type fromType, double version, AnnotatedElement fromAnno, boolean allowEmpty, @CheckForNull Object enclosing) throws JsonTransformException, IOException {
+
+		if (from == null || Void.class.isAssignableFrom(GenericTypeReflector.erase(fromType)))
+			return false;
+
+		StrictValue transformed = transformToWS(from, fromType, fromAnno, enclosing);
+		if (transformed == null)
+			return false;
+
+		from = transformed.getValue();
+		fromType = transformed.getType();
+		Class<?> fromClass = GenericTypeReflector.erase(fromType);
+
+		if (	   from instanceof JSONObject   || from instanceof JSONArray
+				|| from instanceof Number	    || from instanceof Boolean
+				|| from instanceof JSONAware    || from instanceof JSONStreamAware
+				|| from instanceof String
+				) {
+			out.value(from);
+			return true;
+		}
+
+		if (Collection.class.isAssignableFrom(fromClass)) {
+			if (!allowEmpty && ((Collection<?>)from).isEmpty())
+				return false;
+			Type colType = GenericTypeReflector.getTypeParameter(fromType, Collection.class.getTypeParameters()[0]);
+			out.beginArray();
+			Iterator<?> it = ((Collection<?>)from).iterator();
+			while (it.hasNext()) {
+				Object value = it.next();
+				if (value != null) {
+					Type valueType = fromAnno.isAnnotationPresent(WSStrict.class) ? colType : value.getClass();
+					if (!writeJSON(out, value, valueType, version, fromAnno, false, from))
+						out.value(null);
+				}
+			}
+			return out.end();
+		}
+
+		if (fromClass.isArray()) {
+			int length = Array.getLength(from);
+			if (!allowEmpty && length == 0)
+				return false;
+			Type arrayComponentType = GenericTypeReflector.getArrayComponentType(fromType);
+			out.beginArray();
+			for (int i = 0; i < length; ++i) {
+				Object element = Array.get(from, i);
+				Type elementType = fromAnno.isAnnotationPresent(WSStrict.class) ? arrayComponentType : element.getClass();
+				writeJSON(out, element, elementType, version, fromAnno, false, from);
+			}
+			return out.end();
+		}
+
+		if (Map.class.isAssignableFrom(fromClass)) {
+			if (!allowEmpty && ((Map<?, ?>)from).isEmpty())
+				return false;
+			Type mapType = GenericTypeReflector.getTypeParameter(fromType, Map.class.getTypeParameters()[1]);
+			out.beginObject();
+			Iterator<?> it = ((Map<?, ?>)from).entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>) it.next();
+				Object value = e.getValue();
+				if (value != null) {
+					Type valueType = fromAnno.isAnnotationPresent(WSStrict.class) ? mapType : value.getClass();
+					out.name(e.getKey().toString());
+					if (!writeJSON(out, value, valueType, version, fromAnno, false, from))
+						out.dropName();
+				}
+			}
+			return out.end();
+		}
+
+		if (fromClass.isEnum() || isSystem(fromClass)) {
+			out.value(from.toString());
+			return true;
+		}
+
+		if (knownClasses != null && !knownClasses.contains(fromClass))
+			throw new UnknownClientTypeException(fromClass);
+
+		BeanPlan plan = getPlan(fromType);
+
+		out.beginObject(!allowEmpty, from instanceof NoJsonType ? null : plan.typeName);
+
+		for (BeanPlan.FieldPlan field : plan.fields) {
+			if (field.isExcluded(version))
+				continue ;
+
+			Object fieldValue = field.get(from);
+			if (fieldValue == null)
+				continue ;
+
+			Type fieldType = fieldValue.getClass();
+			Class<?> fieldClass = GenericTypeReflector.erase(fieldType);
+			if (Map.class.isAssignableFrom(fieldClass) || Collection.class.isAssignableFrom(fieldClass) || field.strict)
+				fieldType = field.exactType;
+
+			out.name(field.name);
+			if (!writeJSON(out, fieldValue, fieldType, version, field.field, false, from))
+				out.dropName();
+		}
+
+		return out.end();
+	}
+
 	private AnnotatedElement empty = Annotations.fromArray(new Annotation[0]);
 	
 	public @CheckForNull Object toJSON(Object from, Type fromType, double version, boolean allowEmpty) throws JsonTransformException {
@@ -285,22 +427,28 @@ public class SourJsonTransformer {
 		return toJSON(from, fromType, version, empty, true, null);
 	}
 
-	private Object construct(Class<?> cls) throws JsonTransformException {
-		try {
-			Constructor<?> constructor = cls.getDeclaredConstructor();
-			constructor.setAccessible(true);
+	private ConcurrentHashMap<String, Class<?>> loadedTypes = new ConcurrentHashMap<>();
+
+	private Class<?> getType(String name) throws JsonTransformException {
+		if (knownTypes != null) {
+			Class<?> cls = knownTypes.get(name);
+			if (cls == null)
+				throw new JsonTransformException("Could not find " + name);
+			return cls;
+		}
+
+		Class<?> cls = loadedTypes.get(name);
+		if (cls == null)
 			try {
-				return constructor.newInstance();
+				cls = Class.forName(name);
+				loadedTypes.put(name, cls);
 			}
-			finally {
-				constructor.setAccessible(false);
+			catch (ClassNotFoundException e) {
+				throw new JsonTransformException("Could not find " + name);
 			}
-		}
-		catch (Exception e) {
-			throw new JsonTransformException("Cannot construct " + cls);
-		}
+		return cls;
 	}
-	
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public @CheckForNull <T> T fromJSON(@CheckForNull Object from, Type toType, double version, AnnotatedElement toAnno, @CheckForNull Object enclosing) throws JsonTransformException {
 		if (from == null)
@@ -321,7 +469,7 @@ public class SourJsonTransformer {
 			else if (Set.class.equals(toClass))
 				col = new HashSet<Object>();
 			else
-				col = (Collection<Object>)construct(toClass);
+				col = (Collection<Object>)BeanPlan.Construct(toClass);
 			
 			Type colToType;
 			if (toClass.isArray())
@@ -348,7 +496,7 @@ public class SourJsonTransformer {
 				if (Map.class.equals(toClass))
 					map = new HashMap<String, Object>();
 				else
-					map = (Map<String, Object>)construct(toClass);
+					map = (Map<String, Object>)BeanPlan.Construct(toClass);
 				
 				Type mapToType = GenericTypeReflector.getTypeParameter(toType, Map.class.getTypeParameters()[1]);
 				
@@ -360,58 +508,29 @@ public class SourJsonTransformer {
 
 			Type typeOnServer = toType;
 
-			if (fromObject.containsKey("!type"))
-				try {
-					toType = Class.forName(String.valueOf(fromObject.get("!type")));
-					toClass = (Class<?>)toType;
-				}
-				catch (ClassNotFoundException e1) {
-					throw new JsonTransformException("Could not find " + String.valueOf(fromObject.get("!type")));
-				}
+			if (fromObject.containsKey("!type")) {
+				toClass = getType(String.valueOf(fromObject.get("!type")));
+				toType = toClass;
+			}
 
-			T ret = (T)construct(toClass);
+			T ret = (T)BeanPlan.Construct(toClass);
 
-			// TODO: Should be Cached
-			while (toType != null) {
-				toClass = GenericTypeReflector.erase(toType);
+			for (BeanPlan.FieldPlan field : getPlan(toType).fields) {
+				Object fieldJson = fromObject.get(field.name);
 
-				for (Field field : toClass.getDeclaredFields()) {
-					if (!IsJSONPrintable(field))
+				if (fieldJson == null) {
+					if (field.isExcluded(version))
 						continue ;
 
-					String fieldName = getFieldName(field);
-					
-					if (!fromObject.containsKey(fieldName) || fromObject.get(fieldName) == null) {
-						WSUntil until = field.getAnnotation(WSUntil.class);
-						if (until != null && until.value() > version)
-							continue ;
-
-						WSSince since = field.getAnnotation(WSSince.class);
-						if (since != null && since.value() < version)
-							continue ;
-
-						if (field.isAnnotationPresent(WSCheckForNull.class))
-							continue ;
+					if (field.checkForNull)
+						continue ;
 
-						throw new JsonTransformException("Missing from JSON : " + field);
-					}
-					
-					Object json = fromJSON(fromObject.get(fieldName), GenericTypeReflector.getExactFieldType(field, toType), version, field, ret);
-					field.setAccessible(true);
-					try {
-						field.set(ret, json);
-					}
-					catch (IllegalAccessException e) {
-						throw new RuntimeException(e);
-					}
-					finally {
-						field.setAccessible(false);
-					}
+					throw new JsonTransformException("Missing from JSON : " + field.field);
 				}
-				
-				toType = getParent(toClass);
+
+				field.set(ret, fromJSON(fieldJson, field.exactType, version, field.field, ret));
 			}
-			
+
 			return (T)transformFromWS(ret, typeOnServer, toAnno, enclosing);
 		}
 		else if (toClass.isEnum()) {
@@ -440,4 +559,176 @@ public class SourJsonTransformer {
 		}
 	}
 
+	private static @CheckForNull Number ParseNumber(String text, Class<?> cls) {
+		if (cls == Integer.class)
+			return Integer.valueOf(text);
+		if (cls == Long.class)
+			return Long.valueOf(text);
+		if (cls == Double.class)
+			return Double.valueOf(text);
+		if (cls == Float.class)
+			return Float.valueOf(text);
+		if (cls == Short.class)
+			return Short.valueOf(text);
+		if (cls == Byte.class)
+			return Byte.valueOf(text);
+		return null;
+	}
+
+	/**
+	 * Streaming version of {@link #fromJSON(Object, Type, double, AnnotatedElement, Object)}: reads the value directly from the reader
+	 * Objects are bound as they are read when their "!type" is their first member (which is how writeJSON writes them).
+	 * Otherwise, their "!type" may come last, so they are read as a tree and given to fromJSON.
+	 * The result is the one fromJSON would have given for the tree of the value.
+	 *
+	 * @param in The reader, which is left after the value
+	 * @param toType The type to bind the value to
+	 * @param version The version of the transformation, which excludes fields (see {@link com.github.sourguice.ws.annotation.WSSince})
+	 * @param toAnno The annotations of the value (of its field or parameter)
+	 * @param enclosing The object that will contain the value, if any, given to translaters
+	 * @return The bound value
+	 * @throws JsonTransformException If the value cannot be bound to the type
+	 * @throws IOException If the reader fails
+	 * @throws ParseException If the JSON is malformed
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public @CheckForNull <T> T readJSON(JsonReader in, Type toType, double version, AnnotatedElement toAnno, @CheckForNull Object enclosing) throws JsonTransformException, IOException, ParseException {
+		Class<?> toClass = GenericTypeReflector.erase(toType);
+
+		switch (in.peek()) {
+		case JsonReader.NULL:
+			in.nextNull();
+			return null;
+
+		case JsonReader.BEGIN_ARRAY: {
+			if (!Collection.class.isAssignableFrom(toClass) && !toClass.isArray())
+				throw new JsonTransformException("Can only unserialize an array into a Collection, not " + toClass);
+			Collection<Object> col;
+			if (toClass.isArray())
+				col = new ArrayList<Object>();
+			else if (List.class.equals(toClass))
+				col = new LinkedList<Object>();
+			else if (Set.class.equals(toClass))
+				col = new HashSet<Object>();
+			else
+				col = (Collection<Object>)BeanPlan.Construct(toClass);
+
+			Type colToType;
+			if (toClass.isArray())
+				colToType = GenericTypeReflector.getArrayComponentType(toType);
+			else
+				colToType = GenericTypeReflector.getTypeParameter(toType, Collection.class.getTypeParameters()[0]);
+
+			in.beginArray();
+			while (in.hasNext())
+				col.add(readJSON(in, colToType, version, toAnno, col));
+			in.endArray();
+
+			Object ret = col;
+
+			if (toClass.isArray())
+				ret = col.toArray((Object[])Array.newInstance(toClass.getComponentType(), col.size()));
+
+			return (T)transformFromWS(ret, toType, toAnno, enclosing);
+		}
+
+		case JsonReader.BEGIN_OBJECT: {
+			if (Map.class.isAssignableFrom(toClass)) {
+				Map<String, Object> map;
+				if (Map.class.equals(toClass))
+					map = new HashMap<String, Object>();
+				else
+					map = (Map<String, Object>)BeanPlan.Construct(toClass);
+
+				Type mapToType = GenericTypeReflector.getTypeParameter(toType, Map.class.getTypeParameters()[1]);
+
+				in.beginObject();
+				while (in.hasNext()) {
+					String name = in.nextName();
+					map.put(name, readJSON(in, mapToType, version, toAnno, map));
+				}
+				in.endObject();
+
+				return (T)transformFromWS(map, toType, toAnno, enclosing);
+			}
+
+			in.beginObject();
+
+			String name = in.hasNext() ? in.nextName() : null;
+			if (name == null || !name.equals("!type")) {
+				JSONObject fromObject = new JSONObject();
+				while (name != null) {
+					fromObject.put(name, in.nextTree());
+					name = in.hasNext() ? in.nextName() : null;
+				}
+				in.endObject();
+				return fromJSON(fromObject, toType, version, toAnno, enclosing);
+			}
+
+			Type typeOnServer = toType;
+
+			toClass = getType(String.valueOf(in.nextTree()));
+			toType = toClass;
+
+			T ret = (T)BeanPlan.Construct(toClass);
+
+			BeanPlan plan = getPlan(toType);
+			boolean[] found = new boolean[plan.fields.length];
+			while (in.hasNext()) {
+				int[] indexes = plan.indexes.get(in.nextName());
+				if (indexes == null) {
+					in.skipValue();
+					continue ;
+				}
+				if (in.peek() == JsonReader.NULL) {
+					in.nextNull();
+					continue ;
+				}
+				if (indexes.length == 1) {
+					BeanPlan.FieldPlan field = plan.fields[indexes[0]];
+					field.set(ret, readJSON(in, field.exactType, version, field.field, ret));
+				}
+				else {
+					Object fieldJson = in.nextTree();
+					for (int index : indexes) {
+						BeanPlan.FieldPlan field = plan.fields[index];
+						field.set(ret, fromJSON(fieldJson, field.exactType, version, field.field, ret));
+					}
+				}
+				for (int index : indexes)
+					found[index] = true;
+			}
+			in.endObject();
+
+			for (int i = 0; i < found.length; ++i) {
+				BeanPlan.FieldPlan field = plan.fields[i];
+				if (found[i] || field.isExcluded(version) || field.checkForNull)
+					continue ;
+				throw new JsonTransformException("Missing from JSON : " + field.field);
+			}
+
+			return (T)transformFromWS(ret, typeOnServer, toAnno, enclosing);
+		}
+
+		case JsonReader.NUMBER: {
+			String text = in.nextNumber();
+			if (!isTranslated(toType)) {
+				Number ret;
+				try {
+					ret = ParseNumber(text, toClass.isPrimitive() ? PRIMITIVES_TO_WRAPPERS.get(toClass) : toClass);
+				}
+				catch (NumberFormatException e) {
+					throw new JsonTransformException(e);
+				}
+				if (ret != null)
+					return (T)ret;
+			}
+			return fromJSON(JsonReader.ParseNumber(text), toType, version, toAnno, enclosing);
+		}
+
+		default:
+			return fromJSON(in.nextTree(), toType, version, toAnno, enclosing);
+		}
+	}
+
 }
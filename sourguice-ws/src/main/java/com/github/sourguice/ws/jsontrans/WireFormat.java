@@ -0,0 +1,305 @@
+package com.github.sourguice.ws.jsontrans;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+
+import org.json.simple.JSONAware;
+import org.json.simple.JSONStreamAware;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * A binary encoding of the JSON trees that SourJsonTransformer creates and reads
+ * (maps, collections, strings, numbers, booleans and null).
+ * Values are read back the way JSONParser would have created them: JSONObject, JSONArray, String, Long, Double, Boolean or null.
+ */
+public abstract class WireFormat {
+
+	/**
+	 * CBOR (RFC 7049), whose media type is application/cbor
+	 */
+	public static final WireFormat CBOR = new CborFormat();
+
+	/**
+	 * MessagePack, whose media type is application/msgpack (or application/x-msgpack)
+	 */
+	public static final WireFormat MSGPACK = new MsgPackFormat();
+
+	/**
+	 * Maximum number of nested arrays and maps (and CBOR tags) that are read.
+	 * They are read recursively, so deeper input is refused with a ParseException rather than overflowing the stack.
+	 */
+	public static final int MAX_DEPTH = JsonReader.MAX_DEPTH;
+
+	/**
+	 * The media type of the format, used as Content-Type of the responses
+	 */
+	private final String contentType;
+
+	/**
+	 * Other media types that name the format in requests
+	 */
+	private final String[] aliases;
+
+	/**
+	 * @param contentType The media type of the format
+	 * @param aliases Other media types that name the format in requests
+	 */
+	WireFormat(String contentType, String... aliases) {
+		this.contentType = contentType;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * @return The media type of the format, to use as Content-Type
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	private boolean isNamed(String mediaType) {
+		if (mediaType.equalsIgnoreCase(contentType))
+			return true;
+		for (String alias : aliases)
+			if (mediaType.equalsIgnoreCase(alias))
+				return true;
+		return false;
+	}
+
+	private static @CheckForNull WireFormat Named(String mediaType) {
+		int params = mediaType.indexOf(';');
+		if (params >= 0)
+			mediaType = mediaType.substring(0, params);
+		mediaType = mediaType.trim();
+		if (CBOR.isNamed(mediaType))
+			return CBOR;
+		if (MSGPACK.isNamed(mediaType))
+			return MSGPACK;
+		return null;
+	}
+
+	/**
+	 * @param contentType A Content-Type header, with or without parameters
+	 * @return The binary format it names, or null if it is not a binary format
+	 */
+	public static @CheckForNull WireFormat Of(@CheckForNull String contentType) {
+		if (contentType == null)
+			return null;
+		return Named(contentType);
+	}
+
+	/**
+	 * @param params The media type of an Accept header entry, followed by its parameters
+	 * @return The q value of the entry: 1 if it has none, 0 if it cannot be read
+	 */
+	private static double Quality(String[] params) {
+		for (int i = 1; i < params.length; ++i) {
+			String param = params[i].trim();
+			if (param.startsWith("q="))
+				try {
+					return Double.parseDouble(param.substring(2));
+				}
+				catch (NumberFormatException e) {
+					return 0;
+				}
+		}
+		return 1;
+	}
+
+	/**
+	 * Chooses the format of a response: the binary format, JSON or text type of the Accept header with the highest q value
+	 * (the first one listed if several have the same), or the format of the request if the Accept header lists none of them.
+	 * Types with a q value of 0 are refused, and wildcards stand for the format of the request.
+	 *
+	 * @param contentType The Content-Type header of the request
+	 * @param accept The Accept header of the request
+	 * @return The binary format of the response, or null if it is JSON
+	 */
+	public static @CheckForNull WireFormat Negotiate(@CheckForNull String contentType, @CheckForNull String accept) {
+		WireFormat request = Of(contentType);
+		if (accept == null)
+			return request;
+		boolean found = false;
+		WireFormat chosen = null;
+		double chosenQ = 0;
+		boolean requestRefused = false;
+		for (String mediaType : accept.split(",")) {
+			String[] params = mediaType.split(";");
+			String name = params[0].trim().toLowerCase();
+			double q = Quality(params);
+			WireFormat format = Named(name);
+			if (format == null && !name.equals("application/json") && !name.startsWith("text/")) {
+				if (!name.equals("*/*") && !name.equals("application/*"))
+					continue ;
+				format = request;
+			}
+			else if (q <= 0 && format != null && format == request)
+				requestRefused = true;
+			if (q > 0 && (!found || q > chosenQ)) {
+				found = true;
+				chosen = format;
+				chosenQ = q;
+			}
+		}
+		if (requestRefused && (!found || chosen == request))
+			return null;
+		return found ? chosen : request;
+	}
+
+	/**
+	 * Encodes a JSON tree
+	 *
+	 * @param value The tree: maps, collections, strings, numbers, booleans, null, or values that write their own JSON
+	 * @param out The stream to write the encoded value to, which is flushed but not closed
+	 * @throws IOException If the stream fails
+	 */
+	public void write(@CheckForNull Object value, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		writeValue(data, value);
+		data.flush();
+	}
+
+	/**
+	 * Decodes a JSON tree, which must be the whole content of the stream
+	 *
+	 * @param in The stream to read the encoded value from
+	 * @return The tree, as JSONParser would have created it
+	 * @throws IOException If the stream fails
+	 * @throws ParseException If the content is not a single valid value, or is nested deeper than {@link #MAX_DEPTH}
+	 */
+	public @CheckForNull Object read(InputStream in) throws IOException, ParseException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		try {
+			Object value = readValue(data, data.readUnsignedByte(), 0);
+			if (data.read() != -1)
+				throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+			return value;
+		}
+		catch (EOFException e) {
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_EXCEPTION, e);
+		}
+	}
+
+	private void writeValue(DataOutputStream out, @CheckForNull Object value) throws IOException {
+		if (value == null)
+			writeNull(out);
+		else if (value instanceof String)
+			writeString(out, (String)value);
+		else if (value instanceof Boolean)
+			writeBoolean(out, ((Boolean)value).booleanValue());
+		else if (value instanceof BigInteger && ((BigInteger)value).bitLength() >= 64)
+			writeDouble(out, ((BigInteger)value).doubleValue());
+		else if (value instanceof Number && IsIntegral((Number)value))
+			writeLong(out, ((Number)value).longValue());
+		else if (value instanceof Number)
+			writeDouble(out, ((Number)value).doubleValue());
+		else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>)value;
+			writeMapHeader(out, map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(out, String.valueOf(entry.getKey()));
+				writeValue(out, entry.getValue());
+			}
+		}
+		else if (value instanceof Collection) {
+			Collection<?> col = (Collection<?>)value;
+			writeArrayHeader(out, col.size());
+			for (Object item : col)
+				writeValue(out, item);
+		}
+		else if (value instanceof JSONAware)
+			writeValue(out, Parse(((JSONAware)value).toJSONString()));
+		else if (value instanceof JSONStreamAware) {
+			StringWriter json = new StringWriter();
+			((JSONStreamAware)value).writeJSONString(json);
+			writeValue(out, Parse(json.toString()));
+		}
+		else
+			writeString(out, value.toString());
+	}
+
+	private static boolean IsIntegral(Number number) {
+		return	number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte
+			||	number instanceof BigInteger
+			||	number instanceof AtomicInteger || number instanceof AtomicLong
+		;
+	}
+
+	// Values that write their own JSON are written as the value their JSON represents
+	private static @CheckForNull Object Parse(String json) throws IOException {
+		try {
+			return new JSONParser().parse(json);
+		}
+		catch (ParseException e) {
+			throw new IOException(e);
+		}
+	}
+
+	static String ReadUTF8(DataInputStream in, long length) throws IOException, ParseException {
+		if (length < 0 || length > Integer.MAX_VALUE)
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+		// The length is not trusted to allocate the whole buffer at once
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream((int)Math.min(length, 8192));
+		byte[] buffer = new byte[(int)Math.min(length, 8192)];
+		long remaining = length;
+		while (remaining > 0) {
+			int count = (int)Math.min(remaining, buffer.length);
+			in.readFully(buffer, 0, count);
+			bytes.write(buffer, 0, count);
+			remaining -= count;
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	// The depth of the values of an array, a map or a tag that is at the given depth
+	static int Nested(int depth) throws ParseException {
+		if (depth >= MAX_DEPTH)
+			throw new ParseException(ParseException.ERROR_UNEXPECTED_EXCEPTION, "Nesting deeper than " + MAX_DEPTH);
+		return depth + 1;
+	}
+
+	static byte[] UTF8(String str) {
+		return str.getBytes(StandardCharsets.UTF_8);
+	}
+
+	abstract void writeNull(DataOutputStream out) throws IOException;
+
+	abstract void writeBoolean(DataOutputStream out, boolean value) throws IOException;
+
+	abstract void writeLong(DataOutputStream out, long value) throws IOException;
+
+	abstract void writeDouble(DataOutputStream out, double value) throws IOException;
+
+	abstract void writeString(DataOutputStream out, String value) throws IOException;
+
+	abstract void writeArrayHeader(DataOutputStream out, int size) throws IOException;
+
+	abstract void writeMapHeader(DataOutputStream out, int size) throws IOException;
+
+	/**
+	 * Reads a value
+	 *
+	 * @param in The stream to read from
+	 * @param initial The first byte of the value, which is already read
+	 * @param depth The number of arrays, maps and tags the value is in
+	 * @return The value
+	 * @throws IOException If the stream fails
+	 * @throws ParseException If the value is not valid
+	 */
+	abstract @CheckForNull Object readValue(DataInputStream in, int initial, int depth) throws IOException, ParseException;
+}
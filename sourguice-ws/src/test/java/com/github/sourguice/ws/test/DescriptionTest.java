@@ -0,0 +1,179 @@
+package com.github.sourguice.ws.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.json.simple.parser.JSONParser;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.ws.JsonWSController;
+import com.github.sourguice.ws.annotation.WSMethod;
+import com.github.sourguice.ws.annotation.WSParam;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class DescriptionTest extends TestBase {
+
+	// ===================== CONTROLLERS =====================
+
+	@Singleton
+	public static class DescribedWS extends JsonWSController {
+		@Inject
+		public DescribedWS(Injector injector) {
+			super(injector);
+		}
+
+		@WSMethod
+		public String hello(@WSParam("name") String name) {
+			return "Hello " + name;
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class DescriptionModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/ws/*").with(DescribedWS.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new DescriptionModule();
+	}
+
+	// ===================== RESPONSE =====================
+
+	// HttpTester reads bodies as text, so gzipped responses are parsed here
+	static class Response {
+		int status;
+		Map<String, String> headers = new HashMap<>();
+		byte[] body;
+
+		@CheckForNull String header(String name) {
+			return headers.get(name.toLowerCase());
+		}
+
+		String content() throws IOException {
+			InputStream in = new ByteArrayInputStream(body);
+			if ("gzip".equals(header("Content-Encoding")))
+				in = new GZIPInputStream(in);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[1024];
+			int len;
+			while ((len = in.read(buf)) > 0)
+				out.write(buf, 0, len);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+
+		String baseUrl() throws Exception {
+			return (String)((Map<?, ?>)new JSONParser().parse(content())).get("baseUrl");
+		}
+	}
+
+	Response get(String host, String... headers) throws Exception {
+		// HTTP/1.0 so that the body is not chunked
+		StringBuilder request = new StringBuilder("GET /ws/description HTTP/1.0\r\nHost: ").append(host).append("\r\n");
+		for (int i = 0; i < headers.length; i += 2)
+			request.append(headers[i]).append(": ").append(headers[i + 1]).append("\r\n");
+		byte[] raw = tester.getResponses(new ByteArrayBuffer(request.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1))).asArray();
+
+		int end = 0;
+		while (!(raw[end] == '\r' && raw[end + 1] == '\n' && raw[end + 2] == '\r' && raw[end + 3] == '\n'))
+			++end;
+		Response response = new Response();
+		String[] lines = new String(raw, 0, end, StandardCharsets.ISO_8859_1).split("\r\n");
+		response.status = Integer.parseInt(lines[0].split(" ")[1]);
+		for (int i = 1; i < lines.length; ++i) {
+			int colon = lines[i].indexOf(':');
+			response.headers.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+		}
+		response.body = new byte[raw.length - end - 4];
+		System.arraycopy(raw, end + 4, response.body, 0, response.body.length);
+		return response;
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void plain() throws Exception {
+		Response res = get("tester");
+		assert res.status == 200;
+		assert res.header("Content-Encoding") == null;
+		assert "Accept-Encoding".equals(res.header("Vary"));
+		assert res.header("ETag").matches("\"[0-9a-f]{32}\"");
+		assert res.baseUrl().equals("http://tester/ws");
+		assert res.content().contains("hello");
+	}
+
+	@Test
+	public void gzip() throws Exception {
+		Response plain = get("tester");
+		Response gzip = get("tester", "Accept-Encoding", "gzip, deflate");
+		assert gzip.status == 200;
+		assert "gzip".equals(gzip.header("Content-Encoding"));
+		assert "Accept-Encoding".equals(gzip.header("Vary"));
+		// The gzipped variant has its own entity tag
+		assert !gzip.header("ETag").equals(plain.header("ETag"));
+		assert gzip.content().equals(plain.content());
+
+		assert "gzip".equals(get("tester", "Accept-Encoding", "X-GZIP").header("Content-Encoding"));
+		assert "gzip".equals(get("tester", "Accept-Encoding", "deflate, gzip;q=0.5").header("Content-Encoding"));
+	}
+
+	@Test
+	public void gzipRefused() throws Exception {
+		assert get("tester", "Accept-Encoding", "gzip;q=0").header("Content-Encoding") == null;
+		assert get("tester", "Accept-Encoding", "deflate, gzip;q=0, identity").header("Content-Encoding") == null;
+		assert get("tester", "Accept-Encoding", "gzip;q=nope").header("Content-Encoding") == null;
+	}
+
+	@Test
+	public void notModified() throws Exception {
+		String eTag = get("tester").header("ETag");
+		String gzipETag = get("tester", "Accept-Encoding", "gzip").header("ETag");
+
+		Response res = get("tester", "If-None-Match", eTag);
+		assert res.status == 304;
+		assert eTag.equals(res.header("ETag"));
+		assert res.body.length == 0;
+
+		assert get("tester", "If-None-Match", "\"other\", " + eTag).status == 304;
+		assert get("tester", "If-None-Match", "W/" + eTag).status == 304;
+		assert get("tester", "If-None-Match", "*").status == 304;
+		assert get("tester", "If-None-Match", "\"other\"").status == 200;
+
+		// Each variant is only matched by its own entity tag
+		assert get("tester", "If-None-Match", gzipETag).status == 200;
+		assert get("tester", "If-None-Match", eTag, "Accept-Encoding", "gzip").status == 200;
+		assert get("tester", "If-None-Match", gzipETag, "Accept-Encoding", "gzip").status == 304;
+	}
+
+	@Test
+	public void perBaseUrl() throws Exception {
+		Response tester = get("tester");
+		Response other = get("other:8080");
+		assert other.baseUrl().equals("http://other:8080/ws");
+		assert !other.header("ETag").equals(tester.header("ETag"));
+
+		// Each base URL keeps its own encoded description
+		Response again = get("tester");
+		assert again.baseUrl().equals("http://tester/ws");
+		assert again.header("ETag").equals(tester.header("ETag"));
+		assert get("other:8080", "If-None-Match", other.header("ETag")).status == 304;
+		assert get("tester", "If-None-Match", other.header("ETag")).status == 200;
+	}
+}
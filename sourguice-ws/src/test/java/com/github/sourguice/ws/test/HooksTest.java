@@ -0,0 +1,152 @@
+package com.github.sourguice.ws.test;
+
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.ws.JsonWSController;
+import com.github.sourguice.ws.annotation.WSMethod;
+import com.github.sourguice.ws.annotation.WSParam;
+import com.github.sourguice.ws.jsontrans.WireFormat;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+/*
+ * A subclass that overrides the protected hooks must see every call of /rest and /rpc.
+ */
+@SuppressWarnings("javadoc")
+public class HooksTest extends TestBase {
+
+	// ===================== CONTROLLERS =====================
+
+	public static abstract class HelloWS extends JsonWSController {
+		public HelloWS(Injector injector) {
+			super(injector);
+		}
+
+		@WSMethod
+		public String hello(@WSParam("name") String name) {
+			return "Hello " + name;
+		}
+	}
+
+	// Overrides the hooks that take and give JSON trees
+	@Singleton
+	public static class TreeWS extends HelloWS {
+		@Inject
+		public TreeWS(Injector injector) {
+			super(injector);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected JSONObject handleREST(HttpServletResponse res, HttpServletRequest req, String function, double version, JSONObject jsonObject) throws Throwable {
+			jsonObject.put("name", "tree " + jsonObject.get("name"));
+			return super.handleREST(res, req, function, version, jsonObject);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected @CheckForNull JSONObject handleRPCCall(JSONObject obj, double version) throws Throwable {
+			JSONObject result = super.handleRPCCall(obj, version);
+			if (result != null)
+				result.put("hook", "tree");
+			return result;
+		}
+	}
+
+	// Overrides the hooks that stream
+	@Singleton
+	public static class StreamWS extends HelloWS {
+		@Inject
+		public StreamWS(Injector injector) {
+			super(injector);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected JSONObject handleREST(HttpServletResponse res, HttpServletRequest req, String function, double version, @CheckForNull WireFormat inFormat, boolean stream) throws Throwable {
+			JSONObject obj = super.handleREST(res, req, function, version, inFormat, stream);
+			obj.put("hook", "stream");
+			return obj;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected @CheckForNull JSONObject handleRPCCall(JSONObject obj, double version, boolean stream) throws Throwable {
+			JSONObject result = super.handleRPCCall(obj, version, stream);
+			if (result != null)
+				result.put("hook", "stream");
+			return result;
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class HooksModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/tree/*").with(TreeWS.class);
+			control("/stream/*").with(StreamWS.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new HooksModule();
+	}
+
+	// ===================== HELPERS =====================
+
+	Map<?, ?> rest(String uri) throws Exception {
+		HttpTester response = getResponse(makeJsonPost(uri, "{\"name\":\"Salomon\"}"));
+		assert response.getStatus() == 200;
+		return (Map<?, ?>)new JSONParser().parse(response.getContent());
+	}
+
+	Map<?, ?> rpc(String uri) throws Exception {
+		HttpTester response = getResponse(makeJsonPost(uri, "[{\"id\":1,\"method\":\"hello\",\"params\":{\"name\":\"Salomon\"}}]"));
+		assert response.getStatus() == 200;
+		JSONArray results = (JSONArray)new JSONParser().parse(response.getContent());
+		assert results.size() == 1;
+		return (Map<?, ?>)results.get(0);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void treeREST() throws Exception {
+		assert rest("/tree/rest/1/hello").get("RESULT").equals("Hello tree Salomon");
+	}
+
+	@Test
+	public void treeRPC() throws Exception {
+		Map<?, ?> result = rpc("/tree/rpc/1");
+		assert result.get("result").equals("Hello Salomon");
+		assert result.get("hook").equals("tree");
+	}
+
+	@Test
+	public void streamREST() throws Exception {
+		Map<?, ?> result = rest("/stream/rest/1/hello");
+		assert result.get("RESULT").equals("Hello Salomon");
+		assert result.get("hook").equals("stream");
+	}
+
+	@Test
+	public void streamRPC() throws Exception {
+		Map<?, ?> result = rpc("/stream/rpc/1");
+		assert result.get("result").equals("Hello Salomon");
+		assert result.get("hook").equals("stream");
+	}
+}
@@ -0,0 +1,201 @@
+package com.github.sourguice.ws.test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.json.simple.parser.JSONParser;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.ws.JsonWSController;
+import com.github.sourguice.ws.annotation.WSMethod;
+import com.github.sourguice.ws.annotation.WSSince;
+import com.github.sourguice.ws.annotation.WSUntil;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+/*
+ * The version table must find the method that a linear scan of the methods, in the order of getMethods, finds.
+ */
+@SuppressWarnings("javadoc")
+public class MethodTableTest extends TestBase {
+
+	// ===================== CONTROLLERS =====================
+
+	// f: f1 until 2, f2 from 1.5 to 3, f3 from 3.5, nothing between 3 and 3.5
+	@Singleton
+	public static class TableWS extends JsonWSController {
+		@Inject
+		public TableWS(Injector injector) {
+			super(injector);
+		}
+
+		@WSMethod(name = "f")
+		@WSUntil(2)
+		public String f1() {
+			return "f1";
+		}
+
+		@WSMethod(name = "f")
+		@WSSince(1.5)
+		@WSUntil(3)
+		public String f2() {
+			return "f2";
+		}
+
+		@WSMethod(name = "f")
+		@WSSince(3.5)
+		public String f3() {
+			return "f3";
+		}
+
+		@WSMethod
+		@WSSince(5)
+		@WSUntil(5)
+		public String point() {
+			return "point";
+		}
+
+		@WSMethod
+		public String always() {
+			return "always";
+		}
+
+		public Method find(String function, double version) throws NoSuchMethodException {
+			return findMethod(function, version);
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class MethodTableModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/table/*").with(TableWS.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new MethodTableModule();
+	}
+
+	// ===================== HELPERS =====================
+
+	TableWS controller;
+
+	@BeforeClass
+	public void createController() {
+		controller = Guice.createInjector().getInstance(TableWS.class);
+	}
+
+	// The previous resolution: the first method, in the order of getMethods, that has the name and is available at the version
+	static @CheckForNull String Scan(String function, double version) {
+		for (Method method : TableWS.class.getMethods()) {
+			WSMethod wsMethod = method.getAnnotation(WSMethod.class);
+			if (wsMethod == null || !(wsMethod.name().isEmpty() ? method.getName() : wsMethod.name()).equals(function))
+				continue ;
+			WSSince since = method.getAnnotation(WSSince.class);
+			WSUntil until = method.getAnnotation(WSUntil.class);
+			if ((since == null || since.value() <= version) && (until == null || version <= until.value()))
+				return method.getName();
+		}
+		return null;
+	}
+
+	@CheckForNull String find(String function, double version) {
+		try {
+			return controller.find(function, version).getName();
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	// Asserts the method found at a version, which is the one of the scan and one of the expected ones (none if there is none)
+	void check(String function, double version, String... expected) {
+		String found = find(function, version);
+		assert found == null ? Scan(function, version) == null : found.equals(Scan(function, version)) : function + " " + version + ": " + found;
+		if (expected.length == 0)
+			assert found == null : function + " " + version + ": " + found;
+		else
+			assert Arrays.asList(expected).contains(found) : function + " " + version + ": " + found;
+	}
+
+	int restStatus(String uri) throws Exception {
+		return getResponse(makeJsonPost(uri, "{}")).getStatus();
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void overlapping() throws Exception {
+		check("f", Double.NEGATIVE_INFINITY, "f1");
+		check("f", -100, "f1");
+		check("f", 1, "f1");
+		check("f", 1.5, "f1", "f2");
+		check("f", 1.75, "f1", "f2");
+		check("f", 2, "f1", "f2");
+		check("f", 2.000001, "f2");
+		check("f", 2.5, "f2");
+		check("f", 3, "f2");
+		check("f", 3.25);
+		check("f", 3.5, "f3");
+		check("f", 4, "f3");
+		check("f", 100, "f3");
+		check("f", Double.POSITIVE_INFINITY, "f3");
+	}
+
+	@Test
+	public void point() throws Exception {
+		check("point", 4.99);
+		check("point", 5, "point");
+		check("point", 5.01);
+		check("point", Double.NEGATIVE_INFINITY);
+		check("point", Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void unbounded() throws Exception {
+		for (double version : new double[] { Double.NEGATIVE_INFINITY, -1, 0, 1, 3.25, 1000, Double.POSITIVE_INFINITY })
+			check("always", version, "always");
+	}
+
+	@Test(expectedExceptions = NoSuchMethodException.class)
+	public void unknownFunction() throws Exception {
+		controller.find("unknown", 1);
+	}
+
+	@Test(expectedExceptions = NoSuchMethodException.class)
+	public void unknownVersion() throws Exception {
+		controller.find("f", 3.25);
+	}
+
+	@Test
+	public void rest() throws Exception {
+		HttpTester response = getResponse(makeJsonPost("/table/rest/2.5/f", "{}"));
+		assert response.getStatus() == 200;
+		assert ((Map<?, ?>)new JSONParser().parse(response.getContent())).get("RESULT").equals("f2");
+
+		assert restStatus("/table/rest/3.25/f") == 404;
+		assert restStatus("/table/rest/4.99/point") == 404;
+		assert restStatus("/table/rest/1/unknown") == 404;
+	}
+
+	@Test
+	public void rpc() throws Exception {
+		HttpTester response = getResponse(makeJsonPost("/table/rpc/3.25", "[{\"id\":1,\"method\":\"f\",\"params\":{}}]"));
+		assert response.getStatus() == 200;
+		List<?> results = (List<?>)new JSONParser().parse(response.getContent());
+		assert ((Map<?, ?>)results.get(0)).get("status").equals("CALL_ERROR");
+		assert ((Map<?, ?>)results.get(0)).get("result").equals("No method f");
+	}
+}
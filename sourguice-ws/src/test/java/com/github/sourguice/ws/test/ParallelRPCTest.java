@@ -0,0 +1,291 @@
+package com.github.sourguice.ws.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.json.simple.JSONArray;
+import org.json.simple.parser.JSONParser;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.MvcServletModule;
+import com.github.sourguice.annotation.request.GuiceResponse;
+import com.github.sourguice.ws.JsonWSController;
+import com.github.sourguice.ws.annotation.WSInfos;
+import com.github.sourguice.ws.annotation.WSMethod;
+import com.github.sourguice.ws.annotation.WSParam;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+@SuppressWarnings("javadoc")
+public class ParallelRPCTest extends TestBase {
+
+	static final int PARALLEL_CALLS = 2;
+
+	static final AtomicInteger running = new AtomicInteger();
+
+	static final AtomicInteger finished = new AtomicInteger();
+
+	static int maxRunning = 0;
+
+	static CountDownLatch interrupted = new CountDownLatch(1);
+
+	static synchronized void Started() {
+		maxRunning = Math.max(maxRunning, running.incrementAndGet());
+	}
+
+	static void Finished() {
+		running.decrementAndGet();
+		finished.incrementAndGet();
+	}
+
+	// ===================== CONTROLLERS =====================
+
+	@Singleton
+	@WSInfos(parallelCalls = PARALLEL_CALLS)
+	public static class ParallelWS extends JsonWSController {
+		@Inject
+		public ParallelWS(Injector injector) {
+			super(injector);
+		}
+
+		@WSMethod(parallel = true)
+		public String sleep(@WSParam("ms") int ms) throws InterruptedException {
+			Started();
+			try {
+				Thread.sleep(ms);
+			}
+			finally {
+				Finished();
+			}
+			return Thread.currentThread().getName();
+		}
+
+		@WSMethod(parallel = true)
+		public String scoped(HttpServletRequest req, HttpServletResponse res, @GuiceResponse HttpServletResponse guiceRes) {
+			return req.getMethod() + ":" + (res != null) + ":" + (guiceRes != null) + ":" + Thread.currentThread().getName().startsWith("SourGuice-WS-RPC");
+		}
+
+		@WSMethod
+		public String sequential() {
+			return finished.get() + ":" + running.get();
+		}
+
+		@WSMethod(parallel = true)
+		public String interruptible() throws InterruptedException {
+			try {
+				Thread.sleep(10000);
+			}
+			catch (InterruptedException e) {
+				interrupted.countDown();
+				throw e;
+			}
+			return "not interrupted";
+		}
+	}
+
+	@Singleton
+	@WSInfos(parallel = true)
+	public static class RejectingWS extends JsonWSController {
+		@Inject
+		public RejectingWS(Injector injector) {
+			super(injector);
+		}
+
+		@Override
+		protected ExecutorService createRPCExecutor() {
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			executor.shutdown();
+			return executor;
+		}
+
+		@WSMethod
+		public String thread(@WSParam("ms") int ms) throws InterruptedException {
+			Thread.sleep(ms);
+			return Thread.currentThread().getName();
+		}
+	}
+
+	// ===================== MODULE =====================
+
+	public static class ParallelRPCModule extends MvcServletModule {
+		@Override
+		protected void configureControllers() {
+			control("/parallel/*").with(ParallelWS.class);
+			control("/rejecting/*").with(RejectingWS.class);
+		}
+	}
+
+	@Override
+	protected MvcServletModule module() {
+		return new ParallelRPCModule();
+	}
+
+	// ===================== HELPERS =====================
+
+	@BeforeMethod
+	public void reset() {
+		running.set(0);
+		finished.set(0);
+		maxRunning = 0;
+		interrupted = new CountDownLatch(1);
+	}
+
+	static String Call(int id, String method, String params) {
+		return "{\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":{" + params + "}}";
+	}
+
+	static String Sleep(int id, int ms) {
+		return Call(id, "sleep", "\"ms\":" + ms);
+	}
+
+	static String Batch(String... calls) {
+		StringBuilder builder = new StringBuilder("[");
+		for (String call : calls) {
+			if (builder.length() > 1)
+				builder.append(',');
+			builder.append(call);
+		}
+		return builder.append(']').toString();
+	}
+
+	JSONArray rpc(String uri, String batch) throws Exception {
+		HttpTester response = getResponse(makeJsonPost(uri, batch));
+		assert response.getStatus() == 200;
+		return (JSONArray)new JSONParser().parse(response.getContent());
+	}
+
+	static List<Long> Ids(JSONArray results) {
+		List<Long> ids = new ArrayList<>();
+		for (Object result : results)
+			ids.add((Long)((Map<?, ?>)result).get("id"));
+		return ids;
+	}
+
+	static String Result(JSONArray results, int index) {
+		return (String)((Map<?, ?>)results.get(index)).get("result");
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void orderedHeadOfLine() throws Exception {
+		// The slow first call holds back the results of the faster ones
+		JSONArray results = rpc("/parallel/rpc/1", Batch(Sleep(1, 300), Sleep(2, 0), Sleep(3, 50)));
+		assert Ids(results).equals(Arrays.asList(1L, 2L, 3L));
+		for (int i = 0; i < 3; ++i)
+			assert Result(results, i).startsWith("SourGuice-WS-RPC-");
+	}
+
+	@Test
+	public void concurrencyCap() throws Exception {
+		List<String> calls = new ArrayList<>();
+		for (int i = 0; i < 8; ++i)
+			calls.add(Sleep(i, 50));
+		JSONArray results = rpc("/parallel/rpc/1", Batch(calls.toArray(new String[calls.size()])));
+		assert results.size() == 8;
+		assert finished.get() == 8;
+		assert maxRunning == PARALLEL_CALLS : maxRunning;
+	}
+
+	@Test
+	public void sequentialWaitsForPrevious() throws Exception {
+		JSONArray results = rpc("/parallel/rpc/1", Batch(Sleep(1, 200), Sleep(2, 100), Call(3, "sequential", ""), Sleep(4, 0)));
+		assert Ids(results).equals(Arrays.asList(1L, 2L, 3L, 4L));
+		assert Result(results, 2).equals("2:0");
+	}
+
+	@Test
+	public void scopedInjections() throws Exception {
+		JSONArray results = rpc("/parallel/rpc/1", Batch(Call(1, "scoped", ""), Call(2, "scoped", "")));
+		assert Result(results, 0).equals("POST:true:true:true");
+		assert Result(results, 1).equals("POST:true:true:true");
+	}
+
+	@Test
+	public void rejectedRunsOnRequestThread() throws Exception {
+		JSONArray results = rpc("/rejecting/rpc/1", Batch(Call(1, "thread", "\"ms\":50"), Call(2, "thread", "\"ms\":0")));
+		assert Ids(results).equals(Arrays.asList(1L, 2L));
+		assert !Result(results, 0).startsWith("SourGuice-WS-RPC-");
+		assert !Result(results, 1).startsWith("SourGuice-WS-RPC-");
+	}
+
+	@Test
+	public void cancelOnError() throws Exception {
+		// The body is malformed after the calls: the request fails (once the response is started) and the pending call is interrupted
+		// The third call waits for the second one to release its place, by which time the first one is running
+		HttpTester response = getResponse(makeJsonPost("/parallel/rpc/1", "[" + Call(1, "interruptible", "") + "," + Sleep(2, 200) + "," + Sleep(3, 0) + ",{\"id\":"));
+		assert !response.getContent().contains("not interrupted");
+		assert interrupted.await(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void unorderedParameter() throws Exception {
+		JSONArray results = rpc("/parallel/rpc/1?" + JsonWSController.UNORDERED_PARAMETER, Batch(Sleep(1, 300), Sleep(2, 0)));
+		assert Ids(results).equals(Arrays.asList(2L, 1L));
+	}
+
+	@Test
+	public void unorderedHeader() throws Exception {
+		HttpTester request = makeJsonPost("/parallel/rpc/1", Batch(Sleep(1, 300), Sleep(2, 0)));
+		request.setHeader(JsonWSController.UNORDERED_HEADER, "true");
+		HttpTester response = getResponse(request);
+		assert response.getStatus() == 200;
+		assert Ids((JSONArray)new JSONParser().parse(response.getContent())).equals(Arrays.asList(2L, 1L));
+	}
+
+	@Test
+	public void unorderedFalse() throws Exception {
+		for (String query : new String[] { "=false", "=0", "=no" }) {
+			JSONArray results = rpc("/parallel/rpc/1?" + JsonWSController.UNORDERED_PARAMETER + query, Batch(Sleep(1, 200), Sleep(2, 0)));
+			assert Ids(results).equals(Arrays.asList(1L, 2L)) : query;
+		}
+
+		HttpTester request = makeJsonPost("/parallel/rpc/1", Batch(Sleep(1, 200), Sleep(2, 0)));
+		request.setHeader(JsonWSController.UNORDERED_HEADER, "false");
+		HttpTester response = getResponse(request);
+		assert response.getStatus() == 200;
+		assert Ids((JSONArray)new JSONParser().parse(response.getContent())).equals(Arrays.asList(1L, 2L));
+
+		// The header decides over the query parameter
+		request = makeJsonPost("/parallel/rpc/1?" + JsonWSController.UNORDERED_PARAMETER, Batch(Sleep(1, 200), Sleep(2, 0)));
+		request.setHeader(JsonWSController.UNORDERED_HEADER, "false");
+		assert Ids((JSONArray)new JSONParser().parse(getResponse(request).getContent())).equals(Arrays.asList(1L, 2L));
+	}
+
+	@Test
+	public void unorderedTrue() throws Exception {
+		for (String query : new String[] { "", "=true", "=TRUE", "=1" }) {
+			JSONArray results = rpc("/parallel/rpc/1?" + JsonWSController.UNORDERED_PARAMETER + query, Batch(Sleep(1, 300), Sleep(2, 0)));
+			assert Ids(results).equals(Arrays.asList(2L, 1L)) : query;
+		}
+	}
+
+	@Test
+	public void unorderedSaturated() throws Exception {
+		// More calls than PARALLEL_CALLS: results are written while waiting for a place
+		List<String> calls = new ArrayList<>();
+		for (int i = 0; i < 8; ++i)
+			calls.add(Sleep(i, (8 - i) * 20));
+		JSONArray results = rpc("/parallel/rpc/1?" + JsonWSController.UNORDERED_PARAMETER + "=1", Batch(calls.toArray(new String[calls.size()])));
+
+		List<Long> ids = Ids(results);
+		assert ids.get(0).longValue() == 1 : ids;
+		Collections.sort(ids);
+		assert ids.equals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L)) : ids;
+		assert maxRunning == PARALLEL_CALLS : maxRunning;
+	}
+}
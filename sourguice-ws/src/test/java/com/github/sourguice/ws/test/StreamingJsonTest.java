@@ -0,0 +1,254 @@
+package com.github.sourguice.ws.test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.utils.Annotations;
+import com.github.sourguice.ws.annotation.WSCheckForNull;
+import com.github.sourguice.ws.annotation.WSFieldName;
+import com.github.sourguice.ws.annotation.WSSince;
+import com.github.sourguice.ws.annotation.WSStrict;
+import com.github.sourguice.ws.annotation.WSUntil;
+import com.github.sourguice.ws.jsontrans.JsonReader;
+import com.github.sourguice.ws.jsontrans.JsonWriter;
+import com.github.sourguice.ws.jsontrans.SourJsonTransformer;
+import com.github.sourguice.ws.jsontrans.SourJsonTransformer.JsonTransformException;
+import com.github.sourguice.ws.translat.WSTranslaterFactory;
+import com.googlecode.gentyref.TypeToken;
+
+/*
+ * The streaming writeJSON and readJSON must give exactly what the tree based toJSON and fromJSON give.
+ */
+@SuppressWarnings("javadoc")
+public class StreamingJsonTest {
+
+	// ===================== BEANS =====================
+
+	public static class Base {
+		int number = 42;
+
+		@WSFieldName("shared")
+		@WSCheckForNull
+		String baseShared = "base";
+	}
+
+	public static class Child extends Base {
+		@WSSince(2)
+		@WSCheckForNull
+		String since = "since";
+
+		@WSUntil(2)
+		@WSCheckForNull
+		String until = "until";
+
+		@WSFieldName("shared")
+		@WSCheckForNull
+		String childShared = "child";
+
+		@WSCheckForNull
+		Empty empty = new Empty();
+
+		@WSCheckForNull
+		List<String> emptyList = new ArrayList<>();
+
+		@WSCheckForNull
+		Map<String, Integer> map = new HashMap<>(Collections.singletonMap("key", 21));
+
+		@WSCheckForNull
+		Base[] array = { new Base() };
+	}
+
+	public static class Empty {
+		@WSCheckForNull
+		String nothing = null;
+	}
+
+	public static class Holder {
+		@WSCheckForNull
+		List<Base> bases = new ArrayList<Base>(Arrays.asList(new Base(), new Child()));
+	}
+
+	public static class Node {
+		@WSCheckForNull
+		Node child;
+	}
+
+	@WSStrict
+	public static List<Base> strictBases() {
+		return null;
+	}
+
+	// ===================== HELPERS =====================
+
+	static final AnnotatedElement NO_ANNOTATION = Annotations.fromArray(new Annotation[0]);
+
+	SourJsonTransformer transformer = new SourJsonTransformer(Collections.<WSTranslaterFactory<?, ?>>emptyList(), null);
+
+	String write(Object from, Type type, double version, AnnotatedElement anno, boolean allowEmpty) throws Exception {
+		StringWriter out = new StringWriter();
+		JsonWriter writer = new JsonWriter(out);
+		transformer.writeJSON(writer, from, type, version, anno, allowEmpty, null);
+		writer.flush();
+		return out.toString();
+	}
+
+	// toJSON gives Integers where the parser gives Longs, so both are compared once written and parsed
+	static Object Parse(String json) throws Exception {
+		return new JSONParser().parse(json);
+	}
+
+	// ===================== DATA PROVIDERS =====================
+
+	@DataProvider(name = "values")
+	public Object[][] values() throws Exception {
+		AnnotatedElement strict = Annotations.fromArray(getClass().getMethod("strictBases").getAnnotations());
+		Type listOfBase = new TypeToken<List<Base>>() {}.getType();
+		List<Object[]> values = new ArrayList<>();
+		for (double version : new double[] { 1, 2, 3 }) {
+			values.add(new Object[] { new Child(), Child.class, version, NO_ANNOTATION });
+			values.add(new Object[] { new Child(), Base.class, version, NO_ANNOTATION });
+			values.add(new Object[] { new Holder(), Holder.class, version, NO_ANNOTATION });
+			values.add(new Object[] { new Holder().bases, listOfBase, version, NO_ANNOTATION });
+			values.add(new Object[] { new Holder().bases, listOfBase, version, strict });
+		}
+		return values.toArray(new Object[values.size()][]);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test(dataProvider = "values")
+	public void writeMatchesToJSON(Object from, Type type, double version, AnnotatedElement anno) throws Exception {
+		for (boolean allowEmpty : new boolean[] { true, false }) {
+			String tree = JSONValue.toJSONString(transformer.toJSON(from, type, version, anno, allowEmpty, null));
+			assert Parse(write(from, type, version, anno, allowEmpty)).equals(Parse(tree));
+		}
+	}
+
+	@Test(dataProvider = "values")
+	public void readMatchesFromJSON(Object from, Type type, double version, AnnotatedElement anno) throws Exception {
+		String json = write(from, type, version, anno, true);
+
+		Object read = transformer.readJSON(new JsonReader(new StringReader(json)), type, version, anno, null);
+		Object bound = transformer.fromJSON(Parse(json), type, version, anno, null);
+
+		assert read.getClass() == bound.getClass();
+		String readJson = write(read, type, version, anno, true);
+		assert readJson.equals(write(bound, type, version, anno, true));
+		assert Parse(readJson).equals(Parse(json));
+	}
+
+	@Test
+	public void duplicateFieldName() throws Exception {
+		// Both fields are written, in declaration order, so that the parent one is what a parser keeps
+		String json = write(new Child(), Child.class, 2, NO_ANNOTATION, true);
+		assert json.indexOf("\"shared\":\"child\"") < json.indexOf("\"shared\":\"base\"");
+		assert ((Map<?, ?>)Parse(json)).get("shared").equals("base");
+
+		// Both fields are bound from the same member
+		Child child = transformer.readJSON(new JsonReader(new StringReader(json)), Child.class, 2, NO_ANNOTATION, null);
+		assert child.baseShared.equals("base");
+		assert child.childShared.equals("base");
+	}
+
+	@Test
+	public void versionExclusion() throws Exception {
+		Map<?, ?> v1 = (Map<?, ?>)Parse(write(new Child(), Child.class, 1, NO_ANNOTATION, true));
+		assert v1.containsKey("since") && !v1.containsKey("until");
+		Map<?, ?> v3 = (Map<?, ?>)Parse(write(new Child(), Child.class, 3, NO_ANNOTATION, true));
+		assert !v3.containsKey("since") && v3.containsKey("until");
+	}
+
+	@Test
+	public void droppedEmptyBeans() throws Exception {
+		Map<?, ?> json = (Map<?, ?>)Parse(write(new Child(), Child.class, 2, NO_ANNOTATION, true));
+		assert !json.containsKey("empty");
+		assert !json.containsKey("emptyList");
+		assert json.containsKey("map");
+
+		assert write(new Empty(), Empty.class, 2, NO_ANNOTATION, false).isEmpty();
+		assert Parse(write(new Empty(), Empty.class, 2, NO_ANNOTATION, true)).equals(Parse(JSONValue.toJSONString(transformer.toJSON(new Empty(), Empty.class, 2, NO_ANNOTATION, true, null))));
+	}
+
+	@Test
+	public void strict() throws Exception {
+		AnnotatedElement strict = Annotations.fromArray(getClass().getMethod("strictBases").getAnnotations());
+		Type listOfBase = new TypeToken<List<Base>>() {}.getType();
+		List<?> json = (List<?>)Parse(write(new Holder().bases, listOfBase, 2, strict, true));
+		for (Object element : json)
+			assert ((Map<?, ?>)element).get("!type").equals(Base.class.getName());
+	}
+
+	@Test
+	public void typeNotFirst() throws Exception {
+		// Written by another client: the object is read as a tree, then bound by fromJSON
+		String json = "{\"number\":7,\"shared\":\"other\",\"!type\":\"" + Child.class.getName() + "\"}";
+		Base read = transformer.readJSON(new JsonReader(new StringReader(json)), Base.class, 2, NO_ANNOTATION, null);
+		Base bound = transformer.fromJSON(Parse(json), Base.class, 2, NO_ANNOTATION, null);
+		assert read instanceof Child && bound instanceof Child;
+		assert write(read, Base.class, 2, NO_ANNOTATION, true).equals(write(bound, Base.class, 2, NO_ANNOTATION, true));
+	}
+
+	@Test
+	public void knownClasses() throws Exception {
+		List<Class<?>> knownClasses = new ArrayList<>();
+		knownClasses.add(Base.class);
+		SourJsonTransformer transformer = new SourJsonTransformer(Collections.<WSTranslaterFactory<?, ?>>emptyList(), knownClasses);
+
+		Base read = transformer.readJSON(new JsonReader(new StringReader("{\"!type\":\"" + Base.class.getName() + "\",\"number\":7}")), Base.class, 2, NO_ANNOTATION, null);
+		assert read.getClass() == Base.class && read.number == 7;
+
+		// Child is loadable, but not known
+		try {
+			transformer.readJSON(new JsonReader(new StringReader("{\"!type\":\"" + Child.class.getName() + "\",\"number\":7}")), Base.class, 2, NO_ANNOTATION, null);
+			assert false;
+		}
+		catch (JsonTransformException e) {
+			assert e.getMessage().equals("Could not find " + Child.class.getName());
+		}
+	}
+
+	static String Nested(int depth) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < depth; ++i)
+			builder.append('[');
+		for (int i = 0; i < depth; ++i)
+			builder.append(']');
+		return builder.toString();
+	}
+
+	@Test
+	public void maxDepth() throws Exception {
+		assert new JsonReader(new StringReader(Nested(JsonReader.MAX_DEPTH))).nextTree() instanceof List;
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void tooDeep() throws Exception {
+		new JsonReader(new StringReader(Nested(100000))).nextTree();
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void tooDeepBean() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100000; ++i)
+			builder.append("{\"!type\":\"").append(Node.class.getName()).append("\",\"child\":");
+		builder.append("null");
+		for (int i = 0; i < 100000; ++i)
+			builder.append('}');
+		transformer.readJSON(new JsonReader(new StringReader(builder.toString())), Node.class, 2, NO_ANNOTATION, null);
+	}
+}
@@ -0,0 +1,73 @@
+package com.github.sourguice.ws.test;
+
+import org.eclipse.jetty.servlet.DefaultServlet;
+import org.eclipse.jetty.testing.HttpTester;
+import org.eclipse.jetty.testing.ServletTester;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import com.github.sourguice.MvcServletModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.servlet.GuiceFilter;
+import com.google.inject.servlet.GuiceServletContextListener;
+
+@SuppressWarnings("javadoc")
+public abstract class TestBase {
+
+	public static class StandardContextListener<T extends MvcServletModule> extends GuiceServletContextListener {
+
+		T module;
+
+		public StandardContextListener(T module) {
+			super();
+			this.module = module;
+		}
+
+		@Override
+		protected Injector getInjector() {
+			return Guice.createInjector(module);
+		}
+
+	}
+
+	protected ServletTester	tester = null;
+
+	@BeforeClass
+	public void startupServletTester() throws Exception {
+		tester = new ServletTester();
+		tester.setContextPath("/");
+		tester.addEventListener(new StandardContextListener<>(module()));
+		tester.addFilter(GuiceFilter.class, "/*", 0);
+		tester.addServlet(DefaultServlet.class, "/");
+		tester.start();
+	}
+
+	@AfterClass
+	public void teardownServletTester() throws Exception {
+		tester.stop();
+	}
+
+	public HttpTester makeRequest(String method, String uri) {
+		HttpTester request = new HttpTester();
+		request.setMethod(method);
+		request.setURI(uri);
+		request.setHeader("Host", "tester");
+		return request;
+	}
+
+	public HttpTester makeJsonPost(String uri, String json) {
+		HttpTester request = makeRequest("POST", uri);
+		request.setHeader("Content-Type", "application/json");
+		request.setContent(json);
+		return request;
+	}
+
+	public HttpTester getResponse(HttpTester request) throws Exception {
+		HttpTester response = new HttpTester();
+		response.parse(tester.getResponses(request.generate()));
+		return response;
+	}
+
+	abstract protected MvcServletModule module();
+}
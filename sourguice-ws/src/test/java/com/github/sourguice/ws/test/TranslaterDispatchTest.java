@@ -0,0 +1,110 @@
+package com.github.sourguice.ws.test;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.annotation.CheckForNull;
+
+import org.testng.annotations.Test;
+
+import com.github.sourguice.ws.jsontrans.SourJsonTransformer;
+import com.github.sourguice.ws.translat.WSTranslater;
+import com.github.sourguice.ws.translat.WSTranslaterFactory;
+
+@SuppressWarnings("javadoc")
+public class TranslaterDispatchTest {
+
+	// ===================== TRANSLATERS =====================
+
+	// Writes its values as their string prefixed, and counts how many times its server class is checked
+	public static class PrefixFactory<S> implements WSTranslaterFactory<S, String> {
+		final Class<S> cls;
+		final String prefix;
+		int checks = 0;
+
+		PrefixFactory(Class<S> cls, String prefix) {
+			this.cls = cls;
+			this.prefix = prefix;
+		}
+
+		@Override public Class<S> getServerClass() {
+			++checks;
+			return cls;
+		}
+
+		@Override public Type getClientType(Type typeOnServer, AnnotatedElement el) {
+			return String.class;
+		}
+
+		@Override public WSTranslater<S, String> getTranslater() {
+			return new WSTranslater<S, String>() {
+				@Override public @CheckForNull String toWS(S obj, Type typeOnServer, AnnotatedElement el, @CheckForNull Object enclosing) {
+					return prefix + obj;
+				}
+				@Override public @CheckForNull S fromWS(String obj, Type typeOnServer, AnnotatedElement el, @CheckForNull Object enclosing) {
+					return null;
+				}
+			};
+		}
+
+		@Override public boolean isInternal() {
+			return false;
+		}
+	}
+
+	// ===================== HELPERS =====================
+
+	static SourJsonTransformer Transformer(WSTranslaterFactory<?, ?>... factories) {
+		return new SourJsonTransformer(new ArrayList<WSTranslaterFactory<?, ?>>(Arrays.asList(factories)), null);
+	}
+
+	// ===================== TESTS =====================
+
+	@Test
+	public void firstAssignableMatch() throws Exception {
+		PrefixFactory<Number> number = new PrefixFactory<>(Number.class, "number:");
+		PrefixFactory<Integer> integer = new PrefixFactory<>(Integer.class, "integer:");
+
+		SourJsonTransformer numberFirst = Transformer(number, integer);
+		assert numberFirst.toJSON(Integer.valueOf(5), Integer.class, 1).equals("number:5");
+		assert numberFirst.toJSON(Long.valueOf(5), Long.class, 1).equals("number:5");
+
+		SourJsonTransformer integerFirst = Transformer(integer, number);
+		assert integerFirst.toJSON(Integer.valueOf(5), Integer.class, 1).equals("integer:5");
+		assert integerFirst.toJSON(Long.valueOf(5), Long.class, 1).equals("number:5");
+	}
+
+	@Test
+	public void resolvedOncePerClass() throws Exception {
+		PrefixFactory<Number> number = new PrefixFactory<>(Number.class, "number:");
+		SourJsonTransformer transformer = Transformer(number);
+
+		assert transformer.toJSON(Integer.valueOf(5), Integer.class, 1).equals("number:5");
+		int checks = number.checks;
+		assert transformer.toJSON(Integer.valueOf(6), Integer.class, 1).equals("number:6");
+		assert number.checks == checks;
+	}
+
+	@Test
+	public void noTranslaterCached() throws Exception {
+		PrefixFactory<Number> number = new PrefixFactory<>(Number.class, "number:");
+		SourJsonTransformer transformer = Transformer(number);
+
+		assert transformer.toJSON("text", String.class, 1).equals("text");
+		int checks = number.checks;
+		assert checks > 0;
+		assert transformer.toJSON("other", String.class, 1).equals("other");
+		assert number.checks == checks;
+	}
+
+	@Test
+	public void translatersCopied() throws Exception {
+		Collection<WSTranslaterFactory<?, ?>> factories = new ArrayList<>();
+		SourJsonTransformer transformer = new SourJsonTransformer(factories, null);
+		factories.add(new PrefixFactory<>(Integer.class, "integer:"));
+		assert transformer.toJSON(Integer.valueOf(5), Integer.class, 1).equals(Integer.valueOf(5));
+	}
+}
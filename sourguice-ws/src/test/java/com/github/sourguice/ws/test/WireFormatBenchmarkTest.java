@@ -0,0 +1,117 @@
+package com.github.sourguice.ws.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.ws.jsontrans.SourJsonTransformer;
+import com.github.sourguice.ws.jsontrans.WireFormat;
+import com.github.sourguice.ws.translat.WSTranslaterFactory;
+import com.googlecode.gentyref.TypeToken;
+
+/*
+ * Compares the payload size and the encode / decode times of the binary wire formats against JSON (json-simple),
+ * on the JSON tree of a 200 beans response.
+ * The times are only logged to the TestNG reporter, never asserted, so that the suite does not depend on the machine running it.
+ * Like every test of the "benchmark" group, it only runs with the benchmark profile (mvn test -Pbenchmark).
+ */
+@SuppressWarnings("javadoc")
+public class WireFormatBenchmarkTest {
+
+	static final int BEANS = 200;
+
+	static final int WARMUP = 300;
+
+	static final int ITERATIONS = 300;
+
+	// ===================== BEANS =====================
+
+	public static class Bean {
+		long id;
+		String name;
+		double score;
+		boolean active;
+		List<String> tags;
+
+		Bean(int i) {
+			this.id = 1000000L * i;
+			this.name = "bean number " + i;
+			this.score = i / 7.0;
+			this.active = i % 2 == 0;
+			this.tags = Arrays.asList("tag" + i % 3, "tag" + i % 5);
+		}
+	}
+
+	// ===================== HELPERS =====================
+
+	static Object Tree() throws Exception {
+		List<Bean> beans = new ArrayList<>();
+		for (int i = 0; i < BEANS; ++i)
+			beans.add(new Bean(i));
+		SourJsonTransformer transformer = new SourJsonTransformer(Collections.<WSTranslaterFactory<?, ?>>emptyList(), null);
+		return transformer.toJSON(beans, new TypeToken<List<Bean>>() {}.getType(), 1);
+	}
+
+	static byte[] Encode(WireFormat format, Object tree) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if (format != null)
+			format.write(tree, out);
+		else
+			try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+				JSONValue.writeJSONString(tree, writer);
+			}
+		return out.toByteArray();
+	}
+
+	static Object Decode(WireFormat format, byte[] bytes) throws Exception {
+		if (format != null)
+			return format.read(new ByteArrayInputStream(bytes));
+		return new JSONParser().parse(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+	}
+
+	// ===================== DATA PROVIDERS =====================
+
+	@DataProvider(name = "formats")
+	public Object[][] formats() {
+		return new Object[][] { { "CBOR", WireFormat.CBOR }, { "MsgPack", WireFormat.MSGPACK }, { "JSON", null } };
+	}
+
+	// ===================== TESTS =====================
+
+	@Test(dataProvider = "formats", groups = "benchmark")
+	public void encodeDecode(String name, WireFormat format) throws Exception {
+		Object tree = Tree();
+		byte[] bytes = Encode(format, tree);
+
+		for (int i = 0; i < WARMUP; ++i)
+			Decode(format, Encode(format, tree));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; ++i)
+			Encode(format, tree);
+		long encode = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; ++i)
+			Decode(format, bytes);
+		long decode = System.nanoTime() - start;
+
+		Reporter.log(String.format("%-8s %6d B, encode %8.1f us, decode %8.1f us", name, bytes.length, encode / 1000.0 / ITERATIONS, decode / 1000.0 / ITERATIONS));
+
+		// Decoded as JSONParser would have parsed the JSON of the tree
+		assert Decode(format, bytes).equals(new JSONParser().parse(JSONValue.toJSONString(tree)));
+	}
+}
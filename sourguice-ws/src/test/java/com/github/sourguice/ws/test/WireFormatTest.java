@@ -0,0 +1,225 @@
+package com.github.sourguice.ws.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.sourguice.ws.jsontrans.WireFormat;
+
+@SuppressWarnings("javadoc")
+public class WireFormatTest {
+
+	// ===================== HELPERS =====================
+
+	static byte[] Encode(WireFormat format, Object value) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		format.write(value, out);
+		return out.toByteArray();
+	}
+
+	static Object Decode(WireFormat format, int... bytes) throws Exception {
+		byte[] buffer = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; ++i)
+			buffer[i] = (byte)bytes[i];
+		return Decode(format, buffer);
+	}
+
+	static Object Decode(WireFormat format, byte[] bytes) throws Exception {
+		return format.read(new ByteArrayInputStream(bytes));
+	}
+
+	static byte[] Nested(int depth, int head, int leaf) {
+		byte[] bytes = new byte[depth + 1];
+		Arrays.fill(bytes, (byte)head);
+		bytes[depth] = (byte)leaf;
+		return bytes;
+	}
+
+	@SuppressWarnings("unchecked")
+	static JSONObject Tree() {
+		JSONArray array = new JSONArray();
+		array.add(Long.valueOf(1));
+		array.add("two");
+		array.add(null);
+		array.add(new JSONArray());
+
+		JSONObject object = new JSONObject();
+		object.put("!type", "com.example.Bean");
+		object.put("string", "h\u00e9llo \u2603");
+		object.put("long", Long.valueOf(Long.MAX_VALUE));
+		object.put("negative", Long.valueOf(Long.MIN_VALUE));
+		object.put("small", Long.valueOf(-24));
+		object.put("float", Double.valueOf(1.5));
+		object.put("double", Double.valueOf(0.1));
+		object.put("true", Boolean.TRUE);
+		object.put("false", Boolean.FALSE);
+		object.put("null", null);
+		object.put("array", array);
+		object.put("empty", new JSONObject());
+		return object;
+	}
+
+	// ===================== DATA PROVIDERS =====================
+
+	@DataProvider(name = "formats")
+	public Object[][] formats() {
+		return new Object[][] { { WireFormat.CBOR }, { WireFormat.MSGPACK } };
+	}
+
+	// ===================== TESTS =====================
+
+	@Test(dataProvider = "formats")
+	public void roundTrip(WireFormat format) throws Exception {
+		JSONObject tree = Tree();
+		assert Decode(format, Encode(format, tree)).equals(tree);
+	}
+
+	@Test(dataProvider = "formats")
+	public void integersAreLongs(WireFormat format) throws Exception {
+		assert Decode(format, Encode(format, Integer.valueOf(42))).equals(Long.valueOf(42));
+		assert Decode(format, Encode(format, Short.valueOf((short)-300))).equals(Long.valueOf(-300));
+		assert Decode(format, Encode(format, Float.valueOf(2.5f))).equals(Double.valueOf(2.5));
+		// Beyond a long, integers are written as doubles
+		assert Decode(format, Encode(format, BigInteger.ONE.shiftLeft(64))).equals(Double.valueOf(Math.pow(2, 64)));
+	}
+
+	@Test
+	public void cborBeyondLong() throws Exception {
+		// 2^64 - 1, and -2^64, which do not fit in a long
+		assert Decode(WireFormat.CBOR, 0x1b, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Double.valueOf(18446744073709551615.0));
+		assert Decode(WireFormat.CBOR, 0x3b, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Double.valueOf(-18446744073709551616.0));
+		// 2^63, the first unsigned value that does not fit
+		assert Decode(WireFormat.CBOR, 0x1b, 0x80, 0, 0, 0, 0, 0, 0, 0).equals(Double.valueOf(Math.pow(2, 63)));
+		assert Decode(WireFormat.CBOR, 0x1b, 0x7f, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Long.valueOf(Long.MAX_VALUE));
+		assert Decode(WireFormat.CBOR, 0x3b, 0x7f, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Long.valueOf(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void msgPackBeyondLong() throws Exception {
+		assert Decode(WireFormat.MSGPACK, 0xcf, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Double.valueOf(18446744073709551615.0));
+		assert Decode(WireFormat.MSGPACK, 0xcf, 0x7f, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff).equals(Long.valueOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void cborHalfFloats() throws Exception {
+		assert Decode(WireFormat.CBOR, 0xf9, 0x00, 0x00).equals(Double.valueOf(0.0));
+		assert Decode(WireFormat.CBOR, 0xf9, 0x3c, 0x00).equals(Double.valueOf(1.0));
+		assert Decode(WireFormat.CBOR, 0xf9, 0x3e, 0x00).equals(Double.valueOf(1.5));
+		assert Decode(WireFormat.CBOR, 0xf9, 0xc4, 0x00).equals(Double.valueOf(-4.0));
+		assert Decode(WireFormat.CBOR, 0xf9, 0x7b, 0xff).equals(Double.valueOf(65504.0));
+		// Subnormal
+		assert Decode(WireFormat.CBOR, 0xf9, 0x00, 0x01).equals(Double.valueOf(5.960464477539063E-8));
+		assert Decode(WireFormat.CBOR, 0xf9, 0x7c, 0x00).equals(Double.valueOf(Double.POSITIVE_INFINITY));
+		assert Decode(WireFormat.CBOR, 0xf9, 0xfc, 0x00).equals(Double.valueOf(Double.NEGATIVE_INFINITY));
+		assert ((Double)Decode(WireFormat.CBOR, 0xf9, 0x7e, 0x00)).isNaN();
+	}
+
+	@Test
+	public void cborIndefiniteLengths() throws Exception {
+		assert Decode(WireFormat.CBOR, 0x9f, 0x01, 0x9f, 0xff, 0xff).equals(Arrays.asList(Long.valueOf(1), new JSONArray()));
+		JSONObject object = (JSONObject)Decode(WireFormat.CBOR, 0xbf, 0x61, 'a', 0x01, 0x61, 'b', 0x9f, 0xff, 0xff);
+		assert object.size() == 2 && object.get("a").equals(Long.valueOf(1)) && object.get("b").equals(new JSONArray());
+		assert Decode(WireFormat.CBOR, 0x7f, 0x62, 'a', 'b', 0x61, 'c', 0x60, 0xff).equals("abc");
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void cborIndefiniteStringOfArrays() throws Exception {
+		Decode(WireFormat.CBOR, 0x7f, 0x80, 0xff);
+	}
+
+	@Test
+	public void cborTagsIgnored() throws Exception {
+		// Tag 1 (epoch time)
+		assert Decode(WireFormat.CBOR, 0xc1, 0x1a, 0x51, 0x4b, 0x67, 0xb0).equals(Long.valueOf(1363896240));
+	}
+
+	@Test(dataProvider = "formats", expectedExceptions = ParseException.class)
+	public void trailingBytes(WireFormat format) throws Exception {
+		byte[] encoded = Encode(format, Long.valueOf(1));
+		Decode(format, Arrays.copyOf(encoded, encoded.length + 1));
+	}
+
+	@Test(dataProvider = "formats", expectedExceptions = ParseException.class)
+	public void truncated(WireFormat format) throws Exception {
+		byte[] encoded = Encode(format, Tree());
+		Decode(format, Arrays.copyOf(encoded, encoded.length - 1));
+	}
+
+	@Test
+	public void maxDepth() throws Exception {
+		// One element arrays
+		assert Decode(WireFormat.CBOR, Nested(WireFormat.MAX_DEPTH, 0x81, 0x01)) instanceof JSONArray;
+		assert Decode(WireFormat.MSGPACK, Nested(WireFormat.MAX_DEPTH, 0x91, 0x01)) instanceof JSONArray;
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void cborTooDeep() throws Exception {
+		Decode(WireFormat.CBOR, Nested(100000, 0x81, 0x01));
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void cborIndefiniteTooDeep() throws Exception {
+		Decode(WireFormat.CBOR, Nested(100000, 0x9f, 0x01));
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void cborTagsTooDeep() throws Exception {
+		Decode(WireFormat.CBOR, Nested(100000, 0xc1, 0x01));
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void cborMapTooDeep() throws Exception {
+		// One entry maps, whose key is "a": a1 61 61 a1 61 61 ...
+		byte[] bytes = new byte[3 * 100000 + 1];
+		for (int i = 0; i < 100000; ++i) {
+			bytes[3 * i] = (byte)0xa1;
+			bytes[3 * i + 1] = (byte)0x61;
+			bytes[3 * i + 2] = (byte)'a';
+		}
+		bytes[3 * 100000] = 0x01;
+		Decode(WireFormat.CBOR, bytes);
+	}
+
+	@Test(expectedExceptions = ParseException.class)
+	public void msgPackTooDeep() throws Exception {
+		Decode(WireFormat.MSGPACK, Nested(100000, 0x91, 0x01));
+	}
+
+	@Test
+	public void negotiate() throws Exception {
+		assert WireFormat.Of("application/cbor") == WireFormat.CBOR;
+		assert WireFormat.Of("Application/CBOR; charset=binary") == WireFormat.CBOR;
+		assert WireFormat.Of("application/x-msgpack") == WireFormat.MSGPACK;
+		assert WireFormat.Of("application/json") == null;
+		assert WireFormat.Of(null) == null;
+
+		// The Accept header chooses
+		assert WireFormat.Negotiate("application/json", "application/cbor") == WireFormat.CBOR;
+		// The highest q value chooses, the first one listed among equals
+		assert WireFormat.Negotiate("application/cbor", "application/msgpack;q=0.9, application/cbor") == WireFormat.CBOR;
+		assert WireFormat.Negotiate(null, "application/json;q=0.5, application/msgpack") == WireFormat.MSGPACK;
+		assert WireFormat.Negotiate(null, "application/cbor;q=0.5, application/msgpack;q=0.5") == WireFormat.CBOR;
+		assert WireFormat.Negotiate(null, "application/cbor;q=0.5, application/json;q=0.8") == null;
+		// q=0 refuses a format, even the one of the request
+		assert WireFormat.Negotiate(null, "application/cbor;q=0") == null;
+		assert WireFormat.Negotiate(null, "application/cbor;q=0, application/msgpack") == WireFormat.MSGPACK;
+		assert WireFormat.Negotiate("application/cbor", "application/cbor;q=0") == null;
+		assert WireFormat.Negotiate("application/cbor", "*/*, application/cbor;q=0") == null;
+		assert WireFormat.Negotiate("application/cbor", "application/cbor;q=0, application/msgpack;q=0.1") == WireFormat.MSGPACK;
+		// JSON or text listed before any binary format keeps JSON
+		assert WireFormat.Negotiate("application/cbor", "application/json, application/cbor") == null;
+		assert WireFormat.Negotiate("application/msgpack", "text/plain") == null;
+		// Without a preference, the format of the request
+		assert WireFormat.Negotiate("application/msgpack", null) == WireFormat.MSGPACK;
+		assert WireFormat.Negotiate("application/cbor", "*/*") == WireFormat.CBOR;
+		assert WireFormat.Negotiate(null, "*/*") == null;
+		assert WireFormat.Negotiate(null, null) == null;
+	}
+}